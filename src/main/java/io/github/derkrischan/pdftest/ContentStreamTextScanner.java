@@ -0,0 +1,171 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.BeginText;
+import org.apache.pdfbox.contentstream.operator.text.EndText;
+import org.apache.pdfbox.contentstream.operator.text.MoveText;
+import org.apache.pdfbox.contentstream.operator.text.MoveTextSetLeading;
+import org.apache.pdfbox.contentstream.operator.text.NextLine;
+import org.apache.pdfbox.contentstream.operator.text.SetCharSpacing;
+import org.apache.pdfbox.contentstream.operator.text.SetFontAndSize;
+import org.apache.pdfbox.contentstream.operator.text.SetTextHorizontalScaling;
+import org.apache.pdfbox.contentstream.operator.text.SetTextLeading;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRise;
+import org.apache.pdfbox.contentstream.operator.text.SetWordSpacing;
+import org.apache.pdfbox.contentstream.operator.text.ShowText;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextAdjusted;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLine;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLineAndSpace;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+/**
+ * Extracts the text of PDF pages straight from the text showing operators (<code>Tj</code>, <code>TJ</code>,
+ * <code>'</code> and <code>"</code>) of the content streams without the layout analysis of the text stripper
+ * (see {@link io.github.derkrischan.pdftest.text.TextExtractionEngine#FAST}). Only the operators needed to
+ * follow the text position are processed. Word and line separators are derived from the gap between the end
+ * of the previous glyph and the start of the next one.
+ *
+ * @author krischan
+ *
+ */
+final class ContentStreamTextScanner extends PDFStreamEngine {
+
+	/** gap along the base line, relative to the font size, that separates two words */
+	private static final float WORD_GAP = 0.15f;
+
+	/** offset across the base line, relative to the font size, that starts a new line */
+	private static final float LINE_GAP = 0.5f;
+
+	/** the extracted text */
+	private final StringBuilder text = new StringBuilder();
+
+	/** whether a glyph has been shown on the current page */
+	private boolean glyphShown;
+
+	/** the end point of the previous glyph in device space */
+	private float lastEndX;
+
+	/** the end point of the previous glyph in device space */
+	private float lastEndY;
+
+	/** the writing direction of the previous glyph as unit vector */
+	private float directionX = 1;
+
+	/** the writing direction of the previous glyph as unit vector */
+	private float directionY;
+
+	/**
+	 * Creates a scanner processing the text related operators only.
+	 */
+	private ContentStreamTextScanner() {
+		addOperator(new BeginText(this));
+		addOperator(new EndText(this));
+		addOperator(new SetFontAndSize(this));
+		addOperator(new ShowText(this));
+		addOperator(new ShowTextAdjusted(this));
+		addOperator(new ShowTextLine(this));
+		addOperator(new ShowTextLineAndSpace(this));
+		addOperator(new MoveText(this));
+		addOperator(new MoveTextSetLeading(this));
+		addOperator(new NextLine(this));
+		addOperator(new SetTextLeading(this));
+		addOperator(new SetCharSpacing(this));
+		addOperator(new SetWordSpacing(this));
+		addOperator(new SetTextHorizontalScaling(this));
+		addOperator(new SetTextRise(this));
+		addOperator(new SetMatrix(this));
+		addOperator(new Concatenate(this));
+		addOperator(new Save(this));
+		addOperator(new Restore(this));
+		addOperator(new SetGraphicsStateParameters(this));
+		addOperator(new DrawObject(this));
+	}
+
+	/**
+	 * Extracts the text of the given page range. Every page ends with a line break.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pStartPage the first page (inclusive, starting at 1)
+	 * @param pEndPage the last page (inclusive)
+	 * @param pPageOffsets receives the start offset of every page in the returned text
+	 * @return the text of the page range
+	 * @throws IOException in case a content stream cannot be read
+	 */
+	static String getText(final PDDocument pDocument, final int pStartPage, final int pEndPage,
+			final int[] pPageOffsets) throws IOException {
+		ContentStreamTextScanner scanner = new ContentStreamTextScanner();
+		for (int pageNumber = pStartPage; pageNumber <= pEndPage; pageNumber++) {
+			pPageOffsets[pageNumber - pStartPage] = scanner.text.length();
+			PDPage page = pDocument.getPage(pageNumber - 1);
+			scanner.glyphShown = false;
+			if (page.hasContents()) {
+				scanner.processPage(page);
+			}
+			scanner.text.append('\n');
+		}
+		return scanner.text.toString();
+	}
+
+	@Override
+	protected void showGlyph(final Matrix pTextRenderingMatrix, final PDFont pFont, final int pCode,
+			final Vector pDisplacement) throws IOException {
+		float startX = pTextRenderingMatrix.getTranslateX();
+		float startY = pTextRenderingMatrix.getTranslateY();
+		Point2D.Float end = pTextRenderingMatrix.transformPoint(pDisplacement.getX(), pDisplacement.getY());
+		float size = Math.max(pTextRenderingMatrix.getScalingFactorY(), Float.MIN_NORMAL);
+		if (glyphShown) {
+			float gapX = startX - lastEndX;
+			float gapY = startY - lastEndY;
+			float along = gapX * directionX + gapY * directionY;
+			float across = Math.abs(gapX * directionY - gapY * directionX);
+			if (across > LINE_GAP * size) {
+				separate('\n');
+			} else if (along > WORD_GAP * size) {
+				separate(' ');
+			}
+		}
+		String unicode = pFont.toUnicode(pCode);
+		if (unicode != null) {
+			text.append(unicode);
+		}
+		float advanceX = end.x - startX;
+		float advanceY = end.y - startY;
+		float advance = (float) Math.sqrt(advanceX * advanceX + advanceY * advanceY);
+		if (advance > 0) {
+			directionX = advanceX / advance;
+			directionY = advanceY / advance;
+		}
+		lastEndX = end.x;
+		lastEndY = end.y;
+		glyphShown = true;
+	}
+
+	/**
+	 * Appends the given separator unless the text already ends with white space.
+	 *
+	 * @param pSeparator the word or line separator
+	 */
+	private void separate(final char pSeparator) {
+		int length = text.length();
+		if (length > 0 && Character.isWhitespace(text.charAt(length - 1))) {
+			if (pSeparator == '\n' && text.charAt(length - 1) == ' ') {
+				text.setCharAt(length - 1, '\n');
+			}
+			return;
+		}
+		text.append(pSeparator);
+	}
+}
@@ -15,8 +15,8 @@ import org.assertj.core.api.AbstractDateAssert;
  */
 public class DateAssert extends AbstractDateAssert<DateAssert> implements FluentPdfAsserter {
 
-	/** the PDF document under test */
-	private PDDocument pdfUnderTest;
+	/** the asserter this value has been extracted from, serves the PDF document under test */
+	private final FluentPdfAsserter origin;
 	
 	/**
 	 * Package private constructor for {@link DateAssert} to prevent public usage.
@@ -25,12 +25,33 @@ public class DateAssert extends AbstractDateAssert<DateAssert> implements Fluent
 	 * @param pPdf the PDF document under test
 	 */
 	DateAssert(final Date pActualDate, final PDDocument pPdf) {
+		this(pActualDate, () -> pPdf);
+	}
+
+	/**
+	 * Package private constructor for {@link DateAssert} keeping the asserter the value has been extracted from, so that
+	 * navigating back to the document keeps its loading state.
+	 * 
+	 * @param pActualDate the date under test
+	 * @param pOrigin the asserter the value has been extracted from
+	 */
+	DateAssert(final Date pActualDate, final FluentPdfAsserter pOrigin) {
 		super(pActualDate, DateAssert.class);
-		pdfUnderTest = pPdf;
+		origin = pOrigin;
+	}
+
+	@Override
+	public PdfAssert document() {
+		return origin.document();
 	}
 
 	@Override
 	public PDDocument getPdfUnderTest() {
-		return pdfUnderTest;
+		return origin.getPdfUnderTest();
+	}
+
+	@Override
+	public void release() {
+		origin.release();
 	}
 }
@@ -0,0 +1,215 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Detects PDF documents that were loaded by {@link PdfAssertions} but never released via
+ * {@link FluentPdfAsserter#release()} or try-with-resources while the detector is active
+ * (see {@link PdfAssertions#setLeakDetector(DocumentLeakDetector)}).
+ * <p>
+ * The detector remembers the allocation site of every loaded document. As soon as the garbage collector
+ * discovers a document that has not been released, the leak is reported with its allocation site and the
+ * underlying file handle, mapping or scratch file is closed. Leaks are detected whenever a new document is
+ * loaded and on {@link #checkForLeaks()}. Documents that are still reachable but not released yet, e.g. at the
+ * end of a test, are available via {@link #getUnreleasedDocuments()}.
+ * <p>
+ * Capturing the allocation sites costs a stack trace per document, so the detector is meant for debugging
+ * test suites and is disabled by default.
+ *
+ * @author krischan
+ *
+ */
+public final class DocumentLeakDetector {
+
+	/** receives the documents discovered by the garbage collector */
+	private final ReferenceQueue<PDDocument> queue = new ReferenceQueue<>();
+
+	/** the tracked documents that are neither released nor collected */
+	private final Map<PDDocument, TrackedDocument> tracked = new WeakHashMap<>();
+
+	/** strong references to the trackers, a collected tracker would never be enqueued */
+	private final Set<TrackedDocument> trackers = new HashSet<>();
+
+	/** receives the allocation sites of leaked documents */
+	private final Consumer<? super Throwable> reporter;
+
+	/** number of leaked documents detected so far */
+	private long leakCount;
+
+	/**
+	 * Creates a new leak detector that prints leaked documents with their allocation site to
+	 * {@link System#err}.
+	 */
+	public DocumentLeakDetector() {
+		this(Throwable::printStackTrace);
+	}
+
+	/**
+	 * Creates a new leak detector that hands leaked documents to the given reporter.
+	 *
+	 * @param pReporter receives the allocation site of every leaked document, e.g. a logger
+	 */
+	public DocumentLeakDetector(final Consumer<? super Throwable> pReporter) {
+		if (pReporter == null) {
+			throw new IllegalArgumentException("Leak reporter cannot be NULL.");
+		}
+		reporter = pReporter;
+	}
+
+	/**
+	 * Starts tracking a newly loaded document.
+	 *
+	 * @param pDocument the loaded document
+	 * @param pSource the source of the document, closed in case the document leaks
+	 * @param pDescription a human readable description of the source, e.g. the file name
+	 */
+	void track(final PDDocument pDocument, final RandomAccessRead pSource, final String pDescription) {
+		List<Throwable> leaks;
+		synchronized (this) {
+			leaks = drainQueue();
+			TrackedDocument tracker = new TrackedDocument(pDocument, queue, pSource,
+					new Throwable("PDF document loaded from " + pDescription + " was never released, allocated at:"));
+			tracked.put(pDocument, tracker);
+			trackers.add(tracker);
+		}
+		report(leaks);
+	}
+
+	/**
+	 * Stops tracking a released document.
+	 *
+	 * @param pDocument the released document
+	 */
+	synchronized void untrack(final PDDocument pDocument) {
+		TrackedDocument tracker = tracked.remove(pDocument);
+		if (tracker != null) {
+			trackers.remove(tracker);
+			tracker.clear();
+		}
+	}
+
+	/**
+	 * Reports all documents the garbage collector has discovered since the last check without being released.
+	 *
+	 * @return the number of newly detected leaks
+	 */
+	public int checkForLeaks() {
+		List<Throwable> leaks;
+		synchronized (this) {
+			leaks = drainQueue();
+		}
+		report(leaks);
+		return leaks.size();
+	}
+
+	/**
+	 * Returns the allocation sites of all tracked documents that are still reachable but not released yet.
+	 *
+	 * @return the allocation sites of the unreleased documents
+	 */
+	public synchronized List<Throwable> getUnreleasedDocuments() {
+		List<Throwable> allocationSites = new ArrayList<>();
+		for (TrackedDocument tracker : tracked.values()) {
+			allocationSites.add(tracker.allocationSite);
+		}
+		return allocationSites;
+	}
+
+	/**
+	 * Returns the number of leaked documents detected so far.
+	 *
+	 * @return the leak count
+	 */
+	public synchronized long getLeakCount() {
+		return leakCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "DocumentLeakDetector [tracked=" + trackers.size() + ", leaks=" + leakCount + "]";
+	}
+
+	/**
+	 * Removes all collected documents from the queue and closes their sources.
+	 *
+	 * @return the allocation sites of the collected documents
+	 */
+	private List<Throwable> drainQueue() {
+		List<Throwable> leaks = new ArrayList<>();
+		Reference<? extends PDDocument> reference;
+		while ((reference = queue.poll()) != null) {
+			TrackedDocument tracker = (TrackedDocument) reference;
+			if (trackers.remove(tracker)) {
+				leakCount++;
+				tracker.closeSource();
+				leaks.add(tracker.allocationSite);
+			}
+		}
+		return leaks;
+	}
+
+	/**
+	 * Hands the given leaks to the reporter outside of the lock.
+	 *
+	 * @param pLeaks the allocation sites of the leaked documents
+	 */
+	private void report(final List<Throwable> pLeaks) {
+		for (Throwable leak : pLeaks) {
+			reporter.accept(leak);
+		}
+	}
+
+	/**
+	 * Phantom reference to a tracked document keeping its source and allocation site.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class TrackedDocument extends PhantomReference<PDDocument> {
+
+		/** the source of the document, not referencing the document itself */
+		private final RandomAccessRead source;
+
+		/** the stack trace of the document allocation */
+		private final Throwable allocationSite;
+
+		/**
+		 * Constructor for {@link TrackedDocument}.
+		 *
+		 * @param pDocument the tracked document
+		 * @param pQueue the queue to enqueue the reference once the document is collected
+		 * @param pSource the source of the document
+		 * @param pAllocationSite the stack trace of the document allocation
+		 */
+		TrackedDocument(final PDDocument pDocument, final ReferenceQueue<PDDocument> pQueue,
+				final RandomAccessRead pSource, final Throwable pAllocationSite) {
+			super(pDocument, pQueue);
+			source = pSource;
+			allocationSite = pAllocationSite;
+		}
+
+		/**
+		 * Closes the source of the collected document, errors are ignored because nobody uses it anymore.
+		 */
+		void closeSource() {
+			try {
+				source.close();
+			} catch (IOException e) {
+				// nothing to do, the document is gone anyway
+			}
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Loads a PDF document on demand, e.g. on a cache miss or when a lazily opened document is accessed
+ * the first time.
+ *
+ * @author krischan
+ *
+ */
+@FunctionalInterface
+interface DocumentLoader {
+
+	/**
+	 * Loads the document.
+	 *
+	 * @return the loaded document
+	 * @throws IOException in case the document cannot be loaded
+	 */
+	PDDocument load() throws IOException;
+}
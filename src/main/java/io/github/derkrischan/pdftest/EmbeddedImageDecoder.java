@@ -0,0 +1,235 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import io.github.derkrischan.pdftest.image.StripedImage;
+
+/**
+ * Decodes embedded images within the pixel budget of {@link PdfAssertions#getImageDecodePixelBudget()}. Images
+ * needed at full resolution are decoded in strips of rows that fit into the budget, images compared scale
+ * invariant are decoded subsampled by PDFBox. JPEG and JPEG 2000 strips use the region decode of PDFBox, which
+ * only allocates the requested pixels. The region decode of other 8 bit images fails for regions not starting
+ * at the first row in PDFBox 3.0.1, so the rows of their strips are read from the decoded stream and decoded as
+ * an image of their own instead. The decoded stream is opened once and read strip by strip. A stream with a
+ * single FlateDecode filter without predictor is inflated incrementally from its raw stream, so only the current
+ * strip is held in memory. PDFBox cannot decode any other filter incrementally, it decodes the whole stream into
+ * memory on opening, so for such streams only the decoded pixels are held within the budget but not the decoded
+ * stream. Images with a soft mask or an explicit mask are always decoded as a whole because PDFBox cannot apply a
+ * mask of another size to a strip.
+ *
+ * @author krischan
+ *
+ */
+final class EmbeddedImageDecoder {
+
+	/** the dictionary entries copied from an image to the images of its strips */
+	private static final COSName[] STRIP_ENTRIES = { COSName.TYPE, COSName.SUBTYPE, COSName.WIDTH,
+			COSName.BITS_PER_COMPONENT, COSName.COLORSPACE, COSName.DECODE, COSName.IMAGE_MASK, COSName.INTENT };
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private EmbeddedImageDecoder() {
+		// NOP
+	}
+
+	/**
+	 * Returns the given image at full resolution, decoded in strips if it exceeds the pixel budget.
+	 *
+	 * @param pImage the embedded image
+	 * @return the image decoded strip by strip on demand
+	 */
+	static StripedImage striped(final PDImageXObject pImage) {
+		int width = pImage.getWidth();
+		int height = pImage.getHeight();
+		long budget = PdfAssertions.getImageDecodePixelBudget();
+		if ((long) width * height <= budget || isMasked(pImage)) {
+			return StripedImage.of(width, height, Math.max(1, height), (firstRow, rows) -> pImage.getImage());
+		}
+		int stripRows = (int) Math.max(1, Math.min(height, budget / Math.max(1, width)));
+		List<COSName> filters = pImage.getStream().getFilters();
+		if (filters.contains(COSName.DCT_DECODE) || filters.contains(COSName.JPX_DECODE)) {
+			return StripedImage.of(width, height, stripRows,
+					(firstRow, rows) -> pImage.getImage(new Rectangle(0, firstRow, width, rows), 1));
+		}
+		return StripedImage.of(width, height, stripRows, new RowDecoder(pImage));
+	}
+
+	/**
+	 * Decodes the given image subsampled as far as possible without getting smaller than the given size and
+	 * further until it fits into the pixel budget.
+	 *
+	 * @param pImage the embedded image
+	 * @param pMinWidth the minimum width of the decoded image
+	 * @param pMinHeight the minimum height of the decoded image
+	 * @return the decoded image
+	 * @throws IOException in case the image cannot be decoded
+	 */
+	static BufferedImage subsampled(final PDImageXObject pImage, final int pMinWidth, final int pMinHeight)
+			throws IOException {
+		int width = pImage.getWidth();
+		int height = pImage.getHeight();
+		int subsampling = Math.max(1, Math.min(width / Math.max(1, pMinWidth), height / Math.max(1, pMinHeight)));
+		long budget = PdfAssertions.getImageDecodePixelBudget();
+		while (subsampled(width, subsampling) * subsampled(height, subsampling) > budget) {
+			subsampling++;
+		}
+		return subsampling == 1 ? pImage.getImage() : pImage.getImage(null, subsampling);
+	}
+
+	/**
+	 * Returns the number of pixels left of the given length after subsampling.
+	 *
+	 * @param pLength the length in pixels
+	 * @param pSubsampling the subsampling factor
+	 * @return the subsampled length
+	 */
+	private static long subsampled(final int pLength, final int pSubsampling) {
+		return (pLength + pSubsampling - 1) / pSubsampling;
+	}
+
+	/**
+	 * Checks whether the given image has a soft mask or an explicit mask.
+	 *
+	 * @param pImage the embedded image
+	 * @return <code>true</code> if the image is masked
+	 */
+	private static boolean isMasked(final PDImageXObject pImage) {
+		return pImage.getCOSObject().getDictionaryObject(COSName.SMASK) != null
+				|| pImage.getCOSObject().getDictionaryObject(COSName.MASK) != null;
+	}
+
+	/**
+	 * Decodes the strips of an image by copying their rows from the decoded stream into an unfiltered image of the
+	 * strip height with the same color space and decoding entries. The decoded stream is kept open from one strip
+	 * to the next and only reopened if an earlier strip is requested.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class RowDecoder implements StripedImage.StripDecoder {
+
+		/** the embedded image */
+		private final PDImageXObject image;
+
+		/** the number of bytes of a row in the decoded stream, known once the stream is opened */
+		private int bytesPerRow;
+
+		/** the decoded stream, <code>null</code> until the first strip is decoded */
+		private InputStream decoded;
+
+		/** the row the decoded stream is positioned at */
+		private int nextRow;
+
+		/**
+		 * Constructor for {@link RowDecoder}.
+		 *
+		 * @param pImage the embedded image
+		 */
+		RowDecoder(final PDImageXObject pImage) {
+			image = pImage;
+		}
+
+		@Override
+		public BufferedImage decode(final int pFirstRow, final int pRows) throws IOException {
+			if (decoded == null || pFirstRow < nextRow) {
+				close();
+				decoded = open();
+				nextRow = 0;
+			}
+			skip((long) bytesPerRow * (pFirstRow - nextRow));
+			byte[] rows = new byte[Math.multiplyExact(bytesPerRow, pRows)];
+			int read = 0;
+			int count;
+			while (read < rows.length && (count = decoded.read(rows, read, rows.length - read)) > 0) {
+				read += count;
+			}
+			nextRow = pFirstRow + pRows;
+			try (COSStream strip = new COSStream()) {
+				for (COSName entry : STRIP_ENTRIES) {
+					strip.setItem(entry, image.getCOSObject().getItem(entry));
+				}
+				strip.setInt(COSName.HEIGHT, pRows);
+				try (OutputStream out = strip.createOutputStream()) {
+					out.write(rows);
+				}
+				return new PDImageXObject(new PDStream(strip), null).getImage();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (decoded != null) {
+				InputStream stream = decoded;
+				decoded = null;
+				stream.close();
+			}
+		}
+
+		/**
+		 * Opens the decoded stream, inflated incrementally for a single FlateDecode filter without predictor and
+		 * decoded by PDFBox otherwise. Determines the number of bytes of a row.
+		 *
+		 * @return the decoded stream positioned at the first row
+		 * @throws IOException in case the stream cannot be opened
+		 */
+		private InputStream open() throws IOException {
+			int components = image.isStencil() ? 1 : image.getColorSpace().getNumberOfComponents();
+			bytesPerRow = (int) (((long) image.getWidth() * components * image.getBitsPerComponent() + 7) / 8);
+			COSStream stream = image.getCOSObject();
+			List<COSName> filters = image.getStream().getFilters();
+			if (filters.size() == 1 && COSName.FLATE_DECODE.equals(filters.get(0)) && !hasPredictor(stream)) {
+				return new InflaterInputStream(stream.createRawInputStream());
+			}
+			return image.createInputStream();
+		}
+
+		/**
+		 * Skips the given number of bytes of the decoded stream.
+		 *
+		 * @param pBytes the number of bytes to skip
+		 * @throws IOException in case the stream cannot be read
+		 */
+		private void skip(final long pBytes) throws IOException {
+			long toSkip = pBytes;
+			while (toSkip > 0) {
+				long skipped = decoded.skip(toSkip);
+				if (skipped <= 0) {
+					if (decoded.read() < 0) {
+						break;
+					}
+					skipped = 1;
+				}
+				toSkip -= skipped;
+			}
+		}
+
+		/**
+		 * Checks whether the decode parameters of the given stream define a predictor.
+		 *
+		 * @param pStream the image stream
+		 * @return <code>true</code> if the decoded data has to be run through a predictor
+		 */
+		private static boolean hasPredictor(final COSStream pStream) {
+			COSBase parameters = pStream.getDictionaryObject(COSName.DECODE_PARMS, COSName.DP);
+			if (parameters instanceof COSArray && ((COSArray) parameters).size() > 0) {
+				parameters = ((COSArray) parameters).getObject(0);
+			}
+			return parameters instanceof COSDictionary && ((COSDictionary) parameters).getInt(COSName.PREDICTOR, 1) > 1;
+		}
+	}
+}
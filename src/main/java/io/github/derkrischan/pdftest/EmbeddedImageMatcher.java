@@ -0,0 +1,140 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDCalGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import io.github.derkrischan.pdftest.image.ImagePyramid;
+import io.github.derkrischan.pdftest.image.ImageTolerance;
+import io.github.derkrischan.pdftest.image.StripedImage;
+
+/**
+ * Matches embedded PDF images against an expected image while decoding as few of them as possible. Candidates
+ * are rejected from their XObject dictionary first: the width and height have to be equal, gray images cannot
+ * match a colored image and 1 bit images cannot match an image with other colors than black and white. If the
+ * expected image was read from an encoded file, the digest of the raw image stream is compared before
+ * decoding, so e.g. a JPEG embedded unchanged is found without decoding it at all. The remaining candidates
+ * are compared by their pixel digests. The digests of embedded images are cached per document (see
+ * {@link ImageDigestCache}), so an image shared by many pages is decoded only once. The digest of the expected
+ * image is kept by its {@link ExpectedImage}, which can be prepared once and reused for many pages.
+ * <p>
+ * With an {@link ImageTolerance} the color based rejections are skipped because a re-encoded image may differ
+ * slightly in color. Candidates are rejected on their cached {@link ImagePyramid}s instead and only the
+ * remaining ones are decoded and compared at full resolution. A scale invariant tolerance also accepts images of
+ * another size with the same aspect ratio, they are decoded subsampled close to the expected size (see
+ * {@link EmbeddedImageDecoder}) and then scaled to it.
+ *
+ * @author krischan
+ *
+ */
+final class EmbeddedImageMatcher {
+
+	/** the image to search for */
+	private final ExpectedImage expected;
+
+	/** the tolerance for the comparison or <code>null</code> for identical images */
+	private final ImageTolerance tolerance;
+
+	/**
+	 * Constructor for {@link EmbeddedImageMatcher}.
+	 *
+	 * @param pExpected the image to search for
+	 * @param pTolerance the tolerance for the comparison or <code>null</code> for identical images
+	 */
+	private EmbeddedImageMatcher(final ExpectedImage pExpected, final ImageTolerance pTolerance) {
+		expected = pExpected;
+		tolerance = pTolerance;
+	}
+
+	/**
+	 * Creates a matcher for the given decoded image, which must not be modified while the matcher is used.
+	 *
+	 * @param pExpectedImage the image to search for
+	 * @param pTolerance the tolerance for the comparison or <code>null</code> for identical images
+	 * @return the matcher
+	 */
+	static EmbeddedImageMatcher forImage(final BufferedImage pExpectedImage, final ImageTolerance pTolerance) {
+		return new EmbeddedImageMatcher(ExpectedImage.wrap(pExpectedImage), pTolerance);
+	}
+
+	/**
+	 * Creates a matcher for the given prepared image.
+	 *
+	 * @param pExpected the image to search for
+	 * @param pTolerance the tolerance for the comparison or <code>null</code> for identical images
+	 * @return the matcher
+	 */
+	static EmbeddedImageMatcher forImage(final ExpectedImage pExpected, final ImageTolerance pTolerance) {
+		return new EmbeddedImageMatcher(pExpected, pTolerance);
+	}
+
+	/**
+	 * Creates a matcher for the image encoded in the given file, e.g. a JPEG or PNG file.
+	 *
+	 * @param pExpectedImageFile the image file
+	 * @param pTolerance the tolerance for the comparison or <code>null</code> for identical images
+	 * @return the matcher
+	 * @throws IOException in case the file cannot be read or is no supported image
+	 */
+	static EmbeddedImageMatcher forFile(final File pExpectedImageFile, final ImageTolerance pTolerance) throws IOException {
+		return new EmbeddedImageMatcher(ExpectedImage.read(pExpectedImageFile), pTolerance);
+	}
+
+	/**
+	 * Checks whether the given embedded image equals the expected image or is similar within the tolerance.
+	 *
+	 * @param pImage the embedded image
+	 * @param pDocument the PDF document the image belongs to
+	 * @return <code>true</code> if the images match, <code>false</code> otherwise
+	 * @throws IOException in case the image cannot be read
+	 */
+	boolean matches(final PDImageXObject pImage, final PDDocument pDocument) throws IOException {
+		boolean sameSize = pImage.getWidth() == expected.getWidth() && pImage.getHeight() == expected.getHeight();
+		if (!sameSize && (tolerance == null
+				|| !tolerance.acceptsSize(expected.getWidth(), expected.getHeight(), pImage.getWidth(), pImage.getHeight()))) {
+			return false;
+		}
+		if (expected.getEncodedDigest() != null) {
+			try (InputStream raw = pImage.getStream().getCOSObject().createRawInputStream()) {
+				if (Arrays.equals(expected.getEncodedDigest(), ExpectedImage.digest(raw))) {
+					return true;
+				}
+			}
+		}
+		if (!sameSize) {
+			return tolerance.isSimilar(expected.getImage(),
+					EmbeddedImageDecoder.subsampled(pImage, expected.getWidth(), expected.getHeight()));
+		}
+		if (tolerance != null) {
+			ImagePyramid expectedPyramid = expected.getPyramid();
+			if (!tolerance.mayBeSimilar(expectedPyramid, ImageDigestCache.forDocument(pDocument).getPyramid(pImage))) {
+				return false;
+			}
+			try (StripedImage striped = EmbeddedImageDecoder.striped(pImage)) {
+				return tolerance.isSimilarAtFullResolution(expected.getImage(), striped);
+			}
+		}
+		if (!pImage.isStencil()) {
+			PDColorSpace colorSpace = pImage.getColorSpace();
+			boolean gray = colorSpace instanceof PDDeviceGray || colorSpace instanceof PDCalGray;
+			if (gray && expected.isColored()) {
+				return false;
+			}
+			boolean masked = pImage.getCOSObject().getDictionaryObject(COSName.SMASK) != null
+					|| pImage.getCOSObject().getDictionaryObject(COSName.MASK) != null;
+			if (gray && pImage.getBitsPerComponent() == 1 && !masked && expected.isMoreThanBlackAndWhite()) {
+				return false;
+			}
+		}
+		return Arrays.equals(ImageDigestCache.forDocument(pDocument).getDigest(pImage), expected.getPixelDigest());
+	}
+}
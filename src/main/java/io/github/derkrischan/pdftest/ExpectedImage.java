@@ -0,0 +1,222 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.imageio.ImageIO;
+
+import io.github.derkrischan.pdftest.image.ImageComparator;
+import io.github.derkrischan.pdftest.image.ImagePyramid;
+
+/**
+ * Immutable, prepared image to search for in PDF pages, e.g. a logo expected on every page. The pixel digest and
+ * the {@link ImagePyramid} of the image are computed on first use and reused by all assertions, so an expected
+ * image should be prepared once and reused, e.g. for {@link FluentPdfAsserter#eachPage(java.util.function.Consumer)}.
+ * The image is copied on creation, later changes to the given image do not affect the prepared one. The class is
+ * thread safe.
+ *
+ * @author krischan
+ *
+ */
+public final class ExpectedImage {
+
+	/** the image to search for, never modified */
+	private final BufferedImage image;
+
+	/** the digest of the encoded image or <code>null</code> if it was not read from a file */
+	private final byte[] encodedDigest;
+
+	/** the digest of the pixels, <code>null</code> until first use */
+	private byte[] pixelDigest;
+
+	/** the pyramid for tolerant comparisons, <code>null</code> until first use */
+	private ImagePyramid pyramid;
+
+	/** whether the image has a pixel that is not gray, <code>null</code> until first use */
+	private Boolean colored;
+
+	/** whether the image has other pixels than opaque black and white, <code>null</code> until first use */
+	private Boolean moreThanBlackAndWhite;
+
+	/**
+	 * Private constructor, see the static factory methods.
+	 *
+	 * @param pImage the image, owned by this instance
+	 * @param pEncodedDigest the digest of the encoded image or <code>null</code>
+	 */
+	private ExpectedImage(final BufferedImage pImage, final byte[] pEncodedDigest) {
+		image = pImage;
+		encodedDigest = pEncodedDigest;
+	}
+
+	/**
+	 * Prepares a copy of the given image.
+	 *
+	 * @param pImage the image to search for
+	 * @return the prepared image
+	 */
+	public static ExpectedImage of(final BufferedImage pImage) {
+		ColorModel colorModel = pImage.getColorModel();
+		BufferedImage copy = new BufferedImage(colorModel, pImage.copyData(null), colorModel.isAlphaPremultiplied(),
+				null);
+		return new ExpectedImage(copy, null);
+	}
+
+	/**
+	 * Prepares the image encoded in the given file, e.g. a JPEG or PNG file. Embedded images with the same encoded
+	 * content are found without decoding them.
+	 *
+	 * @param pImageFile the image file
+	 * @return the prepared image
+	 * @throws IOException in case the file cannot be read or is no supported image
+	 */
+	public static ExpectedImage read(final File pImageFile) throws IOException {
+		byte[] encoded = Files.readAllBytes(pImageFile.toPath());
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+		if (image == null) {
+			throw new IOException("Unsupported image format: " + pImageFile);
+		}
+		return new ExpectedImage(image, digest(new ByteArrayInputStream(encoded)));
+	}
+
+	/**
+	 * Prepares the given image without copying it, for a single assertion during which the image is not modified.
+	 *
+	 * @param pImage the image to search for
+	 * @return the prepared image
+	 */
+	static ExpectedImage wrap(final BufferedImage pImage) {
+		return new ExpectedImage(pImage, null);
+	}
+
+	/**
+	 * Returns the width of the image.
+	 *
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return image.getWidth();
+	}
+
+	/**
+	 * Returns the height of the image.
+	 *
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return image.getHeight();
+	}
+
+	/**
+	 * Returns the image, which must not be modified.
+	 *
+	 * @return the image
+	 */
+	BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Returns the digest of the encoded image.
+	 *
+	 * @return the digest or <code>null</code> if the image was not read from a file
+	 */
+	byte[] getEncodedDigest() {
+		return encodedDigest;
+	}
+
+	/**
+	 * Returns the digest of the pixels, see {@link ImageComparator#digest(BufferedImage)}.
+	 *
+	 * @return the pixel digest
+	 */
+	synchronized byte[] getPixelDigest() {
+		if (pixelDigest == null) {
+			pixelDigest = ImageComparator.digest(image);
+		}
+		return pixelDigest;
+	}
+
+	/**
+	 * Returns the pyramid of the image for tolerant comparisons.
+	 *
+	 * @return the pyramid
+	 */
+	synchronized ImagePyramid getPyramid() {
+		if (pyramid == null) {
+			pyramid = ImagePyramid.of(image);
+		}
+		return pyramid;
+	}
+
+	/**
+	 * Checks whether the image has a pixel that is not gray.
+	 *
+	 * @return <code>true</code> if the image is colored
+	 */
+	synchronized boolean isColored() {
+		if (colored == null) {
+			colored = Boolean.FALSE;
+			for (int y = 0; y < image.getHeight() && !colored; y++) {
+				for (int rgb : image.getRGB(0, y, image.getWidth(), 1, null, 0, image.getWidth())) {
+					int red = (rgb >> 16) & 0xFF;
+					int green = (rgb >> 8) & 0xFF;
+					int blue = rgb & 0xFF;
+					if (red != green || green != blue) {
+						colored = Boolean.TRUE;
+						break;
+					}
+				}
+			}
+		}
+		return colored;
+	}
+
+	/**
+	 * Checks whether the image has other pixels than opaque black and white.
+	 *
+	 * @return <code>true</code> if the image cannot be a 1 bit image
+	 */
+	synchronized boolean isMoreThanBlackAndWhite() {
+		if (moreThanBlackAndWhite == null) {
+			moreThanBlackAndWhite = Boolean.FALSE;
+			for (int y = 0; y < image.getHeight() && !moreThanBlackAndWhite; y++) {
+				for (int rgb : image.getRGB(0, y, image.getWidth(), 1, null, 0, image.getWidth())) {
+					if (rgb != 0xFF000000 && rgb != 0xFFFFFFFF) {
+						moreThanBlackAndWhite = Boolean.TRUE;
+						break;
+					}
+				}
+			}
+		}
+		return moreThanBlackAndWhite;
+	}
+
+	/**
+	 * Computes the SHA-256 digest of the given stream.
+	 *
+	 * @param pStream the stream to digest
+	 * @return the digest
+	 * @throws IOException in case the stream cannot be read
+	 */
+	static byte[] digest(final InputStream pStream) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = pStream.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not supported by JVM.", e);
+		}
+	}
+}
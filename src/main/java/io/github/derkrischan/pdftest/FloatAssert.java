@@ -16,23 +16,45 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  */
 public class FloatAssert extends AbstractFloatAssert<FloatAssert> implements FluentPdfAsserter {
 
-	/** the PDF document under test */
-	private PDDocument pdfUnderTest;
+	/** the asserter this value has been extracted from, serves the PDF document under test */
+	private final FluentPdfAsserter origin;
 	
 	/**
 	 * Package private constructor for {@link FloatAssert} to prevent public usage.
 	 * 
-	 * @param pDate the float value under test
+	 * @param pActualFloat the float value under test
 	 * @param pPdf the PDF document under test
 	 */
 	@SuppressFBWarnings("CD_CIRCULAR_DEPENDENCY")
 	FloatAssert(final Float pActualFloat, final PDDocument pPdf) {
+		this(pActualFloat, () -> pPdf);
+	}
+
+	/**
+	 * Package private constructor for {@link FloatAssert} keeping the asserter the value has been extracted from, so that
+	 * navigating back to the document keeps its loading state.
+	 * 
+	 * @param pActualFloat the float value under test
+	 * @param pOrigin the asserter the value has been extracted from
+	 */
+	@SuppressFBWarnings("CD_CIRCULAR_DEPENDENCY")
+	FloatAssert(final Float pActualFloat, final FluentPdfAsserter pOrigin) {
 		super(pActualFloat, FloatAssert.class);
-		pdfUnderTest = pPdf;
+		origin = pOrigin;
+	}
+
+	@Override
+	public PdfAssert document() {
+		return origin.document();
 	}
 
 	@Override
 	public PDDocument getPdfUnderTest() {
-		return pdfUnderTest;
+		return origin.getPdfUnderTest();
+	}
+
+	@Override
+	public void release() {
+		origin.release();
 	}
 }
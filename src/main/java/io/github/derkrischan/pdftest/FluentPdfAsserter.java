@@ -8,11 +8,12 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 
 /**
  * Interface for fluent PDF testing providing methods that every asserter must implement to switch between pages and the whole document.
+ * Every asserter of a chain can release the PDF document under test, either explicitly or via try-with-resources.
  * 
  * @author krischan
  *
  */
-public interface FluentPdfAsserter {
+public interface FluentPdfAsserter extends AutoCloseable {
 
 	/**
 	 * Returns an {@link PdfAssert} for tests on the whole document.
@@ -29,7 +30,7 @@ public interface FluentPdfAsserter {
 	 * @return a {@link PdfPageAssert} for the given page
 	 */
 	default PdfPageAssert page(final int pPageNumber) {
-        return FluentPdfAssertionHelper.getPageAsserterForDocument(getPdfUnderTest(), pPageNumber);
+        return FluentPdfAssertionHelper.getPageAsserter(this, pPageNumber);
     }
 	
 	/**
@@ -39,19 +40,34 @@ public interface FluentPdfAsserter {
 	 * @param pageAssertion assertion to test for every page
 	 */
 	default void eachPage(Consumer<? super PdfPageAssert> pageAssertion) {
-        FluentPdfAssertionHelper.getPageAssertersForDocument(getPdfUnderTest()).forEach(pageAssertion);
+        FluentPdfAssertionHelper.getPageAsserters(this).forEach(pageAssertion);
     }
 	
 	/**
-	 * Getter for the PDF document under test. The document has to be
-	 * stored all the time in an instance because otherwise the garbage
-	 * collector might destroy an unused Asserter and the PDF document is
-	 * closed via {@link AutoCloseable}.
+	 * Getter for the PDF document under test. The document stays open
+	 * until it is released via {@link #release()} or {@link #close()}.
 	 *  
 	 * @return the PDF document under test
 	 */
 	PDDocument getPdfUnderTest();
 	
+	/**
+	 * Releases the PDF document under test and all resources it holds like file handles, memory mappings
+	 * or scratch files. Documents owned by the {@link PdfDocumentCache} stay open. Assertions on the
+	 * document must not be used afterwards.
+	 */
+	default void release() {
+		PdfLoader.release(getPdfUnderTest());
+	}
+	
+	/**
+	 * Releases the PDF document under test, see {@link #release()}.
+	 */
+	@Override
+	default void close() {
+		release();
+	}
+	
 	/**
 	 * Little helper class to prevent the implementation in every implementing class to return
 	 * a {@link PdfPageAssert} for a given page with checks for a valid page number.
@@ -77,16 +93,41 @@ public interface FluentPdfAsserter {
 		 * @throws IllegalArgumentException in case pPageNumber is out of range
 		 */
 		public static PdfPageAssert getPageAsserterForDocument(final PDDocument pDocument, final int pPageNumber) {
-			if (pPageNumber < 1 || pPageNumber > pDocument.getNumberOfPages()) {
-				throw new IllegalArgumentException("Illegal page number provided.");
-			}
-			return new PdfPageAssert(pDocument.getPage(pPageNumber - 1), pDocument);
+			return getPageAsserter(() -> pDocument, pPageNumber);
 		}
 		
 		public static List<PdfPageAssert> getPageAssertersForDocument(final PDDocument pDocument) {
+		  return getPageAsserters(() -> pDocument);
+		}
+
+		/**
+		 * Returns a {@link PdfPageAssert} for the given page of the document under test of the given asserter. The page
+		 * asserter navigates back to and releases the document via the given asserter.
+		 * 
+		 * @param pOrigin the asserter the page is navigated from
+		 * @param pPageNumber the PDF page number (starting at 1)
+		 * @return the asserter for the single page with <code>pPageNumber</code>
+		 * @throws IllegalArgumentException in case pPageNumber is out of range
+		 */
+		static PdfPageAssert getPageAsserter(final FluentPdfAsserter pOrigin, final int pPageNumber) {
+			PDDocument document = pOrigin.getPdfUnderTest();
+			if (pPageNumber < 1 || pPageNumber > document.getNumberOfPages()) {
+				throw new IllegalArgumentException("Illegal page number provided.");
+			}
+			return new PdfPageAssert(document.getPage(pPageNumber - 1), pOrigin);
+		}
+
+		/**
+		 * Returns a {@link PdfPageAssert} for every page of the document under test of the given asserter, see
+		 * {@link #getPageAsserter(FluentPdfAsserter, int)}.
+		 * 
+		 * @param pOrigin the asserter the pages are navigated from
+		 * @return the asserters for all pages in page order
+		 */
+		static List<PdfPageAssert> getPageAsserters(final FluentPdfAsserter pOrigin) {
 		  List<PdfPageAssert> pages = new ArrayList<>();
-	      for (int page = 1; page <= pDocument.getNumberOfPages(); page++) {
-	        pages.add(getPageAsserterForDocument(pDocument, page));
+	      for (int page = 1; page <= pOrigin.getPdfUnderTest().getNumberOfPages(); page++) {
+	        pages.add(getPageAsserter(pOrigin, page));
 	      }
 	      return pages;
       }
@@ -0,0 +1,149 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import io.github.derkrischan.pdftest.image.ImageComparator;
+import io.github.derkrischan.pdftest.image.ImagePyramid;
+import io.github.derkrischan.pdftest.image.StripedImage;
+
+/**
+ * Cache of the pixel digests (see {@link ImageComparator#digest(java.awt.image.BufferedImage)}) and the
+ * {@link ImagePyramid}s of the embedded images of a PDF document. Images are keyed by the object key of their
+ * XObject, so an image shared by many pages, e.g. a logo, is decoded and hashed only once per document and
+ * every further comparison is a digest lookup or starts on the pyramid. Images without object key, e.g.
+ * created in memory, are not cached. Pyramids are softly referenced. Images larger than the pixel budget are
+ * decoded in strips (see {@link EmbeddedImageDecoder}).
+ * <p>
+ * The caches are bound to the documents and discarded together with them.
+ *
+ * @author krischan
+ *
+ */
+final class ImageDigestCache {
+
+	/** the image digest caches of all documents with compared images */
+	private static final Map<PDDocument, ImageDigestCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/** the pixel digest per image XObject */
+	private final Map<COSObjectKey, byte[]> digests = new HashMap<>();
+
+	/** the pyramid per image XObject */
+	private final Map<COSObjectKey, SoftReference<ImagePyramid>> pyramids = new HashMap<>();
+
+	/**
+	 * Private constructor, see {@link #forDocument(PDDocument)}.
+	 */
+	private ImageDigestCache() {
+		// NOP
+	}
+
+	/**
+	 * Returns the image digest cache of the given document.
+	 *
+	 * @param pDocument the PDF document
+	 * @return the image digest cache of the document
+	 */
+	static ImageDigestCache forDocument(final PDDocument pDocument) {
+		return CACHES.computeIfAbsent(pDocument, document -> new ImageDigestCache());
+	}
+
+	/**
+	 * Discards the image digest cache of the given document, e.g. because the document is closed.
+	 *
+	 * @param pDocument the PDF document
+	 */
+	static void discard(final PDDocument pDocument) {
+		CACHES.remove(pDocument);
+	}
+
+	/**
+	 * Returns the pixel digest of the given image and decodes the image if it is not cached yet.
+	 *
+	 * @param pImage an image of the document this cache belongs to
+	 * @return the pixel digest of the image
+	 * @throws IOException in case the image cannot be decoded
+	 */
+	byte[] getDigest(final PDImageXObject pImage) throws IOException {
+		COSObjectKey key = pImage.getCOSObject().getKey();
+		if (key == null) {
+			return digest(pImage);
+		}
+		synchronized (digests) {
+			byte[] digest = digests.get(key);
+			if (digest == null) {
+				digest = digest(pImage);
+				digests.put(key, digest);
+			}
+			return digest;
+		}
+	}
+
+	/**
+	 * Returns the pyramid of the given image and decodes the image if it is not cached yet.
+	 *
+	 * @param pImage an image of the document this cache belongs to
+	 * @return the pyramid of the image
+	 * @throws IOException in case the image cannot be decoded
+	 */
+	ImagePyramid getPyramid(final PDImageXObject pImage) throws IOException {
+		COSObjectKey key = pImage.getCOSObject().getKey();
+		if (key == null) {
+			return pyramid(pImage);
+		}
+		synchronized (pyramids) {
+			SoftReference<ImagePyramid> cached = pyramids.get(key);
+			ImagePyramid pyramid = cached == null ? null : cached.get();
+			if (pyramid == null) {
+				pyramid = pyramid(pImage);
+				pyramids.put(key, new SoftReference<>(pyramid));
+			}
+			return pyramid;
+		}
+	}
+
+	/**
+	 * Decodes the given image strip by strip and computes its pixel digest.
+	 *
+	 * @param pImage the image
+	 * @return the pixel digest of the image
+	 * @throws IOException in case the image cannot be decoded
+	 */
+	private static byte[] digest(final PDImageXObject pImage) throws IOException {
+		try (StripedImage striped = EmbeddedImageDecoder.striped(pImage)) {
+			return ImageComparator.digest(striped);
+		}
+	}
+
+	/**
+	 * Decodes the given image strip by strip and computes its pyramid.
+	 *
+	 * @param pImage the image
+	 * @return the pyramid of the image
+	 * @throws IOException in case the image cannot be decoded
+	 */
+	private static ImagePyramid pyramid(final PDImageXObject pImage) throws IOException {
+		try (StripedImage striped = EmbeddedImageDecoder.striped(pImage)) {
+			return ImagePyramid.of(striped);
+		}
+	}
+
+	/**
+	 * Returns the number of cached image digests.
+	 *
+	 * @return the number of cached digests
+	 */
+	int size() {
+		synchronized (digests) {
+			return digests.size();
+		}
+	}
+}
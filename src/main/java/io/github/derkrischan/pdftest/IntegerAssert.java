@@ -14,8 +14,8 @@ import org.assertj.core.api.AbstractIntegerAssert;
  */
 public class IntegerAssert extends AbstractIntegerAssert<IntegerAssert> implements FluentPdfAsserter {
 
-	/** the PDF document under test */
-	private PDDocument pdfUnderTest;
+	/** the asserter this value has been extracted from, serves the PDF document under test */
+	private final FluentPdfAsserter origin;
 	
 	/**
 	 * Package private constructor for {@link IntegerAssert} to prevent public usage.
@@ -24,12 +24,33 @@ public class IntegerAssert extends AbstractIntegerAssert<IntegerAssert> implemen
 	 * @param pPdf the PDF document under test
 	 */
 	IntegerAssert(final Integer actualInt, final PDDocument pPdf) {
+		this(actualInt, () -> pPdf);
+	}
+
+	/**
+	 * Package private constructor for {@link IntegerAssert} keeping the asserter the value has been extracted from, so that
+	 * navigating back to the document keeps its loading state.
+	 * 
+	 * @param actualInt the integer value under test
+	 * @param pOrigin the asserter the value has been extracted from
+	 */
+	IntegerAssert(final Integer actualInt, final FluentPdfAsserter pOrigin) {
 		super(actualInt, IntegerAssert.class);
-		pdfUnderTest = pPdf;
+		origin = pOrigin;
+	}
+
+	@Override
+	public PdfAssert document() {
+		return origin.document();
 	}
 
 	@Override
 	public PDDocument getPdfUnderTest() {
-		return pdfUnderTest;
+		return origin.getPdfUnderTest();
+	}
+
+	@Override
+	public void release() {
+		origin.release();
 	}
 }
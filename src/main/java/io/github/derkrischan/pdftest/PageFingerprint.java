@@ -0,0 +1,121 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import io.github.derkrischan.pdftest.image.ImageTolerance;
+import io.github.derkrischan.pdftest.image.PerceptualHash;
+
+/**
+ * Perceptual fingerprint of a rendered page, used by visual assertions to skip the full comparison of pages that
+ * did not change (see {@link PdfAssertions#setPageFingerprintThreshold(int)}). The fingerprint is the
+ * {@link PerceptualHash} of the page rendered at {@value #DPI} dpi, a rendering of a few kilobytes. After a page
+ * passed the full comparison its fingerprint is stored next to the baseline together with a hash of the baseline
+ * file, so a re-approved baseline invalidates the fingerprint, and the resolution and tolerance of that comparison,
+ * so a fingerprint only stands in for comparisons that are not stricter than the one that passed.
+ *
+ * @author krischan
+ *
+ */
+final class PageFingerprint {
+
+	/** the resolution the page is rendered with for the fingerprint */
+	static final float DPI = 16;
+
+	/** the stored tolerance of comparisons that require identical images */
+	private static final String IDENTICAL = "identical";
+
+	/** the perceptual hash of the page */
+	private final long hash;
+
+	/** the hex encoded SHA-256 hash of the baseline file */
+	private final String baselineHash;
+
+	/** the resolution the page is compared with the baseline at */
+	private final float comparisonDpi;
+
+	/** the tolerance the page is compared with the baseline with, <code>null</code> for identical images */
+	private final ImageTolerance tolerance;
+
+	/**
+	 * Private constructor, see {@link #of(PDDocument, int, File, float, ImageTolerance)}.
+	 *
+	 * @param pHash the perceptual hash of the page
+	 * @param pBaselineHash the hex encoded hash of the baseline file
+	 * @param pComparisonDpi the resolution of the full comparison
+	 * @param pTolerance the tolerance of the full comparison
+	 */
+	private PageFingerprint(final long pHash, final String pBaselineHash, final float pComparisonDpi,
+			final ImageTolerance pTolerance) {
+		hash = pHash;
+		baselineHash = pBaselineHash;
+		comparisonDpi = pComparisonDpi;
+		tolerance = pTolerance;
+	}
+
+	/**
+	 * Computes the fingerprint of a page compared with the given baseline.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pBaseline the baseline image file
+	 * @param pComparisonDpi the resolution the page is compared with the baseline at
+	 * @param pTolerance the tolerance the page is compared with, <code>null</code> for identical images
+	 * @return the fingerprint
+	 * @throws IOException in case the page cannot be rendered or the baseline cannot be read
+	 */
+	static PageFingerprint of(final PDDocument pDocument, final int pPageIndex, final File pBaseline,
+			final float pComparisonDpi, final ImageTolerance pTolerance) throws IOException {
+		long hash = PerceptualHash.of(PageRenderer.render(pDocument, pPageIndex, DPI));
+		return new PageFingerprint(hash,
+				PdfDocumentCache.toHex(PdfDocumentCache.newDigest().digest(Files.readAllBytes(pBaseline.toPath()))),
+				pComparisonDpi, pTolerance);
+	}
+
+	/**
+	 * Checks whether the fingerprint stored in the given file was taken against the same baseline at the same
+	 * resolution with a tolerance at least as strict as the one of this fingerprint and is close to this
+	 * fingerprint.
+	 *
+	 * @param pFile the fingerprint file
+	 * @param pThreshold the maximum Hamming distance of the perceptual hashes
+	 * @return <code>true</code> if the page is considered unchanged, <code>false</code> if it needs a full comparison
+	 * @throws IOException in case the file exists but cannot be read
+	 */
+	boolean matches(final File pFile, final int pThreshold) throws IOException {
+		String[] stored;
+		try {
+			stored = new String(Files.readAllBytes(pFile.toPath()), StandardCharsets.US_ASCII).trim().split(" ");
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+		if (stored.length != 4 || !stored[1].equals(baselineHash)) {
+			return false;
+		}
+		try {
+			ImageTolerance storedTolerance = IDENTICAL.equals(stored[3]) ? null : ImageTolerance.decode(stored[3]);
+			return Float.parseFloat(stored[2]) == comparisonDpi
+					&& ImageTolerance.isAtLeastAsStrict(storedTolerance, tolerance)
+					&& PerceptualHash.distance(Long.parseUnsignedLong(stored[0], 16), hash) <= pThreshold;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Stores this fingerprint in the given file.
+	 *
+	 * @param pFile the fingerprint file
+	 * @throws IOException in case the file cannot be written
+	 */
+	void write(final File pFile) throws IOException {
+		String content = String.format("%016x %s %s %s\n", hash, baselineHash, Float.toString(comparisonDpi),
+				tolerance == null ? IDENTICAL : tolerance.encode());
+		Files.write(pFile.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,510 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+/**
+ * Positioned text of a single PDF page. All glyphs of the page are captured once with their bounding box, font
+ * and font size in primitive arrays and indexed in a uniform grid, so positional queries like the glyphs inside
+ * a region or the bounding boxes of a text do not extract the page again.
+ * <p>
+ * Coordinates are given in points with the origin at the upper left corner of the page like the regions of
+ * {@link org.apache.pdfbox.text.PDFTextStripperByArea}. A glyph belongs to a region if its reference point
+ * (left end of the base line) is inside the region, the same rule the area stripper applies.
+ *
+ * @author krischan
+ *
+ */
+final class PageGlyphIndex {
+
+	/** the indexes of all pages with positional queries, discarded together with the page */
+	private static final Map<COSDictionary, SoftReference<PageGlyphIndex>> INDEXES =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	/** the number of grid cells per axis */
+	private static final int GRID_SIZE = 64;
+
+	/** font index of the pseudo glyphs for word and line separators */
+	private static final int SEPARATOR = -1;
+
+	/** the text of all glyphs including word and line separators in content order */
+	private final String text;
+
+	/** the glyph each character of {@link #text} belongs to */
+	private final int[] glyphOfChar;
+
+	/** reference point x per glyph */
+	private final float[] x;
+
+	/** reference point y (base line) per glyph */
+	private final float[] y;
+
+	/** width per glyph */
+	private final float[] width;
+
+	/** height per glyph */
+	private final float[] height;
+
+	/** font size in points per glyph */
+	private final float[] fontSize;
+
+	/** index into {@link #fonts} per glyph, {@link #SEPARATOR} for separators */
+	private final int[] font;
+
+	/** the names of all fonts used on the page */
+	private final String[] fonts;
+
+	/** the left border of the grid */
+	private final float gridX;
+
+	/** the upper border of the grid */
+	private final float gridY;
+
+	/** the width of a grid cell */
+	private final float cellWidth;
+
+	/** the height of a grid cell */
+	private final float cellHeight;
+
+	/** the start of every cell in {@link #cellGlyphs}, one additional element marks the end of the last cell */
+	private final int[] cellStart;
+
+	/** the glyphs of all cells, ascending within a cell */
+	private final int[] cellGlyphs;
+
+	/**
+	 * Creates the index from the collected glyphs.
+	 *
+	 * @param pCollector the collected glyphs of the page
+	 */
+	private PageGlyphIndex(final GlyphCollector pCollector) {
+		int glyphs = pCollector.count;
+		text = pCollector.chars.toString();
+		glyphOfChar = Arrays.copyOf(pCollector.glyphOfChar, text.length());
+		x = Arrays.copyOf(pCollector.x, glyphs);
+		y = Arrays.copyOf(pCollector.y, glyphs);
+		width = Arrays.copyOf(pCollector.width, glyphs);
+		height = Arrays.copyOf(pCollector.height, glyphs);
+		fontSize = Arrays.copyOf(pCollector.fontSize, glyphs);
+		font = Arrays.copyOf(pCollector.font, glyphs);
+		fonts = pCollector.fontNames.toArray(new String[0]);
+
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		for (int glyph = 0; glyph < glyphs; glyph++) {
+			if (font[glyph] != SEPARATOR) {
+				minX = Math.min(minX, x[glyph]);
+				minY = Math.min(minY, y[glyph]);
+				maxX = Math.max(maxX, x[glyph]);
+				maxY = Math.max(maxY, y[glyph]);
+			}
+		}
+		if (minX > maxX) {
+			minX = 0;
+			minY = 0;
+			maxX = 0;
+			maxY = 0;
+		}
+		gridX = minX;
+		gridY = minY;
+		cellWidth = Math.max(1f, (maxX - minX) / GRID_SIZE + Math.ulp(maxX));
+		cellHeight = Math.max(1f, (maxY - minY) / GRID_SIZE + Math.ulp(maxY));
+
+		// counting sort of the glyphs into the cells keeps the content order within every cell
+		cellStart = new int[GRID_SIZE * GRID_SIZE + 1];
+		int[] cellOfGlyph = new int[glyphs];
+		for (int glyph = 0; glyph < glyphs; glyph++) {
+			cellOfGlyph[glyph] = font[glyph] == SEPARATOR ? -1 : cell(column(x[glyph]), row(y[glyph]));
+			if (cellOfGlyph[glyph] >= 0) {
+				cellStart[cellOfGlyph[glyph] + 1]++;
+			}
+		}
+		for (int cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+			cellStart[cell + 1] += cellStart[cell];
+		}
+		cellGlyphs = new int[cellStart[GRID_SIZE * GRID_SIZE]];
+		int[] fill = Arrays.copyOf(cellStart, GRID_SIZE * GRID_SIZE);
+		for (int glyph = 0; glyph < glyphs; glyph++) {
+			if (cellOfGlyph[glyph] >= 0) {
+				cellGlyphs[fill[cellOfGlyph[glyph]]++] = glyph;
+			}
+		}
+	}
+
+	/**
+	 * Returns the glyph index of the given page and builds it on first request.
+	 *
+	 * @param pDocument the PDF document the page belongs to
+	 * @param pPage the PDF page
+	 * @return the glyph index of the page
+	 * @throws IOException in case the text of the page cannot be extracted
+	 */
+	static PageGlyphIndex forPage(final PDDocument pDocument, final PDPage pPage) throws IOException {
+		SoftReference<PageGlyphIndex> cached = INDEXES.get(pPage.getCOSObject());
+		PageGlyphIndex index = cached == null ? null : cached.get();
+		if (index == null) {
+			GlyphCollector collector = new GlyphCollector();
+			int pageNumber = pDocument.getPages().indexOf(pPage) + 1;
+			collector.setStartPage(pageNumber);
+			collector.setEndPage(pageNumber);
+			collector.writeText(pDocument, new NullWriter());
+			index = new PageGlyphIndex(collector);
+			INDEXES.put(pPage.getCOSObject(), new SoftReference<>(index));
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the number of glyphs of the page including word and line separators.
+	 *
+	 * @return the number of glyphs
+	 */
+	int size() {
+		return x.length;
+	}
+
+	/**
+	 * Returns the glyphs inside the given region in content order, separators excluded.
+	 *
+	 * @param pRegion the region
+	 * @return the indexes of the glyphs inside the region
+	 */
+	int[] glyphsInRegion(final Rectangle2D pRegion) {
+		int firstColumn = column((float) pRegion.getMinX());
+		int lastColumn = column((float) pRegion.getMaxX());
+		int firstRow = row((float) pRegion.getMinY());
+		int lastRow = row((float) pRegion.getMaxY());
+		int[] found = new int[16];
+		int count = 0;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				int cell = cell(column, row);
+				for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+					int glyph = cellGlyphs[i];
+					if (pRegion.contains(x[glyph], y[glyph])) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+						found[count++] = glyph;
+					}
+				}
+			}
+		}
+		int[] glyphs = Arrays.copyOf(found, count);
+		Arrays.sort(glyphs);
+		return glyphs;
+	}
+
+	/**
+	 * Returns the text of the glyphs inside the given region in content order without separators.
+	 *
+	 * @param pRegion the region
+	 * @return the text inside the region
+	 */
+	String textInRegion(final Rectangle2D pRegion) {
+		StringBuilder regionText = new StringBuilder();
+		int textPosition = 0;
+		for (int glyph : glyphsInRegion(pRegion)) {
+			while (glyphOfChar[textPosition] < glyph) {
+				textPosition++;
+			}
+			while (textPosition < text.length() && glyphOfChar[textPosition] == glyph) {
+				regionText.append(text.charAt(textPosition++));
+			}
+		}
+		return regionText.toString();
+	}
+
+	/**
+	 * Returns the bounding box of every occurrence of the given text. Occurrences may span several words
+	 * separated by single spaces or several lines separated by line breaks.
+	 *
+	 * @param pText the text to find
+	 * @return the bounding boxes of all occurrences in content order
+	 */
+	List<Rectangle2D> boundingBoxesOf(final String pText) {
+		List<Rectangle2D> boxes = new ArrayList<>();
+		if (pText.isEmpty()) {
+			return boxes;
+		}
+		int start = text.indexOf(pText);
+		while (start >= 0) {
+			boxes.add(boundingBox(glyphOfChar[start], glyphOfChar[start + pText.length() - 1]));
+			start = text.indexOf(pText, start + 1);
+		}
+		return boxes;
+	}
+
+	/**
+	 * Checks whether the given text occurs with all its glyphs inside the given region.
+	 *
+	 * @param pText the text to find
+	 * @param pRegion the region
+	 * @return <code>true</code> if at least one occurrence is completely inside the region
+	 */
+	boolean isTextInRegion(final String pText, final Rectangle2D pRegion) {
+		if (pText.isEmpty()) {
+			return true;
+		}
+		BitSet inside = new BitSet(x.length);
+		for (int glyph : glyphsInRegion(pRegion)) {
+			inside.set(glyph);
+		}
+		for (int glyph = 0; glyph < x.length; glyph++) {
+			if (font[glyph] == SEPARATOR) {
+				inside.set(glyph);
+			}
+		}
+		int start = text.indexOf(pText);
+		while (start >= 0) {
+			int firstGlyph = glyphOfChar[start];
+			int lastGlyph = glyphOfChar[start + pText.length() - 1];
+			if (inside.nextClearBit(firstGlyph) > lastGlyph) {
+				return true;
+			}
+			start = text.indexOf(pText, start + 1);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the names of the fonts of the first occurrence of the given text.
+	 *
+	 * @param pText the text to find
+	 * @return the distinct font names or an empty list if the text does not occur
+	 */
+	List<String> fontsOf(final String pText) {
+		List<String> names = new ArrayList<>();
+		int start = pText.isEmpty() ? -1 : text.indexOf(pText);
+		if (start >= 0) {
+			for (int glyph = glyphOfChar[start]; glyph <= glyphOfChar[start + pText.length() - 1]; glyph++) {
+				if (font[glyph] != SEPARATOR && !names.contains(fonts[font[glyph]])) {
+					names.add(fonts[font[glyph]]);
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns the font sizes in points of the first occurrence of the given text.
+	 *
+	 * @param pText the text to find
+	 * @return the distinct font sizes or an empty list if the text does not occur
+	 */
+	List<Float> fontSizesOf(final String pText) {
+		List<Float> sizes = new ArrayList<>();
+		int start = pText.isEmpty() ? -1 : text.indexOf(pText);
+		if (start >= 0) {
+			for (int glyph = glyphOfChar[start]; glyph <= glyphOfChar[start + pText.length() - 1]; glyph++) {
+				if (font[glyph] != SEPARATOR && !sizes.contains(fontSize[glyph])) {
+					sizes.add(fontSize[glyph]);
+				}
+			}
+		}
+		return sizes;
+	}
+
+	/**
+	 * Returns the union of the bounding boxes of the given glyph range, separators excluded.
+	 *
+	 * @param pFirstGlyph the first glyph (inclusive)
+	 * @param pLastGlyph the last glyph (inclusive)
+	 * @return the bounding box
+	 */
+	private Rectangle2D boundingBox(final int pFirstGlyph, final int pLastGlyph) {
+		Rectangle2D box = null;
+		for (int glyph = pFirstGlyph; glyph <= pLastGlyph; glyph++) {
+			if (font[glyph] != SEPARATOR) {
+				Rectangle2D glyphBox = new Rectangle2D.Float(x[glyph], y[glyph] - height[glyph], width[glyph], height[glyph]);
+				if (box == null) {
+					box = glyphBox;
+				} else {
+					box.add(glyphBox);
+				}
+			}
+		}
+		return box;
+	}
+
+	/**
+	 * Returns the grid column of the given x coordinate, clamped to the grid.
+	 *
+	 * @param pX the x coordinate
+	 * @return the column
+	 */
+	private int column(final float pX) {
+		return Math.max(0, Math.min(GRID_SIZE - 1, (int) Math.floor((pX - gridX) / cellWidth)));
+	}
+
+	/**
+	 * Returns the grid row of the given y coordinate, clamped to the grid.
+	 *
+	 * @param pY the y coordinate
+	 * @return the row
+	 */
+	private int row(final float pY) {
+		return Math.max(0, Math.min(GRID_SIZE - 1, (int) Math.floor((pY - gridY) / cellHeight)));
+	}
+
+	/**
+	 * Returns the cell of the given grid position.
+	 *
+	 * @param pColumn the column
+	 * @param pRow the row
+	 * @return the cell
+	 */
+	private static int cell(final int pColumn, final int pRow) {
+		return pRow * GRID_SIZE + pColumn;
+	}
+
+	/**
+	 * Text stripper collecting the glyphs of a page in growing primitive arrays.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class GlyphCollector extends PDFTextStripper {
+
+		/** the text of all glyphs */
+		private final StringBuilder chars = new StringBuilder();
+
+		/** the glyph per character */
+		private int[] glyphOfChar = new int[1024];
+
+		/** the number of collected glyphs */
+		private int count;
+
+		/** reference point x per glyph */
+		private float[] x = new float[1024];
+
+		/** reference point y per glyph */
+		private float[] y = new float[1024];
+
+		/** width per glyph */
+		private float[] width = new float[1024];
+
+		/** height per glyph */
+		private float[] height = new float[1024];
+
+		/** font size per glyph */
+		private float[] fontSize = new float[1024];
+
+		/** font index per glyph */
+		private int[] font = new int[1024];
+
+		/** the names of all fonts in order of appearance */
+		private final List<String> fontNames = new ArrayList<>();
+
+		/** the index of every font name in {@link #fontNames} */
+		private final Map<String, Integer> fontIndexes = new HashMap<>();
+
+		@Override
+		protected void writeString(final String pText, final List<TextPosition> pTextPositions) throws IOException {
+			for (TextPosition position : pTextPositions) {
+				String name = position.getFont() == null ? "" : position.getFont().getName();
+				Integer fontIndex = fontIndexes.get(name);
+				if (fontIndex == null) {
+					fontIndex = fontNames.size();
+					fontNames.add(name);
+					fontIndexes.put(name, fontIndex);
+				}
+				add(position.getUnicode(), position.getX(), position.getY(), position.getWidth(),
+						position.getHeight(), position.getFontSizeInPt(), fontIndex);
+			}
+		}
+
+		@Override
+		protected void writeWordSeparator() throws IOException {
+			add(getWordSeparator(), 0, 0, 0, 0, 0, SEPARATOR);
+		}
+
+		@Override
+		protected void writeLineSeparator() throws IOException {
+			add("\n", 0, 0, 0, 0, 0, SEPARATOR);
+		}
+
+		/**
+		 * Adds a glyph.
+		 *
+		 * @param pUnicode the text of the glyph
+		 * @param pX reference point x
+		 * @param pY reference point y
+		 * @param pWidth the glyph width
+		 * @param pHeight the glyph height
+		 * @param pFontSize the font size in points
+		 * @param pFont the font index or {@link PageGlyphIndex#SEPARATOR}
+		 */
+		private void add(final String pUnicode, final float pX, final float pY, final float pWidth, final float pHeight,
+				final float pFontSize, final int pFont) {
+			if (pUnicode == null || pUnicode.isEmpty()) {
+				return;
+			}
+			if (count == x.length) {
+				int capacity = count * 2;
+				x = Arrays.copyOf(x, capacity);
+				y = Arrays.copyOf(y, capacity);
+				width = Arrays.copyOf(width, capacity);
+				height = Arrays.copyOf(height, capacity);
+				fontSize = Arrays.copyOf(fontSize, capacity);
+				font = Arrays.copyOf(font, capacity);
+			}
+			x[count] = pX;
+			y[count] = pY;
+			width[count] = pWidth;
+			height[count] = pHeight;
+			fontSize[count] = pFontSize;
+			font[count] = pFont;
+			for (int i = 0; i < pUnicode.length(); i++) {
+				if (chars.length() == glyphOfChar.length) {
+					glyphOfChar = Arrays.copyOf(glyphOfChar, glyphOfChar.length * 2);
+				}
+				glyphOfChar[chars.length()] = count;
+				chars.append(pUnicode.charAt(i));
+			}
+			count++;
+		}
+	}
+
+	/**
+	 * Writer discarding all output, the glyphs are collected from the text positions.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class NullWriter extends Writer {
+
+		@Override
+		public void write(final char[] pBuffer, final int pOffset, final int pLength) {
+			// NOP
+		}
+
+		@Override
+		public void flush() {
+			// NOP
+		}
+
+		@Override
+		public void close() {
+			// NOP
+		}
+	}
+}
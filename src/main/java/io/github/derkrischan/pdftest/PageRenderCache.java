@@ -0,0 +1,533 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.util.Version;
+
+/**
+ * Persistent cache of rendered pages shared by all visual assertions while the cache is active (see
+ * {@link PdfAssertions#setRenderCache(PageRenderCache)}). Rendering is the most expensive operation on a PDF
+ * document, with the cache a page is rendered only once per content, resolution and colour mode, even across
+ * test runs.
+ * <p>
+ * Pages are identified by a SHA-256 hash of the document content, the page index, the resolution, the colour mode,
+ * the rendered region of the page and the PDFBox version, so a changed document or renderer never hits an outdated
+ * rendering. Every rendering is stored in its own file with the raw pixels, RGB pages with three bytes per pixel,
+ * gray and binary pages with the packed samples of their raster. Cached renderings are read back via memory mapping.
+ * <p>
+ * The cache directory can be shared by several processes, e.g. parallel test forks. Renderings are written to a
+ * temporary file first and moved to their final name atomically, so readers never see incomplete files. The files
+ * are evicted least recently used first as soon as their summed size exceeds the configured maximum, the
+ * modification time of a file is its last access. Renderings larger than the maximum are not cached at all.
+ * Temporary files count towards the maximum, those not modified for an hour are left by crashed writers and are
+ * deleted.
+ *
+ * @author krischan
+ *
+ */
+public final class PageRenderCache {
+
+	/** marks the start of every cache file */
+	private static final int MAGIC = 0x4A505243;
+
+	/** the version of the file format, part of the file header */
+	private static final byte FORMAT_VERSION = 1;
+
+	/** size of the file header: magic, format version, image type, width and height */
+	private static final int HEADER_SIZE = 14;
+
+	/** the file extension of cached renderings */
+	private static final String EXTENSION = ".raster";
+
+	/** the file extension of renderings being written */
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/** the age in milliseconds after which a temporary file is considered left by a crashed writer */
+	private static final long STALE_TEMP_FILE_AGE = 60 * 60 * 1000L;
+
+	/** the directory the renderings are stored in */
+	private final Path directory;
+
+	/** the maximum summed size of all cache files in bytes */
+	private final long maxSize;
+
+	/** the summed size of all cache files in bytes as known to this process, -1 until the directory was scanned */
+	private long size = -1;
+
+	/** number of renderings read from cache */
+	private long hitCount;
+
+	/** number of pages that had to be rendered */
+	private long missCount;
+
+	/** number of cache files evicted because the maximum size was exceeded */
+	private long evictionCount;
+
+	/**
+	 * Creates a render cache storing its files in the given directory. Renderings already stored in the directory
+	 * are reused.
+	 *
+	 * @param pDirectory the cache directory, created if it does not exist
+	 * @param pMaxSizeInBytes the maximum summed size in bytes of all cache files
+	 * @throws IOException in case the directory cannot be created
+	 */
+	public PageRenderCache(final Path pDirectory, final long pMaxSizeInBytes) throws IOException {
+		if (pDirectory == null) {
+			throw new IllegalArgumentException("Cache directory cannot be NULL.");
+		}
+		if (pMaxSizeInBytes <= 0) {
+			throw new IllegalArgumentException("Maximum cache size must be positive.");
+		}
+		directory = Files.createDirectories(pDirectory);
+		maxSize = pMaxSizeInBytes;
+	}
+
+	/**
+	 * Returns the cached rendering of a page or renders and caches it.
+	 *
+	 * @param pDocumentHash the content hash of the document, see {@link PdfLoader#contentHash(org.apache.pdfbox.pdmodel.PDDocument)}
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pDpi the resolution in dots per inch
+	 * @param pImageType the colour mode
+	 * @param pClip the rendered pixels of the page, <code>null</code> for the whole page
+	 * @param pRenderer renders the page on a cache miss
+	 * @return the cached or newly rendered page
+	 * @throws IOException in case the page cannot be rendered or the rendering cannot be cached
+	 */
+	BufferedImage get(final String pDocumentHash, final int pPageIndex, final float pDpi, final ImageType pImageType,
+			final Rectangle pClip, final Renderer pRenderer) throws IOException {
+		Path file = directory.resolve(fileName(pDocumentHash, pPageIndex, pDpi, pImageType, pClip));
+		BufferedImage cached = read(file);
+		if (cached != null) {
+			synchronized (this) {
+				hitCount++;
+			}
+			touch(file);
+			return cached;
+		}
+		synchronized (this) {
+			missCount++;
+		}
+		BufferedImage rendered = pRenderer.render();
+		long fileSize = HEADER_SIZE + payloadSize(rendered);
+		if (fileSize > HEADER_SIZE && fileSize <= maxSize) {
+			write(file, rendered);
+			added(fileSize);
+		}
+		return rendered;
+	}
+
+	/**
+	 * Deletes all cache files and stale temporary files, temporary files still being written are kept. The
+	 * statistics are kept.
+	 *
+	 * @throws IOException in case the directory cannot be read
+	 */
+	public synchronized void clear() throws IOException {
+		long total = 0;
+		for (CacheFile file : list()) {
+			if (file.isBeingWritten()) {
+				total += file.size;
+			} else {
+				Files.deleteIfExists(file.path);
+			}
+		}
+		size = total;
+	}
+
+	/**
+	 * Returns the directory the renderings are stored in.
+	 *
+	 * @return the cache directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of renderings read from this cache.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of pages that had to be rendered.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of cache files evicted by this process because the maximum size was exceeded.
+	 *
+	 * @return the eviction count
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the maximum summed size in bytes of all cache files.
+	 *
+	 * @return the maximum size
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PageRenderCache [directory=" + directory + ", maxSize=" + maxSize + ", hits=" + hitCount
+				+ ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	/**
+	 * Creates the name of the cache file of a rendering.
+	 *
+	 * @param pDocumentHash the content hash of the document
+	 * @param pPageIndex the index of the page
+	 * @param pDpi the resolution in dots per inch
+	 * @param pImageType the colour mode
+	 * @param pClip the rendered pixels of the page, <code>null</code> for the whole page
+	 * @return the file name
+	 */
+	private static String fileName(final String pDocumentHash, final int pPageIndex, final float pDpi,
+			final ImageType pImageType, final Rectangle pClip) {
+		String key = pDocumentHash + '|' + pPageIndex + '|' + Float.floatToIntBits(pDpi) + '|' + pImageType + '|'
+				+ Version.getVersion() + '|' + FORMAT_VERSION;
+		if (pClip != null) {
+			key += "|" + pClip.x + ',' + pClip.y + ',' + pClip.width + ',' + pClip.height;
+		}
+		MessageDigest digest = PdfDocumentCache.newDigest();
+		return PdfDocumentCache.toHex(digest.digest(key.getBytes(StandardCharsets.UTF_8))) + EXTENSION;
+	}
+
+	/**
+	 * Returns the number of bytes needed to store the pixels of the given image.
+	 *
+	 * @param pImage the image
+	 * @return the payload size or 0 if the image type is not supported by the cache
+	 */
+	private static long payloadSize(final BufferedImage pImage) {
+		long pixels = (long) pImage.getWidth() * pImage.getHeight();
+		switch (pImage.getType()) {
+			case BufferedImage.TYPE_INT_RGB:
+				return pixels * 3;
+			case BufferedImage.TYPE_INT_ARGB:
+				return pixels * 4;
+			case BufferedImage.TYPE_BYTE_GRAY:
+			case BufferedImage.TYPE_BYTE_BINARY:
+			case BufferedImage.TYPE_3BYTE_BGR:
+				// the rasters created by the renderer are not shared with other images, so the data is exactly the page
+				return ((DataBufferByte) pImage.getRaster().getDataBuffer()).getData().length;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Reads a cached rendering.
+	 *
+	 * @param pFile the cache file
+	 * @return the rendering or <code>null</code> if the file does not exist or is not a valid cache file
+	 * @throws IOException in case the file cannot be read
+	 */
+	private static BufferedImage read(final Path pFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			try {
+				return read(buffer, fileSize);
+			} finally {
+				// a mapped file cannot be deleted or replaced on Windows until it is unmapped
+				IOUtils.unmap(buffer);
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copies a cached rendering from the mapped cache file.
+	 *
+	 * @param pBuffer the mapped cache file
+	 * @param pFileSize the size of the cache file
+	 * @return the rendering or <code>null</code> if the file is not a valid cache file
+	 */
+	private static BufferedImage read(final MappedByteBuffer pBuffer, final long pFileSize) {
+		if (pBuffer.getInt() != MAGIC || pBuffer.get() != FORMAT_VERSION) {
+			return null;
+		}
+		int type = pBuffer.get();
+		int width = pBuffer.getInt();
+		int height = pBuffer.getInt();
+		if (width <= 0 || height <= 0 || !isSupported(type)) {
+			return null;
+		}
+		BufferedImage image = new BufferedImage(width, height, type);
+		if (payloadSize(image) != pFileSize - HEADER_SIZE) {
+			return null;
+		}
+		if (type == BufferedImage.TYPE_INT_RGB) {
+			int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			byte[] row = new byte[width * 3];
+			for (int y = 0, pixel = 0; y < height; y++) {
+				pBuffer.get(row);
+				for (int i = 0; i < row.length; i += 3) {
+					data[pixel++] = (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | row[i + 2] & 0xFF;
+				}
+			}
+		} else if (type == BufferedImage.TYPE_INT_ARGB) {
+			pBuffer.asIntBuffer().get(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+		} else {
+			pBuffer.get(((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+		}
+		return image;
+	}
+
+	/**
+	 * Checks whether the cache can store images of the given type.
+	 *
+	 * @param pType the {@link BufferedImage} type
+	 * @return <code>true</code> if the type is supported
+	 */
+	private static boolean isSupported(final int pType) {
+		return pType == BufferedImage.TYPE_INT_RGB || pType == BufferedImage.TYPE_INT_ARGB
+				|| pType == BufferedImage.TYPE_BYTE_GRAY || pType == BufferedImage.TYPE_BYTE_BINARY
+				|| pType == BufferedImage.TYPE_3BYTE_BGR;
+	}
+
+	/**
+	 * Writes a rendering to its cache file. The rendering is written to a temporary file in the cache directory
+	 * first, which is then moved to the cache file atomically.
+	 *
+	 * @param pFile the cache file
+	 * @param pImage the rendering
+	 * @throws IOException in case the file cannot be written
+	 */
+	private void write(final Path pFile, final BufferedImage pImage) throws IOException {
+		Path temp = Files.createTempFile(directory, pFile.getFileName().toString(), TEMP_EXTENSION);
+		try {
+			try (OutputStream file = Files.newOutputStream(temp);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+				out.writeInt(MAGIC);
+				out.writeByte(FORMAT_VERSION);
+				out.writeByte(pImage.getType());
+				out.writeInt(pImage.getWidth());
+				out.writeInt(pImage.getHeight());
+				writePixels(out, pImage);
+			}
+			try {
+				Files.move(temp, pFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, pFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Writes the pixels of a rendering.
+	 *
+	 * @param pOut the output of the cache file
+	 * @param pImage the rendering of a supported type
+	 * @throws IOException in case the pixels cannot be written
+	 */
+	private static void writePixels(final DataOutputStream pOut, final BufferedImage pImage) throws IOException {
+		int type = pImage.getType();
+		if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+			int bytesPerPixel = type == BufferedImage.TYPE_INT_RGB ? 3 : 4;
+			int[] pixels = new int[pImage.getWidth()];
+			ByteBuffer row = ByteBuffer.allocate(pixels.length * 4);
+			for (int y = 0; y < pImage.getHeight(); y++) {
+				pImage.getRaster().getDataElements(0, y, pixels.length, 1, pixels);
+				row.clear();
+				for (int pixel : pixels) {
+					if (bytesPerPixel == 4) {
+						row.put((byte) (pixel >>> 24));
+					}
+					row.put((byte) (pixel >> 16)).put((byte) (pixel >> 8)).put((byte) pixel);
+				}
+				pOut.write(row.array(), 0, row.position());
+			}
+		} else {
+			pOut.write(((DataBufferByte) pImage.getRaster().getDataBuffer()).getData());
+		}
+	}
+
+	/**
+	 * Marks a cache file as recently used.
+	 *
+	 * @param pFile the cache file
+	 */
+	private static void touch(final Path pFile) {
+		try {
+			Files.setLastModifiedTime(pFile, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// evicted meanwhile by another process, the rendering was read already
+		}
+	}
+
+	/**
+	 * Accounts for a newly written cache file and evicts the least recently used files if the maximum size is
+	 * exceeded. Since other processes may write to the same directory, the directory is scanned for the actual
+	 * size before evicting. Stale temporary files are deleted first, temporary files still being written are
+	 * counted but not evicted.
+	 *
+	 * @param pFileSize the size of the new file
+	 * @throws IOException in case the directory cannot be read
+	 */
+	private synchronized void added(final long pFileSize) throws IOException {
+		if (size >= 0) {
+			size += pFileSize;
+			if (size <= maxSize) {
+				return;
+			}
+		}
+		List<CacheFile> files = list();
+		files.sort(Comparator.comparing(file -> file.lastAccess));
+		long total = 0;
+		for (CacheFile file : files) {
+			total += file.size;
+		}
+		for (CacheFile file : files) {
+			if (file.isTemporary() && !file.isBeingWritten()) {
+				Files.deleteIfExists(file.path);
+				total -= file.size;
+			}
+		}
+		for (int i = 0; total > maxSize && i < files.size(); i++) {
+			if (!files.get(i).isTemporary()) {
+				if (Files.deleteIfExists(files.get(i).path)) {
+					evictionCount++;
+				}
+				total -= files.get(i).size;
+			}
+		}
+		size = total;
+	}
+
+	/**
+	 * Lists all cache files and temporary files of the directory.
+	 *
+	 * @return the cache files with their size and last access
+	 * @throws IOException in case the directory cannot be read
+	 */
+	private List<CacheFile> list() throws IOException {
+		List<CacheFile> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				"*" + EXTENSION + "{,*" + TEMP_EXTENSION + "}")) {
+			for (Path path : stream) {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					files.add(new CacheFile(path, attributes.size(), attributes.lastModifiedTime()));
+				} catch (NoSuchFileException e) {
+					// evicted meanwhile by another process
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Renders a page on a cache miss.
+	 *
+	 * @author krischan
+	 *
+	 */
+	@FunctionalInterface
+	interface Renderer {
+
+		/**
+		 * Renders the page.
+		 *
+		 * @return the rendered page
+		 * @throws IOException in case the page cannot be rendered
+		 */
+		BufferedImage render() throws IOException;
+	}
+
+	/**
+	 * A cache file with its size and last access.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class CacheFile {
+
+		/** the file */
+		private final Path path;
+
+		/** the file size in bytes */
+		private final long size;
+
+		/** the last access of the file */
+		private final FileTime lastAccess;
+
+		/**
+		 * Constructor for {@link CacheFile}.
+		 *
+		 * @param pPath the file
+		 * @param pSize the file size in bytes
+		 * @param pLastAccess the last access of the file
+		 */
+		CacheFile(final Path pPath, final long pSize, final FileTime pLastAccess) {
+			path = pPath;
+			size = pSize;
+			lastAccess = pLastAccess;
+		}
+
+		/**
+		 * Checks whether the file is a temporary file of a rendering being written or left by a crashed writer.
+		 *
+		 * @return <code>true</code> for a temporary file
+		 */
+		boolean isTemporary() {
+			return path.getFileName().toString().endsWith(TEMP_EXTENSION);
+		}
+
+		/**
+		 * Checks whether the file is a temporary file modified recently, probably still being written.
+		 *
+		 * @return <code>true</code> for a temporary file that is not stale
+		 */
+		boolean isBeingWritten() {
+			return isTemporary() && System.currentTimeMillis() - lastAccess.toMillis() < STALE_TEMP_FILE_AGE;
+		}
+	}
+}
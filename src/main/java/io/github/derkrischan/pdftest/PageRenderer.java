@@ -0,0 +1,129 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
+
+/**
+ * Renders pages for visual assertions. All rendering of the library goes through this class, so it reads through
+ * the active {@link PageRenderCache}.
+ *
+ * @author krischan
+ *
+ */
+final class PageRenderer {
+
+	/** the resolution of PDF user space */
+	private static final float POINTS_PER_INCH = 72;
+
+	/** region bounds closer to a pixel boundary than this are rounded to it to compensate for rounding errors */
+	private static final double PIXEL_EPSILON = 1e-4;
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private PageRenderer() {
+		// NOP
+	}
+
+	/**
+	 * Renders a page of the given document as RGB image.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pDpi the resolution in dots per inch
+	 * @return the rendered page
+	 * @throws IOException in case the page cannot be rendered
+	 */
+	static BufferedImage render(final PDDocument pDocument, final int pPageIndex, final float pDpi) throws IOException {
+		return render(pDocument, pPageIndex, pDpi, ImageType.RGB);
+	}
+
+	/**
+	 * Renders a page of the given document, from the active {@link PageRenderCache} if the source of the document
+	 * is known.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pDpi the resolution in dots per inch
+	 * @param pImageType the colour mode
+	 * @return the rendered page
+	 * @throws IOException in case the page cannot be rendered
+	 */
+	static BufferedImage render(final PDDocument pDocument, final int pPageIndex, final float pDpi,
+			final ImageType pImageType) throws IOException {
+		PageRenderCache cache = PdfAssertions.getRenderCache();
+		String documentHash = cache == null ? null : PdfLoader.contentHash(pDocument);
+		if (documentHash == null) {
+			return new PDFRenderer(pDocument).renderImageWithDPI(pPageIndex, pDpi, pImageType);
+		}
+		return cache.get(documentHash, pPageIndex, pDpi, pImageType, null,
+				() -> new PDFRenderer(pDocument).renderImageWithDPI(pPageIndex, pDpi, pImageType));
+	}
+
+	/**
+	 * Renders only a region of a page of the given document as RGB image, from the active {@link PageRenderCache} if
+	 * the source of the document is known. The graphics are translated to the region and clipped to it, so content
+	 * outside the region is culled before it is rasterized. The region is extended to whole pixels, the rendering
+	 * is the crop of a rendering of the whole page at the same resolution.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pRegion the region in points with the origin at the upper left corner of the rendered page
+	 * @param pDpi the resolution in dots per inch
+	 * @return the rendered region
+	 * @throws IOException in case the region cannot be rendered
+	 */
+	static BufferedImage renderRegion(final PDDocument pDocument, final int pPageIndex, final Rectangle2D pRegion,
+			final float pDpi) throws IOException {
+		double scale = pDpi / POINTS_PER_INCH;
+		int left = (int) Math.floor(pRegion.getMinX() * scale + PIXEL_EPSILON);
+		int top = (int) Math.floor(pRegion.getMinY() * scale + PIXEL_EPSILON);
+		Rectangle clip = new Rectangle(left, top,
+				Math.max(1, (int) Math.ceil(pRegion.getMaxX() * scale - PIXEL_EPSILON) - left),
+				Math.max(1, (int) Math.ceil(pRegion.getMaxY() * scale - PIXEL_EPSILON) - top));
+		PageRenderCache cache = PdfAssertions.getRenderCache();
+		String documentHash = cache == null ? null : PdfLoader.contentHash(pDocument);
+		if (documentHash == null) {
+			return renderClip(pDocument, pPageIndex, clip, pDpi / POINTS_PER_INCH);
+		}
+		return cache.get(documentHash, pPageIndex, pDpi, ImageType.RGB, clip,
+				() -> renderClip(pDocument, pPageIndex, clip, pDpi / POINTS_PER_INCH));
+	}
+
+	/**
+	 * Renders the given pixels of a page.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pClip the pixels of the page rendering to render
+	 * @param pScale the scale from points to pixels
+	 * @return the rendered pixels
+	 * @throws IOException in case the page cannot be rendered
+	 */
+	private static BufferedImage renderClip(final PDDocument pDocument, final int pPageIndex, final Rectangle pClip,
+			final float pScale) throws IOException {
+		BufferedImage image = new BufferedImage(pClip.width, pClip.height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setBackground(Color.WHITE);
+			graphics.clearRect(0, 0, pClip.width, pClip.height);
+			graphics.translate(-pClip.x, -pClip.y);
+			graphics.setClip(pClip);
+			// like full page renderings, so optional content is shown in its export state
+			new PDFRenderer(pDocument).renderPageToGraphics(pPageIndex, graphics, pScale, pScale,
+					RenderDestination.EXPORT);
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+}
@@ -0,0 +1,379 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Cache of the text extracted per page of a PDF document. Pages are extracted on first request and any page
+ * range is assembled from the cached pages afterwards, so repeated and overlapping text assertions on the same
+ * document strip every page only once. The text of a range equals the text {@link PDFTextStripper} extracts
+ * for the whole range in one pass.
+ * <p>
+ * Large page ranges are extracted in parallel if configured (see {@link PdfAssertions#setTextExtractionParallelism(int)}).
+ * <p>
+ * The page texts are softly referenced and extracted again if the garbage collector needed the memory. The
+ * caches are bound to the documents and discarded together with them.
+ *
+ * @author krischan
+ *
+ */
+final class PageTextCache {
+
+	/** the page text caches of all documents with extracted text */
+	private static final Map<PDDocument, PageTextCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/** the minimum number of pages worth an own extraction thread, smaller ranges are not split further */
+	private static final int MIN_PAGES_PER_THREAD = 8;
+
+	/** the extracted text per page, index 0 for page 1 */
+	private final List<SoftReference<String>> pages;
+
+	/**
+	 * Constructor for {@link PageTextCache}, the cache must not reference the document.
+	 *
+	 * @param pPageCount the number of pages of the document
+	 */
+	private PageTextCache(final int pPageCount) {
+		pages = new ArrayList<>(Collections.nCopies(pPageCount, (SoftReference<String>) null));
+	}
+
+	/**
+	 * Returns the text cache of the given document.
+	 *
+	 * @param pDocument the PDF document
+	 * @return the page text cache of the document
+	 */
+	static PageTextCache forDocument(final PDDocument pDocument) {
+		return CACHES.computeIfAbsent(pDocument, document -> new PageTextCache(document.getNumberOfPages()));
+	}
+
+	/**
+	 * Discards the text cache of the given document, e.g. because the document is closed.
+	 *
+	 * @param pDocument the PDF document
+	 */
+	static void discard(final PDDocument pDocument) {
+		CACHES.remove(pDocument);
+	}
+
+	/**
+	 * Checks whether the text of the given page is cached.
+	 *
+	 * @param pPage the page (starting at 1)
+	 * @return <code>true</code> if the page was extracted and its text is still cached
+	 */
+	synchronized boolean isCached(final int pPage) {
+		SoftReference<String> cached = pages.get(pPage - 1);
+		return cached != null && cached.get() != null;
+	}
+
+	/**
+	 * Returns the text of the given page range and extracts pages that are not cached yet.
+	 *
+	 * @param pDocument the PDF document this cache belongs to
+	 * @param pStartPage the first page (inclusive, starting at 1)
+	 * @param pEndPage the last page (inclusive)
+	 * @return the text of the page range
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	String getText(final PDDocument pDocument, final int pStartPage, final int pEndPage) throws IOException {
+		return getText(pDocument, pStartPage, pEndPage, new int[pEndPage - pStartPage + 1]);
+	}
+
+	/**
+	 * Returns the text of the given page range and extracts pages that are not cached yet.
+	 *
+	 * @param pDocument the PDF document this cache belongs to
+	 * @param pStartPage the first page (inclusive, starting at 1)
+	 * @param pEndPage the last page (inclusive)
+	 * @param pPageOffsets receives the offset in the returned text of every page of the range
+	 * @return the text of the page range
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	String getText(final PDDocument pDocument, final int pStartPage, final int pEndPage, final int[] pPageOffsets)
+			throws IOException {
+		String[] texts = getPageTexts(pDocument, pStartPage, pEndPage);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < texts.length; i++) {
+			pPageOffsets[i] = text.length();
+			text.append(texts[i]);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Returns the text of every page of the given page range and extracts pages that are not cached yet.
+	 *
+	 * @param pDocument the PDF document this cache belongs to
+	 * @param pStartPage the first page (inclusive, starting at 1)
+	 * @param pEndPage the last page (inclusive)
+	 * @return the text of every page of the range
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	synchronized String[] getPageTexts(final PDDocument pDocument, final int pStartPage, final int pEndPage)
+			throws IOException {
+		String[] texts = new String[pEndPage - pStartPage + 1];
+		int missingStart = -1;
+		for (int page = pStartPage; page <= pEndPage; page++) {
+			SoftReference<String> cached = pages.get(page - 1);
+			texts[page - pStartPage] = cached == null ? null : cached.get();
+			if (texts[page - pStartPage] == null && missingStart < 0) {
+				missingStart = page;
+			} else if (texts[page - pStartPage] != null && missingStart > 0) {
+				extract(pDocument, missingStart, page - 1, texts, pStartPage);
+				missingStart = -1;
+			}
+		}
+		if (missingStart > 0) {
+			extract(pDocument, missingStart, pEndPage, texts, pStartPage);
+		}
+		return texts;
+	}
+
+	/**
+	 * Hands the text of the given pages in page order to the visitor until the visitor stops. Cached pages
+	 * are reused, missing pages are extracted one by one while visiting, so pages after the stop are not
+	 * extracted at all and no more than one page is held in memory by this method.
+	 *
+	 * @param pDocument the PDF document this cache belongs to
+	 * @param pStartPage the first page (inclusive, starting at 1)
+	 * @param pEndPage the last page (inclusive)
+	 * @param pVisitor receives the page texts
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	synchronized void visitPages(final PDDocument pDocument, final int pStartPage, final int pEndPage,
+			final PageTextVisitor pVisitor) throws IOException {
+		for (int page = pStartPage; page <= pEndPage; page++) {
+			SoftReference<String> cached = pages.get(page - 1);
+			String text = cached == null ? null : cached.get();
+			if (text == null) {
+				// stream the remaining pages and cache them on the fly
+				extract(pDocument, page, pEndPage, (pageNumber, pageText) -> {
+					pages.set(pageNumber - 1, new SoftReference<>(pageText));
+					return pVisitor.visit(pageNumber, pageText);
+				});
+				return;
+			}
+			if (!pVisitor.visit(page, text)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Extracts a range of pages in one pass and caches the text of every page.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pFirstPage the first page to extract (inclusive)
+	 * @param pLastPage the last page to extract (inclusive)
+	 * @param pTexts receives the extracted page texts
+	 * @param pOffset the page number of the first element of pTexts
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private void extract(final PDDocument pDocument, final int pFirstPage, final int pLastPage, final String[] pTexts,
+			final int pOffset) throws IOException {
+		int parallelism = Math.min(PdfAssertions.getTextExtractionParallelism(),
+				(pLastPage - pFirstPage + 1) / MIN_PAGES_PER_THREAD);
+		List<String> extracted = null;
+		if (parallelism > 1) {
+			extracted = extractInParallel(pDocument, pFirstPage, pLastPage, parallelism);
+		}
+		if (extracted == null) {
+			extracted = extract(pDocument, pFirstPage, pLastPage);
+		}
+		for (int i = 0; i < extracted.size(); i++) {
+			int page = pFirstPage + i;
+			pages.set(page - 1, new SoftReference<>(extracted.get(i)));
+			pTexts[page - pOffset] = extracted.get(i);
+		}
+	}
+
+	/**
+	 * Extracts the text of every page of the given range in one pass.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pFirstPage the first page to extract (inclusive)
+	 * @param pLastPage the last page to extract (inclusive)
+	 * @return the text of every page
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private static List<String> extract(final PDDocument pDocument, final int pFirstPage, final int pLastPage)
+			throws IOException {
+		List<String> pageTexts = new ArrayList<>(pLastPage - pFirstPage + 1);
+		extract(pDocument, pFirstPage, pLastPage, (pageNumber, pageText) -> pageTexts.add(pageText));
+		return pageTexts;
+	}
+
+	/**
+	 * Extracts the text of the given page range in one pass and hands every page to the visitor.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pFirstPage the first page to extract (inclusive)
+	 * @param pLastPage the last page to extract (inclusive)
+	 * @param pVisitor receives the page texts, the extraction ends as soon as the visitor stops
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private static void extract(final PDDocument pDocument, final int pFirstPage, final int pLastPage,
+			final PageTextVisitor pVisitor) throws IOException {
+		PageSplittingTextStripper stripper = new PageSplittingTextStripper(pVisitor, pFirstPage);
+		stripper.setStartPage(pFirstPage);
+		stripper.setEndPage(pLastPage);
+		stripper.writeText(pDocument, stripper.buffer);
+		stripper.visitEmptyPagesBefore(pLastPage + 1);
+	}
+
+	/**
+	 * Splits the given page range into consecutive chunks and extracts them in a fork join pool. Every
+	 * worker loads its own copy of the document since {@link PDDocument} is not thread safe.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pFirstPage the first page to extract (inclusive)
+	 * @param pLastPage the last page to extract (inclusive)
+	 * @param pParallelism the number of workers
+	 * @return the text of every page in page order or <code>null</code> if the document source cannot be
+	 *         read again
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private static List<String> extractInParallel(final PDDocument pDocument, final int pFirstPage,
+			final int pLastPage, final int pParallelism) throws IOException {
+		if (!PdfLoader.canReopen(pDocument)) {
+			return null;
+		}
+		int pageCount = pLastPage - pFirstPage + 1;
+		List<Callable<List<String>>> chunks = new ArrayList<>(pParallelism);
+		for (int chunk = 0; chunk < pParallelism; chunk++) {
+			int first = pFirstPage + (int) ((long) pageCount * chunk / pParallelism);
+			int last = pFirstPage + (int) ((long) pageCount * (chunk + 1) / pParallelism) - 1;
+			chunks.add(() -> {
+				try (PDDocument copy = PdfLoader.reopen(pDocument)) {
+					return extract(copy, first, last);
+				}
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(pParallelism);
+		try {
+			List<String> pageTexts = new ArrayList<>(pageCount);
+			for (Future<List<String>> chunk : pool.invokeAll(chunks)) {
+				pageTexts.addAll(chunk.get());
+			}
+			return pageTexts;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Text extraction interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Receives the text of single pages in page order.
+	 *
+	 * @author krischan
+	 *
+	 */
+	@FunctionalInterface
+	interface PageTextVisitor {
+
+		/**
+		 * Visits the text of a page.
+		 *
+		 * @param pPageNumber the page number (starting at 1)
+		 * @param pText the text of the page
+		 * @return <code>true</code> to continue with the next page, <code>false</code> to stop
+		 */
+		boolean visit(int pPageNumber, String pText);
+	}
+
+	/**
+	 * Text stripper that splits its output at page boundaries and hands every page to a visitor.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class PageSplittingTextStripper extends PDFTextStripper {
+
+		/** receives the text of the current page */
+		private final StringWriter buffer = new StringWriter();
+
+		/** receives the text of every extracted page */
+		private final PageTextVisitor visitor;
+
+		/** the buffer position at the start of the current page */
+		private int pageStart;
+
+		/** the next page the visitor expects */
+		private int nextPage;
+
+		/** whether the visitor stopped the extraction */
+		private boolean stopped;
+
+		/**
+		 * Constructor for {@link PageSplittingTextStripper}.
+		 *
+		 * @param pVisitor receives the text of every extracted page
+		 * @param pFirstPage the first page to extract
+		 */
+		PageSplittingTextStripper(final PageTextVisitor pVisitor, final int pFirstPage) {
+			visitor = pVisitor;
+			nextPage = pFirstPage;
+		}
+
+		/**
+		 * Hands an empty text to the visitor for all pages before the given one that have not been visited
+		 * yet. The stripper does not process pages without content stream at all.
+		 *
+		 * @param pPageNumber the first page not to visit
+		 * @return <code>false</code> if the visitor stopped the extraction
+		 */
+		boolean visitEmptyPagesBefore(final int pPageNumber) {
+			while (!stopped && nextPage < pPageNumber) {
+				stopped = !visitor.visit(nextPage++, "");
+			}
+			return !stopped;
+		}
+
+		@Override
+		protected void startPage(final PDPage pPage) throws IOException {
+			super.startPage(pPage);
+			pageStart = buffer.getBuffer().length();
+		}
+
+		@Override
+		protected void endPage(final PDPage pPage) throws IOException {
+			super.endPage(pPage);
+			output.flush();
+			StringBuffer text = buffer.getBuffer();
+			String pageText = text.substring(pageStart);
+			text.setLength(0);
+			int pageNumber = getCurrentPageNo();
+			if (visitEmptyPagesBefore(pageNumber)) {
+				nextPage = pageNumber + 1;
+				stopped = !visitor.visit(pageNumber, pageText);
+			}
+			if (stopped) {
+				// the remaining pages are skipped without processing their content
+				setEndPage(pageNumber);
+			}
+		}
+	}
+}
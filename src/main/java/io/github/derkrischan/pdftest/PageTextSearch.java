@@ -0,0 +1,151 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Searches the text of a PDF document page by page and stops at the first match. Matches spanning page
+ * boundaries are found as well because the end of the preceding text is kept as overlap, so the result
+ * equals a search in the text of the whole page range while only a page and the overlap are held in memory.
+ *
+ * @author krischan
+ *
+ */
+final class PageTextSearch {
+
+	/** finds the start of the first match in a text or returns -1 */
+	private final TextMatcher matcher;
+
+	/** the number of preceding characters kept for the next page, -1 to keep the whole preceding page */
+	private final int overlap;
+
+	/**
+	 * Constructor for {@link PageTextSearch}.
+	 *
+	 * @param pMatcher finds the start of the first match in a text or returns -1
+	 * @param pOverlap the number of preceding characters kept for the next page, -1 to keep the whole
+	 *            preceding page
+	 */
+	private PageTextSearch(final TextMatcher pMatcher, final int pOverlap) {
+		matcher = pMatcher;
+		overlap = pOverlap;
+	}
+
+	/**
+	 * Creates a search for the given text.
+	 *
+	 * @param pText the text to search for
+	 * @return the search
+	 */
+	static PageTextSearch forText(final String pText) {
+		return new PageTextSearch(text -> text.indexOf(pText), Math.max(0, pText.length() - 1));
+	}
+
+	/**
+	 * Creates a search for the given regular expression. Matches may span a page boundary but not a
+	 * whole page.
+	 *
+	 * @param pPattern the regular expression to search for
+	 * @return the search
+	 */
+	static PageTextSearch forPattern(final Pattern pPattern) {
+		return new PageTextSearch(text -> {
+			Matcher m = pPattern.matcher(text);
+			return m.find() ? m.start() : -1;
+		}, -1);
+	}
+
+	/**
+	 * Returns the page on which the first match starts.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pStartPage the first page to search (inclusive, starting at 1)
+	 * @param pEndPage the last page to search (inclusive)
+	 * @return the page number of the first match or -1 if there is no match
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	int findFirstPage(final PDDocument pDocument, final int pStartPage, final int pEndPage) throws IOException {
+		StringBuilder window = new StringBuilder();
+		// page number and window offset of every page in the window
+		Deque<int[]> windowPages = new ArrayDeque<>();
+		int[] found = { -1 };
+		PageTextCache.forDocument(pDocument).visitPages(pDocument, pStartPage, pEndPage, (pageNumber, text) -> {
+			windowPages.addLast(new int[] { pageNumber, window.length() });
+			window.append(text);
+			int index = matcher.find(window);
+			if (index >= 0) {
+				found[0] = pageAt(windowPages, index);
+				return false;
+			}
+			int cut = overlap < 0 ? window.length() - text.length() : Math.max(0, window.length() - overlap);
+			window.delete(0, cut);
+			shift(windowPages, cut);
+			return true;
+		});
+		return found[0];
+	}
+
+	/**
+	 * Returns the page the given window offset belongs to.
+	 *
+	 * @param pWindowPages the pages of the window with their offsets
+	 * @param pIndex the offset in the window
+	 * @return the page number
+	 */
+	private static int pageAt(final Deque<int[]> pWindowPages, final int pIndex) {
+		Iterator<int[]> pages = pWindowPages.descendingIterator();
+		while (pages.hasNext()) {
+			int[] page = pages.next();
+			if (page[1] <= pIndex) {
+				return page[0];
+			}
+		}
+		return pWindowPages.getFirst()[0];
+	}
+
+	/**
+	 * Moves the page offsets after the start of the window has been cut and drops pages that are no longer
+	 * part of the window.
+	 *
+	 * @param pWindowPages the pages of the window with their offsets
+	 * @param pCut the number of characters removed from the start of the window
+	 */
+	private static void shift(final Deque<int[]> pWindowPages, final int pCut) {
+		for (int[] page : pWindowPages) {
+			page[1] = Math.max(0, page[1] - pCut);
+		}
+		// keep only the last page starting at the beginning of the window
+		while (pWindowPages.size() > 1) {
+			Iterator<int[]> pages = pWindowPages.iterator();
+			pages.next();
+			if (pages.next()[1] > 0) {
+				return;
+			}
+			pWindowPages.removeFirst();
+		}
+	}
+
+	/**
+	 * Finds the start of the first match in a text.
+	 *
+	 * @author krischan
+	 *
+	 */
+	@FunctionalInterface
+	private interface TextMatcher {
+
+		/**
+		 * Finds the start of the first match in the given text.
+		 *
+		 * @param pText the text to search
+		 * @return the start index of the first match or -1
+		 */
+		int find(StringBuilder pText);
+	}
+}
@@ -5,11 +5,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
@@ -23,13 +24,15 @@ import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDNonTerminalField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDTerminalField;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.assertj.core.api.Fail;
 import org.assertj.core.util.CheckReturnValue;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.github.derkrischan.pdftest.image.ImageTolerance;
+import io.github.derkrischan.pdftest.io.LoadingMode;
 import io.github.derkrischan.pdftest.page.Orientation;
 import io.github.derkrischan.pdftest.page.PaperSize;
+import io.github.derkrischan.pdftest.text.TextExtractionEngine;
 
 /**
  * {@link PdfAssert} provides several checks on PDF elements via fluent API.
@@ -45,6 +48,24 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	/** standard error message for wrong password exceptions */
 	private static final String WRONG_PASSWORD_ERROR_MSG = "Unable to open because of wrong password: ";
 
+	/** the number of differences after which structural comparisons stop */
+	static final int MAX_STRUCTURAL_DIFFERENCES = 20;
+
+	/** the number of differences after which text comparisons stop by default */
+	static final int MAX_TEXT_DIFFERENCES = 20;
+
+	/**
+	 * the fully parsed document loaded on first access if this asserter has been created lazily,
+	 * <code>null</code> if the document under test is fully loaded already
+	 */
+	private final LazyDocument fullDocument;
+
+	/**
+	 * whether the documents under test have been released, shared by all asserters navigating from the
+	 * same asserter so that the documents are released only once
+	 */
+	private final AtomicBoolean released;
+
 	/**
 	 * Package private constructor for {@link PdfAssert} to prevent public usage.
 	 * 
@@ -52,7 +73,22 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	@SuppressFBWarnings("CD_CIRCULAR_DEPENDENCY")
 	PdfAssert(final PDDocument actualPdf) {
-		super(actualPdf, PdfAssert.class, actualPdf);
+		this(actualPdf, null, new AtomicBoolean());
+	}
+
+	/**
+	 * Package private constructor for a lazily loaded {@link PdfAssert}.
+	 * 
+	 * @param metadataPdf  the strictly parsed PDF document under test serving metadata
+	 * @param fullDocument the fully loaded document used for all other assertions,
+	 *                     <code>null</code> if metadataPdf is fully loaded
+	 * @param released     whether the documents under test have been released
+	 */
+	@SuppressFBWarnings("CD_CIRCULAR_DEPENDENCY")
+	private PdfAssert(final PDDocument metadataPdf, final LazyDocument fullDocument, final AtomicBoolean released) {
+		super(metadataPdf, PdfAssert.class, metadataPdf);
+		this.fullDocument = fullDocument;
+		this.released = released;
 	}
 
 	/**
@@ -104,25 +140,23 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	@CheckReturnValue
 	static PdfAssert assertThat(final File file, final String password) {
-		if (file == null) {
-			throw new IllegalArgumentException("PDF file cannot be NULL.");
-		}
-		if (!file.exists()) {
-			throw new IllegalArgumentException("PDF file does not exist.");
-		}
-		PDDocument doc = null;
-		try {
-			doc = Loader.loadPDF(file, password);
-		} catch (InvalidPasswordException e) {
-			if (StringUtils.isBlank(password)) {
-				Fail.fail(MISSING_PASSWORD_ERROR_MSG + e.getMessage());
-			} else {
-				Fail.fail(WRONG_PASSWORD_ERROR_MSG + e.getMessage());
-			}
-		} catch (IOException e) {
-			Fail.fail("Unable to open file " + file.getName() + ": " + e.getMessage());
-		}
-		return new PdfAssert(doc);
+		return assertThat(file, password, PdfAssertions.getLoadingMode());
+	}
+
+	/**
+	 * Package private static asserter that creates a new instance of
+	 * {@link PdfAssert} for the given PDF document file if the file is valid.
+	 * 
+	 * @param file        the PDF document file
+	 * @param password    user password to open the document
+	 * @param loadingMode the strategy used to read the file
+	 * @return a new instance of {@link PdfAssert} for the given PDF document
+	 */
+	@CheckReturnValue
+	static PdfAssert assertThat(final File file, final String password, final LoadingMode loadingMode) {
+		checkFile(file);
+		return new PdfAssert(load(() -> PdfLoader.loadFile(file, password, loadingMode), password,
+		    "Unable to open file " + file.getName() + ": "));
 	}
 
 	/**
@@ -149,19 +183,8 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	@CheckReturnValue
 	static PdfAssert assertThat(final InputStream inputStream, final String password) {
-		PDDocument doc = null;
-		try {
-			doc = Loader.loadPDF(RandomAccessReadBuffer.createBufferFromStream(inputStream), password);
-		} catch (InvalidPasswordException e) {
-			if (StringUtils.isBlank(password)) {
-				Fail.fail(MISSING_PASSWORD_ERROR_MSG + e.getMessage());
-			} else {
-				Fail.fail(WRONG_PASSWORD_ERROR_MSG + e.getMessage());
-			}
-		} catch (IOException e) {
-			Fail.fail("Unable to read PDF from InputStream: " + e.getMessage());
-		}
-		return new PdfAssert(doc);
+		return new PdfAssert(load(() -> PdfLoader.loadStream(inputStream, password), password,
+		    "Unable to read PDF from InputStream: "));
 	}
 
 	/**
@@ -188,26 +211,15 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	@CheckReturnValue
 	static PdfAssert assertThat(final byte[] bytes, final String password) {
-		PDDocument doc = null;
-		try {
-			doc = Loader.loadPDF(bytes, password);
-		} catch (InvalidPasswordException e) {
-			if (StringUtils.isBlank(password)) {
-				Fail.fail(MISSING_PASSWORD_ERROR_MSG + e.getMessage());
-			} else {
-				Fail.fail(WRONG_PASSWORD_ERROR_MSG + e.getMessage());
-			}
-		} catch (IOException e) {
-			Fail.fail("Unable to read PDF from bytes: " + e.getMessage());
-		}
-		return new PdfAssert(doc);
+		return new PdfAssert(load(() -> PdfLoader.loadBytes(bytes, password), password,
+		    "Unable to read PDF from bytes: "));
 	}
 
 	/**
 	 * Package private static asserter that creates a new instance of
 	 * {@link PdfAssert} for the given PDF as {@link Path}.
 	 * 
-	 * @param pBytes the PDF document as byte array
+	 * @param path the PDF document path
 	 * @return a new instance of {@link PdfAssert} for the given PDF document
 	 */
 	@CheckReturnValue
@@ -219,7 +231,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 * Package private static asserter that creates a new instance of
 	 * {@link PdfAssert} for the given PDF as {@link Path}.
 	 * 
-	 * @param pBytes   the PDF document as byte array
+	 * @param path     the PDF document path
 	 * @param password user password to open the document
 	 * @return a new instance of {@link PdfAssert} for the given PDF document
 	 */
@@ -228,6 +240,181 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 		return assertThat(path.toFile(), password);
 	}
 
+	/**
+	 * Package private static asserter that creates a new instance of
+	 * {@link PdfAssert} for the given PDF as {@link Path}.
+	 * 
+	 * @param path        the PDF document path
+	 * @param password    user password to open the document
+	 * @param loadingMode the strategy used to read the file
+	 * @return a new instance of {@link PdfAssert} for the given PDF document
+	 */
+	@CheckReturnValue
+	static PdfAssert assertThat(final Path path, final String password, final LoadingMode loadingMode) {
+		return assertThat(path.toFile(), password, loadingMode);
+	}
+
+	/**
+	 * Package private static asserter that creates a new lazy instance of
+	 * {@link PdfAssert} for the given PDF document file. Only the cross reference
+	 * data and trailer are parsed initially, the document is loaded completely
+	 * not until an assertion needs more than metadata (see
+	 * {@link PdfAssertions#assertThatLazily(File, String)}).
+	 * 
+	 * @param file     the PDF document file
+	 * @param password user password to open the document
+	 * @return a new instance of {@link PdfAssert} for the given PDF document
+	 */
+	@CheckReturnValue
+	static PdfAssert assertThatLazily(final File file, final String password) {
+		checkFile(file);
+		LoadingMode loadingMode = PdfAssertions.getLoadingMode();
+		return lazily(() -> PdfLoader.parseMetadata(file, password, loadingMode),
+		    () -> PdfLoader.loadFile(file, password, loadingMode), password,
+		    "Unable to open file " + file.getName() + ": ");
+	}
+
+	/**
+	 * Package private static asserter that creates a new lazy instance of
+	 * {@link PdfAssert} for the given PDF as byte array (see
+	 * {@link #assertThatLazily(File, String)}).
+	 * 
+	 * @param bytes    the PDF document as byte array
+	 * @param password user password to open the document
+	 * @return a new instance of {@link PdfAssert} for the given PDF document
+	 */
+	@CheckReturnValue
+	static PdfAssert assertThatLazily(final byte[] bytes, final String password) {
+		return lazily(() -> PdfLoader.parseMetadata(bytes, password), () -> PdfLoader.loadBytes(bytes, password),
+		    password, "Unable to read PDF from bytes: ");
+	}
+
+	/**
+	 * Checks that the given PDF file exists.
+	 * 
+	 * @param file the PDF document file
+	 * @throws IllegalArgumentException in case file is <code>null</code> or does
+	 *                                  not exist
+	 */
+	private static void checkFile(final File file) {
+		if (file == null) {
+			throw new IllegalArgumentException("PDF file cannot be NULL.");
+		}
+		if (!file.exists()) {
+			throw new IllegalArgumentException("PDF file does not exist.");
+		}
+	}
+
+	/**
+	 * Loads a PDF document with the given loader and fails with a descriptive
+	 * message if the document cannot be opened.
+	 * 
+	 * @param loader       loads the document
+	 * @param password     user password to open the document
+	 * @param errorMessage prefix of the failure message for general read errors
+	 * @return the loaded PDF document
+	 */
+	private static PDDocument load(final DocumentLoader loader, final String password, final String errorMessage) {
+		try {
+			return loader.load();
+		} catch (IOException e) {
+			fail(e, password, errorMessage);
+		}
+		return null;
+	}
+
+	/**
+	 * Fails with a descriptive message for the given load error.
+	 * 
+	 * @param error        the load error
+	 * @param password     user password to open the document
+	 * @param errorMessage prefix of the failure message for general read errors
+	 */
+	private static void fail(final IOException error, final String password, final String errorMessage) {
+		if (error instanceof InvalidPasswordException) {
+			if (StringUtils.isBlank(password)) {
+				Fail.fail(MISSING_PASSWORD_ERROR_MSG + error.getMessage());
+			} else {
+				Fail.fail(WRONG_PASSWORD_ERROR_MSG + error.getMessage());
+			}
+		} else {
+			Fail.fail(errorMessage + error.getMessage());
+		}
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} from the given metadata loader. If the
+	 * document cannot be parsed strictly it is loaded completely right away.
+	 * 
+	 * @param metadataLoader parses the metadata of the document
+	 * @param fullLoader     loads the document completely
+	 * @param password       user password to open the document
+	 * @param errorMessage   prefix of the failure message for general read errors
+	 * @return a new instance of {@link PdfAssert} for the given PDF document
+	 */
+	private static PdfAssert lazily(final DocumentLoader metadataLoader, final DocumentLoader fullLoader,
+	    final String password, final String errorMessage) {
+		PDDocument metadataPdf;
+		try {
+			metadataPdf = metadataLoader.load();
+		} catch (InvalidPasswordException e) {
+			fail(e, password, errorMessage);
+			return null;
+		} catch (IOException e) {
+			// the document needs the lenient parser
+			return new PdfAssert(load(fullLoader, password, errorMessage));
+		}
+		return new PdfAssert(metadataPdf, new LazyDocument(fullLoader, errorMessage), new AtomicBoolean());
+	}
+
+	/**
+	 * Returns the fully loaded PDF document under test. For lazily created
+	 * asserters the document is loaded on the first call.
+	 * 
+	 * @return the PDF document under test
+	 */
+	@Override
+	public PDDocument getPdfUnderTest() {
+		return fullDocument == null ? super.getPdfUnderTest() : fullDocument.get();
+	}
+
+	/**
+	 * Returns a {@link PdfAssert} for tests on the whole document. A lazily created asserter stays lazy.
+	 * Releasing the returned asserter releases this one.
+	 * 
+	 * @return a {@link PdfAssert} for the PDF document under test.
+	 */
+	@Override
+	public PdfAssert document() {
+		return new PdfAssert(actual, fullDocument, released);
+	}
+
+	/**
+	 * Releases the PDF document under test. A lazily created asserter releases the document
+	 * completely loaded in the meantime as well. Further calls have no effect.
+	 */
+	@Override
+	public void release() {
+		if (!released.compareAndSet(false, true)) {
+			return;
+		}
+		if (fullDocument != null) {
+			fullDocument.release();
+		}
+		PdfLoader.release(actual);
+	}
+
+	/**
+	 * Checks whether the PDF document under test is loaded completely.
+	 * 
+	 * @return <code>false</code> if this asserter was created lazily and no
+	 *         assertion needed the complete document yet, <code>true</code>
+	 *         otherwise
+	 */
+	boolean isFullyLoaded() {
+		return fullDocument == null || fullDocument.isLoaded();
+	}
+
 	/**
 	 * Extracts the page count of the PDF document under test and returns an
 	 * {@link IntegerAssert} for it.
@@ -236,7 +423,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public IntegerAssert pageCount() {
 		isNotNull();
-		return new IntegerAssert(actual.getNumberOfPages(), getPdfUnderTest());
+		return new IntegerAssert(actual.getNumberOfPages(), this);
 	}
 
 	/**
@@ -247,7 +434,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public StringAssert author() {
 		isNotNull();
-		return new StringAssert(actual.getDocumentInformation().getAuthor(), getPdfUnderTest());
+		return new StringAssert(actual.getDocumentInformation().getAuthor(), this);
 	}
 
 	/**
@@ -258,7 +445,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public FloatAssert version() {
 		isNotNull();
-		return new FloatAssert(actual.getVersion(), getPdfUnderTest());
+		return new FloatAssert(actual.getVersion(), this);
 	}
 
 	/**
@@ -269,7 +456,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public StringAssert creator() {
 		isNotNull();
-		return new StringAssert(actual.getDocumentInformation().getCreator(), getPdfUnderTest());
+		return new StringAssert(actual.getDocumentInformation().getCreator(), this);
 	}
 
 	/**
@@ -280,7 +467,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public StringAssert subject() {
 		isNotNull();
-		return new StringAssert(actual.getDocumentInformation().getSubject(), getPdfUnderTest());
+		return new StringAssert(actual.getDocumentInformation().getSubject(), this);
 	}
 
 	/**
@@ -291,7 +478,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public StringAssert title() {
 		isNotNull();
-		return new StringAssert(actual.getDocumentInformation().getTitle(), getPdfUnderTest());
+		return new StringAssert(actual.getDocumentInformation().getTitle(), this);
 	}
 
 	/**
@@ -302,7 +489,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 */
 	public StringAssert producer() {
 		isNotNull();
-		return new StringAssert(actual.getDocumentInformation().getProducer(), getPdfUnderTest());
+		return new StringAssert(actual.getDocumentInformation().getProducer(), this);
 	}
 
 	/**
@@ -312,7 +499,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 * @return a {@link DateAssert} for the documents creation date information
 	 */
 	public DateAssert creationDate() {
-		return new DateAssert(actual.getDocumentInformation().getCreationDate().getTime(), actual);
+		return new DateAssert(actual.getDocumentInformation().getCreationDate().getTime(), this);
 	}
 
 	/**
@@ -322,34 +509,130 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	 * @return a {@link StringAssert} for the documents text
 	 */
 	public StringAssert text() {
-		return textBetweenPages(1, actual.getNumberOfPages());
+		return textBetweenPages(1, getPdfUnderTest().getNumberOfPages());
+	}
+
+	/**
+	 * Extracts the whole text of the PDF document under test with the given
+	 * engine and returns a {@link StringAssert} for it.
+	 * 
+	 * @param engine the text extraction engine, {@link TextExtractionEngine#FAST}
+	 *               for presence checks on large documents
+	 * @return a {@link StringAssert} for the documents text
+	 */
+	public StringAssert text(final TextExtractionEngine engine) {
+		return textBetweenPages(1, getPdfUnderTest().getNumberOfPages(), engine);
 	}
 
 	/**
 	 * Extracts the text between given pages from the PDF document under test and
-	 * returns a {@link StringAssert} for it.
+	 * returns a {@link StringAssert} for it. The text of every page is extracted
+	 * only once per document and reused by subsequent text assertions.
 	 * 
 	 * @param startPage the start page to extract text from (inclusive)
 	 * @param endPage   the end page to extract text from (inclusive)
 	 * @return a {@link StringAssert} for the documents text between given pages
 	 */
 	public StringAssert textBetweenPages(final int startPage, final int endPage) {
+		return textBetweenPages(startPage, endPage, TextExtractionEngine.LAYOUT);
+	}
+
+	/**
+	 * Extracts the text between given pages from the PDF document under test
+	 * with the given engine and returns a {@link StringAssert} for it. Only the
+	 * text of the {@link TextExtractionEngine#LAYOUT} engine is cached.
+	 * 
+	 * @param startPage the start page to extract text from (inclusive)
+	 * @param endPage   the end page to extract text from (inclusive)
+	 * @param engine    the text extraction engine
+	 * @return a {@link StringAssert} for the documents text between given pages
+	 */
+	public StringAssert textBetweenPages(final int startPage, final int endPage, final TextExtractionEngine engine) {
 		isNotNull();
-		if (startPage < 1 || startPage > endPage || endPage > actual.getNumberOfPages()) {
+		if (startPage < 1 || startPage > endPage || endPage > getPdfUnderTest().getNumberOfPages()) {
 			failWithMessage("Illegal start- and end page provided.");
 			return null;
 		}
 		try {
-			PDFTextStripper stripper = new PDFTextStripper();
-			stripper.setStartPage(startPage);
-			stripper.setEndPage(endPage);
-			return new StringAssert(stripper.getText(actual), getPdfUnderTest());
+			PDDocument document = getPdfUnderTest();
+			int[] pageOffsets = new int[endPage - startPage + 1];
+			String text = engine == TextExtractionEngine.FAST
+					? ContentStreamTextScanner.getText(document, startPage, endPage, pageOffsets)
+					: PageTextCache.forDocument(document).getText(document, startPage, endPage, pageOffsets);
+			return new StringAssert(text, this, startPage, pageOffsets);
 		} catch (IOException err) {
 			failWithMessage("Unable to extract text from PDF page: " + err.getMessage());
 			return null;
 		}
 	}
 
+	/**
+	 * Checks that the PDF document under test contains the given text. The text
+	 * is searched page by page and the search stops at the first hit, so pages
+	 * after the hit are not extracted at all. The text may span a page
+	 * boundary.
+	 * 
+	 * @param text the expected text
+	 * @return this {@link PdfAssert} for further assertions
+	 */
+	public PdfAssert containsText(final String text) {
+		isNotNull();
+		if (findFirstPage(PageTextSearch.forText(text)) < 0) {
+			failWithMessage("Expected text '%s' not found in document.", text);
+		}
+		return this;
+	}
+
+	/**
+	 * Checks that the PDF document under test does not contain the given text.
+	 * The text is searched page by page holding only a single page in memory.
+	 * The failure message names the first page containing the text.
+	 * 
+	 * @param text the unexpected text
+	 * @return this {@link PdfAssert} for further assertions
+	 */
+	public PdfAssert doesNotContainText(final String text) {
+		isNotNull();
+		int page = findFirstPage(PageTextSearch.forText(text));
+		if (page > 0) {
+			failWithMessage("Unexpected text '%s' found on page %d.", text, page);
+		}
+		return this;
+	}
+
+	/**
+	 * Checks that the text of the PDF document under test contains a match of
+	 * the given regular expression. The text is searched page by page and the
+	 * search stops at the first match. A match may span a page boundary but not
+	 * a whole page.
+	 * 
+	 * @param pattern the regular expression to find
+	 * @return this {@link PdfAssert} for further assertions
+	 */
+	public PdfAssert containsTextMatching(final Pattern pattern) {
+		isNotNull();
+		if (findFirstPage(PageTextSearch.forPattern(pattern)) < 0) {
+			failWithMessage("No text matching '%s' found in document.", pattern.pattern());
+		}
+		return this;
+	}
+
+	/**
+	 * Searches all pages of the document under test.
+	 * 
+	 * @param search the search to perform
+	 * @return the page number of the first match or -1 if there is no match
+	 */
+	private int findFirstPage(final PageTextSearch search) {
+		try {
+			PDDocument document = getPdfUnderTest();
+			return search.findFirstPage(document, 1, document.getNumberOfPages());
+		} catch (IOException err) {
+			failWithMessage("Unable to extract text from PDF page: " + err.getMessage());
+			return -1;
+		}
+	}
+
 	/**
 	 * Checks that all pages of the whole document have the expected paper size (see
 	 * {@link PaperSize}). The paper size already includes tolerances defined in DIN
@@ -396,7 +679,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	    final float heightToleranceInMillimeter) {
 		isNotNull();
 		for (PDPage page : getPdfUnderTest().getPages()) {
-			new PdfPageAssert(page, getPdfUnderTest()).hasPaperSize(width, height, widthToleranceInMillimeter,
+			new PdfPageAssert(page, this).hasPaperSize(width, height, widthToleranceInMillimeter,
 			    heightToleranceInMillimeter);
 		}
 		return this;
@@ -414,7 +697,116 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	public PdfAssert hasPageOrientation(final Orientation orientation) {
 		isNotNull();
 		for (PDPage page : getPdfUnderTest().getPages()) {
-			new PdfPageAssert(page, getPdfUnderTest()).hasPageOrientation(orientation);
+			new PdfPageAssert(page, this).hasPageOrientation(orientation);
+		}
+		return this;
+	}
+
+	/**
+	 * Renders every page of the document under test and checks that it looks like its approved baseline image
+	 * (see {@link PdfPageAssert#looksLike(String, float, ImageTolerance)}). The pages are rendered on
+	 * {@link PdfAssertions#getVisualComparisonParallelism()} threads, each working on its own copy of the
+	 * document. Documents read from an {@link InputStream} are rendered sequentially. All differing pages
+	 * are reported.
+	 * 
+	 * @param baselinePattern the file name pattern of the baselines with the page number (starting at 1) as format
+	 *            argument, e.g. <code>src/test/resources/baselines/invoice-%d.png</code>
+	 * @param dpi the resolution the baselines were rendered with in dots per inch
+	 * @param tolerance the allowed difference, <code>null</code> for identical pixels
+	 * @return this asserter instance
+	 */
+	public PdfAssert looksLike(final String baselinePattern, final float dpi, final ImageTolerance tolerance) {
+		isNotNull();
+		try {
+			List<String> failures = VisualComparison.compareDocument(getPdfUnderTest(), baselinePattern, dpi, tolerance);
+			if (!failures.isEmpty()) {
+				failWithMessage("%d of %d pages do not look like their baselines:%n%s", failures.size(),
+						getPdfUnderTest().getNumberOfPages(), String.join(System.lineSeparator(), failures));
+			}
+		} catch (IOException err) {
+			failWithMessage("Unable to compare pages with baselines '%s': %s", baselinePattern, err.getMessage());
+		}
+		return this;
+	}
+
+	/**
+	 * Checks that the document under test has the same object structure as the given baseline document,
+	 * independent of object numbers, the file layout and the compression of streams. The trailer with the
+	 * <code>/ID</code> and the volatile entries <code>/CreationDate</code> and <code>/ModDate</code> are ignored.
+	 * Both documents are compared via Merkle hashes of their object subtrees, so identical subtrees are skipped
+	 * and only differing branches are descended into. Differences are reported with their object path starting at
+	 * the document catalog, e.g. <code>Pages/Kids[3]/Resources/Font/F1</code>, or at the document information
+	 * (<code>Info/Title</code>). The comparison stops after {@value #MAX_STRUCTURAL_DIFFERENCES} differences.
+	 * 
+	 * @param baselinePdf the approved baseline PDF document file
+	 * @param ignoredKeys names of further dictionary keys to ignore without leading slash, e.g. <code>Metadata</code>
+	 * @return this asserter instance
+	 */
+	public PdfAssert isStructurallyEqualTo(final File baselinePdf, final String... ignoredKeys) {
+		isNotNull();
+		checkFile(baselinePdf);
+		PDDocument baseline = null;
+		try {
+			baseline = PdfLoader.loadFile(baselinePdf, null, PdfAssertions.getLoadingMode());
+			List<String> differences = StructuralComparison.compare(getPdfUnderTest(), baseline,
+					Arrays.asList(ignoredKeys), MAX_STRUCTURAL_DIFFERENCES);
+			if (!differences.isEmpty()) {
+				failWithMessage("Document is not structurally equal to baseline %s%s:%n%s", baselinePdf,
+						differences.size() >= MAX_STRUCTURAL_DIFFERENCES ? ", first differences" : "",
+						String.join(System.lineSeparator(), differences));
+			}
+		} catch (IOException err) {
+			failWithMessage("Unable to compare document structure with baseline '%s': %s", baselinePdf, err.getMessage());
+		} finally {
+			PdfLoader.release(baseline);
+		}
+		return this;
+	}
+
+	/**
+	 * Checks that the document under test has the same text as the given document, e.g. the output of a previous
+	 * version of a report generator (see {@link #hasSameTextAs(File, int)}). The comparison stops after
+	 * {@value #MAX_TEXT_DIFFERENCES} differences.
+	 * 
+	 * @param otherPdf the PDF document file with the expected text
+	 * @return this asserter instance
+	 */
+	public PdfAssert hasSameTextAs(final File otherPdf) {
+		return hasSameTextAs(otherPdf, MAX_TEXT_DIFFERENCES);
+	}
+
+	/**
+	 * Checks that the document under test has the same text as the given document. Both documents are extracted
+	 * in chunks of pages at the same time while comparing, each on
+	 * {@link PdfAssertions#getTextExtractionParallelism()} threads. Pages are aligned by their text, so inserted
+	 * or removed pages are reported as such and do not shift all following pages. Only pages with differing text
+	 * are compared line by line.
+	 * 
+	 * @param otherPdf the PDF document file with the expected text
+	 * @param maxDifferences the number of differences after which the comparison stops without extracting the
+	 *            remaining pages, every missing or unexpected page and every differing line counts as one difference
+	 * @return this asserter instance
+	 */
+	public PdfAssert hasSameTextAs(final File otherPdf, final int maxDifferences) {
+		isNotNull();
+		checkFile(otherPdf);
+		if (maxDifferences < 1) {
+			throw new IllegalArgumentException("Maximum number of differences must be at least 1.");
+		}
+		PDDocument other = null;
+		try {
+			other = PdfLoader.loadFile(otherPdf, null, PdfAssertions.getLoadingMode());
+			List<String> differences = TextComparison.compare(getPdfUnderTest(), other, otherPdf.getName(),
+					maxDifferences);
+			if (!differences.isEmpty()) {
+				failWithMessage("Text of document differs from %s%s:%n%s", otherPdf,
+						differences.size() >= maxDifferences ? ", first differences" : "",
+						String.join(System.lineSeparator(), differences));
+			}
+		} catch (IOException err) {
+			failWithMessage("Unable to compare text with '%s': %s", otherPdf, err.getMessage());
+		} finally {
+			PdfLoader.release(other);
 		}
 		return this;
 	}
@@ -436,7 +828,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 
 		checkPageActionsForActionTypes(actionTypes, true);
 
-		PDAcroForm acroForm = actual.getDocumentCatalog().getAcroForm();
+		PDAcroForm acroForm = getPdfUnderTest().getDocumentCatalog().getAcroForm();
 		if (acroForm == null) {
 			return this;
 		}
@@ -470,7 +862,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 		}
 
 		boolean found = false;
-		PDAcroForm acroForm = actual.getDocumentCatalog().getAcroForm();
+		PDAcroForm acroForm = getPdfUnderTest().getDocumentCatalog().getAcroForm();
 		if (acroForm == null) {
 			failWithMessage("Given actions not found in document.");
 		} else {
@@ -487,7 +879,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	private boolean checkPageActionsForActionTypes(final List<Class<? extends PDAction>> actionTypes,
 	    final boolean failIfFound) {
 		boolean found = false;
-		for (PDPage page : actual.getDocumentCatalog().getPages()) {
+		for (PDPage page : getPdfUnderTest().getDocumentCatalog().getPages()) {
 			if (page.getActions() != null) {
 				found |= checkActionChainContains(page.getActions().getO(), actionTypes, failIfFound);
 				found |= checkActionChainContains(page.getActions().getC(), actionTypes, failIfFound);
@@ -500,8 +892,8 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	    final boolean failIfFound) {
 		boolean found = false;
 		try {
-			if (actual.getDocumentCatalog().getOpenAction() instanceof PDAction) {
-				found |= checkActionChainContains((PDAction) actual.getDocumentCatalog().getOpenAction(), actionTypes,
+			if (getPdfUnderTest().getDocumentCatalog().getOpenAction() instanceof PDAction) {
+				found |= checkActionChainContains((PDAction) getPdfUnderTest().getDocumentCatalog().getOpenAction(), actionTypes,
 				    failIfFound);
 			}
 		} catch (IOException ioException) {
@@ -513,7 +905,7 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 	private boolean checkDocumentCatalogForActionTypes(final List<Class<? extends PDAction>> actionTypes,
 	    final boolean failIfFound) {
 		boolean found = false;
-		PDDocumentCatalogAdditionalActions addActions = actual.getDocumentCatalog().getActions();
+		PDDocumentCatalogAdditionalActions addActions = getPdfUnderTest().getDocumentCatalog().getActions();
 		if (addActions != null) {
 			found |= checkActionChainContains(addActions.getDP(), actionTypes, failIfFound);
 			found |= checkActionChainContains(addActions.getDS(), actionTypes, failIfFound);
@@ -591,4 +983,68 @@ public class PdfAssert extends AbstractPdfAssert<PdfAssert, PDDocument> {
 		return actionList;
 	}
 
+	/**
+	 * Holder of a document that is loaded on first access and shared by all
+	 * asserters navigating from the same lazily created asserter.
+	 * 
+	 * @author krischan
+	 *
+	 */
+	private static final class LazyDocument {
+
+		/** loads the document */
+		private final DocumentLoader loader;
+
+		/** prefix of the failure message in case the document cannot be loaded */
+		private final String errorMessage;
+
+		/** the loaded document, <code>null</code> until the first access */
+		private PDDocument document;
+
+		/**
+		 * Constructor for {@link LazyDocument}.
+		 * 
+		 * @param loader       loads the document
+		 * @param errorMessage prefix of the failure message in case the document
+		 *                     cannot be loaded
+		 */
+		LazyDocument(final DocumentLoader loader, final String errorMessage) {
+			this.loader = loader;
+			this.errorMessage = errorMessage;
+		}
+
+		/**
+		 * Returns the document and loads it on the first call.
+		 * 
+		 * @return the loaded document
+		 */
+		synchronized PDDocument get() {
+			if (document == null) {
+				try {
+					document = loader.load();
+				} catch (IOException e) {
+					Fail.fail(errorMessage + e.getMessage());
+				}
+			}
+			return document;
+		}
+
+		/**
+		 * Releases the document if it has been loaded already.
+		 */
+		synchronized void release() {
+			if (document != null) {
+				PdfLoader.release(document);
+			}
+		}
+
+		/**
+		 * Checks whether the document has been loaded already.
+		 * 
+		 * @return <code>true</code> if the document is loaded
+		 */
+		synchronized boolean isLoaded() {
+			return document != null;
+		}
+	}
 }
@@ -6,6 +6,9 @@ import java.nio.file.Path;
 
 import org.assertj.core.util.CheckReturnValue;
 
+import io.github.derkrischan.pdftest.io.LoadingMode;
+import io.github.derkrischan.pdftest.io.StreamBufferPolicy;
+
 /**
  * Central collection of public accessible PDF asserters. 
  * 
@@ -18,6 +21,33 @@ public final class PdfAssertions {
 		System.setProperty("sun.java2d.cmm", "sun.java2d.cmm.kcms.KcmsServiceProvider");
 	}
 	
+	/** the strategy used to read PDF documents from files if not specified per call */
+	private static volatile LoadingMode loadingMode = LoadingMode.BUFFERED;
+	
+	/** the policy used to buffer PDF documents given as {@link InputStream} */
+	private static volatile StreamBufferPolicy streamBufferPolicy = StreamBufferPolicy.heapOnly();
+	
+	/** the cache shared by all assertions, <code>null</code> if documents are not cached */
+	private static volatile PdfDocumentCache documentCache;
+	
+	/** the detector tracking unreleased documents, <code>null</code> if leak detection is disabled */
+	private static volatile DocumentLeakDetector leakDetector;
+	
+	/** the number of threads extracting the text of a document, 1 for sequential extraction */
+	private static volatile int textExtractionParallelism = 1;
+	
+	/** the maximum number of pixels of an embedded image decoded at once */
+	private static volatile long imageDecodePixelBudget = 1L << 26;
+	
+	/** the number of threads rendering and comparing pages in visual assertions */
+	private static volatile int visualComparisonParallelism = Runtime.getRuntime().availableProcessors();
+	
+	/** the cache of rendered pages, <code>null</code> if pages are rendered on every visual assertion */
+	private static volatile PageRenderCache renderCache;
+	
+	/** the maximum Hamming distance of page fingerprints considered unchanged, -1 if fingerprints are disabled */
+	private static volatile int pageFingerprintThreshold = -1;
+	
 	/**
 	 * Private constructor to prevent instantiation of utility class.
 	 */
@@ -60,6 +90,19 @@ public final class PdfAssertions {
 		return PdfAssert.assertThat(file, password);
 	}
 
+	/**
+	 * Creates a {@link PdfAssert} for the given PDF document from {@link File}.
+	 * 
+	 * @param file the {@link File} for the PDF document to test
+	 * @param password user password to open the document
+	 * @param loadingMode the strategy used to read the file, overrides the global {@link #setLoadingMode(LoadingMode)}
+	 * @return a new instance of {@link PdfAssert} if pFile is a valid PDF
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThat(final File file, final String password, final LoadingMode loadingMode) {
+		return PdfAssert.assertThat(file, password, loadingMode);
+	}
+
 	/**
 	 * Creates a {@link PdfAssert} for the given PDF document from file name as string.
 	 * 
@@ -152,6 +195,91 @@ public final class PdfAssertions {
 		return PdfAssert.assertThat(path, password);
 	}
 
+	/**
+	 * Creates a {@link PdfAssert} for the given PDF document from {@link Path}.
+	 * 
+	 * @param path the PDF document to test as {@link Path}
+	 * @param password user password to open the document
+	 * @param loadingMode the strategy used to read the file, overrides the global {@link #setLoadingMode(LoadingMode)}
+	 * @return a new instance of {@link PdfAssert} from PDF path
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThat(final Path path, final String password, final LoadingMode loadingMode) {
+		return PdfAssert.assertThat(path, password, loadingMode);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document file. Initially only the cross reference
+	 * data and the trailer are parsed, so assertions on metadata like author, title, version or page count
+	 * are cheap even for huge documents. The document is loaded completely with the lenient parser as soon as
+	 * an assertion needs its content, e.g. text or pages, so content assertions see the same document as
+	 * {@link #assertThat(File)}. Documents that cannot be parsed strictly are loaded completely right away.
+	 *
+	 * @param file the PDF document file to test
+	 * @return a new lazy instance of {@link PdfAssert} from PDF file
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final File file) {
+		return PdfAssert.assertThatLazily(file, null);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document file, see {@link #assertThatLazily(File)}.
+	 *
+	 * @param file the PDF document file to test
+	 * @param password user password to open the document
+	 * @return a new lazy instance of {@link PdfAssert} from PDF file
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final File file, final String password) {
+		return PdfAssert.assertThatLazily(file, password);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document file name, see {@link #assertThatLazily(File)}.
+	 *
+	 * @param fileName the string representation for the PDF document to test
+	 * @return a new lazy instance of {@link PdfAssert} from PDF file name
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final String fileName) {
+		return PdfAssert.assertThatLazily(new File(fileName), null);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document from {@link Path}, see {@link #assertThatLazily(File)}.
+	 *
+	 * @param path the PDF document to test as {@link Path}
+	 * @return a new lazy instance of {@link PdfAssert} from PDF path
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final Path path) {
+		return PdfAssert.assertThatLazily(path.toFile(), null);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document as byte array, see {@link #assertThatLazily(File)}.
+	 *
+	 * @param bytes the PDF document to test as byte array
+	 * @return a new lazy instance of {@link PdfAssert} from PDF byte array
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final byte[] bytes) {
+		return PdfAssert.assertThatLazily(bytes, null);
+	}
+
+	/**
+	 * Creates a lazy {@link PdfAssert} for the given PDF document as byte array, see {@link #assertThatLazily(File)}.
+	 *
+	 * @param bytes the PDF document to test as byte array
+	 * @param password user password to open the document
+	 * @return a new lazy instance of {@link PdfAssert} from PDF byte array
+	 */
+	@CheckReturnValue
+	public static PdfAssert assertThatLazily(final byte[] bytes, final String password) {
+		return PdfAssert.assertThatLazily(bytes, password);
+	}
+
 	/**
 	 * Creates a {@link PdfFormatAssert} for the given PDF document from file name as string.
 	 * 
@@ -185,5 +313,220 @@ public final class PdfAssertions {
 		return PdfFormatAssert.assertThat(pdfPath);
 	}
 	
+	/**
+	 * Sets the strategy used to read PDF documents from {@link File}s, {@link Path}s and file names
+	 * for all following assertions that do not specify a {@link LoadingMode} themselves.
+	 * 
+	 * @param mode the loading strategy, {@link LoadingMode#BUFFERED} by default
+	 */
+	public static void setLoadingMode(final LoadingMode mode) {
+		if (mode == null) {
+			throw new IllegalArgumentException("Loading mode cannot be NULL.");
+		}
+		loadingMode = mode;
+	}
+	
+	/**
+	 * Returns the strategy used to read PDF documents from files.
+	 * 
+	 * @return the current global {@link LoadingMode}
+	 */
+	public static LoadingMode getLoadingMode() {
+		return loadingMode;
+	}
+	
+	/**
+	 * Sets the policy used to buffer PDF documents given as {@link InputStream} for all following
+	 * assertions. Use {@link StreamBufferPolicy#spillToDiskAbove(long)} to limit the heap usage per
+	 * document, e.g. when running many tests on large documents in parallel.
+	 * 
+	 * @param policy the buffer policy, {@link StreamBufferPolicy#heapOnly()} by default
+	 */
+	public static void setStreamBufferPolicy(final StreamBufferPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Stream buffer policy cannot be NULL.");
+		}
+		streamBufferPolicy = policy;
+	}
+	
+	/**
+	 * Returns the policy used to buffer PDF documents given as {@link InputStream}.
+	 * 
+	 * @return the current global {@link StreamBufferPolicy}
+	 */
+	public static StreamBufferPolicy getStreamBufferPolicy() {
+		return streamBufferPolicy;
+	}
+	
+	/**
+	 * Activates the given process wide document cache for all following assertions. Documents are 
+	 * then parsed only once and shared by all assertions on the same document.
+	 * A previously active cache is not cleared, use {@link PdfDocumentCache#clear()} to close its documents.
+	 * 
+	 * @param cache the cache to use or <code>null</code> to disable caching (default)
+	 */
+	public static void setDocumentCache(final PdfDocumentCache cache) {
+		documentCache = cache;
+	}
+	
+	/**
+	 * Returns the active process wide document cache.
+	 * 
+	 * @return the active {@link PdfDocumentCache} or <code>null</code> if documents are not cached
+	 */
+	public static PdfDocumentCache getDocumentCache() {
+		return documentCache;
+	}
+	
+	/**
+	 * Activates or deactivates leak detection for documents loaded by subsequent assertions. Documents
+	 * that are never released via {@link FluentPdfAsserter#release()} or try-with-resources are
+	 * reported with their allocation site once they are garbage collected.
+	 * 
+	 * @param detector the leak detector to use, <code>null</code> disables leak detection
+	 */
+	public static void setLeakDetector(final DocumentLeakDetector detector) {
+		leakDetector = detector;
+	}
+	
+	/**
+	 * Returns the active leak detector.
+	 * 
+	 * @return the active {@link DocumentLeakDetector} or <code>null</code> if leak detection is disabled
+	 */
+	public static DocumentLeakDetector getLeakDetector() {
+		return leakDetector;
+	}
+	
+	/**
+	 * Sets the number of threads extracting the text of large documents. Every thread works on its own copy of
+	 * the document loaded from the original source, the extracted text is identical to a sequential extraction.
+	 * Documents read from an {@link InputStream} are always extracted sequentially because their source cannot
+	 * be read again.
+	 * 
+	 * @param parallelism the number of extraction threads, 1 for sequential extraction (default)
+	 */
+	public static void setTextExtractionParallelism(final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Text extraction parallelism must be at least 1.");
+		}
+		textExtractionParallelism = parallelism;
+	}
+	
+	/**
+	 * Returns the number of threads extracting the text of large documents.
+	 * 
+	 * @return the text extraction parallelism
+	 */
+	public static int getTextExtractionParallelism() {
+		return textExtractionParallelism;
+	}
+	
+	/**
+	 * Sets the maximum number of pixels of an embedded image decoded at once by image assertions. Larger images
+	 * are compared in strips of rows that fit into the budget. Images compared with a scale invariant
+	 * {@link io.github.derkrischan.pdftest.image.ImageTolerance} are decoded subsampled to fit into the budget.
+	 * 
+	 * @param pixels the pixel budget per decode, 2^26 (64 MPixel) by default
+	 */
+	public static void setImageDecodePixelBudget(final long pixels) {
+		if (pixels < 1) {
+			throw new IllegalArgumentException("Image decode pixel budget must be at least 1.");
+		}
+		imageDecodePixelBudget = pixels;
+	}
 	
+	/**
+	 * Returns the maximum number of pixels of an embedded image decoded at once.
+	 * 
+	 * @return the pixel budget per decode
+	 */
+	public static long getImageDecodePixelBudget() {
+		return imageDecodePixelBudget;
+	}
+	
+	/**
+	 * Sets the number of threads used by visual assertions. Whole documents are rendered page by page on this
+	 * many threads, each working on its own copy of the document loaded from the original source. Single pages
+	 * are compared with their baselines in tiles on this many threads.
+	 * 
+	 * @param parallelism the number of threads, the number of available processors by default
+	 */
+	public static void setVisualComparisonParallelism(final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Visual comparison parallelism must be at least 1.");
+		}
+		visualComparisonParallelism = parallelism;
+	}
+	
+	/**
+	 * Returns the number of threads used by visual assertions.
+	 * 
+	 * @return the visual comparison parallelism
+	 */
+	public static int getVisualComparisonParallelism() {
+		return visualComparisonParallelism;
+	}
+	
+	/**
+	 * Activates the given persistent cache of rendered pages for all following visual assertions. Pages are then
+	 * rendered only once per document content, resolution and colour mode, even across test runs. Documents read
+	 * from an {@link InputStream} are hashed while loading if the cache is active.
+	 * 
+	 * @param cache the cache to use or <code>null</code> to render pages on every assertion (default)
+	 */
+	public static void setRenderCache(final PageRenderCache cache) {
+		renderCache = cache;
+	}
+	
+	/**
+	 * Returns the active cache of rendered pages.
+	 * 
+	 * @return the active {@link PageRenderCache} or <code>null</code> if rendered pages are not cached
+	 */
+	public static PageRenderCache getRenderCache() {
+		return renderCache;
+	}
+	
+	/**
+	 * Enables perceptual fingerprints as a cheap gate before the full comparison of a page with its baseline (see
+	 * {@link PdfPageAssert#looksLike(String, float, io.github.derkrischan.pdftest.image.ImageTolerance)}). After a page passed the full comparison the
+	 * DCT based perceptual hash of a 16 dpi rendering of the page is stored next to the baseline
+	 * (<code>.phash</code>). Later comparisons render the page at full resolution only if the Hamming distance of
+	 * its fingerprint to the stored one exceeds the threshold or the baseline changed.
+	 * <p>
+	 * The fingerprint reflects the coarse structure of a page only, small changes like a changed digit do not
+	 * change it. Enable fingerprints for large regression suites where most pages are unchanged and such changes
+	 * are covered by other assertions, e.g. text assertions.
+	 * 
+	 * <p>
+	 * The fingerprint is only trusted for comparisons at the same resolution whose tolerance is not stricter than
+	 * the one of the comparison that stored it, see
+	 * {@link io.github.derkrischan.pdftest.image.ImageTolerance#isAtLeastAsStrict(io.github.derkrischan.pdftest.image.ImageTolerance, io.github.derkrischan.pdftest.image.ImageTolerance)}.
+	 * 
+	 * @param threshold the maximum Hamming distance (0 to 64) of fingerprints considered unchanged
+	 * @see #disablePageFingerprints()
+	 */
+	public static void setPageFingerprintThreshold(final int threshold) {
+		if (threshold < 0 || threshold > 64) {
+			throw new IllegalArgumentException("Page fingerprint threshold must be between 0 and 64.");
+		}
+		pageFingerprintThreshold = threshold;
+	}
+	
+	/**
+	 * Disables perceptual fingerprints, every page is compared with its baseline at full resolution (default).
+	 */
+	public static void disablePageFingerprints() {
+		pageFingerprintThreshold = -1;
+	}
+	
+	/**
+	 * Returns the maximum Hamming distance of page fingerprints considered unchanged.
+	 * 
+	 * @return the page fingerprint threshold, -1 if fingerprints are disabled
+	 */
+	public static int getPageFingerprintThreshold() {
+		return pageFingerprintThreshold;
+	}
 }
@@ -0,0 +1,363 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Process wide cache of parsed PDF documents shared by all assertions created via {@link PdfAssertions}
+ * while the cache is active (see {@link PdfAssertions#setDocumentCache(PdfDocumentCache)}). Suites that
+ * test the same document in many test methods pay the parsing costs only once.
+ * <p>
+ * Documents loaded from files are identified by their canonical path, modification time and size,
+ * documents given as byte array or stream by a SHA-256 hash of their content. The password is part of
+ * the key as well. The cache evicts the least recently used documents as soon as the summed size of all
+ * cached documents exceeds the configured maximum. Every asserter holding a cached document counts as a
+ * reference to it, an evicted document is closed as soon as the last asserter holding it has been released.
+ * Documents larger than the maximum are not cached at all.
+ * <p>
+ * Cached documents are shared between assertions, so they must not be modified or closed by tests. The
+ * cache is thread safe, but {@link PDDocument} is not: tests running in parallel should not work on the
+ * same cached document at the same time.
+ *
+ * @author krischan
+ *
+ */
+public final class PdfDocumentCache {
+
+	/** the algorithm used to identify documents by content */
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	/** size of the buffer used to hash stream contents */
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+	/** the cached documents in access order, eldest first */
+	private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** the cached documents and the evicted documents still referenced, by document identity */
+	private final Map<PDDocument, CacheEntry> entriesByDocument = new IdentityHashMap<>();
+
+	/** the maximum summed size of all cached documents in bytes */
+	private final long maxWeight;
+
+	/** the summed size of all cached documents in bytes */
+	private long weight;
+
+	/** number of requests served from cache */
+	private long hitCount;
+
+	/** number of requests that had to load the document */
+	private long missCount;
+
+	/** number of documents evicted because the maximum weight was exceeded */
+	private long evictionCount;
+
+	/**
+	 * Creates a new, empty document cache.
+	 *
+	 * @param pMaxWeightInBytes the maximum summed size in bytes of all cached documents
+	 */
+	public PdfDocumentCache(final long pMaxWeightInBytes) {
+		if (pMaxWeightInBytes <= 0) {
+			throw new IllegalArgumentException("Maximum cache weight must be positive.");
+		}
+		maxWeight = pMaxWeightInBytes;
+	}
+
+	/**
+	 * Returns the document cached for the given key or loads and caches it. Every call adds a reference to the
+	 * document that has to be dropped via {@link #release(PDDocument)}.
+	 *
+	 * @param pKey the document key, see the key factory methods of this class
+	 * @param pWeight the size of the document source in bytes
+	 * @param pLoader loads the document on a cache miss
+	 * @return the cached or newly loaded document
+	 * @throws IOException in case the document cannot be loaded
+	 */
+	PDDocument get(final String pKey, final long pWeight, final DocumentLoader pLoader) throws IOException {
+		synchronized (this) {
+			CacheEntry entry = entries.get(pKey);
+			if (entry != null) {
+				hitCount++;
+				entry.references++;
+				return entry.document;
+			}
+			missCount++;
+		}
+		// load outside of the lock so that other documents can be served meanwhile
+		PDDocument document = pLoader.load();
+		if (pWeight > maxWeight) {
+			return document;
+		}
+		List<PDDocument> evicted = new ArrayList<>();
+		synchronized (this) {
+			CacheEntry concurrentlyLoaded = entries.get(pKey);
+			if (concurrentlyLoaded != null) {
+				evicted.add(document);
+				concurrentlyLoaded.references++;
+				document = concurrentlyLoaded.document;
+			} else {
+				CacheEntry added = new CacheEntry(document, pWeight);
+				entries.put(pKey, added);
+				entriesByDocument.put(document, added);
+				weight += pWeight;
+				Iterator<CacheEntry> eldest = entries.values().iterator();
+				while (weight > maxWeight && eldest.hasNext()) {
+					CacheEntry entry = eldest.next();
+					eldest.remove();
+					weight -= entry.weight;
+					evictionCount++;
+					entry.evicted = true;
+					if (entry.references == 0) {
+						entriesByDocument.remove(entry.document);
+						evicted.add(entry.document);
+					}
+				}
+			}
+		}
+		closeAll(evicted);
+		return document;
+	}
+
+	/**
+	 * Drops a reference to the given document obtained via {@link #get(String, long, DocumentLoader)}. An evicted
+	 * document is closed when its last reference is dropped.
+	 *
+	 * @param pDocument the document to release
+	 * @return <code>true</code> if the document is owned by this cache, <code>false</code> if the caller owns it
+	 */
+	boolean release(final PDDocument pDocument) {
+		synchronized (this) {
+			CacheEntry entry = entriesByDocument.get(pDocument);
+			if (entry == null) {
+				return false;
+			}
+			if (entry.references > 0) {
+				entry.references--;
+			}
+			if (!entry.evicted || entry.references > 0) {
+				return true;
+			}
+			entriesByDocument.remove(pDocument);
+		}
+		PdfLoader.close(pDocument);
+		return true;
+	}
+
+	/**
+	 * Removes and closes all cached documents, including evicted documents still held by asserters. Such
+	 * asserters must not be used afterwards. The statistics are kept.
+	 */
+	public void clear() {
+		List<PDDocument> evicted;
+		synchronized (this) {
+			evicted = new ArrayList<>(entriesByDocument.keySet());
+			entries.clear();
+			entriesByDocument.clear();
+			weight = 0;
+		}
+		closeAll(evicted);
+	}
+
+	/**
+	 * Returns the number of document requests served from this cache.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of document requests that had to load the document.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of documents evicted because the maximum weight was exceeded.
+	 *
+	 * @return the eviction count
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the number of currently cached documents.
+	 *
+	 * @return the number of cached documents
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the summed size in bytes of all currently cached documents.
+	 *
+	 * @return the current weight
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Returns the maximum summed size in bytes of all cached documents.
+	 *
+	 * @return the maximum weight
+	 */
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PdfDocumentCache [size=" + entries.size() + ", weight=" + weight + ", maxWeight=" + maxWeight
+				+ ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	/**
+	 * Creates the cache key for a document file. The key changes whenever the file is modified.
+	 *
+	 * @param pFile the PDF document file
+	 * @param pPassword the password to open the document, may be <code>null</code>
+	 * @return the cache key
+	 * @throws IOException in case the canonical path cannot be determined
+	 */
+	static String fileKey(final File pFile, final String pPassword) throws IOException {
+		return "file:" + pFile.getCanonicalPath() + ':' + pFile.lastModified() + ':' + pFile.length() + ':'
+				+ passwordHash(pPassword);
+	}
+
+	/**
+	 * Creates the cache key for a document given as byte array.
+	 *
+	 * @param pBytes the PDF document content
+	 * @param pPassword the password to open the document, may be <code>null</code>
+	 * @return the cache key
+	 */
+	static String contentKey(final byte[] pBytes, final String pPassword) {
+		MessageDigest digest = newDigest();
+		digest.update(pBytes);
+		return "content:" + toHex(digest.digest()) + ':' + passwordHash(pPassword);
+	}
+
+	/**
+	 * Creates the cache key for a buffered document stream. The source is read completely
+	 * and positioned at its start again afterwards.
+	 *
+	 * @param pSource the buffered PDF document content
+	 * @param pPassword the password to open the document, may be <code>null</code>
+	 * @return the cache key
+	 * @throws IOException in case the source cannot be read
+	 */
+	static String contentKey(final RandomAccessRead pSource, final String pPassword) throws IOException {
+		MessageDigest digest = newDigest();
+		byte[] buffer = new byte[HASH_BUFFER_SIZE];
+		pSource.seek(0);
+		int read;
+		while ((read = pSource.read(buffer, 0, buffer.length)) > 0) {
+			digest.update(buffer, 0, read);
+		}
+		pSource.seek(0);
+		return "content:" + toHex(digest.digest()) + ':' + passwordHash(pPassword);
+	}
+
+	/**
+	 * Hashes the password so that it is not kept in plain text as part of a key.
+	 *
+	 * @param pPassword the password, may be <code>null</code>
+	 * @return the hex encoded password hash or an empty string for no password
+	 */
+	private static String passwordHash(final String pPassword) {
+		if (pPassword == null) {
+			return "";
+		}
+		return toHex(newDigest().digest(pPassword.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Creates a new message digest for content hashes.
+	 *
+	 * @return a new {@link MessageDigest}
+	 */
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Converts the given bytes to a hex string.
+	 *
+	 * @param pBytes the bytes to convert
+	 * @return the lower case hex representation
+	 */
+	static String toHex(final byte[] pBytes) {
+		StringBuilder hex = new StringBuilder(pBytes.length * 2);
+		for (byte b : pBytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Closes all given documents.
+	 *
+	 * @param pDocuments the documents to close
+	 */
+	private static void closeAll(final List<PDDocument> pDocuments) {
+		for (PDDocument document : pDocuments) {
+			PdfLoader.close(document);
+		}
+	}
+
+	/**
+	 * A cached document with its weight and the number of asserters holding it.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class CacheEntry {
+
+		/** the cached document */
+		private final PDDocument document;
+
+		/** the size of the document source in bytes */
+		private final long weight;
+
+		/** the number of references not released yet */
+		private int references = 1;
+
+		/** whether the document has been evicted and is closed with its last reference */
+		private boolean evicted;
+
+		/**
+		 * Constructor for {@link CacheEntry}.
+		 *
+		 * @param pDocument the cached document
+		 * @param pWeight the size of the document source in bytes
+		 */
+		CacheEntry(final PDDocument pDocument, final long pWeight) {
+			document = pDocument;
+			weight = pWeight;
+		}
+	}
+}
@@ -0,0 +1,399 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import io.github.derkrischan.pdftest.io.LoadingMode;
+import io.github.derkrischan.pdftest.io.MemoryMappedRandomAccessRead;
+
+/**
+ * Loads PDF documents from the supported sources respecting the global settings of
+ * {@link PdfAssertions}, i.e. loading mode, stream buffer policy and document cache.
+ *
+ * @author krischan
+ *
+ */
+final class PdfLoader {
+
+	/** loaders for independent copies of documents whose source can be read again, by document */
+	private static final Map<PDDocument, DocumentLoader> REOPENERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/** the content hashes of documents whose source is known, by document */
+	private static final Map<PDDocument, ContentHash> CONTENT_HASHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/** leak report description of documents loaded from byte arrays */
+	private static final String BYTES = "byte array";
+
+	/** leak report description of documents loaded from streams */
+	private static final String STREAM = "input stream";
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private PdfLoader() {
+		//NOP
+	}
+
+	/**
+	 * Loads the given PDF file, from the document cache if active.
+	 *
+	 * @param pFile the PDF document file
+	 * @param pPassword user password to open the document
+	 * @param pLoadingMode the strategy used to read the file
+	 * @return the loaded PDF document
+	 * @throws IOException in case the document cannot be read
+	 */
+	static PDDocument loadFile(final File pFile, final String pPassword, final LoadingMode pLoadingMode) throws IOException {
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		PDDocument document;
+		if (cache == null) {
+			document = load(open(pFile, pLoadingMode), pPassword, pFile.getPath());
+		} else {
+			document = cache.get(PdfDocumentCache.fileKey(pFile, pPassword), pFile.length(),
+					() -> load(open(pFile, pLoadingMode), pPassword, pFile.getPath()));
+		}
+		CONTENT_HASHES.putIfAbsent(document, new ContentHash(pFile, null));
+		return remember(document, () -> loadUntracked(open(pFile, pLoadingMode), pPassword));
+	}
+
+	/**
+	 * Loads the given PDF byte array, from the document cache if active.
+	 *
+	 * @param pBytes the PDF document content
+	 * @param pPassword user password to open the document
+	 * @return the loaded PDF document
+	 * @throws IOException in case the document cannot be read
+	 */
+	static PDDocument loadBytes(final byte[] pBytes, final String pPassword) throws IOException {
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		PDDocument document;
+		if (cache == null) {
+			document = load(new RandomAccessReadBuffer(pBytes), pPassword, BYTES);
+		} else {
+			document = cache.get(PdfDocumentCache.contentKey(pBytes, pPassword), pBytes.length,
+					() -> load(new RandomAccessReadBuffer(pBytes), pPassword, BYTES));
+		}
+		CONTENT_HASHES.putIfAbsent(document, new ContentHash(null, pBytes));
+		return remember(document, () -> loadUntracked(new RandomAccessReadBuffer(pBytes), pPassword));
+	}
+
+	/**
+	 * Buffers the given stream according to the global {@link io.github.derkrischan.pdftest.io.StreamBufferPolicy}
+	 * and loads the PDF document from it, from the document cache if active.
+	 *
+	 * @param pInputStream the PDF document stream
+	 * @param pPassword user password to open the document
+	 * @return the loaded PDF document
+	 * @throws IOException in case the document cannot be read
+	 */
+	static PDDocument loadStream(final InputStream pInputStream, final String pPassword) throws IOException {
+		RandomAccessRead source = PdfAssertions.getStreamBufferPolicy().buffer(pInputStream);
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		if (cache == null && PdfAssertions.getRenderCache() == null) {
+			return load(source, pPassword, STREAM);
+		}
+		// the stream cannot be read again, so its content is hashed before the document takes it over
+		String key;
+		try {
+			key = PdfDocumentCache.contentKey(source, pPassword);
+		} catch (IOException e) {
+			source.close();
+			throw e;
+		}
+		PDDocument doc;
+		if (cache == null) {
+			doc = load(source, pPassword, STREAM);
+		} else {
+			PDDocument[] loaded = new PDDocument[1];
+			doc = cache.get(key, source.length(), () -> loaded[0] = load(source, pPassword, STREAM));
+			if (loaded[0] == null) {
+				// served from cache, the buffered stream is not needed
+				source.close();
+			}
+		}
+		CONTENT_HASHES.putIfAbsent(doc, new ContentHash(key));
+		return doc;
+	}
+
+	/**
+	 * Parses only the cross reference data and trailer of the given PDF file. All further objects are
+	 * parsed on first access, so metadata like the document information or the page count are available
+	 * at minimal costs. Unlike {@link #loadFile(File, String, LoadingMode)} the parser is strict and does
+	 * not validate or repair the cross reference table, so broken documents are rejected.
+	 *
+	 * @param pFile the PDF document file
+	 * @param pPassword user password to open the document
+	 * @param pLoadingMode the strategy used to read the file
+	 * @return the PDF document, not cached
+	 * @throws IOException in case the document cannot be parsed strictly
+	 */
+	static PDDocument parseMetadata(final File pFile, final String pPassword, final LoadingMode pLoadingMode) throws IOException {
+		return parseStrictly(open(pFile, pLoadingMode), pPassword, pFile.getPath());
+	}
+
+	/**
+	 * Parses only the cross reference data and trailer of the given PDF document content, see
+	 * {@link #parseMetadata(File, String, LoadingMode)}.
+	 *
+	 * @param pBytes the PDF document content
+	 * @param pPassword user password to open the document
+	 * @return the PDF document, not cached
+	 * @throws IOException in case the document cannot be parsed strictly
+	 */
+	static PDDocument parseMetadata(final byte[] pBytes, final String pPassword) throws IOException {
+		return parseStrictly(new RandomAccessReadBuffer(pBytes), pPassword, BYTES);
+	}
+
+	/**
+	 * Opens the given file for random access with the given loading strategy.
+	 *
+	 * @param pFile the PDF document file
+	 * @param pLoadingMode the strategy used to read the file
+	 * @return the opened file
+	 * @throws IOException in case the file cannot be opened
+	 */
+	private static RandomAccessRead open(final File pFile, final LoadingMode pLoadingMode) throws IOException {
+		if (pLoadingMode == LoadingMode.MEMORY_MAPPED) {
+			return new MemoryMappedRandomAccessRead(pFile);
+		}
+		return new RandomAccessReadBufferedFile(pFile);
+	}
+
+	/**
+	 * Loads a PDF document from the given source. The document takes ownership of the source and
+	 * closes it together with the document, e.g. releasing a file mapping or deleting a scratch file.
+	 *
+	 * @param pSource the PDF document source
+	 * @param pPassword user password to open the document
+	 * @param pDescription describes the source for leak reports
+	 * @return the loaded PDF document
+	 * @throws IOException in case the document cannot be read
+	 */
+	private static PDDocument load(final RandomAccessRead pSource, final String pPassword, final String pDescription)
+			throws IOException {
+		try {
+			return track(Loader.loadPDF(pSource, pPassword), pSource, pDescription);
+		} catch (IOException e) {
+			pSource.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Parses a PDF document from the given source without the lenient repair mode.
+	 *
+	 * @param pSource the PDF document source, owned by the document afterwards
+	 * @param pPassword user password to open the document
+	 * @param pDescription describes the source for leak reports
+	 * @return the parsed PDF document
+	 * @throws IOException in case the document cannot be parsed strictly
+	 */
+	private static PDDocument parseStrictly(final RandomAccessRead pSource, final String pPassword,
+			final String pDescription) throws IOException {
+		try {
+			return track(new PDFParser(pSource, pPassword).parse(false), pSource, pDescription);
+		} catch (IOException e) {
+			pSource.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks whether an independent copy of the given document can be loaded, see {@link #reopen(PDDocument)}.
+	 *
+	 * @param pDocument a document loaded by this class
+	 * @return <code>true</code> if the source of the document can be read again
+	 */
+	static boolean canReopen(final PDDocument pDocument) {
+		return REOPENERS.containsKey(pDocument);
+	}
+
+	/**
+	 * Loads an independent copy of the given document from its source, e.g. for another thread since
+	 * {@link PDDocument} is not thread safe. The copy is neither cached nor tracked for leaks and has to be
+	 * closed by the caller.
+	 *
+	 * @param pDocument a document loaded by this class
+	 * @return the copy of the document or <code>null</code> if its source cannot be read again, e.g. a stream
+	 * @throws IOException in case the document cannot be read
+	 */
+	static PDDocument reopen(final PDDocument pDocument) throws IOException {
+		DocumentLoader reopener = REOPENERS.get(pDocument);
+		if (reopener == null) {
+			return null;
+		}
+		PDDocument copy = reopener.load();
+		ContentHash contentHash = CONTENT_HASHES.get(pDocument);
+		if (contentHash != null) {
+			CONTENT_HASHES.put(copy, contentHash);
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns a hash of the content the given document was loaded from, e.g. to identify renderings of its pages
+	 * across test runs. The hash of a file is computed on the first call by reading the file once more.
+	 *
+	 * @param pDocument a document loaded by this class or a copy of it, see {@link #reopen(PDDocument)}
+	 * @return the content hash or <code>null</code> if the source of the document is unknown
+	 * @throws IOException in case the file of the document cannot be read
+	 */
+	static String contentHash(final PDDocument pDocument) throws IOException {
+		ContentHash contentHash = CONTENT_HASHES.get(pDocument);
+		return contentHash == null ? null : contentHash.get();
+	}
+
+	/**
+	 * Releases a document that is no longer needed by an asserter. Documents owned by the active
+	 * {@link PdfDocumentCache} stay open because other assertions may share them, only the reference of the
+	 * asserter is dropped.
+	 *
+	 * @param pDocument the document to release, may be <code>null</code>
+	 */
+	static void release(final PDDocument pDocument) {
+		if (pDocument == null) {
+			return;
+		}
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		if (cache != null && cache.release(pDocument)) {
+			return;
+		}
+		close(pDocument);
+	}
+
+	/**
+	 * Closes the given document and stops tracking it for leaks. Errors are ignored because the
+	 * document is not used anymore.
+	 *
+	 * @param pDocument the document to close
+	 */
+	static void close(final PDDocument pDocument) {
+		DocumentLeakDetector leakDetector = PdfAssertions.getLeakDetector();
+		if (leakDetector != null) {
+			leakDetector.untrack(pDocument);
+		}
+		PageTextCache.discard(pDocument);
+		ImageDigestCache.discard(pDocument);
+		REOPENERS.remove(pDocument);
+		CONTENT_HASHES.remove(pDocument);
+		try {
+			pDocument.close();
+		} catch (IOException e) {
+			// nothing to do, the document is discarded anyway
+		}
+	}
+
+	/**
+	 * Remembers how to load an independent copy of the given document, see {@link #reopen(PDDocument)}.
+	 *
+	 * @param pDocument the loaded document
+	 * @param pReopener loads a copy of the document, must not reference the document itself
+	 * @return the given document
+	 */
+	private static PDDocument remember(final PDDocument pDocument, final DocumentLoader pReopener) {
+		REOPENERS.putIfAbsent(pDocument, pReopener);
+		return pDocument;
+	}
+
+	/**
+	 * Loads a PDF document from the given source without registering it anywhere.
+	 *
+	 * @param pSource the PDF document source
+	 * @param pPassword user password to open the document
+	 * @return the loaded PDF document
+	 * @throws IOException in case the document cannot be read
+	 */
+	private static PDDocument loadUntracked(final RandomAccessRead pSource, final String pPassword) throws IOException {
+		try {
+			return Loader.loadPDF(pSource, pPassword);
+		} catch (IOException e) {
+			pSource.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Registers a newly loaded document with the active {@link DocumentLeakDetector}.
+	 *
+	 * @param pDocument the loaded document
+	 * @param pSource the source of the document
+	 * @param pDescription describes the source for leak reports
+	 * @return the given document
+	 */
+	private static PDDocument track(final PDDocument pDocument, final RandomAccessRead pSource, final String pDescription) {
+		DocumentLeakDetector leakDetector = PdfAssertions.getLeakDetector();
+		if (leakDetector != null) {
+			leakDetector.track(pDocument, pSource, pDescription);
+		}
+		return pDocument;
+	}
+
+	/**
+	 * The lazily computed content hash of a document source.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class ContentHash {
+
+		/** the document file, <code>null</code> if not loaded from a file */
+		private final File file;
+
+		/** the document content, <code>null</code> if not loaded from a byte array */
+		private final byte[] bytes;
+
+		/** the hash, <code>null</code> until computed */
+		private String hash;
+
+		/**
+		 * Constructor for a hash computed on first access.
+		 *
+		 * @param pFile the document file or <code>null</code>
+		 * @param pBytes the document content or <code>null</code>
+		 */
+		ContentHash(final File pFile, final byte[] pBytes) {
+			file = pFile;
+			bytes = pBytes;
+		}
+
+		/**
+		 * Constructor for an already computed hash.
+		 *
+		 * @param pHash the hash
+		 */
+		ContentHash(final String pHash) {
+			this(null, null);
+			hash = pHash;
+		}
+
+		/**
+		 * Returns the hash, computing it on first access.
+		 *
+		 * @return the hash
+		 * @throws IOException in case the document file cannot be read
+		 */
+		synchronized String get() throws IOException {
+			if (hash == null) {
+				if (bytes != null) {
+					hash = PdfDocumentCache.contentKey(bytes, null);
+				} else {
+					try (RandomAccessRead source = new RandomAccessReadBufferedFile(file)) {
+						hash = PdfDocumentCache.contentKey(source, null);
+					}
+				}
+			}
+			return hash;
+		}
+	}
+}
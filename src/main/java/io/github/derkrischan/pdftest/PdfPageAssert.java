@@ -5,9 +5,11 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
 
 import org.apache.pdfbox.contentstream.PDFStreamEngine;
 import org.apache.pdfbox.contentstream.operator.DrawObject;
@@ -28,10 +30,16 @@ import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.text.PDFTextStripperByArea;
 import org.apache.pdfbox.util.Matrix;
+import org.assertj.core.api.Assertions;
 import org.assertj.core.api.FloatAssert;
+import org.assertj.core.api.ListAssert;
 import org.assertj.core.data.Offset;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.github.derkrischan.pdftest.image.AbstractRectangle;
+import io.github.derkrischan.pdftest.image.ImageComparator;
+import io.github.derkrischan.pdftest.image.ImageInRegion;
+import io.github.derkrischan.pdftest.image.ImageTolerance;
 import io.github.derkrischan.pdftest.page.Orientation;
 import io.github.derkrischan.pdftest.page.PaperSize;
 
@@ -43,15 +51,33 @@ import io.github.derkrischan.pdftest.page.PaperSize;
  */
 public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 
+	/** the asserter this page has been navigated from, serves and releases the PDF document under test */
+	private final FluentPdfAsserter origin;
+
 	/**
 	 * Package private constructor for {@link PdfPageAssert} to prevent public usage.
 	 * 
 	 * @param pActualPdfPage the PDF document page under test
-	 * @param pPdf the document under test this page belongs to
+	 * @param pOrigin the asserter this page has been navigated from, so that navigating back to the document
+	 *            and releasing it keep its state
 	 */
 	@SuppressFBWarnings("CD_CIRCULAR_DEPENDENCY")
-	PdfPageAssert(final PDPage pActualPdfPage, final PDDocument pPdf) {
-		super(pActualPdfPage, PdfPageAssert.class, pPdf);
+	PdfPageAssert(final PDPage pActualPdfPage, final FluentPdfAsserter pOrigin) {
+		super(pActualPdfPage, PdfPageAssert.class, pOrigin.getPdfUnderTest());
+		origin = pOrigin;
+	}
+
+	@Override
+	public PdfAssert document() {
+		return origin.document();
+	}
+
+	/**
+	 * Releases the PDF document under test via the asserter this page has been navigated from.
+	 */
+	@Override
+	public void release() {
+		origin.release();
 	}
 
 	/**
@@ -66,7 +92,146 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 			PDFTextStripperByArea stripper = new PDFTextStripperByArea();
 			stripper.addRegion("testRegion", pRegion);
 			stripper.extractRegions(actual);
-			return new StringAssert(stripper.getTextForRegion("testRegion"), getPdfUnderTest());
+			return new StringAssert(stripper.getTextForRegion("testRegion"), this);
+		} catch (IOException err) {
+			failWithMessage("Unable to extract text from PDF page.");
+			return null;
+		}
+	}
+
+	/**
+	 * Extracts the texts of all given rectangular regions of the PDF document page under test in a single pass
+	 * over the page content and returns a {@link StringAssert} per region.
+	 * 
+	 * @param pRegions the regions to extract text from by name
+	 * @return a {@link StringAssert} for the text extracted from every region by region name in the order of
+	 *         the given map
+	 */
+	public Map<String, StringAssert> textInRegions(final Map<String, ? extends Rectangle2D> pRegions) {
+		isNotNull();
+		try {
+			PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+			for (Map.Entry<String, ? extends Rectangle2D> region : pRegions.entrySet()) {
+				stripper.addRegion(region.getKey(), region.getValue());
+			}
+			stripper.extractRegions(actual);
+			Map<String, StringAssert> texts = new LinkedHashMap<>();
+			for (String region : pRegions.keySet()) {
+				texts.put(region, new StringAssert(stripper.getTextForRegion(region), this));
+			}
+			return Collections.unmodifiableMap(texts);
+		} catch (IOException err) {
+			failWithMessage("Unable to extract text from PDF page.");
+			return null;
+		}
+	}
+
+	/**
+	 * Extracts the texts of all given rectangular regions in metric or imperial units of the PDF document page
+	 * under test in a single pass over the page content (see {@link #textInRegions(Map)}).
+	 * 
+	 * @param pRegions the regions to extract text from by name, e.g. {@link io.github.derkrischan.pdftest.image.MetricRectangle}s
+	 * @return a {@link StringAssert} for the text extracted from every region by region name in the order of
+	 *         the given map
+	 */
+	public Map<String, StringAssert> textInRectangles(final Map<String, ? extends AbstractRectangle> pRegions) {
+		Map<String, Rectangle2D> regions = new LinkedHashMap<>();
+		for (Map.Entry<String, ? extends AbstractRectangle> region : pRegions.entrySet()) {
+			regions.put(region.getKey(), region.getValue().toRect2D());
+		}
+		return textInRegions(regions);
+	}
+
+	/**
+	 * Checks whether the given text is located inside the given rectangular region of the PDF document page under
+	 * test. The positions of all glyphs of the page are indexed on first use, so further positional checks on the
+	 * same page do not extract its text again. Like {@link #textInRegion(Rectangle2D)} a glyph is inside the region
+	 * if the left end of its base line is.
+	 * 
+	 * @param pText the expected text, words separated by single spaces and lines by line breaks
+	 * @param pRegion the region the text is expected in
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsTextInRegion(final String pText, final Rectangle2D pRegion) {
+		PageGlyphIndex index = glyphIndex();
+		if (index != null && !index.isTextInRegion(pText, pRegion)) {
+			failWithMessage("Expected text '%s' not found in region %s, region contains '%s'.", pText, pRegion,
+					index.textInRegion(pRegion));
+		}
+		return this;
+	}
+
+	/**
+	 * Finds all occurrences of the given text on the PDF document page under test and returns a {@link ListAssert}
+	 * for their bounding boxes in points with the origin at the upper left corner of the page.
+	 * 
+	 * @param pText the text to find, words separated by single spaces and lines by line breaks
+	 * @return a {@link ListAssert} for the bounding boxes of all occurrences in content order
+	 */
+	public ListAssert<Rectangle2D> textLocations(final String pText) {
+		PageGlyphIndex index = glyphIndex();
+		return Assertions.assertThat(index == null ? Collections.<Rectangle2D>emptyList() : index.boundingBoxesOf(pText));
+	}
+
+	/**
+	 * Checks whether the first occurrence of the given text on the PDF document page under test is set in the
+	 * given font.
+	 * 
+	 * @param pText the text to find
+	 * @param pFontName the expected font name, e.g. <code>Helvetica-Bold</code>; subset prefixes like
+	 *            <code>ABCDEF+</code> are ignored
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsTextInFont(final String pText, final String pFontName) {
+		PageGlyphIndex index = glyphIndex();
+		if (index != null) {
+			List<String> fonts = index.fontsOf(pText);
+			if (fonts.isEmpty()) {
+				failWithMessage("Expected text '%s' not found on page.", pText);
+			}
+			for (String font : fonts) {
+				if (!font.equals(pFontName) && !font.endsWith("+" + pFontName)) {
+					failWithMessage("Expected text '%s' in font '%s' but found fonts %s.", pText, pFontName, fonts);
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Checks whether the first occurrence of the given text on the PDF document page under test is set in the
+	 * given font size.
+	 * 
+	 * @param pText the text to find
+	 * @param pFontSize the expected font size in points
+	 * @param pTolerance the allowed deviation in points
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsTextWithFontSize(final String pText, final float pFontSize, final float pTolerance) {
+		PageGlyphIndex index = glyphIndex();
+		if (index != null) {
+			List<Float> sizes = index.fontSizesOf(pText);
+			if (sizes.isEmpty()) {
+				failWithMessage("Expected text '%s' not found on page.", pText);
+			}
+			for (float size : sizes) {
+				if (Math.abs(size - pFontSize) > pTolerance) {
+					failWithMessage("Expected text '%s' in font size %s but found font sizes %s.", pText, pFontSize, sizes);
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the glyph index of the PDF document page under test.
+	 * 
+	 * @return the glyph index or <code>null</code> after a failure has been reported
+	 */
+	private PageGlyphIndex glyphIndex() {
+		isNotNull();
+		try {
+			return PageGlyphIndex.forPage(getPdfUnderTest(), actual);
 		} catch (IOException err) {
 			failWithMessage("Unable to extract text from PDF page.");
 			return null;
@@ -80,31 +245,83 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 	 * @return this asserter instance
 	 */
 	public PdfPageAssert containsImage(final String pExpectedImageFileName) {
+		return containsImage(pExpectedImageFileName, null);
+	}
+
+	/**
+	 * Checks whether an image similar to the image loaded from given image file name within the given
+	 * tolerance is found at page under test.
+	 * 
+	 * @param pExpectedImageFileName the image file name to search for at this page
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImage(final String pExpectedImageFileName, final ImageTolerance pTolerance) {
+		EmbeddedImageMatcher matcher;
 		try {
-			return containsImage(ImageIO.read(new File(pExpectedImageFileName)));
+			matcher = EmbeddedImageMatcher.forFile(new File(pExpectedImageFileName), pTolerance);
 		} catch (IOException e) {
 			failWithMessage("Unable to load expected image from given path '%s'", pExpectedImageFileName);
 			return this;
 		}
+		return containsImage(matcher);
 	}
 	
 	/**
-	 * Checks whether the given image is found at page under test.
+	 * Checks whether the given image is found at page under test. To search for the same image on many pages
+	 * prepare it once, see {@link #containsImage(ExpectedImage)}.
 	 * 
 	 * @param pExpectedImage the image to search for at this page
 	 * @return this asserter instance
 	 */
 	public PdfPageAssert containsImage(final BufferedImage pExpectedImage) {
+		return containsImage(pExpectedImage, null);
+	}
+
+	/**
+	 * Checks whether an image similar to the given image within the given tolerance is found at page under
+	 * test, e.g. after lossy re-encoding of the embedded image.
+	 * 
+	 * @param pExpectedImage the image to search for at this page
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImage(final BufferedImage pExpectedImage, final ImageTolerance pTolerance) {
+		return containsImage(EmbeddedImageMatcher.forImage(pExpectedImage, pTolerance));
+	}
+
+	/**
+	 * Checks whether the given prepared image is found at page under test. The digest of the image is computed
+	 * only once for all pages it is searched on.
+	 * 
+	 * @param pExpectedImage the image to search for at this page
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImage(final ExpectedImage pExpectedImage) {
+		return containsImage(pExpectedImage, null);
+	}
+
+	/**
+	 * Checks whether an image similar to the given prepared image within the given tolerance is found at page
+	 * under test. The pyramid of the image is computed only once for all pages it is searched on.
+	 * 
+	 * @param pExpectedImage the image to search for at this page
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImage(final ExpectedImage pExpectedImage, final ImageTolerance pTolerance) {
+		return containsImage(EmbeddedImageMatcher.forImage(pExpectedImage, pTolerance));
+	}
+
+	/**
+	 * Checks whether an image accepted by the given matcher is found at page under test.
+	 * 
+	 * @param pMatcher the matcher for the expected image
+	 * @return this asserter instance
+	 */
+	private PdfPageAssert containsImage(final EmbeddedImageMatcher pMatcher) {
 		try {
-			List<BufferedImage> images = getImagesFromResources(actual.getResources());
-			boolean found = false;
-			for (BufferedImage img : images) {
-				if (compareImages(img, pExpectedImage)) {
-					found = true;
-					break;
-				}
-			}
-			if (!found) {
+			if (!containsImage(actual.getResources(), pMatcher, getPdfUnderTest())) {
 				failWithMessage("Expected image not found at given page.");
 			}
 		} catch (IOException e) {
@@ -194,12 +411,14 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 	 * @return this asserter instance
 	 */
 	public PdfPageAssert containsImageInRegion(final String pExpectedImageFileName, final Rectangle2D pRegion) {
+		EmbeddedImageMatcher matcher;
 		try {
-			return containsImageInRegion(ImageIO.read(new File(pExpectedImageFileName)), pRegion);
+			matcher = EmbeddedImageMatcher.forFile(new File(pExpectedImageFileName), null);
 		} catch (IOException e) {
 			failWithMessage("Unable to load expected image from given path '%s'", pExpectedImageFileName);
 			return this;
 		}
+		return containsImageInRegion(matcher, pRegion);
 	}
 	
 	/**
@@ -210,8 +429,141 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 	 * @return this asserter instance
 	 */
 	public PdfPageAssert containsImageInRegion(final BufferedImage pExpectedImage, final Rectangle2D pRegion) {
+		return containsImageInRegion(EmbeddedImageMatcher.forImage(pExpectedImage, null), pRegion);
+	}
+
+	/**
+	 * Checks whether the given prepared image is found in given region at page under test.
+	 * 
+	 * @param pExpectedImage the image to search for in specified region at this page
+	 * @param pRegion the region to perform checks in
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImageInRegion(final ExpectedImage pExpectedImage, final Rectangle2D pRegion) {
+		return containsImageInRegion(EmbeddedImageMatcher.forImage(pExpectedImage, null), pRegion);
+	}
+
+	/**
+	 * Checks whether all given images are found in their regions at page under test. The page content is
+	 * processed once for all images and only images drawn inside the region of an expected image are decoded.
+	 * 
+	 * @param pExpectedImages the expected images with their regions by name, e.g. "logo" or "signature"
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert containsImagesInRegions(final Map<String, ImageInRegion> pExpectedImages) {
+		List<EmbeddedImageMatcher> matchers = new ArrayList<>();
+		List<Rectangle2D> regions = new ArrayList<>();
+		for (ImageInRegion expected : pExpectedImages.values()) {
+			try {
+				matchers.add(expected.getImage() != null
+						? EmbeddedImageMatcher.forImage(expected.getImage(), expected.getTolerance())
+						: EmbeddedImageMatcher.forFile(new File(expected.getImageFileName()), expected.getTolerance()));
+			} catch (IOException e) {
+				failWithMessage("Unable to load expected image from given path '%s'", expected.getImageFileName());
+				return this;
+			}
+			regions.add(expected.getRegion());
+		}
 		try {
-			ImageLocationTestEngine engine = new ImageLocationTestEngine(pExpectedImage, pRegion);
+			ImageLocationTestEngine engine = new ImageLocationTestEngine(matchers, regions, getPdfUnderTest());
+			engine.processPage(actual);
+			List<String> missing = new ArrayList<>();
+			int index = 0;
+			for (String name : pExpectedImages.keySet()) {
+				if (!engine.isFound(index++)) {
+					missing.add(name);
+				}
+			}
+			if (!missing.isEmpty()) {
+				failWithMessage("%d of %d expected images not found in their areas: %s", missing.size(),
+						pExpectedImages.size(), missing);
+			}
+		} catch (IOException e) {
+			failWithMessage("Error searching for embedded images in PDF page: " + e.getMessage());
+		}
+		return this;
+	}
+
+	/**
+	 * Renders the page under test and checks that it looks like the given approved baseline image. The page is
+	 * compared in tiles on {@link PdfAssertions#getVisualComparisonParallelism()} threads and the comparison
+	 * stops as soon as the tolerance is exceeded. On failure the rendering and a diff image highlighting the
+	 * differing pixels are written next to the baseline (<code>.actual.png</code> and <code>.diff.png</code>).
+	 * A missing baseline fails with the rendering written next to it for review.
+	 * 
+	 * @param pBaselineFileName the file name of the baseline image, e.g. a PNG file
+	 * @param pDpi the resolution the baseline was rendered with in dots per inch
+	 * @param pTolerance the allowed difference, <code>null</code> for identical pixels
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert looksLike(final String pBaselineFileName, final float pDpi, final ImageTolerance pTolerance) {
+		isNotNull();
+		try {
+			String failure = VisualComparison.comparePage(getPdfUnderTest(), getPdfUnderTest().getPages().indexOf(actual),
+					new File(pBaselineFileName), pDpi, pTolerance, PdfAssertions.getVisualComparisonParallelism());
+			if (failure != null) {
+				failWithMessage("%s", failure);
+			}
+		} catch (IOException e) {
+			failWithMessage("Unable to compare page with baseline '%s': %s", pBaselineFileName, e.getMessage());
+		}
+		return this;
+	}
+
+	/**
+	 * Renders only the given region of the page under test and checks that it looks like the given approved
+	 * baseline image, a crop of the page rendered at the same resolution. Content outside the region is clipped
+	 * before it is rasterized, so checking e.g. a stamp or signature field is much cheaper than rendering the
+	 * whole page. Failures are reported like {@link #looksLike(String, float, ImageTolerance)}.
+	 * 
+	 * @param pBaselineFileName the file name of the baseline image, e.g. a PNG file
+	 * @param pRegion the region in points with the origin at the upper left corner of the page, like the regions
+	 *            of {@link #textInRegion(Rectangle2D)}
+	 * @param pDpi the resolution the baseline was rendered with in dots per inch
+	 * @param pTolerance the allowed difference, <code>null</code> for identical pixels
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert looksLike(final String pBaselineFileName, final Rectangle2D pRegion, final float pDpi,
+			final ImageTolerance pTolerance) {
+		isNotNull();
+		try {
+			String failure = VisualComparison.compareRegion(getPdfUnderTest(),
+					getPdfUnderTest().getPages().indexOf(actual), pRegion, new File(pBaselineFileName), pDpi,
+					pTolerance, PdfAssertions.getVisualComparisonParallelism());
+			if (failure != null) {
+				failWithMessage("%s", failure);
+			}
+		} catch (IOException e) {
+			failWithMessage("Unable to compare page region with baseline '%s': %s", pBaselineFileName, e.getMessage());
+		}
+		return this;
+	}
+
+	/**
+	 * Renders only the given region in metric or imperial units of the page under test and checks that it looks
+	 * like the given approved baseline image (see {@link #looksLike(String, Rectangle2D, float, ImageTolerance)}).
+	 * 
+	 * @param pBaselineFileName the file name of the baseline image, e.g. a PNG file
+	 * @param pRegion the region, e.g. a {@link io.github.derkrischan.pdftest.image.MetricRectangle}
+	 * @param pDpi the resolution the baseline was rendered with in dots per inch
+	 * @param pTolerance the allowed difference, <code>null</code> for identical pixels
+	 * @return this asserter instance
+	 */
+	public PdfPageAssert looksLike(final String pBaselineFileName, final AbstractRectangle pRegion, final float pDpi,
+			final ImageTolerance pTolerance) {
+		return looksLike(pBaselineFileName, pRegion.toRect2D(), pDpi, pTolerance);
+	}
+
+	/**
+	 * Checks whether an image accepted by the given matcher is found in given region at page under test.
+	 * 
+	 * @param pMatcher the matcher for the expected image
+	 * @param pRegion the region to perform checks in
+	 * @return this asserter instance
+	 */
+	private PdfPageAssert containsImageInRegion(final EmbeddedImageMatcher pMatcher, final Rectangle2D pRegion) {
+		try {
+			ImageLocationTestEngine engine = new ImageLocationTestEngine(pMatcher, pRegion, getPdfUnderTest());
 			engine.processPage(actual);
 			if (!engine.isFound()) {
 				failWithMessage("The given image could not be found in the specified area.");
@@ -223,25 +575,29 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 	}
 
 	/**
-	 * Extracts images from given PD resource. 
+	 * Searches the images of the given PD resource and its forms for an image accepted by the given matcher.
+	 * Images are decoded only if the matcher cannot reject them beforehand.
 	 * 
-	 * @param pResources the resource to extract images from
-	 * @return {@link List} of extracted images
-	 * @throws IOException in case of an error extracting the images
+	 * @param pResources the resource to search the images of
+	 * @param pMatcher the matcher for the expected image
+	 * @param pDocument the PDF document the resources belong to
+	 * @return <code>true</code> if a matching image was found, <code>false</code> otherwise
+	 * @throws IOException in case of an error reading the images
 	 */
-	private List<BufferedImage> getImagesFromResources(final PDResources pResources) throws IOException {
-		List<BufferedImage> images = new ArrayList<>();
-
+	private static boolean containsImage(final PDResources pResources, final EmbeddedImageMatcher pMatcher,
+			final PDDocument pDocument) throws IOException {
 		for (COSName xObjectName : pResources.getXObjectNames()) {
 			PDXObject xObject = pResources.getXObject(xObjectName);
 
 			if (xObject instanceof PDFormXObject) {
-				images.addAll(getImagesFromResources(((PDFormXObject) xObject).getResources()));
-			} else if (xObject instanceof PDImageXObject) {
-				images.add(((PDImageXObject) xObject).getImage());
+				if (containsImage(((PDFormXObject) xObject).getResources(), pMatcher, pDocument)) {
+					return true;
+				}
+			} else if (xObject instanceof PDImageXObject && pMatcher.matches((PDImageXObject) xObject, pDocument)) {
+				return true;
 			}
 		}
-		return images;
+		return false;
 	}
 
 	/**
@@ -252,47 +608,57 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 	 * @return <code>true</code> if the images are identical, <code>false</code> otherwise
 	 */
 	static boolean compareImages(final BufferedImage pImgA, final BufferedImage pImgB) {
-		if (pImgA.getWidth() != pImgB.getWidth() || pImgA.getHeight() != pImgB.getHeight()) {
-			return false;
-		}
-		// Loop over every pixel.
-		for (int y = 0; y < pImgA.getHeight(); y++) {
-			for (int x = 0; x < pImgA.getWidth(); x++) {
-				// Compare the pixels for equality.
-				if (pImgA.getRGB(x, y) != pImgB.getRGB(x, y)) {
-					return false;
-				}
-			}
-		}
-		return true;
+		return ImageComparator.isEqual(pImgA, pImgB);
 	}
 
 	/**
-	 * Helper class to search for an image resources in a given rectangular area.
+	 * Helper class to search for image resources in given rectangular areas. The position of every drawn image is
+	 * checked against the regions before the image is decoded, and all expected images are searched in a single
+	 * pass over the page content.
 	 * 
 	 * @author krischan
 	 *
 	 */
 	static class ImageLocationTestEngine extends PDFStreamEngine {
 
-		/** the region to inspect */
-		private Rectangle2D region;
+		/** the regions to inspect, one per expected image */
+		private final List<Rectangle2D> regions;
 		
-		/** the image to search for */
-		private BufferedImage expectedImage;
+		/** the matchers for the images to search for */
+		private final List<EmbeddedImageMatcher> matchers;
+
+		/** the PDF document the searched page belongs to */
+		private final PDDocument document;
 		
-		/** global flag indicating the search result */
-		private boolean found = false;
+		/** the search result per expected image */
+		private final boolean[] found;
+
+		/** the number of expected images found */
+		private int foundCount;
 
 		/**
-		 * Constructor for the {@link ImageLocationTestEngine}.
+		 * Constructor for the {@link ImageLocationTestEngine} searching a single image.
 		 * 
-		 * @param pExpectedImage the image to search for
+		 * @param pMatcher the matcher for the image to search for
 		 * @param pRegion the region to search in
+		 * @param pDocument the PDF document the searched page belongs to
+		 */
+		ImageLocationTestEngine(final EmbeddedImageMatcher pMatcher, final Rectangle2D pRegion, final PDDocument pDocument) {
+			this(Collections.singletonList(pMatcher), Collections.singletonList(pRegion), pDocument);
+		}
+
+		/**
+		 * Constructor for the {@link ImageLocationTestEngine} searching several images.
+		 * 
+		 * @param pMatchers the matchers for the images to search for
+		 * @param pRegions the region to search in per image
+		 * @param pDocument the PDF document the searched page belongs to
 		 */
-		ImageLocationTestEngine(final BufferedImage pExpectedImage, final Rectangle2D pRegion) {
-			expectedImage = pExpectedImage;
-			region = pRegion;
+		ImageLocationTestEngine(final List<EmbeddedImageMatcher> pMatchers, final List<Rectangle2D> pRegions, final PDDocument pDocument) {
+			matchers = pMatchers;
+			regions = pRegions;
+			document = pDocument;
+			found = new boolean[pMatchers.size()];
 			addOperator(new Concatenate(this));
 	        addOperator(new DrawObject(this));
 	        addOperator(new SetGraphicsStateParameters(this));
@@ -305,12 +671,19 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 		protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
 			String operation = operator.getName();
 			if ("Do".equals(operation)) {
+				if (foundCount == found.length) {
+					return;
+				}
 				COSName objectName = (COSName) operands.get(0);
 				PDXObject xobject = getResources().getXObject(objectName);
 				if (xobject instanceof PDImageXObject) {
 					PDImageXObject image = (PDImageXObject) xobject;
-					if (compareImages(expectedImage, image.getImage())) {
-						found = isMatrixInRegion(getGraphicsState().getCurrentTransformationMatrix());
+					Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+					for (int i = 0; i < found.length; i++) {
+						if (!found[i] && isMatrixInRegion(ctm, regions.get(i)) && matchers.get(i).matches(image, document)) {
+							found[i] = true;
+							foundCount++;
+						}
 					}
 				} else if (xobject instanceof PDFormXObject) {
 					showForm((PDFormXObject) xobject);
@@ -321,35 +694,47 @@ public class PdfPageAssert extends AbstractPdfAssert<PdfPageAssert, PDPage> {
 		}
 		
 		/**
-		 * Checks whether the given {@link Matrix} lies within the global defined region.
+		 * Checks whether the given {@link Matrix} lies within the given region.
 		 * 
 		 * @param pMatrix the extracted image matrix
-		 * @return <code>true</code> if the given pMatrix lies within global specified region, <code>false</code> otherwise
+		 * @param pRegion the region to check
+		 * @return <code>true</code> if the given pMatrix lies within the given region, <code>false</code> otherwise
 		 */
-		private boolean isMatrixInRegion(final Matrix pMatrix) {
+		private static boolean isMatrixInRegion(final Matrix pMatrix, final Rectangle2D pRegion) {
 			float x = pMatrix.getTranslateX();
 			float y = pMatrix.getTranslateY();
 			float imageWidth = pMatrix.getScalingFactorX();
             float imageHeight = pMatrix.getScalingFactorY();
-            return x >= region.getX() && x <= region.getX() + region.getWidth()
-            	&& y >= region.getY() && y <= region.getY() + region.getHeight()
-            	&& imageWidth <= region.getWidth() && x + imageWidth <= region.getX() + region.getWidth()
-            	&& imageHeight <= region.getHeight() && y + imageHeight <= region.getY() + region.getHeight();
+            return x >= pRegion.getX() && x <= pRegion.getX() + pRegion.getWidth()
+            	&& y >= pRegion.getY() && y <= pRegion.getY() + pRegion.getHeight()
+            	&& imageWidth <= pRegion.getWidth() && x + imageWidth <= pRegion.getX() + pRegion.getWidth()
+            	&& imageHeight <= pRegion.getHeight() && y + imageHeight <= pRegion.getY() + pRegion.getHeight();
 		}
 		
 		/**
 		 * Returns the search result.
-		 * @return <code>true</code> if the expected image was found, <code>false</code> otherwise
+		 * @return <code>true</code> if all expected images were found, <code>false</code> otherwise
 		 */
 		public boolean isFound() {
-			return found;
+			return foundCount == found.length;
+		}
+
+		/**
+		 * Returns the search result for a single expected image.
+		 * 
+		 * @param pIndex the index of the expected image
+		 * @return <code>true</code> if the expected image was found, <code>false</code> otherwise
+		 */
+		public boolean isFound(final int pIndex) {
+			return found[pIndex];
 		}
 		
 		/**
 		 * Resets the global search result to <code>false</code>.
 		 */
 		public void reset() {
-			found = false;
+			Arrays.fill(found, false);
+			foundCount = 0;
 		}
 	}
 }
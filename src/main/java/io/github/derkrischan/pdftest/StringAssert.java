@@ -1,10 +1,16 @@
 package io.github.derkrischan.pdftest;
 
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.assertj.core.api.AbstractCharSequenceAssert;
 
+import io.github.derkrischan.pdftest.text.PhraseSet;
+
 /**
  * Intermediate StringAssert class works as a bridge between AssertJ's {@link AbstractCharSequenceAssert} and 
  * {@link FluentPdfAsserter}.
@@ -15,8 +21,14 @@ import org.assertj.core.api.AbstractCharSequenceAssert;
  */
 public class StringAssert extends AbstractCharSequenceAssert<StringAssert, String> implements FluentPdfAsserter {
 
-	/** the PDF document under test */
-	private PDDocument pdfUnderTest;
+	/** the asserter this value has been extracted from, serves the PDF document under test */
+	private final FluentPdfAsserter origin;
+
+	/** the page number of the first page of the text under test, 0 if the text is not page text */
+	private final int firstPage;
+
+	/** the offset of every page in the text under test, empty if the text is not page text */
+	private final int[] pageOffsets;
 	
 	/**
 	 * Package private constructor for {@link StringAssert} to prevent public usage.
@@ -25,8 +37,34 @@ public class StringAssert extends AbstractCharSequenceAssert<StringAssert, Strin
 	 * @param pPdf the PDF document under test
 	 */
 	StringAssert(final String pActualString, final PDDocument pPdf) {
+		this(pActualString, () -> pPdf);
+	}
+
+	/**
+	 * Package private constructor for {@link StringAssert} keeping the asserter the value has been extracted from, so that
+	 * navigating back to the document keeps its loading state.
+	 * 
+	 * @param pActualString the string value under test
+	 * @param pOrigin the asserter the value has been extracted from
+	 */
+	StringAssert(final String pActualString, final FluentPdfAsserter pOrigin) {
+		this(pActualString, pOrigin, 0, new int[0]);
+	}
+
+	/**
+	 * Package private constructor for {@link StringAssert} on the text of a page range, so that
+	 * assertion failures can name the pages.
+	 * 
+	 * @param pActualString the text under test
+	 * @param pOrigin the asserter the text has been extracted from
+	 * @param pFirstPage the page number of the first page of the text
+	 * @param pPageOffsets the offset of every page in the text
+	 */
+	StringAssert(final String pActualString, final FluentPdfAsserter pOrigin, final int pFirstPage, final int[] pPageOffsets) {
 		super(pActualString, StringAssert.class);
-		pdfUnderTest = pPdf;
+		origin = pOrigin;
+		firstPage = pFirstPage;
+		pageOffsets = pPageOffsets;
 	}
 
 	/**
@@ -35,7 +73,7 @@ public class StringAssert extends AbstractCharSequenceAssert<StringAssert, Strin
 	 * @return the {@link StringAssert} working on a chomped instance of the string under test.
 	 */
 	public StringAssert chomp() {
-		return new StringAssert(StringUtils.chomp(actual), getPdfUnderTest());
+		return new StringAssert(StringUtils.chomp(actual), origin, firstPage, pageOffsets);
 	}
 	
 	/**
@@ -44,11 +82,116 @@ public class StringAssert extends AbstractCharSequenceAssert<StringAssert, Strin
 	 * @return the {@link StringAssert} working on a trimed instance of the string under test.
 	 */
 	public StringAssert trim() {
-		return new StringAssert(StringUtils.trim(actual), getPdfUnderTest());
+		if (actual == null) {
+			return new StringAssert(null, origin);
+		}
+		int leading = 0;
+		while (leading < actual.length() && actual.charAt(leading) <= ' ') {
+			leading++;
+		}
+		int[] trimmedOffsets = new int[pageOffsets.length];
+		for (int i = 0; i < pageOffsets.length; i++) {
+			trimmedOffsets[i] = Math.max(0, pageOffsets[i] - leading);
+		}
+		return new StringAssert(StringUtils.trim(actual), origin, firstPage, trimmedOffsets);
+	}
+
+	/**
+	 * Checks that the string under test contains all given phrases. All phrases are searched in a single
+	 * pass, see {@link PhraseSet}. The failure message lists every missing phrase.
+	 * 
+	 * @param phrases the expected phrases
+	 * @return this {@link StringAssert} for further assertions
+	 */
+	public StringAssert containsAllOf(final Collection<String> phrases) {
+		return containsAllOf(PhraseSet.compile(phrases));
+	}
+
+	/**
+	 * Checks that the string under test contains all phrases of the given compiled set. The failure message
+	 * lists every missing phrase.
+	 * 
+	 * @param phrases the expected phrases
+	 * @return this {@link StringAssert} for further assertions
+	 */
+	public StringAssert containsAllOf(final PhraseSet phrases) {
+		isNotNull();
+		int[] occurrences = phrases.findFirstOccurrences(actual);
+		List<String> missing = new ArrayList<>();
+		for (int i = 0; i < occurrences.length; i++) {
+			if (occurrences[i] < 0) {
+				missing.add("'" + phrases.getPhrases().get(i) + "'");
+			}
+		}
+		if (!missing.isEmpty()) {
+			failWithMessage("%d of %d expected phrases not found: %s", missing.size(), phrases.size(), String.join(", ", missing));
+		}
+		return this;
+	}
+
+	/**
+	 * Checks that the string under test contains none of the given phrases. All phrases are searched in a
+	 * single pass, see {@link PhraseSet}. The failure message lists every contained phrase with the page of
+	 * its first occurrence if the string under test is the text of pages.
+	 * 
+	 * @param phrases the forbidden phrases
+	 * @return this {@link StringAssert} for further assertions
+	 */
+	public StringAssert containsNoneOf(final Collection<String> phrases) {
+		return containsNoneOf(PhraseSet.compile(phrases));
+	}
+
+	/**
+	 * Checks that the string under test contains none of the phrases of the given compiled set. The failure
+	 * message lists every contained phrase with the page of its first occurrence if the string under test is
+	 * the text of pages.
+	 * 
+	 * @param phrases the forbidden phrases
+	 * @return this {@link StringAssert} for further assertions
+	 */
+	public StringAssert containsNoneOf(final PhraseSet phrases) {
+		isNotNull();
+		int[] occurrences = phrases.findFirstOccurrences(actual);
+		List<String> found = new ArrayList<>();
+		for (int i = 0; i < occurrences.length; i++) {
+			if (occurrences[i] >= 0) {
+				int page = pageAt(occurrences[i]);
+				found.add("'" + phrases.getPhrases().get(i) + "'" + (page > 0 ? " (page " + page + ")" : ""));
+			}
+		}
+		if (!found.isEmpty()) {
+			failWithMessage("%d forbidden phrases found: %s", found.size(), String.join(", ", found));
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the page number of the given offset in the string under test.
+	 * 
+	 * @param pOffset the offset in the string under test
+	 * @return the page number or 0 if the string under test is not page text
+	 */
+	private int pageAt(final int pOffset) {
+		for (int i = pageOffsets.length - 1; i >= 0; i--) {
+			if (pageOffsets[i] <= pOffset) {
+				return firstPage + i;
+			}
+		}
+		return 0;
 	}
 	
+	@Override
+	public PdfAssert document() {
+		return origin.document();
+	}
+
 	@Override
 	public PDDocument getPdfUnderTest() {
-		return pdfUnderTest;
+		return origin.getPdfUnderTest();
+	}
+
+	@Override
+	public void release() {
+		origin.release();
 	}
 }
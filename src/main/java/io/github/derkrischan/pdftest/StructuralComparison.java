@@ -0,0 +1,510 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Compares the object structure of two documents on the level of COS objects, independent of object numbers,
+ * the file layout and the compression of streams.
+ * <p>
+ * Every object subtree gets a Merkle hash: a SHA-256 hash of its type, its scalar value or the hashes of its
+ * children, dictionary entries in key order. Streams are hashed by their dictionary and their decoded content,
+ * which is read in chunks. Streams encoded with an image codec like DCTDecode are hashed by their encoded content,
+ * so images are not decoded. The comparison descends from the document catalog and the document information only
+ * into children whose hashes differ, identical subtrees are skipped after a single hash comparison. Shared
+ * objects are hashed only once per document.
+ * <p>
+ * The back links <code>/Parent</code>, <code>/P</code> of annotations and structure elements and <code>/Prev</code>
+ * of outline items are not followed since they point to objects reached anyway, and volatile entries like
+ * <code>/CreationDate</code> and <code>/ModDate</code> are ignored. Remaining reference cycles, e.g. links between
+ * pages, are hashed like in a depth first serialization: an object is hashed when it is discovered and every
+ * further reference to it within the same cycle is hashed by its discovery order. Once the first object of a cycle
+ * is hashed, the hashes of all objects of the cycle are kept, so every object is still hashed only once.
+ *
+ * @author krischan
+ *
+ */
+final class StructuralComparison {
+
+	/** keys ignored everywhere because their values change on every save */
+	private static final Set<String> VOLATILE_KEYS = new HashSet<>(Arrays.asList("CreationDate", "ModDate"));
+
+	/** type of structure elements, which have a back link to their parent element */
+	private static final COSName STRUCT_ELEM = COSName.getPDFName("StructElem");
+
+	/** filters of image codecs, streams encoded with them are hashed without decoding */
+	private static final Set<COSName> IMAGE_CODECS = new HashSet<>(Arrays.asList(COSName.DCT_DECODE,
+			COSName.DCT_DECODE_ABBREVIATION, COSName.JPX_DECODE, COSName.JBIG2_DECODE, COSName.CCITTFAX_DECODE,
+			COSName.CCITTFAX_DECODE_ABBREVIATION));
+
+	/** stream entries that describe the encoding of the content, ignored when the content is decoded */
+	private static final Set<String> ENCODING_KEYS = new HashSet<>(Arrays.asList("Length", "Filter", "DecodeParms",
+			"DL"));
+
+	/** size of the buffer used to hash stream contents */
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+	/** the keys ignored in addition to the volatile keys */
+	private final Set<String> ignoredKeys;
+
+	/** the maximum number of reported differences */
+	private final int maxDifferences;
+
+	/** hashes the objects of the document under test */
+	private final MerkleHasher actualHasher = new MerkleHasher();
+
+	/** hashes the objects of the baseline */
+	private final MerkleHasher baselineHasher = new MerkleHasher();
+
+	/** the object pairs already compared, to stop at reference cycles */
+	private final Map<COSBase, Set<COSBase>> compared = new IdentityHashMap<>();
+
+	/** the differences found so far */
+	private final List<String> differences = new ArrayList<>();
+
+	/**
+	 * Private constructor, see {@link #compare(PDDocument, PDDocument, Collection, int)}.
+	 *
+	 * @param pIgnoredKeys the keys ignored in addition to the volatile keys
+	 * @param pMaxDifferences the maximum number of reported differences
+	 */
+	private StructuralComparison(final Collection<String> pIgnoredKeys, final int pMaxDifferences) {
+		ignoredKeys = new HashSet<>(pIgnoredKeys);
+		maxDifferences = pMaxDifferences;
+	}
+
+	/**
+	 * Compares the structure of a document with a baseline document.
+	 *
+	 * @param pActual the document under test
+	 * @param pBaseline the baseline document
+	 * @param pIgnoredKeys names of dictionary keys ignored in addition to <code>/ID</code>,
+	 *            <code>/CreationDate</code> and <code>/ModDate</code>, without leading slash
+	 * @param pMaxDifferences the number of differences after which the comparison stops
+	 * @return the differences as object paths starting at the document catalog, e.g.
+	 *         <code>Pages/Kids[3]/Resources/Font/F1: expected /Helvetica but was /Courier</code>, empty if the
+	 *         documents are structurally equal
+	 * @throws IOException in case a stream cannot be read
+	 */
+	static List<String> compare(final PDDocument pActual, final PDDocument pBaseline,
+			final Collection<String> pIgnoredKeys, final int pMaxDifferences) throws IOException {
+		StructuralComparison comparison = new StructuralComparison(pIgnoredKeys, pMaxDifferences);
+		try {
+			comparison.compare("", pActual.getDocumentCatalog().getCOSObject(),
+					pBaseline.getDocumentCatalog().getCOSObject());
+			comparison.compare("Info", pActual.getDocumentInformation().getCOSObject(),
+					pBaseline.getDocumentInformation().getCOSObject());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return comparison.differences;
+	}
+
+	/**
+	 * Compares two objects and descends into their children if their hashes differ.
+	 *
+	 * @param pPath the path of the objects
+	 * @param pActual the object of the document under test, <code>null</code> if missing
+	 * @param pBaseline the object of the baseline, <code>null</code> if missing
+	 */
+	private void compare(final String pPath, final COSBase pActual, final COSBase pBaseline) {
+		COSBase actual = dereference(pActual);
+		COSBase baseline = dereference(pBaseline);
+		if (differences.size() >= maxDifferences
+				|| Arrays.equals(actualHasher.hash(actual).hash, baselineHasher.hash(baseline).hash)
+				|| !compared.computeIfAbsent(actual, key -> new HashSet<>()).add(baseline)) {
+			return;
+		}
+		if (actual instanceof COSStream && baseline instanceof COSStream) {
+			compareEntries(pPath, (COSDictionary) actual, (COSDictionary) baseline,
+					!actualHasher.isDecoded((COSStream) actual) || !baselineHasher.isDecoded((COSStream) baseline));
+			if (!Arrays.equals(actualHasher.contentHash((COSStream) actual),
+					baselineHasher.contentHash((COSStream) baseline))) {
+				report(pPath, "stream content differs");
+			}
+		} else if (actual instanceof COSDictionary && baseline instanceof COSDictionary
+				&& !(actual instanceof COSStream) && !(baseline instanceof COSStream)) {
+			compareEntries(pPath, (COSDictionary) actual, (COSDictionary) baseline, true);
+		} else if (actual instanceof COSArray && baseline instanceof COSArray) {
+			COSArray actualArray = (COSArray) actual;
+			COSArray baselineArray = (COSArray) baseline;
+			if (actualArray.size() != baselineArray.size()) {
+				report(pPath, String.format("expected %d elements but was %d", baselineArray.size(), actualArray.size()));
+			}
+			for (int i = 0; i < Math.min(actualArray.size(), baselineArray.size()); i++) {
+				compare(pPath + '[' + i + ']', actualArray.get(i), baselineArray.get(i));
+			}
+		} else {
+			report(pPath, String.format("expected %s but was %s", describe(baseline), describe(actual)));
+		}
+	}
+
+	/**
+	 * Compares the entries of two dictionaries.
+	 *
+	 * @param pPath the path of the dictionaries
+	 * @param pActual the dictionary of the document under test
+	 * @param pBaseline the dictionary of the baseline
+	 * @param pWithEncoding whether entries describing the encoding of a stream are compared
+	 */
+	private void compareEntries(final String pPath, final COSDictionary pActual, final COSDictionary pBaseline,
+			final boolean pWithEncoding) {
+		Set<String> keys = new TreeSet<>();
+		for (COSName key : pActual.keySet()) {
+			keys.add(key.getName());
+		}
+		for (COSName key : pBaseline.keySet()) {
+			keys.add(key.getName());
+		}
+		for (String key : keys) {
+			if (isCompared(pActual, key, pWithEncoding) && isCompared(pBaseline, key, pWithEncoding)) {
+				COSName name = COSName.getPDFName(key);
+				compare(pPath.isEmpty() ? key : pPath + '/' + key, pActual.getItem(name), pBaseline.getItem(name));
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the entry with the given key of the given dictionary is compared.
+	 *
+	 * @param pDictionary the dictionary
+	 * @param pKey the dictionary key
+	 * @param pWithEncoding whether entries describing the encoding of a stream are compared
+	 * @return <code>true</code> if the entry is compared
+	 */
+	private boolean isCompared(final COSDictionary pDictionary, final String pKey, final boolean pWithEncoding) {
+		return !VOLATILE_KEYS.contains(pKey) && !isBackLink(pDictionary, pKey) && !ignoredKeys.contains(pKey)
+				&& (pWithEncoding || !ENCODING_KEYS.contains(pKey));
+	}
+
+	/**
+	 * Checks whether the entry with the given key points back to an object that is reached via other entries:
+	 * <code>/Parent</code> everywhere, <code>/P</code> of annotations and structure elements and <code>/Prev</code>
+	 * of outline items. Entries with the same keys in other dictionaries, e.g. the <code>/P</code> prefix of page
+	 * labels, are compared.
+	 *
+	 * @param pDictionary the dictionary
+	 * @param pKey the dictionary key
+	 * @return <code>true</code> if the entry is a back link
+	 */
+	private static boolean isBackLink(final COSDictionary pDictionary, final String pKey) {
+		switch (pKey) {
+		case "Parent":
+			return true;
+		case "P":
+			return isAnnotation(pDictionary) || isStructureElement(pDictionary);
+		case "Prev":
+			// outline items are the only dictionaries with a title and a parent
+			return pDictionary.containsKey(COSName.TITLE) && pDictionary.containsKey(COSName.PARENT);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether the given dictionary is an annotation, which may omit its <code>/Type</code>.
+	 *
+	 * @param pDictionary the dictionary
+	 * @return <code>true</code> for an annotation
+	 */
+	private static boolean isAnnotation(final COSDictionary pDictionary) {
+		return COSName.ANNOT.equals(pDictionary.getCOSName(COSName.TYPE))
+				|| pDictionary.containsKey(COSName.SUBTYPE) && pDictionary.containsKey(COSName.RECT);
+	}
+
+	/**
+	 * Checks whether the given dictionary is a structure element, which may omit its <code>/Type</code> but has a
+	 * structure type and a parent dictionary.
+	 *
+	 * @param pDictionary the dictionary
+	 * @return <code>true</code> for a structure element
+	 */
+	private static boolean isStructureElement(final COSDictionary pDictionary) {
+		COSName type = pDictionary.getCOSName(COSName.TYPE);
+		return STRUCT_ELEM.equals(type) || type == null && pDictionary.getCOSName(COSName.S) != null
+				&& pDictionary.getDictionaryObject(COSName.P) instanceof COSDictionary;
+	}
+
+	/**
+	 * Records a difference.
+	 *
+	 * @param pPath the path of the differing objects
+	 * @param pDescription the description of the difference
+	 */
+	private void report(final String pPath, final String pDescription) {
+		differences.add((pPath.isEmpty() ? "Root" : pPath) + ": " + pDescription);
+	}
+
+	/**
+	 * Describes an object for a difference report.
+	 *
+	 * @param pObject the object, <code>null</code> if missing
+	 * @return the description
+	 */
+	private static String describe(final COSBase pObject) {
+		if (pObject == null || pObject instanceof COSNull) {
+			return "nothing";
+		} else if (pObject instanceof COSString) {
+			return "'" + ((COSString) pObject).getString() + "'";
+		} else if (pObject instanceof COSName) {
+			return "/" + ((COSName) pObject).getName();
+		} else if (pObject instanceof COSInteger) {
+			return String.valueOf(((COSInteger) pObject).longValue());
+		} else if (pObject instanceof COSFloat) {
+			return String.valueOf(((COSFloat) pObject).floatValue());
+		} else if (pObject instanceof COSBoolean) {
+			return String.valueOf(((COSBoolean) pObject).getValue());
+		} else if (pObject instanceof COSStream) {
+			return "a stream";
+		} else if (pObject instanceof COSDictionary) {
+			return "a dictionary";
+		} else if (pObject instanceof COSArray) {
+			return "an array";
+		}
+		return pObject.getClass().getSimpleName();
+	}
+
+	/**
+	 * Resolves indirect references.
+	 *
+	 * @param pObject the object or reference, may be <code>null</code>
+	 * @return the referenced object, <code>null</code> for <code>null</code> or a dangling reference
+	 */
+	private static COSBase dereference(final COSBase pObject) {
+		COSBase object = pObject instanceof COSObject ? ((COSObject) pObject).getObject() : pObject;
+		return object instanceof COSNull ? null : object;
+	}
+
+	/**
+	 * The Merkle hash of an object subtree.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class Node {
+
+		/** the hash */
+		private final byte[] hash;
+
+		/** the lowest discovery number of an unfinished object referenced by the subtree, MAX_VALUE if none */
+		private final int lowestBackReference;
+
+		/**
+		 * Constructor for {@link Node}.
+		 *
+		 * @param pHash the hash
+		 * @param pLowestBackReference the lowest discovery number of an unfinished object referenced by the subtree
+		 */
+		Node(final byte[] pHash, final int pLowestBackReference) {
+			hash = pHash;
+			lowestBackReference = pLowestBackReference;
+		}
+	}
+
+	/**
+	 * Computes the Merkle hashes of the objects of a single document.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private final class MerkleHasher {
+
+		/** the final hashes of all finished objects, by object */
+		private final Map<COSBase, Node> hashes = new IdentityHashMap<>();
+
+		/** the hashes of the decoded or encoded stream contents, by stream */
+		private final Map<COSStream, byte[]> contentHashes = new IdentityHashMap<>();
+
+		/** the discovery numbers of the unfinished objects, which are on the current path or in an unfinished cycle */
+		private final Map<COSBase, Integer> discovered = new IdentityHashMap<>();
+
+		/** the unfinished objects in the order of their discovery */
+		private final List<COSBase> unfinished = new ArrayList<>();
+
+		/** the number of objects discovered so far, used as discovery number of the next one */
+		private int discoveries;
+
+		/**
+		 * Returns the hash of the subtree of the given object.
+		 *
+		 * @param pObject the dereferenced object, <code>null</code> if missing
+		 * @return the hash
+		 */
+		Node hash(final COSBase pObject) {
+			if (!(pObject instanceof COSDictionary || pObject instanceof COSArray)) {
+				return new Node(hashScalar(pObject), Integer.MAX_VALUE);
+			}
+			Node known = hashes.get(pObject);
+			if (known != null) {
+				return known;
+			}
+			Integer referenced = discovered.get(pObject);
+			if (referenced != null) {
+				MessageDigest digest = PdfDocumentCache.newDigest();
+				digest.update((byte) 'c');
+				digest.update(Integer.toString(discoveries - referenced).getBytes(StandardCharsets.US_ASCII));
+				return new Node(digest.digest(), referenced);
+			}
+			int number = discoveries++;
+			discovered.put(pObject, number);
+			unfinished.add(pObject);
+			MessageDigest digest = PdfDocumentCache.newDigest();
+			int lowest = Integer.MAX_VALUE;
+			if (pObject instanceof COSArray) {
+				digest.update((byte) 'a');
+				for (COSBase element : (COSArray) pObject) {
+					lowest = Math.min(lowest, update(digest, hash(dereference(element))));
+				}
+			} else {
+				boolean stream = pObject instanceof COSStream;
+				boolean decoded = stream && isDecoded((COSStream) pObject);
+				digest.update((byte) (stream ? 's' : 'd'));
+				for (COSName key : new TreeSet<>(((COSDictionary) pObject).keySet())) {
+					if (isCompared((COSDictionary) pObject, key.getName(), !decoded)) {
+						digest.update(key.getName().getBytes(StandardCharsets.UTF_8));
+						digest.update((byte) 0);
+						lowest = Math.min(lowest, update(digest,
+								hash(dereference(((COSDictionary) pObject).getItem(key)))));
+					}
+				}
+				if (stream) {
+					digest.update(contentHash((COSStream) pObject));
+				}
+			}
+			Node node = new Node(digest.digest(), lowest < number ? lowest : Integer.MAX_VALUE);
+			if (node.lowestBackReference == Integer.MAX_VALUE) {
+				// the object is the first of its cycle, if any, so the hash does not depend on the path
+				finish(node.hash, number);
+			}
+			return node;
+		}
+
+		/**
+		 * Keeps the hash of the first object of a cycle and derives the hashes of the other objects of the cycle
+		 * from it and their discovery order, so they are not hashed again when they are reached on another path.
+		 *
+		 * @param pHash the hash of the first object of the cycle
+		 * @param pNumber the discovery number of the first object of the cycle
+		 */
+		private void finish(final byte[] pHash, final int pNumber) {
+			for (int i = unfinished.size() - 1; i >= 0; i--) {
+				COSBase object = unfinished.get(i);
+				int number = discovered.remove(object);
+				if (number == pNumber) {
+					hashes.put(object, new Node(pHash, Integer.MAX_VALUE));
+					unfinished.remove(i);
+					return;
+				}
+				MessageDigest digest = PdfDocumentCache.newDigest();
+				digest.update((byte) 'i');
+				digest.update(pHash);
+				digest.update(Integer.toString(number - pNumber).getBytes(StandardCharsets.US_ASCII));
+				hashes.put(object, new Node(digest.digest(), Integer.MAX_VALUE));
+				unfinished.remove(i);
+			}
+		}
+
+		/**
+		 * Adds the hash of a child to the given digest.
+		 *
+		 * @param pDigest the digest of the parent
+		 * @param pChild the hash of the child
+		 * @return the lowest position referenced by a cycle in the child
+		 */
+		private int update(final MessageDigest pDigest, final Node pChild) {
+			pDigest.update(pChild.hash);
+			return pChild.lowestBackReference;
+		}
+
+		/**
+		 * Returns the hash of the content of the given stream, decoded unless encoded with an image codec.
+		 *
+		 * @param pStream the stream
+		 * @return the content hash
+		 */
+		byte[] contentHash(final COSStream pStream) {
+			return contentHashes.computeIfAbsent(pStream, stream -> {
+				MessageDigest digest = PdfDocumentCache.newDigest();
+				byte[] buffer = new byte[HASH_BUFFER_SIZE];
+				try (InputStream content = isDecoded(stream) ? stream.createInputStream() : stream.createRawInputStream()) {
+					int read;
+					while ((read = content.read(buffer)) > 0) {
+						digest.update(buffer, 0, read);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return digest.digest();
+			});
+		}
+
+		/**
+		 * Checks whether the content of the given stream is hashed decoded.
+		 *
+		 * @param pStream the stream
+		 * @return <code>false</code> if the stream is encoded with an image codec
+		 */
+		boolean isDecoded(final COSStream pStream) {
+			COSBase filters = pStream.getDictionaryObject(COSName.FILTER);
+			if (filters instanceof COSName) {
+				return !IMAGE_CODECS.contains(filters);
+			} else if (filters instanceof COSArray) {
+				for (COSBase filter : (COSArray) filters) {
+					if (IMAGE_CODECS.contains(dereference(filter))) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Hashes a scalar object.
+		 *
+		 * @param pObject the object, <code>null</code> if missing
+		 * @return the hash
+		 */
+		private byte[] hashScalar(final COSBase pObject) {
+			MessageDigest digest = PdfDocumentCache.newDigest();
+			if (pObject == null) {
+				digest.update((byte) 'n');
+			} else if (pObject instanceof COSString) {
+				digest.update((byte) 't');
+				digest.update(((COSString) pObject).getBytes());
+			} else if (pObject instanceof COSName) {
+				digest.update((byte) '/');
+				digest.update(((COSName) pObject).getName().getBytes(StandardCharsets.UTF_8));
+			} else {
+				// numbers and booleans
+				digest.update(pObject.getClass().getSimpleName().getBytes(StandardCharsets.US_ASCII));
+				digest.update(describe(pObject).getBytes(StandardCharsets.US_ASCII));
+			}
+			return digest.digest();
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package io.github.derkrischan.pdftest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Compares the text of two documents page by page. The pages are extracted in chunks while comparing, the next
+ * chunks of both documents concurrently, each document on {@link PdfAssertions#getTextExtractionParallelism()}
+ * threads, and cached like for all other text assertions (see {@link PageTextCache}). Pages are aligned by their
+ * text: a page whose text occurs within the next pages of the other document marks pages that were inserted or
+ * removed in between, all other differing pages are paired and compared line by line. The comparison stops after
+ * a maximum number of differences and pages after the last compared chunk are not extracted at all.
+ *
+ * @author krischan
+ *
+ */
+final class TextComparison {
+
+	/** the maximum product of the line counts of two pages compared line by line, larger pages differ as a whole */
+	private static final long MAX_LINE_DIFF_CELLS = 4_000_000;
+
+	/** the number of pages extracted at once per document */
+	private static final int CHUNK_PAGES = 32;
+
+	/**
+	 * the number of pages searched for the text of a differing page in the other document, larger blocks of
+	 * inserted or removed pages are partly paired and compared line by line
+	 */
+	private static final int ALIGNMENT_WINDOW = 32;
+
+	/** the pages of the document under test */
+	private final Pages actualPages;
+
+	/** the pages of the expected document */
+	private final Pages expectedPages;
+
+	/** the name of the expected document for the difference report */
+	private final String expectedName;
+
+	/** the maximum number of reported differences */
+	private final int maxDifferences;
+
+	/** extracts the next chunks of both documents concurrently */
+	private final ForkJoinPool pool;
+
+	/** the differences found so far */
+	private final List<String> differences = new ArrayList<>();
+
+	/**
+	 * Private constructor, see {@link #compare(PDDocument, PDDocument, String, int)}.
+	 *
+	 * @param pActual the document under test
+	 * @param pExpected the expected document
+	 * @param pExpectedName the name of the expected document
+	 * @param pMaxDifferences the maximum number of reported differences
+	 * @param pPool the pool extracting the chunks of both documents
+	 */
+	private TextComparison(final PDDocument pActual, final PDDocument pExpected, final String pExpectedName,
+			final int pMaxDifferences, final ForkJoinPool pPool) {
+		actualPages = new Pages(pActual);
+		expectedPages = new Pages(pExpected);
+		expectedName = pExpectedName;
+		maxDifferences = pMaxDifferences;
+		pool = pPool;
+	}
+
+	/**
+	 * Compares the text of a document with the text of an expected document.
+	 *
+	 * @param pActual the document under test
+	 * @param pExpected the expected document
+	 * @param pExpectedName the name of the expected document for the difference report
+	 * @param pMaxDifferences the number of differences after which the comparison and the text extraction stop,
+	 *            every missing or unexpected page and every differing line counts as one difference
+	 * @return the differences, empty if both documents have the same text
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	static List<String> compare(final PDDocument pActual, final PDDocument pExpected, final String pExpectedName,
+			final int pMaxDifferences) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			TextComparison comparison = new TextComparison(pActual, pExpected, pExpectedName, pMaxDifferences, pool);
+			comparison.comparePages();
+			return comparison.differences;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Aligns the pages of both documents and compares the differing pages.
+	 *
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private void comparePages() throws IOException {
+		int actual = 0;
+		int expected = 0;
+		while (!isStopped() && (actual < actualPages.count || expected < expectedPages.count)) {
+			extract(actual + 1, expected + 1);
+			if (actual == actualPages.count) {
+				report(String.format("Page %d of %s is missing", expected + 1, expectedName));
+				expected++;
+			} else if (expected == expectedPages.count) {
+				report(String.format("Page %d is not in %s", actual + 1, expectedName));
+				actual++;
+			} else if (actualPages.get(actual).equals(expectedPages.get(expected))) {
+				actual++;
+				expected++;
+			} else {
+				// pages between the current ones and the next occurrence of one of them in the other document
+				extract(actual + ALIGNMENT_WINDOW, expected + ALIGNMENT_WINDOW);
+				long removed = (long) nextOccurrence(expectedPages, actualPages.get(actual), expected) - expected;
+				long inserted = (long) nextOccurrence(actualPages, expectedPages.get(expected), actual) - actual;
+				if (removed < ALIGNMENT_WINDOW && removed <= inserted) {
+					for (int i = 0; i < removed && !isStopped(); i++) {
+						report(String.format("Page %d of %s is missing", expected + i + 1, expectedName));
+					}
+					expected += removed;
+				} else if (inserted < ALIGNMENT_WINDOW) {
+					for (int i = 0; i < inserted && !isStopped(); i++) {
+						report(String.format("Page %d is not in %s", actual + i + 1, expectedName));
+					}
+					actual += inserted;
+				} else {
+					compareLines(actual++, expected++);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes sure that at least the given numbers of pages of both documents are extracted. Documents that need
+	 * more pages get their next chunk, both documents concurrently.
+	 *
+	 * @param pActualPages the number of pages of the document under test needed
+	 * @param pExpectedPages the number of pages of the expected document needed
+	 * @throws IOException in case the text cannot be extracted
+	 */
+	private void extract(final int pActualPages, final int pExpectedPages) throws IOException {
+		boolean actual = actualPages.needs(pActualPages);
+		boolean expected = expectedPages.needs(pExpectedPages);
+		if (!actual || !expected) {
+			if (actual) {
+				actualPages.extend(pActualPages);
+			} else if (expected) {
+				expectedPages.extend(pExpectedPages);
+			}
+			return;
+		}
+		List<Callable<Void>> extractions = Arrays.asList(() -> {
+			actualPages.extend(pActualPages);
+			return null;
+		}, () -> {
+			expectedPages.extend(pExpectedPages);
+			return null;
+		});
+		try {
+			for (Future<Void> extraction : pool.invokeAll(extractions)) {
+				extraction.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Text extraction interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Compares the lines of two differing pages.
+	 *
+	 * @param pActualIndex the index of the page of the document under test
+	 * @param pExpectedIndex the index of the page of the expected document
+	 */
+	private void compareLines(final int pActualIndex, final int pExpectedIndex) {
+		String[] actual = actualPages.get(pActualIndex).split("\\r?\\n");
+		String[] expected = expectedPages.get(pExpectedIndex).split("\\r?\\n");
+		String page = String.format("Page %d (page %d of %s)", pActualIndex + 1, pExpectedIndex + 1, expectedName);
+		if ((long) actual.length * expected.length > MAX_LINE_DIFF_CELLS) {
+			report(page + ": text differs");
+			return;
+		}
+		// longest common subsequence of the lines from the end of both pages
+		int[][] common = new int[actual.length + 1][expected.length + 1];
+		for (int a = actual.length - 1; a >= 0; a--) {
+			for (int e = expected.length - 1; e >= 0; e--) {
+				common[a][e] = actual[a].equals(expected[e]) ? common[a + 1][e + 1] + 1
+						: Math.max(common[a + 1][e], common[a][e + 1]);
+			}
+		}
+		int a = 0;
+		int e = 0;
+		while (!isStopped() && (a < actual.length || e < expected.length)) {
+			if (a < actual.length && e < expected.length && actual[a].equals(expected[e])) {
+				a++;
+				e++;
+			} else if (e < expected.length && (a == actual.length || common[a][e + 1] >= common[a + 1][e])) {
+				report(String.format("%s, line %d: missing '%s'", page, e + 1, expected[e]));
+				e++;
+			} else {
+				report(String.format("%s, line %d: unexpected '%s'", page, a + 1, actual[a]));
+				a++;
+			}
+		}
+	}
+
+	/**
+	 * Records a difference.
+	 *
+	 * @param pDifference the description of the difference
+	 */
+	private void report(final String pDifference) {
+		differences.add(pDifference);
+	}
+
+	/**
+	 * Checks whether the maximum number of differences is reached.
+	 *
+	 * @return <code>true</code> if the comparison stops
+	 */
+	private boolean isStopped() {
+		return differences.size() >= maxDifferences;
+	}
+
+	/**
+	 * Finds the next page with the given text within the alignment window.
+	 *
+	 * @param pPages the pages of a document
+	 * @param pText the page text to find
+	 * @param pFrom the first page index to consider
+	 * @return the index of the next page with the text or {@link Integer#MAX_VALUE} if there is none within the
+	 *         window
+	 */
+	private static int nextOccurrence(final Pages pPages, final String pText, final int pFrom) {
+		int end = Math.min(pFrom + ALIGNMENT_WINDOW, pPages.texts.size());
+		for (int i = pFrom; i < end; i++) {
+			if (pPages.get(i).equals(pText)) {
+				return i;
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * The pages of a document extracted so far.
+	 */
+	private static final class Pages {
+
+		/** the document */
+		private final PDDocument document;
+
+		/** the number of pages of the document */
+		private final int count;
+
+		/** the texts of the pages extracted so far, index 0 for page 1 */
+		private final List<String> texts = new ArrayList<>();
+
+		/**
+		 * Constructor for {@link Pages}.
+		 *
+		 * @param pDocument the document
+		 */
+		private Pages(final PDDocument pDocument) {
+			document = pDocument;
+			count = pDocument.getNumberOfPages();
+		}
+
+		/**
+		 * Checks whether more pages must be extracted.
+		 *
+		 * @param pPages the number of pages needed
+		 * @return <code>true</code> if fewer pages are extracted and the document has more pages
+		 */
+		private boolean needs(final int pPages) {
+			return texts.size() < Math.min(pPages, count);
+		}
+
+		/**
+		 * Extracts the next chunk of pages, at least up to the given number of pages.
+		 *
+		 * @param pPages the number of pages needed
+		 * @throws IOException in case the text cannot be extracted
+		 */
+		private void extend(final int pPages) throws IOException {
+			int last = Math.min(count, Math.max(pPages, texts.size() + CHUNK_PAGES));
+			texts.addAll(Arrays.asList(PageTextCache.forDocument(document).getPageTexts(document, texts.size() + 1,
+					last)));
+		}
+
+		/**
+		 * Returns the text of an extracted page.
+		 *
+		 * @param pIndex the page index, 0 for page 1
+		 * @return the text of the page
+		 */
+		private String get(final int pIndex) {
+			return texts.get(pIndex);
+		}
+	}
+}
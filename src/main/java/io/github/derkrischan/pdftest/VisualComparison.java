@@ -0,0 +1,246 @@
+package io.github.derkrischan.pdftest;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import io.github.derkrischan.pdftest.image.ImageDiff;
+import io.github.derkrischan.pdftest.image.ImageTolerance;
+
+/**
+ * Compares rendered pages with approved baseline images. On failure the rendering and a diff image (see
+ * {@link ImageDiff#createDiffImage()}) are written next to the baseline with the suffixes <code>.actual.png</code>
+ * and <code>.diff.png</code>, a missing baseline is reported with the rendering written next to it, so it can be
+ * reviewed and approved.
+ * <p>
+ * Whole documents are rendered on several threads, every thread works on its own copy of the document since
+ * {@link PDDocument} is not thread safe. The tiles of a single page are compared in parallel only if the pages
+ * are rendered sequentially.
+ *
+ * @author krischan
+ *
+ */
+final class VisualComparison {
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private VisualComparison() {
+		// NOP
+	}
+
+	/**
+	 * Renders a page and compares it with its baseline. If fingerprints are enabled (see
+	 * {@link PdfAssertions#setPageFingerprintThreshold(int)}) the fingerprint of the page is compared with the one
+	 * stored next to the baseline first, the page is rendered at full resolution only if it differs or the stored
+	 * fingerprint was taken by a comparison at another resolution or with a more lenient tolerance. The fingerprint
+	 * is stored after the page passed the full comparison.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pBaseline the baseline image file
+	 * @param pDpi the resolution the baseline was rendered with
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @param pParallelism the number of threads comparing tiles
+	 * @return the failure description or <code>null</code> if the page looks like the baseline
+	 * @throws IOException in case the page cannot be rendered or an image cannot be read or written
+	 */
+	static String comparePage(final PDDocument pDocument, final int pPageIndex, final File pBaseline, final float pDpi,
+			final ImageTolerance pTolerance, final int pParallelism) throws IOException {
+		int fingerprintThreshold = PdfAssertions.getPageFingerprintThreshold();
+		PageFingerprint fingerprint = null;
+		File fingerprintFile = sibling(pBaseline, "phash");
+		if (fingerprintThreshold >= 0 && pBaseline.isFile()) {
+			fingerprint = PageFingerprint.of(pDocument, pPageIndex, pBaseline, pDpi, pTolerance);
+			if (fingerprint.matches(fingerprintFile, fingerprintThreshold)) {
+				return null;
+			}
+		}
+		BufferedImage rendered = PageRenderer.render(pDocument, pPageIndex, pDpi);
+		String failure = compare(rendered, pBaseline, "Page " + (pPageIndex + 1), pTolerance, pParallelism);
+		if (failure == null && fingerprint != null) {
+			fingerprint.write(fingerprintFile);
+		}
+		return failure;
+	}
+
+	/**
+	 * Renders a region of a page and compares it with its baseline, a crop of the page rendered at the same
+	 * resolution.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pPageIndex the index of the page (starting at 0)
+	 * @param pRegion the region in points with the origin at the upper left corner of the rendered page
+	 * @param pBaseline the baseline image file
+	 * @param pDpi the resolution the baseline was rendered with
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @param pParallelism the number of threads comparing tiles
+	 * @return the failure description or <code>null</code> if the region looks like the baseline
+	 * @throws IOException in case the region cannot be rendered or an image cannot be read or written
+	 */
+	static String compareRegion(final PDDocument pDocument, final int pPageIndex, final Rectangle2D pRegion,
+			final File pBaseline, final float pDpi, final ImageTolerance pTolerance, final int pParallelism)
+			throws IOException {
+		BufferedImage rendered = PageRenderer.renderRegion(pDocument, pPageIndex, pRegion, pDpi);
+		String subject = String.format(Locale.ROOT, "Region [x=%.1f, y=%.1f, width=%.1f, height=%.1f] of page %d",
+				pRegion.getX(), pRegion.getY(), pRegion.getWidth(), pRegion.getHeight(), pPageIndex + 1);
+		return compare(rendered, pBaseline, subject, pTolerance, pParallelism);
+	}
+
+	/**
+	 * Renders all pages of a document and compares them with their baselines.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pBaselinePattern the file name pattern of the baselines with the page number (starting at 1) as
+	 *            format argument, e.g. <code>baselines/invoice-%d.png</code>
+	 * @param pDpi the resolution the baselines were rendered with
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @return the failure descriptions in page order, empty if all pages look like their baselines
+	 * @throws IOException in case a page cannot be rendered or an image cannot be read or written
+	 */
+	static List<String> compareDocument(final PDDocument pDocument, final String pBaselinePattern, final float pDpi,
+			final ImageTolerance pTolerance) throws IOException {
+		int pageCount = pDocument.getNumberOfPages();
+		int parallelism = Math.min(PdfAssertions.getVisualComparisonParallelism(), pageCount);
+		if (parallelism <= 1 || !PdfLoader.canReopen(pDocument)) {
+			return comparePages(pDocument, 0, pageCount, pBaselinePattern, pDpi, pTolerance,
+					PdfAssertions.getVisualComparisonParallelism());
+		}
+		List<Callable<List<String>>> chunks = new ArrayList<>(parallelism);
+		for (int chunk = 0; chunk < parallelism; chunk++) {
+			int first = (int) ((long) pageCount * chunk / parallelism);
+			int end = (int) ((long) pageCount * (chunk + 1) / parallelism);
+			chunks.add(() -> {
+				try (PDDocument copy = PdfLoader.reopen(pDocument)) {
+					return comparePages(copy, first, end, pBaselinePattern, pDpi, pTolerance, 1);
+				}
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<String> failures = new ArrayList<>();
+			for (Future<List<String>> chunk : pool.invokeAll(chunks)) {
+				failures.addAll(chunk.get());
+			}
+			return failures;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Visual comparison interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Renders a range of pages and compares them with their baselines.
+	 *
+	 * @param pDocument the PDF document
+	 * @param pFirstIndex the index of the first page (inclusive)
+	 * @param pEndIndex the index after the last page (exclusive)
+	 * @param pBaselinePattern the file name pattern of the baselines
+	 * @param pDpi the resolution the baselines were rendered with
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @param pParallelism the number of threads comparing tiles
+	 * @return the failure descriptions in page order
+	 * @throws IOException in case a page cannot be rendered or an image cannot be read or written
+	 */
+	private static List<String> comparePages(final PDDocument pDocument, final int pFirstIndex, final int pEndIndex,
+			final String pBaselinePattern, final float pDpi, final ImageTolerance pTolerance, final int pParallelism)
+			throws IOException {
+		List<String> failures = new ArrayList<>();
+		for (int index = pFirstIndex; index < pEndIndex; index++) {
+			File baseline = new File(String.format(Locale.ROOT, pBaselinePattern, index + 1));
+			String failure = comparePage(pDocument, index, baseline, pDpi, pTolerance, pParallelism);
+			if (failure != null) {
+				failures.add(failure);
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Compares a rendering with its baseline.
+	 *
+	 * @param pRendered the rendering
+	 * @param pBaseline the baseline image file
+	 * @param pSubject the name of the rendered content for the failure description, e.g. the page
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @param pParallelism the number of threads comparing tiles
+	 * @return the failure description or <code>null</code> if the rendering looks like the baseline
+	 * @throws IOException in case an image cannot be read or written
+	 */
+	static String compare(final BufferedImage pRendered, final File pBaseline, final String pSubject,
+			final ImageTolerance pTolerance, final int pParallelism) throws IOException {
+		if (!pBaseline.isFile()) {
+			return String.format("%s: baseline %s not found, rendering written to %s", pSubject, pBaseline,
+					write(pRendered, pBaseline, "actual"));
+		}
+		BufferedImage expected = ImageIO.read(pBaseline);
+		if (expected == null) {
+			throw new IOException("Unsupported image format: " + pBaseline);
+		}
+		ImageDiff diff = ImageDiff.compare(expected, pRendered, pTolerance, pParallelism);
+		if (diff.isSimilar()) {
+			return null;
+		}
+		write(pRendered, pBaseline, "actual");
+		File diffFile = write(diff.createDiffImage(), pBaseline, "diff");
+		if (expected.getWidth() != pRendered.getWidth() || expected.getHeight() != pRendered.getHeight()) {
+			return String.format("%s: rendered size %dx%d differs from size %dx%d of baseline %s, diff written to %s",
+					pSubject, pRendered.getWidth(), pRendered.getHeight(), expected.getWidth(), expected.getHeight(),
+					pBaseline, diffFile);
+		}
+		return String.format("%s does not look like baseline %s (%s), diff written to %s", pSubject, pBaseline,
+				pTolerance == null ? "identical pixels" : pTolerance, diffFile);
+	}
+
+	/**
+	 * Writes an image next to the given baseline.
+	 *
+	 * @param pImage the image to write
+	 * @param pBaseline the baseline image file
+	 * @param pSuffix the suffix inserted before the file extension
+	 * @return the written file
+	 * @throws IOException in case the image cannot be written
+	 */
+	private static File write(final BufferedImage pImage, final File pBaseline, final String pSuffix) throws IOException {
+		File file = sibling(pBaseline, pSuffix + ".png");
+		if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+			throw new IOException("Unable to create folder " + file.getParentFile());
+		}
+		ImageIO.write(pImage, "png", file);
+		return file;
+	}
+
+	/**
+	 * Returns the file next to the given baseline with the given extension instead of the baseline's extension.
+	 *
+	 * @param pBaseline the baseline image file
+	 * @param pExtension the extension, e.g. <code>diff.png</code>
+	 * @return the file next to the baseline
+	 */
+	private static File sibling(final File pBaseline, final String pExtension) {
+		String name = pBaseline.getName();
+		int extension = name.lastIndexOf('.');
+		String baseName = extension > 0 ? name.substring(0, extension) : name;
+		return new File(pBaseline.getAbsoluteFile().getParentFile(), baseName + "." + pExtension);
+	}
+}
@@ -1,5 +1,7 @@
 package io.github.derkrischan.pdftest.image;
 
+import java.awt.geom.Rectangle2D;
+
 /**
  * An abstract rectangle without specific metrics used to define
  * a lower left point at (x,y) with given width and height.
@@ -52,4 +54,11 @@ public abstract class AbstractRectangle {
 	public double getHeight() {
 		return height;
 	}
+
+	/**
+	 * Returns a Java {@link Rectangle2D} transformed from the used metric to points.
+	 * 
+	 * @return the corresponding {@link Rectangle2D} with points
+	 */
+	public abstract Rectangle2D toRect2D();
 }
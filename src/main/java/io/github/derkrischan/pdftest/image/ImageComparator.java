@@ -0,0 +1,286 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Compares images pixel wise on whole rows instead of single pixels. Both images are read row by row as non
+ * premultiplied sRGB ARGB values, the same values {@link BufferedImage#getRGB(int, int)} returns, so images of
+ * different types are compared correctly. For the common int and byte interleaved image types the rows are
+ * copied straight from the backing data arrays without any color model conversion, other types are converted
+ * once per row. The comparison stops at the first differing row.
+ *
+ * @author krischan
+ *
+ */
+public final class ImageComparator {
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private ImageComparator() {
+		// NOP
+	}
+
+	/**
+	 * Checks whether the given images have the same size and identical pixels.
+	 *
+	 * @param pImgA first image for comparison
+	 * @param pImgB second image for comparison
+	 * @return <code>true</code> if the images are identical, <code>false</code> otherwise
+	 */
+	public static boolean isEqual(final BufferedImage pImgA, final BufferedImage pImgB) {
+		if (pImgA.getWidth() != pImgB.getWidth() || pImgA.getHeight() != pImgB.getHeight()) {
+			return false;
+		}
+		RowReader readerA = new RowReader(pImgA);
+		RowReader readerB = new RowReader(pImgB);
+		int[] rowA = new int[pImgA.getWidth()];
+		int[] rowB = new int[pImgB.getWidth()];
+		for (int y = 0; y < pImgA.getHeight(); y++) {
+			readerA.read(y, rowA);
+			readerB.read(y, rowB);
+			if (!Arrays.equals(rowA, rowB)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes a SHA-256 digest of the size and the pixels of the given image. Two images have the same digest
+	 * if they are equal according to {@link #isEqual(BufferedImage, BufferedImage)}, independent of their image
+	 * types.
+	 *
+	 * @param pImage the image
+	 * @return the pixel digest
+	 */
+	public static byte[] digest(final BufferedImage pImage) {
+		return digest(pImage.getWidth(), pImage.getHeight(), new RowReader(pImage));
+	}
+
+	/**
+	 * Computes the digest of {@link #digest(BufferedImage)} for an image decoded strip by strip.
+	 *
+	 * @param pImage the striped image
+	 * @return the pixel digest
+	 * @throws IOException in case a strip cannot be decoded
+	 */
+	public static byte[] digest(final StripedImage pImage) throws IOException {
+		try {
+			return digest(pImage.getWidth(), pImage.getHeight(), new RowReader(pImage));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Computes the pixel digest of an image read by the given reader.
+	 *
+	 * @param pWidth the image width
+	 * @param pHeight the image height
+	 * @param pReader reads the image rows
+	 * @return the pixel digest
+	 */
+	private static byte[] digest(final int pWidth, final int pHeight, final RowReader pReader) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not supported by JVM.", e);
+		}
+		int[] row = new int[pWidth];
+		ByteBuffer bytes = ByteBuffer.allocate(Math.max(8, row.length * 4));
+		bytes.putInt(pWidth).putInt(pHeight);
+		digest.update(bytes.array(), 0, 8);
+		for (int y = 0; y < pHeight; y++) {
+			pReader.read(y, row);
+			bytes.clear();
+			bytes.asIntBuffer().put(row);
+			digest.update(bytes.array(), 0, row.length * 4);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Reads the rows of an image as ARGB values. Striped images are decoded strip by strip as the rows are read.
+	 *
+	 * @author krischan
+	 *
+	 */
+	static final class RowReader {
+
+		/** the striped image to read or <code>null</code> if a single decoded image is read */
+		private final StripedImage striped;
+
+		/** the image width */
+		private final int width;
+
+		/** the image or the strip of the striped image currently read */
+		private BufferedImage image;
+
+		/** the backing int array for the int image types or <code>null</code> */
+		private int[] intData;
+
+		/** the backing byte array for the byte image types or <code>null</code> */
+		private byte[] byteData;
+
+		/** the array index of the first pixel */
+		private int origin;
+
+		/** the array elements per row */
+		private int scanlineStride;
+
+		/** the array elements per pixel of the byte image types */
+		private int pixelStride;
+
+		/** the byte offsets of the red, green, blue and alpha bands of the byte image types */
+		private int[] bandOffsets;
+
+		/** the first row of the current strip */
+		private int stripStart;
+
+		/** the row after the current strip */
+		private int stripEnd;
+
+		/**
+		 * Creates a reader for the given image.
+		 *
+		 * @param pImage the image to read
+		 */
+		RowReader(final BufferedImage pImage) {
+			striped = null;
+			width = pImage.getWidth();
+			attach(pImage);
+			stripEnd = pImage.getHeight();
+		}
+
+		/**
+		 * Creates a reader for the given striped image. No strip is decoded before the first row is read.
+		 *
+		 * @param pImage the image to read
+		 */
+		RowReader(final StripedImage pImage) {
+			striped = pImage;
+			width = pImage.getWidth();
+		}
+
+		/**
+		 * Reads the given image or strip from now on.
+		 *
+		 * @param pImage the image or strip
+		 */
+		private void attach(final BufferedImage pImage) {
+			image = pImage;
+			Raster raster = pImage.getRaster();
+			int translateX = -raster.getSampleModelTranslateX();
+			int translateY = -raster.getSampleModelTranslateY();
+			boolean intType = pImage.getType() == BufferedImage.TYPE_INT_RGB || pImage.getType() == BufferedImage.TYPE_INT_ARGB
+					|| pImage.getType() == BufferedImage.TYPE_INT_BGR;
+			boolean byteType = pImage.getType() == BufferedImage.TYPE_3BYTE_BGR || pImage.getType() == BufferedImage.TYPE_4BYTE_ABGR;
+			intData = null;
+			byteData = null;
+			origin = 0;
+			scanlineStride = 0;
+			pixelStride = 0;
+			bandOffsets = null;
+			if (intType && raster.getDataBuffer() instanceof DataBufferInt
+					&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+				SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+				intData = ((DataBufferInt) raster.getDataBuffer()).getData();
+				origin = raster.getDataBuffer().getOffset() + sampleModel.getOffset(translateX, translateY);
+				scanlineStride = sampleModel.getScanlineStride();
+				pixelStride = 1;
+			} else if (byteType && raster.getDataBuffer() instanceof DataBufferByte
+					&& raster.getSampleModel() instanceof ComponentSampleModel) {
+				ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+				byteData = ((DataBufferByte) raster.getDataBuffer()).getData();
+				scanlineStride = sampleModel.getScanlineStride();
+				pixelStride = sampleModel.getPixelStride();
+				origin = raster.getDataBuffer().getOffset() + translateY * scanlineStride + translateX * pixelStride;
+				bandOffsets = sampleModel.getBandOffsets();
+			}
+		}
+
+		/**
+		 * Decodes the strip of the striped image containing the given row.
+		 *
+		 * @param pY the row
+		 * @throws UncheckedIOException in case the strip cannot be decoded
+		 */
+		private void decodeStripOf(final int pY) {
+			int first = pY / striped.getStripRows() * striped.getStripRows();
+			try {
+				attach(striped.decodeStrip(first));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			stripStart = first;
+			stripEnd = first + image.getHeight();
+			if (pY >= stripEnd) {
+				throw new IllegalStateException("Strip at row " + first + " has only " + image.getHeight() + " rows.");
+			}
+		}
+
+		/**
+		 * Reads the given row of the image.
+		 *
+		 * @param pY the row
+		 * @param pRow receives the ARGB values of the row, at least as long as the image is wide
+		 */
+		void read(final int pY, final int[] pRow) {
+			read(pY, 0, width, pRow);
+		}
+
+		/**
+		 * Reads a part of the given row of the image.
+		 *
+		 * @param pY the row
+		 * @param pX the first column to read
+		 * @param pWidth the number of columns to read
+		 * @param pRow receives the ARGB values of the columns, at least pWidth long
+		 */
+		void read(final int pY, final int pX, final int pWidth, final int[] pRow) {
+			if (pY < stripStart || pY >= stripEnd) {
+				decodeStripOf(pY);
+			}
+			int y = pY - stripStart;
+			int start = origin + y * scanlineStride + pX * pixelStride;
+			if (intData != null) {
+				System.arraycopy(intData, start, pRow, 0, pWidth);
+				if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+					for (int x = 0; x < pWidth; x++) {
+						pRow[x] |= 0xFF000000;
+					}
+				} else if (image.getType() == BufferedImage.TYPE_INT_BGR) {
+					for (int x = 0; x < pWidth; x++) {
+						int bgr = pRow[x];
+						pRow[x] = 0xFF000000 | (bgr & 0xFF) << 16 | bgr & 0xFF00 | (bgr >> 16) & 0xFF;
+					}
+				}
+			} else if (byteData != null) {
+				int red = bandOffsets[0];
+				int green = bandOffsets[1];
+				int blue = bandOffsets[2];
+				boolean alpha = bandOffsets.length > 3;
+				for (int x = 0, pixel = start; x < pWidth; x++, pixel += pixelStride) {
+					int a = alpha ? byteData[pixel + bandOffsets[3]] & 0xFF : 0xFF;
+					pRow[x] = a << 24 | (byteData[pixel + red] & 0xFF) << 16 | (byteData[pixel + green] & 0xFF) << 8
+							| byteData[pixel + blue] & 0xFF;
+				}
+			} else {
+				image.getRGB(pX, y, pWidth, 1, pRow, 0, pWidth);
+			}
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Compares two images, e.g. a rendered page and its approved baseline, split into square tiles that are compared
+ * in parallel. All tiles share the error of the whole image, so the comparison stops as soon as the tolerance is
+ * exceeded by any tile. The metrics are the same as for {@link ImageTolerance#isSimilarAtFullResolution(
+ * BufferedImage, BufferedImage)}, tiles are aligned to the SSIM windows.
+ * <p>
+ * For failed comparisons a diff image shows the expected image faded out with all differing pixels in red.
+ *
+ * @author krischan
+ *
+ */
+public final class ImageDiff {
+
+	/** the edge length of a tile in pixels, a multiple of the SSIM window */
+	static final int TILE_SIZE = 256;
+
+	/** the color of differing pixels in the diff image */
+	private static final int DIFF_COLOR = 0xFFFF0000;
+
+	/** the expected image */
+	private final BufferedImage expected;
+
+	/** the actual image */
+	private final BufferedImage actual;
+
+	/** the tolerance of the comparison */
+	private final ImageTolerance tolerance;
+
+	/** whether the images are similar within the tolerance */
+	private final boolean similar;
+
+	/**
+	 * Private constructor, see {@link #compare(BufferedImage, BufferedImage, ImageTolerance, int)}.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActual the actual image
+	 * @param pTolerance the tolerance of the comparison
+	 * @param pSimilar whether the images are similar
+	 */
+	private ImageDiff(final BufferedImage pExpected, final BufferedImage pActual, final ImageTolerance pTolerance,
+			final boolean pSimilar) {
+		expected = pExpected;
+		actual = pActual;
+		tolerance = pTolerance;
+		similar = pSimilar;
+	}
+
+	/**
+	 * Compares the given images tile by tile.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActual the actual image
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @param pParallelism the number of threads comparing tiles, 1 for a sequential comparison
+	 * @return the result of the comparison
+	 */
+	public static ImageDiff compare(final BufferedImage pExpected, final BufferedImage pActual,
+			final ImageTolerance pTolerance, final int pParallelism) {
+		ImageTolerance tolerance = pTolerance == null ? ImageTolerance.maxChannelDelta(0) : pTolerance;
+		if (pExpected.getWidth() != pActual.getWidth() || pExpected.getHeight() != pActual.getHeight()) {
+			return new ImageDiff(pExpected, pActual, tolerance, false);
+		}
+		TileComparison comparison = new TileComparison(pExpected, pActual, tolerance);
+		List<Rectangle> tiles = new ArrayList<>();
+		for (int y = 0; y < pExpected.getHeight(); y += TILE_SIZE) {
+			for (int x = 0; x < pExpected.getWidth(); x += TILE_SIZE) {
+				tiles.add(new Rectangle(x, y, Math.min(TILE_SIZE, pExpected.getWidth() - x),
+						Math.min(TILE_SIZE, pExpected.getHeight() - y)));
+			}
+		}
+		int parallelism = Math.min(pParallelism, tiles.size());
+		if (parallelism <= 1) {
+			for (Rectangle tile : tiles) {
+				comparison.compare(tile);
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.submit(() -> tiles.parallelStream().forEach(comparison::compare)).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Image comparison interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Image comparison failed.", e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+		return new ImageDiff(pExpected, pActual, tolerance, comparison.isSimilar());
+	}
+
+	/**
+	 * Checks whether the images are similar within the tolerance.
+	 *
+	 * @return <code>true</code> if the images are similar
+	 */
+	public boolean isSimilar() {
+		return similar;
+	}
+
+	/**
+	 * Creates an image showing the differences: the expected image faded out, every pixel that differs by more
+	 * than the channel delta of the tolerance (any difference for the other metrics) and every pixel covered by
+	 * one image only in red.
+	 *
+	 * @return the diff image, as large as the larger of both images
+	 */
+	public BufferedImage createDiffImage() {
+		int width = Math.max(expected.getWidth(), actual.getWidth());
+		int height = Math.max(expected.getHeight(), actual.getHeight());
+		int commonWidth = Math.min(expected.getWidth(), actual.getWidth());
+		int commonHeight = Math.min(expected.getHeight(), actual.getHeight());
+		int maxDelta = tolerance.getMetric() == ImageTolerance.Metric.CHANNEL_DELTA ? (int) tolerance.getThreshold() : 0;
+		BufferedImage diff = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		ImageComparator.RowReader expectedReader = new ImageComparator.RowReader(expected);
+		ImageComparator.RowReader actualReader = new ImageComparator.RowReader(actual);
+		int[] expectedRow = new int[commonWidth];
+		int[] actualRow = new int[commonWidth];
+		int[] diffRow = new int[width];
+		for (int y = 0; y < height; y++) {
+			Arrays.fill(diffRow, DIFF_COLOR);
+			if (y < commonHeight) {
+				expectedReader.read(y, 0, commonWidth, expectedRow);
+				actualReader.read(y, 0, commonWidth, actualRow);
+				for (int x = 0; x < commonWidth; x++) {
+					if (!differs(expectedRow[x], actualRow[x], maxDelta)) {
+						int faded = 255 - (255 - (int) ImageTolerance.luminance(expectedRow[x])) / 4;
+						diffRow[x] = 0xFF000000 | faded << 16 | faded << 8 | faded;
+					}
+				}
+			}
+			diff.getRaster().setDataElements(0, y, width, 1, diffRow);
+		}
+		return diff;
+	}
+
+	/**
+	 * Checks whether any color channel of the given pixels differs by more than the given delta.
+	 *
+	 * @param pExpected the expected RGB value
+	 * @param pActual the actual RGB value
+	 * @param pMaxDelta the allowed difference per channel
+	 * @return <code>true</code> if the pixels differ
+	 */
+	private static boolean differs(final int pExpected, final int pActual, final int pMaxDelta) {
+		for (int shift = 0; shift <= 16; shift += 8) {
+			if (Math.abs(((pExpected >> shift) & 0xFF) - ((pActual >> shift) & 0xFF)) > pMaxDelta) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The error of a comparison shared by all tiles.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class TileComparison {
+
+		/** the expected image */
+		private final BufferedImage expected;
+
+		/** the actual image */
+		private final BufferedImage actual;
+
+		/** the similarity metric */
+		private final ImageTolerance.Metric metric;
+
+		/** the threshold for the metric */
+		private final double threshold;
+
+		/** the largest sum of squared errors for the PSNR metric */
+		private final double maxSquaredError;
+
+		/** the number of SSIM windows of the image */
+		private final int windows;
+
+		/** set as soon as the tolerance is exceeded */
+		private final AtomicBoolean exceeded = new AtomicBoolean();
+
+		/** the sum of squared errors of all compared rows for the PSNR metric */
+		private final AtomicLong squaredError = new AtomicLong();
+
+		/** the sum of the SSIM of all compared windows */
+		private final DoubleAdder ssimSum = new DoubleAdder();
+
+		/** the number of compared SSIM windows */
+		private final AtomicInteger comparedWindows = new AtomicInteger();
+
+		/**
+		 * Constructor for {@link TileComparison}.
+		 *
+		 * @param pExpected the expected image
+		 * @param pActual the actual image of the same size
+		 * @param pTolerance the tolerance of the comparison
+		 */
+		private TileComparison(final BufferedImage pExpected, final BufferedImage pActual, final ImageTolerance pTolerance) {
+			expected = pExpected;
+			actual = pActual;
+			metric = pTolerance.getMetric();
+			threshold = pTolerance.getThreshold();
+			maxSquaredError = pTolerance.maxSquaredError(pExpected.getWidth(), pExpected.getHeight());
+			int window = ImageTolerance.SSIM_WINDOW;
+			windows = ((pExpected.getWidth() + window - 1) / window) * ((pExpected.getHeight() + window - 1) / window);
+		}
+
+		/**
+		 * Compares a single tile unless the tolerance is exceeded already.
+		 *
+		 * @param pTile the tile
+		 */
+		private void compare(final Rectangle pTile) {
+			if (exceeded.get()) {
+				return;
+			}
+			ImageComparator.RowReader expectedReader = new ImageComparator.RowReader(expected);
+			ImageComparator.RowReader actualReader = new ImageComparator.RowReader(actual);
+			int[] expectedRow = new int[pTile.width];
+			int[] actualRow = new int[pTile.width];
+			int window = ImageTolerance.SSIM_WINDOW;
+			double[][] sums = new double[(pTile.width + window - 1) / window][6];
+			for (int y = pTile.y; y < pTile.y + pTile.height && !exceeded.get(); y++) {
+				expectedReader.read(y, pTile.x, pTile.width, expectedRow);
+				actualReader.read(y, pTile.x, pTile.width, actualRow);
+				if (metric == ImageTolerance.Metric.SSIM) {
+					addWindowSums(expectedRow, actualRow, sums);
+					if ((y + 1) % window == 0 || y == expected.getHeight() - 1) {
+						finishWindowRow(sums);
+					}
+				} else {
+					compareRow(expectedRow, actualRow);
+				}
+			}
+		}
+
+		/**
+		 * Compares a row of a tile for the channel delta and PSNR metrics.
+		 *
+		 * @param pExpectedRow the expected pixels
+		 * @param pActualRow the actual pixels
+		 */
+		private void compareRow(final int[] pExpectedRow, final int[] pActualRow) {
+			long rowError = 0;
+			for (int x = 0; x < pExpectedRow.length; x++) {
+				for (int shift = 0; shift <= 16; shift += 8) {
+					int delta = ((pExpectedRow[x] >> shift) & 0xFF) - ((pActualRow[x] >> shift) & 0xFF);
+					if (metric == ImageTolerance.Metric.CHANNEL_DELTA && Math.abs(delta) > threshold) {
+						exceeded.set(true);
+						return;
+					}
+					rowError += delta * delta;
+				}
+			}
+			if (metric == ImageTolerance.Metric.PSNR && squaredError.addAndGet(rowError) > maxSquaredError) {
+				exceeded.set(true);
+			}
+		}
+
+		/**
+		 * Adds a row of a tile to the sums of its SSIM windows.
+		 *
+		 * @param pExpectedRow the expected pixels
+		 * @param pActualRow the actual pixels
+		 * @param pSums the sums of x, y, x^2, y^2, x*y and the pixel count per window
+		 */
+		private static void addWindowSums(final int[] pExpectedRow, final int[] pActualRow, final double[][] pSums) {
+			for (int x = 0; x < pExpectedRow.length; x++) {
+				double luminanceX = ImageTolerance.luminance(pExpectedRow[x]);
+				double luminanceY = ImageTolerance.luminance(pActualRow[x]);
+				double[] window = pSums[x / ImageTolerance.SSIM_WINDOW];
+				window[0] += luminanceX;
+				window[1] += luminanceY;
+				window[2] += luminanceX * luminanceX;
+				window[3] += luminanceY * luminanceY;
+				window[4] += luminanceX * luminanceY;
+				window[5]++;
+			}
+		}
+
+		/**
+		 * Adds the SSIM of a completed row of windows of a tile and checks whether the threshold can still be
+		 * reached.
+		 *
+		 * @param pSums the sums per window, reset for the next row of windows
+		 */
+		private void finishWindowRow(final double[][] pSums) {
+			double rowSsim = 0;
+			for (double[] window : pSums) {
+				rowSsim += ImageTolerance.ssim(window);
+				Arrays.fill(window, 0);
+			}
+			// the sum is added before the count, so concurrent checks never underestimate the reachable SSIM
+			ssimSum.add(rowSsim);
+			int compared = comparedWindows.addAndGet(pSums.length);
+			if (ssimSum.sum() + (windows - compared) < threshold * windows) {
+				exceeded.set(true);
+			}
+		}
+
+		/**
+		 * Checks whether the images are similar after all tiles have been compared.
+		 *
+		 * @return <code>true</code> if the tolerance is not exceeded
+		 */
+		private boolean isSimilar() {
+			if (exceeded.get()) {
+				return false;
+			}
+			return metric != ImageTolerance.Metric.SSIM || ssimSum.sum() >= threshold * windows;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package io.github.derkrischan.pdftest.image;
+
+/**
+ * Selects how {@link PdfImageExtracter} writes the extracted images.
+ *
+ * @author krischan
+ *
+ */
+public enum ImageExportMode {
+
+	/** every image is decoded and written as PNG */
+	PNG,
+
+	/**
+	 * JPEG (DCTDecode) and JPEG 2000 (JPXDecode) images are written unchanged as <code>.jpg</code> and
+	 * <code>.jp2</code> files without decoding them, masks and decode arrays are not applied. All other images
+	 * are decoded and written as PNG.
+	 */
+	PASSTHROUGH
+}
@@ -0,0 +1,120 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * An image expected in a rectangular region of a PDF page, e.g. the logo, signature or seal of a letterhead.
+ * Several expectations are checked in a single pass over the page content, see
+ * {@link io.github.derkrischan.pdftest.PdfPageAssert#containsImagesInRegions(java.util.Map)}.
+ *
+ * @author krischan
+ *
+ */
+public final class ImageInRegion {
+
+	/** the expected image or <code>null</code> if it is loaded from {@link #imageFileName} */
+	private final BufferedImage image;
+
+	/** the file name of the expected image or <code>null</code> */
+	private final String imageFileName;
+
+	/** the region the image is expected in */
+	private final Rectangle2D region;
+
+	/** the allowed difference or <code>null</code> for identical images */
+	private final ImageTolerance tolerance;
+
+	/**
+	 * Private constructor, see the static factory methods.
+	 *
+	 * @param pImage the expected image or <code>null</code>
+	 * @param pImageFileName the file name of the expected image or <code>null</code>
+	 * @param pRegion the region the image is expected in
+	 * @param pTolerance the allowed difference or <code>null</code>
+	 */
+	private ImageInRegion(final BufferedImage pImage, final String pImageFileName, final Rectangle2D pRegion,
+			final ImageTolerance pTolerance) {
+		if (pRegion == null) {
+			throw new IllegalArgumentException("Region cannot be NULL.");
+		}
+		image = pImage;
+		imageFileName = pImageFileName;
+		region = pRegion;
+		tolerance = pTolerance;
+	}
+
+	/**
+	 * Creates an expectation for the given image in the given region.
+	 *
+	 * @param pImage the expected image
+	 * @param pRegion the region the image is expected in
+	 * @return the expectation
+	 */
+	public static ImageInRegion of(final BufferedImage pImage, final Rectangle2D pRegion) {
+		if (pImage == null) {
+			throw new IllegalArgumentException("Image cannot be NULL.");
+		}
+		return new ImageInRegion(pImage, null, pRegion, null);
+	}
+
+	/**
+	 * Creates an expectation for the image loaded from the given file in the given region.
+	 *
+	 * @param pImageFileName the file name of the expected image
+	 * @param pRegion the region the image is expected in
+	 * @return the expectation
+	 */
+	public static ImageInRegion of(final String pImageFileName, final Rectangle2D pRegion) {
+		if (pImageFileName == null) {
+			throw new IllegalArgumentException("Image file name cannot be NULL.");
+		}
+		return new ImageInRegion(null, pImageFileName, pRegion, null);
+	}
+
+	/**
+	 * Returns a copy of this expectation accepting images similar within the given tolerance.
+	 *
+	 * @param pTolerance the allowed difference, <code>null</code> for identical images
+	 * @return the expectation with the tolerance
+	 */
+	public ImageInRegion withTolerance(final ImageTolerance pTolerance) {
+		return new ImageInRegion(image, imageFileName, region, pTolerance);
+	}
+
+	/**
+	 * Returns the expected image.
+	 *
+	 * @return the expected image or <code>null</code> if it is loaded from {@link #getImageFileName()}
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Returns the file name of the expected image.
+	 *
+	 * @return the file name or <code>null</code> if the image was given directly
+	 */
+	public String getImageFileName() {
+		return imageFileName;
+	}
+
+	/**
+	 * Returns the region the image is expected in.
+	 *
+	 * @return the region
+	 */
+	public Rectangle2D getRegion() {
+		return region;
+	}
+
+	/**
+	 * Returns the allowed difference.
+	 *
+	 * @return the tolerance or <code>null</code> for identical images
+	 */
+	public ImageTolerance getTolerance() {
+		return tolerance;
+	}
+}
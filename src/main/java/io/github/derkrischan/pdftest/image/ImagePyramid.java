@@ -0,0 +1,213 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downsampled levels of an image for quick rejection in tolerant image comparisons (see {@link ImageTolerance}).
+ * Every level holds the mean red, green and blue value and the pixel count of square blocks of the image. The
+ * finest level has at most {@value #MAX_CELLS} blocks and is computed in a single pass over the image rows,
+ * every coarser level halves the number of blocks per axis down to a single block. A pyramid needs a few
+ * hundred kilobytes at most, independent of the image size, and can be kept instead of the decoded image.
+ *
+ * @author krischan
+ *
+ */
+public final class ImagePyramid {
+
+	/** the maximum number of blocks of the finest level */
+	static final int MAX_CELLS = 4096;
+
+	/** the width of the image */
+	private final int width;
+
+	/** the height of the image */
+	private final int height;
+
+	/** the levels from the coarsest (a single block) to the finest */
+	private final List<Level> levels;
+
+	/**
+	 * Private constructor, see {@link #of(BufferedImage)}.
+	 *
+	 * @param pWidth the width of the image
+	 * @param pHeight the height of the image
+	 * @param pLevels the levels from the coarsest to the finest
+	 */
+	private ImagePyramid(final int pWidth, final int pHeight, final List<Level> pLevels) {
+		width = pWidth;
+		height = pHeight;
+		levels = pLevels;
+	}
+
+	/**
+	 * Computes the pyramid of the given image.
+	 *
+	 * @param pImage the image
+	 * @return the pyramid of the image
+	 */
+	public static ImagePyramid of(final BufferedImage pImage) {
+		return of(pImage.getWidth(), pImage.getHeight(), new ImageComparator.RowReader(pImage));
+	}
+
+	/**
+	 * Computes the pyramid of an image decoded strip by strip.
+	 *
+	 * @param pImage the striped image
+	 * @return the pyramid of the image
+	 * @throws IOException in case a strip cannot be decoded
+	 */
+	public static ImagePyramid of(final StripedImage pImage) throws IOException {
+		try {
+			return of(pImage.getWidth(), pImage.getHeight(), new ImageComparator.RowReader(pImage));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Computes the pyramid of an image read by the given reader.
+	 *
+	 * @param pWidth the image width
+	 * @param pHeight the image height
+	 * @param pReader reads the image rows
+	 * @return the pyramid of the image
+	 */
+	private static ImagePyramid of(final int pWidth, final int pHeight, final ImageComparator.RowReader pReader) {
+		int blockSize = 1;
+		while (cells(pWidth, blockSize) * cells(pHeight, blockSize) > MAX_CELLS) {
+			blockSize *= 2;
+		}
+		Level finest = new Level(cells(pWidth, blockSize), cells(pHeight, blockSize));
+		int[] row = new int[pWidth];
+		for (int y = 0; y < pHeight; y++) {
+			pReader.read(y, row);
+			int rowOffset = y / blockSize * finest.columns;
+			for (int x = 0; x < pWidth; x++) {
+				int cell = rowOffset + x / blockSize;
+				int rgb = row[x];
+				finest.means[cell * 3] += (rgb >> 16) & 0xFF;
+				finest.means[cell * 3 + 1] += (rgb >> 8) & 0xFF;
+				finest.means[cell * 3 + 2] += rgb & 0xFF;
+				finest.counts[cell]++;
+			}
+		}
+		List<Level> levels = new ArrayList<>();
+		levels.add(finest);
+		Level level = finest;
+		while (level.columns > 1 || level.rows > 1) {
+			level = level.halve();
+			levels.add(0, level);
+		}
+		for (Level each : levels) {
+			each.toMeans();
+		}
+		return new ImagePyramid(pWidth, pHeight, levels);
+	}
+
+	/**
+	 * Returns the width of the image.
+	 *
+	 * @return the image width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the image.
+	 *
+	 * @return the image height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the levels from the coarsest to the finest.
+	 *
+	 * @return the levels
+	 */
+	List<Level> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Returns the number of blocks needed to cover the given length.
+	 *
+	 * @param pLength the length in pixels
+	 * @param pBlockSize the block size in pixels
+	 * @return the number of blocks
+	 */
+	private static int cells(final int pLength, final int pBlockSize) {
+		return (pLength + pBlockSize - 1) / pBlockSize;
+	}
+
+	/**
+	 * A single level of a pyramid.
+	 *
+	 * @author krischan
+	 *
+	 */
+	static final class Level {
+
+		/** the blocks per row */
+		final int columns;
+
+		/** the blocks per column */
+		final int rows;
+
+		/** the mean red, green and blue value per block, the sums while the level is built */
+		final double[] means;
+
+		/** the pixel count per block */
+		final int[] counts;
+
+		/**
+		 * Creates an empty level.
+		 *
+		 * @param pColumns the blocks per row
+		 * @param pRows the blocks per column
+		 */
+		private Level(final int pColumns, final int pRows) {
+			columns = pColumns;
+			rows = pRows;
+			means = new double[pColumns * pRows * 3];
+			counts = new int[pColumns * pRows];
+		}
+
+		/**
+		 * Sums 2x2 blocks of this level, which must still hold sums, into a coarser level.
+		 *
+		 * @return the coarser level holding sums
+		 */
+		private Level halve() {
+			Level coarser = new Level((columns + 1) / 2, (rows + 1) / 2);
+			for (int row = 0; row < rows; row++) {
+				for (int column = 0; column < columns; column++) {
+					int cell = row * columns + column;
+					int target = row / 2 * coarser.columns + column / 2;
+					for (int channel = 0; channel < 3; channel++) {
+						coarser.means[target * 3 + channel] += means[cell * 3 + channel];
+					}
+					coarser.counts[target] += counts[cell];
+				}
+			}
+			return coarser;
+		}
+
+		/**
+		 * Turns the sums of this level into means.
+		 */
+		private void toMeans() {
+			for (int cell = 0; cell < counts.length; cell++) {
+				for (int channel = 0; channel < 3; channel++) {
+					means[cell * 3 + channel] /= Math.max(1, counts[cell]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,516 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Tolerance for comparing images that are similar but not identical, e.g. because the embedded image was
+ * re-encoded lossy. Images of different sizes are never similar. Only the red, green and blue channels are
+ * compared, alpha is ignored.
+ * <p>
+ * Candidates are rejected on their {@link ImagePyramid}s first, from the coarsest to the finest level, and
+ * compared at full resolution only if no level rules them out. The pyramid checks never reject similar
+ * images: a block mean cannot differ more than the pixels of the block and the mean squared error of block
+ * means is a lower bound of the mean squared error of the pixels. SSIM has no such bound, it is computed at
+ * full resolution only but stops as soon as the threshold cannot be reached anymore.
+ * <p>
+ * A {@link #scaleInvariant()} tolerance also accepts images of another size with the same aspect ratio. The
+ * actual image is scaled to the size of the expected image by averaging the pixels covered by every target
+ * pixel before it is compared.
+ *
+ * @author krischan
+ *
+ */
+public final class ImageTolerance {
+
+	/** the SSIM window size in pixels */
+	static final int SSIM_WINDOW = 8;
+
+	/** SSIM stabilization constant for the means, (0.01 * 255)^2 */
+	private static final double SSIM_C1 = 6.5025;
+
+	/** SSIM stabilization constant for the variances, (0.03 * 255)^2 */
+	private static final double SSIM_C2 = 58.5225;
+
+	/** rounding slack for comparing block means */
+	private static final double EPSILON = 1e-6;
+
+	/** the relative height difference allowed for images of the same aspect ratio */
+	private static final double ASPECT_TOLERANCE = 0.02;
+
+	/**
+	 * The supported similarity metrics.
+	 */
+	enum Metric {
+		/** maximum absolute difference of any channel of any pixel */
+		CHANNEL_DELTA,
+		/** minimum peak signal to noise ratio in dB */
+		PSNR,
+		/** minimum mean structural similarity of the luminance */
+		SSIM
+	}
+
+	/** the similarity metric */
+	private final Metric metric;
+
+	/** the threshold for the metric */
+	private final double threshold;
+
+	/** whether images of another size with the same aspect ratio are scaled before the comparison */
+	private final boolean scaleInvariant;
+
+	/**
+	 * Private constructor, see the static factory methods.
+	 *
+	 * @param pMetric the similarity metric
+	 * @param pThreshold the threshold for the metric
+	 * @param pScaleInvariant whether images of another size are scaled before the comparison
+	 */
+	private ImageTolerance(final Metric pMetric, final double pThreshold, final boolean pScaleInvariant) {
+		metric = pMetric;
+		threshold = pThreshold;
+		scaleInvariant = pScaleInvariant;
+	}
+
+	/**
+	 * Creates a tolerance allowing every color channel of every pixel to differ by the given value at most.
+	 *
+	 * @param pMaxDelta the maximum difference per channel (0 - 255)
+	 * @return the tolerance
+	 */
+	public static ImageTolerance maxChannelDelta(final int pMaxDelta) {
+		if (pMaxDelta < 0 || pMaxDelta > 255) {
+			throw new IllegalArgumentException("Channel delta must be between 0 and 255.");
+		}
+		return new ImageTolerance(Metric.CHANNEL_DELTA, pMaxDelta, false);
+	}
+
+	/**
+	 * Creates a tolerance requiring a minimum peak signal to noise ratio over all color channels. Typical
+	 * values for lossy re-encoded images are 30 to 50 dB, identical images have an infinite ratio.
+	 *
+	 * @param pMinPsnr the minimum ratio in dB
+	 * @return the tolerance
+	 */
+	public static ImageTolerance minPsnr(final double pMinPsnr) {
+		if (Double.isNaN(pMinPsnr)) {
+			throw new IllegalArgumentException("PSNR must be a number.");
+		}
+		return new ImageTolerance(Metric.PSNR, pMinPsnr, false);
+	}
+
+	/**
+	 * Creates a tolerance requiring a minimum mean structural similarity (SSIM) of the luminance, computed on
+	 * non overlapping 8x8 windows. Identical images have a similarity of 1.
+	 *
+	 * @param pMinSsim the minimum similarity (-1 - 1)
+	 * @return the tolerance
+	 */
+	public static ImageTolerance minSsim(final double pMinSsim) {
+		if (!(pMinSsim >= -1 && pMinSsim <= 1)) {
+			throw new IllegalArgumentException("SSIM must be between -1 and 1.");
+		}
+		return new ImageTolerance(Metric.SSIM, pMinSsim, false);
+	}
+
+	/**
+	 * Returns a copy of this tolerance that also accepts images of another size with the same aspect ratio,
+	 * e.g. a thumbnail of a large scan. The actual image is scaled to the size of the expected image, the
+	 * scaling differences have to be covered by the threshold.
+	 *
+	 * @return the scale invariant tolerance
+	 */
+	public ImageTolerance scaleInvariant() {
+		return new ImageTolerance(metric, threshold, true);
+	}
+
+	/**
+	 * Checks whether images of another size are scaled before the comparison.
+	 *
+	 * @return <code>true</code> if this tolerance is scale invariant
+	 */
+	public boolean isScaleInvariant() {
+		return scaleInvariant;
+	}
+
+	/**
+	 * Checks whether the first tolerance accepts only images the second tolerance accepts as well, e.g. to decide
+	 * whether a comparison that passed with the first tolerance also passes with the second. Tolerances of
+	 * different metrics are not comparable. <code>null</code> stands for identical images and is the strictest
+	 * tolerance.
+	 *
+	 * @param pTolerance the tolerance to check, <code>null</code> for identical images
+	 * @param pOther the tolerance to compare with, <code>null</code> for identical images
+	 * @return <code>true</code> if the first tolerance is at least as strict as the second one
+	 */
+	public static boolean isAtLeastAsStrict(final ImageTolerance pTolerance, final ImageTolerance pOther) {
+		if (pTolerance == null || pTolerance.requiresIdenticalImages()) {
+			return true;
+		}
+		if (pOther == null || pTolerance.metric != pOther.metric || pTolerance.scaleInvariant && !pOther.scaleInvariant) {
+			return false;
+		}
+		if (pTolerance.metric == Metric.CHANNEL_DELTA) {
+			return pTolerance.threshold <= pOther.threshold;
+		}
+		return pTolerance.threshold >= pOther.threshold;
+	}
+
+	/**
+	 * Returns a compact representation of this tolerance that can be stored, see {@link #decode(String)}.
+	 *
+	 * @return the encoded tolerance, e.g. <code>PSNR:35.0</code>
+	 */
+	public String encode() {
+		return metric.name() + ':' + threshold + (scaleInvariant ? ":scaled" : "");
+	}
+
+	/**
+	 * Restores a tolerance from its representation created by {@link #encode()}.
+	 *
+	 * @param pEncoded the encoded tolerance
+	 * @return the tolerance
+	 * @throws IllegalArgumentException in case the given text is no encoded tolerance
+	 */
+	public static ImageTolerance decode(final String pEncoded) {
+		String[] parts = pEncoded.split(":");
+		if (parts.length < 2 || parts.length > 3 || parts.length == 3 && !"scaled".equals(parts[2])) {
+			throw new IllegalArgumentException("Invalid image tolerance: " + pEncoded);
+		}
+		double threshold = Double.parseDouble(parts[1]);
+		if (Double.isNaN(threshold)) {
+			throw new IllegalArgumentException("Invalid image tolerance: " + pEncoded);
+		}
+		return new ImageTolerance(Metric.valueOf(parts[0]), threshold, parts.length == 3);
+	}
+
+	/**
+	 * Checks whether this tolerance accepts identical images only.
+	 *
+	 * @return <code>true</code> if no pixel may differ
+	 */
+	private boolean requiresIdenticalImages() {
+		return !scaleInvariant && (metric == Metric.CHANNEL_DELTA && threshold == 0
+				|| metric == Metric.PSNR && threshold == Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Checks whether an image of the given actual size can be similar to an image of the expected size. Sizes
+	 * have to be equal unless this tolerance is scale invariant, then the aspect ratios have to be equal.
+	 *
+	 * @param pExpectedWidth the width of the expected image
+	 * @param pExpectedHeight the height of the expected image
+	 * @param pActualWidth the width of the actual image
+	 * @param pActualHeight the height of the actual image
+	 * @return <code>true</code> if the sizes are compatible
+	 */
+	public boolean acceptsSize(final int pExpectedWidth, final int pExpectedHeight, final int pActualWidth,
+			final int pActualHeight) {
+		if (pExpectedWidth == pActualWidth && pExpectedHeight == pActualHeight) {
+			return true;
+		}
+		if (!scaleInvariant || pActualWidth <= 0 || pExpectedWidth <= 0) {
+			return false;
+		}
+		double scaledHeight = (double) pActualHeight * pExpectedWidth / pActualWidth;
+		return Math.abs(scaledHeight - pExpectedHeight) <= Math.max(1, ASPECT_TOLERANCE * pExpectedHeight);
+	}
+
+	/**
+	 * Checks whether the given images are similar within this tolerance.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActual the actual image
+	 * @return <code>true</code> if the images are similar, <code>false</code> otherwise
+	 */
+	public boolean isSimilar(final BufferedImage pExpected, final BufferedImage pActual) {
+		BufferedImage actual = pActual;
+		if (pExpected.getWidth() != pActual.getWidth() || pExpected.getHeight() != pActual.getHeight()) {
+			if (!acceptsSize(pExpected.getWidth(), pExpected.getHeight(), pActual.getWidth(), pActual.getHeight())) {
+				return false;
+			}
+			actual = scale(pActual, pExpected.getWidth(), pExpected.getHeight());
+		}
+		return mayBeSimilar(ImagePyramid.of(pExpected), ImagePyramid.of(actual))
+				&& isSimilarAtFullResolution(pExpected, actual);
+	}
+
+	/**
+	 * Checks whether images with the given pyramids can be similar within this tolerance. Images rejected here
+	 * are never similar, images accepted here have to be checked with
+	 * {@link #isSimilarAtFullResolution(BufferedImage, BufferedImage)}.
+	 *
+	 * @param pExpected the pyramid of the expected image
+	 * @param pActual the pyramid of the actual image
+	 * @return <code>false</code> if the images are not similar, <code>true</code> if they might be
+	 */
+	public boolean mayBeSimilar(final ImagePyramid pExpected, final ImagePyramid pActual) {
+		if (pExpected.getWidth() != pActual.getWidth() || pExpected.getHeight() != pActual.getHeight()) {
+			return false;
+		}
+		if (metric == Metric.SSIM) {
+			return true;
+		}
+		double maxSquaredError = maxSquaredError(pExpected.getWidth(), pExpected.getHeight());
+		for (int index = 0; index < pExpected.getLevels().size(); index++) {
+			ImagePyramid.Level expected = pExpected.getLevels().get(index);
+			ImagePyramid.Level actual = pActual.getLevels().get(index);
+			double squaredError = 0;
+			for (int cell = 0; cell < expected.counts.length; cell++) {
+				for (int channel = 0; channel < 3; channel++) {
+					double delta = expected.means[cell * 3 + channel] - actual.means[cell * 3 + channel];
+					if (metric == Metric.CHANNEL_DELTA && Math.abs(delta) > threshold + EPSILON) {
+						return false;
+					}
+					squaredError += delta * delta * expected.counts[cell];
+				}
+			}
+			if (metric == Metric.PSNR && squaredError > maxSquaredError * (1 + EPSILON)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the given images are similar within this tolerance comparing all pixels.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActual the actual image
+	 * @return <code>true</code> if the images are similar, <code>false</code> otherwise
+	 */
+	public boolean isSimilarAtFullResolution(final BufferedImage pExpected, final BufferedImage pActual) {
+		if (pExpected.getWidth() != pActual.getWidth() || pExpected.getHeight() != pActual.getHeight()) {
+			return false;
+		}
+		return isSimilarAtFullResolution(pExpected, new ImageComparator.RowReader(pActual));
+	}
+
+	/**
+	 * Checks whether the given images are similar within this tolerance comparing all pixels. The actual image
+	 * is decoded strip by strip, so images larger than the available heap can be compared.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActual the actual image
+	 * @return <code>true</code> if the images are similar, <code>false</code> otherwise
+	 * @throws IOException in case a strip cannot be decoded
+	 */
+	public boolean isSimilarAtFullResolution(final BufferedImage pExpected, final StripedImage pActual) throws IOException {
+		if (pExpected.getWidth() != pActual.getWidth() || pExpected.getHeight() != pActual.getHeight()) {
+			return false;
+		}
+		try {
+			return isSimilarAtFullResolution(pExpected, new ImageComparator.RowReader(pActual));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Checks whether the given image and the image of the same size read by the given reader are similar.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActualReader reads the rows of the actual image
+	 * @return <code>true</code> if the images are similar, <code>false</code> otherwise
+	 */
+	private boolean isSimilarAtFullResolution(final BufferedImage pExpected, final ImageComparator.RowReader pActualReader) {
+		if (metric == Metric.SSIM) {
+			return isStructurallySimilar(pExpected, pActualReader);
+		}
+		ImageComparator.RowReader expectedReader = new ImageComparator.RowReader(pExpected);
+		int[] expectedRow = new int[pExpected.getWidth()];
+		int[] actualRow = new int[pExpected.getWidth()];
+		double maxSquaredError = maxSquaredError(pExpected.getWidth(), pExpected.getHeight());
+		double squaredError = 0;
+		for (int y = 0; y < pExpected.getHeight(); y++) {
+			expectedReader.read(y, expectedRow);
+			pActualReader.read(y, actualRow);
+			for (int x = 0; x < expectedRow.length; x++) {
+				for (int shift = 0; shift <= 16; shift += 8) {
+					int delta = ((expectedRow[x] >> shift) & 0xFF) - ((actualRow[x] >> shift) & 0xFF);
+					if (metric == Metric.CHANNEL_DELTA && Math.abs(delta) > threshold) {
+						return false;
+					}
+					squaredError += delta * delta;
+				}
+			}
+			if (metric == Metric.PSNR && squaredError > maxSquaredError) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		String scaling = scaleInvariant ? ", scale invariant" : "";
+		switch (metric) {
+		case CHANNEL_DELTA:
+			return String.format(Locale.ROOT, "max. channel delta %d%s", (int) threshold, scaling);
+		case PSNR:
+			return String.format(Locale.ROOT, "min. PSNR %.1f dB%s", threshold, scaling);
+		default:
+			return String.format(Locale.ROOT, "min. SSIM %.3f%s", threshold, scaling);
+		}
+	}
+
+	/**
+	 * Scales the given image to the given size. Every target pixel is the mean of the source pixels it covers,
+	 * when enlarging the nearest source pixel.
+	 *
+	 * @param pImage the image to scale
+	 * @param pWidth the target width
+	 * @param pHeight the target height
+	 * @return the scaled image
+	 */
+	static BufferedImage scale(final BufferedImage pImage, final int pWidth, final int pHeight) {
+		int sourceWidth = pImage.getWidth();
+		int sourceHeight = pImage.getHeight();
+		int[] columnStart = new int[pWidth];
+		int[] columnEnd = new int[pWidth];
+		for (int x = 0; x < pWidth; x++) {
+			columnStart[x] = (int) ((long) x * sourceWidth / pWidth);
+			columnEnd[x] = Math.max(columnStart[x] + 1, (int) ((long) (x + 1) * sourceWidth / pWidth));
+		}
+		BufferedImage scaled = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_ARGB);
+		ImageComparator.RowReader reader = new ImageComparator.RowReader(pImage);
+		int[] sourceRow = new int[sourceWidth];
+		long[] sums = new long[pWidth * 4];
+		int[] targetRow = new int[pWidth];
+		for (int y = 0; y < pHeight; y++) {
+			int rowStart = (int) ((long) y * sourceHeight / pHeight);
+			int rowEnd = Math.max(rowStart + 1, (int) ((long) (y + 1) * sourceHeight / pHeight));
+			Arrays.fill(sums, 0);
+			for (int sourceY = rowStart; sourceY < rowEnd; sourceY++) {
+				reader.read(sourceY, sourceRow);
+				for (int x = 0; x < pWidth; x++) {
+					for (int sourceX = columnStart[x]; sourceX < columnEnd[x]; sourceX++) {
+						int argb = sourceRow[sourceX];
+						sums[x * 4] += argb >>> 24;
+						sums[x * 4 + 1] += (argb >> 16) & 0xFF;
+						sums[x * 4 + 2] += (argb >> 8) & 0xFF;
+						sums[x * 4 + 3] += argb & 0xFF;
+					}
+				}
+			}
+			for (int x = 0; x < pWidth; x++) {
+				long count = (long) (rowEnd - rowStart) * (columnEnd[x] - columnStart[x]);
+				targetRow[x] = (int) ((sums[x * 4] + count / 2) / count) << 24
+						| (int) ((sums[x * 4 + 1] + count / 2) / count) << 16
+						| (int) ((sums[x * 4 + 2] + count / 2) / count) << 8
+						| (int) ((sums[x * 4 + 3] + count / 2) / count);
+			}
+			scaled.getRaster().setDataElements(0, y, pWidth, 1, targetRow);
+		}
+		return scaled;
+	}
+
+	/**
+	 * Returns the similarity metric.
+	 *
+	 * @return the metric
+	 */
+	Metric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * Returns the threshold for the metric.
+	 *
+	 * @return the threshold
+	 */
+	double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Returns the largest sum of squared channel errors an image of the given size may have to reach the PSNR
+	 * threshold.
+	 *
+	 * @param pWidth the image width
+	 * @param pHeight the image height
+	 * @return the maximum sum of squared errors
+	 */
+	double maxSquaredError(final int pWidth, final int pHeight) {
+		return 3.0 * pWidth * pHeight * 255 * 255 / Math.pow(10, threshold / 10);
+	}
+
+	/**
+	 * Computes the mean SSIM of the luminance of the given images of equal size on non overlapping windows and
+	 * stops as soon as the threshold cannot be reached anymore.
+	 *
+	 * @param pExpected the expected image
+	 * @param pActualReader reads the rows of the actual image
+	 * @return <code>true</code> if the mean SSIM reaches the threshold
+	 */
+	private boolean isStructurallySimilar(final BufferedImage pExpected, final ImageComparator.RowReader pActualReader) {
+		int width = pExpected.getWidth();
+		int height = pExpected.getHeight();
+		int windowsPerRow = (width + SSIM_WINDOW - 1) / SSIM_WINDOW;
+		int windows = windowsPerRow * ((height + SSIM_WINDOW - 1) / SSIM_WINDOW);
+		ImageComparator.RowReader expectedReader = new ImageComparator.RowReader(pExpected);
+		int[] expectedRow = new int[width];
+		int[] actualRow = new int[width];
+		// sums of x, y, x^2, y^2, x*y and the pixel count per window of the current window row
+		double[][] sums = new double[windowsPerRow][6];
+		double ssimSum = 0;
+		int done = 0;
+		for (int y = 0; y < height; y++) {
+			expectedReader.read(y, expectedRow);
+			pActualReader.read(y, actualRow);
+			for (int x = 0; x < width; x++) {
+				double luminanceX = luminance(expectedRow[x]);
+				double luminanceY = luminance(actualRow[x]);
+				double[] window = sums[x / SSIM_WINDOW];
+				window[0] += luminanceX;
+				window[1] += luminanceY;
+				window[2] += luminanceX * luminanceX;
+				window[3] += luminanceY * luminanceY;
+				window[4] += luminanceX * luminanceY;
+				window[5]++;
+			}
+			if ((y + 1) % SSIM_WINDOW == 0 || y == height - 1) {
+				for (double[] window : sums) {
+					ssimSum += ssim(window);
+					Arrays.fill(window, 0);
+				}
+				done += windowsPerRow;
+				// every remaining window contributes 1 at most
+				if (ssimSum + (windows - done) < threshold * windows) {
+					return false;
+				}
+			}
+		}
+		return ssimSum >= threshold * windows;
+	}
+
+	/**
+	 * Computes the SSIM of a window from its sums.
+	 *
+	 * @param pSums the sums of x, y, x^2, y^2, x*y and the pixel count
+	 * @return the SSIM of the window
+	 */
+	static double ssim(final double[] pSums) {
+		double count = pSums[5];
+		double meanX = pSums[0] / count;
+		double meanY = pSums[1] / count;
+		double varianceX = pSums[2] / count - meanX * meanX;
+		double varianceY = pSums[3] / count - meanY * meanY;
+		double covariance = pSums[4] / count - meanX * meanY;
+		return (2 * meanX * meanY + SSIM_C1) * (2 * covariance + SSIM_C2)
+				/ ((meanX * meanX + meanY * meanY + SSIM_C1) * (varianceX + varianceY + SSIM_C2));
+	}
+
+	/**
+	 * Returns the luminance of the given RGB value.
+	 *
+	 * @param pRgb the RGB value
+	 * @return the luminance (0 - 255)
+	 */
+	static double luminance(final int pRgb) {
+		return 0.299 * ((pRgb >> 16) & 0xFF) + 0.587 * ((pRgb >> 8) & 0xFF) + 0.114 * (pRgb & 0xFF);
+	}
+}
@@ -32,6 +32,7 @@ public class ImperialRectangle extends AbstractRectangle {
 	 * 
 	 * @return the corresponding {@link Rectangle2D} with points
 	 */
+	@Override
 	public Rectangle2D toRect2D() {
 		return new Rectangle2D.Double(getX() * POINT_INCH_FRACTION, getY() * POINT_INCH_FRACTION, getWidth() * POINT_INCH_FRACTION, getHeight() * POINT_INCH_FRACTION);
 	}
@@ -33,6 +33,7 @@ public class MetricRectangle extends AbstractRectangle {
 	 * 
 	 * @return the corresponding {@link Rectangle2D} with points
 	 */
+	@Override
 	public Rectangle2D toRect2D() {
 		return new Rectangle2D.Double(getX() * POINT_MM_FRACTION, getY() * POINT_MM_FRACTION, getWidth() * POINT_MM_FRACTION, getHeight() * POINT_MM_FRACTION);
 	}
@@ -2,14 +2,38 @@ package io.github.derkrischan.pdftest.image;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
@@ -18,8 +42,13 @@ import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 /**
  * The PdfImageExtractor is a small helper to batch extract all images found in a given PDF document and stores them to a given folder.
  * This might be helpful for creating test data from already manually proven PDF files.
- * Create a small unit test calling this helper or start the simple main method appended to this class to get the images. 
- * 
+ * Create a small unit test calling this helper or start the simple main method appended to this class to get the images.
+ * <p>
+ * {@link #extractAllImagesFromPdfToFolder(String, String, ImageExportMode, int)} exports every image once, even if
+ * it is shared by many pages or forms or stored several times with the same content. In
+ * {@link ImageExportMode#PASSTHROUGH} mode JPEG and JPEG 2000 images are copied without decoding them. The pages can be split among several threads, each of them loads its own copy of the document
+ * since {@link PDDocument} is not thread safe.
+ *
  * @author krischan
  *
  */
@@ -27,54 +56,289 @@ public final class PdfImageExtracter {
 
 	/** atomic counter used to number the exported images */
 	private static AtomicInteger counter = new AtomicInteger(0);
-	
+
 	/**
 	 * Private constructor to prevent instantiation of utility class.
 	 */
 	private PdfImageExtracter() {
 		//NOP
 	}
-	
+
 	/**
-	 * Static method that exports all images found in given PDF document file path to given folder.
-	 * 
+	 * Static method that exports all images found in given PDF document file path to given folder as PNG.
+	 * An image is exported for each of its usages on each page.
+	 *
 	 * @param pPdfFileName name of the PDF file path
 	 * @param pExportFolderName name of the image export folder
 	 * @throws IOException in case of an error extracting or storing the images from PDF
 	 */
 	public static void extractAllImagesFromPdfToFolder(String pPdfFileName, String pExportFolderName) throws IOException {
-		PDDocument doc = Loader.loadPDF(new File(pPdfFileName));
-		for (PDPage page : doc.getPages()) {
-			extractImagesFromResource(page.getResources(), pExportFolderName);
+		export(pPdfFileName, new ImageExport(pExportFolderName, ImageExportMode.PNG, false), 1);
+	}
+
+	/**
+	 * Static method that exports all distinct images found in given PDF document file path to given folder.
+	 *
+	 * @param pPdfFileName name of the PDF file path
+	 * @param pExportFolderName name of the image export folder
+	 * @param pMode how the images are written
+	 * @param pParallelism the number of threads the pages are split among, 1 for sequential export
+	 * @return the number of exported images
+	 * @throws IOException in case of an error extracting or storing the images from PDF
+	 */
+	public static int extractAllImagesFromPdfToFolder(final String pPdfFileName, final String pExportFolderName,
+			final ImageExportMode pMode, final int pParallelism) throws IOException {
+		if (pMode == null) {
+			throw new IllegalArgumentException("Export mode cannot be NULL.");
+		}
+		if (pParallelism < 1) {
+			throw new IllegalArgumentException("Export parallelism must be at least 1.");
 		}
+		return export(pPdfFileName, new ImageExport(pExportFolderName, pMode, true), pParallelism);
 	}
-	
+
+	/**
+	 * Exports the images of all pages of given PDF document file path.
+	 *
+	 * @param pPdfFileName name of the PDF file path
+	 * @param pExport the export to write the images to
+	 * @param pParallelism the number of threads the pages are split among, 1 for sequential export
+	 * @return the number of exported images
+	 * @throws IOException in case of an error extracting or storing the images from PDF
+	 */
+	private static int export(final String pPdfFileName, final ImageExport pExport, final int pParallelism)
+			throws IOException {
+		File pdfFile = new File(pPdfFileName);
+		int pageCount;
+		try (PDDocument doc = Loader.loadPDF(pdfFile)) {
+			pageCount = doc.getNumberOfPages();
+		}
+		int parallelism = Math.max(1, Math.min(pParallelism, pageCount));
+		List<Callable<Void>> chunks = new ArrayList<>(parallelism);
+		for (int chunk = 0; chunk < parallelism; chunk++) {
+			int first = (int) ((long) pageCount * chunk / parallelism);
+			int last = (int) ((long) pageCount * (chunk + 1) / parallelism);
+			chunks.add(() -> {
+				try (PDDocument doc = Loader.loadPDF(pdfFile)) {
+					Set<COSObjectKey> visitedForms = new HashSet<>();
+					for (int page = first; page < last; page++) {
+						extractImagesFromResource(doc.getPage(page).getResources(), pExport, visitedForms);
+					}
+				}
+				return null;
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			for (Future<Void> chunk : executor.invokeAll(chunks)) {
+				chunk.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Image export interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+		return pExport.exported.get();
+	}
+
 	/**
 	 * Extracts all images from a PDResource (e.g. a PDPage).
-	 * 
+	 *
 	 * @param pResources the PDResource to extract images from.
-	 * @param pExportFolderName the export folder name
+	 * @param pExport the export state shared by all threads
+	 * @param pVisitedForms the keys of the forms already searched by the current thread or, if the export does not
+	 *        deduplicate, of the forms currently searched
 	 * @throws IOException in case of an exception processing the resource or storing an image
 	 */
-	private static void extractImagesFromResource(final PDResources pResources, final String pExportFolderName) throws IOException {
+	private static void extractImagesFromResource(final PDResources pResources, final ImageExport pExport,
+			final Set<COSObjectKey> pVisitedForms) throws IOException {
+		if (pResources == null) {
+			return;
+		}
 		for (COSName xObjectName : pResources.getXObjectNames()) {
 			PDXObject xObject = pResources.getXObject(xObjectName);
+			COSObjectKey key = xObject == null ? null : xObject.getCOSObject().getKey();
 
 			if (xObject instanceof PDFormXObject) {
-				extractImagesFromResource(((PDFormXObject) xObject).getResources(), pExportFolderName);
-			} else if (xObject instanceof PDImageXObject) {
-				ImageIO.write(((PDImageXObject) xObject).getImage(), "png", new File(pExportFolderName + "img-" + counter.getAndIncrement() + ".png"));
+				if (key == null || pVisitedForms.add(key)) {
+					extractImagesFromResource(((PDFormXObject) xObject).getResources(), pExport, pVisitedForms);
+					if (!pExport.deduplicate) {
+						pVisitedForms.remove(key);
+					}
+				}
+			} else if (xObject instanceof PDImageXObject
+					&& (!pExport.deduplicate || key == null || pExport.keys.add(key))) {
+				pExport.write((PDImageXObject) xObject);
 			}
 		}
 	}
-	
+
 	/**
 	 * Simple starter for this utility that takes two arguments and passes them to extractAllImagesFromPdfToFolder.
-	 * 
+	 *
 	 * @param pArgs the first argument should be the path to the PDF file, the second one should be the export folder path.
-	 * @throws IOException in case of an error 
+	 * @throws IOException in case of an error
 	 */
 	public static void main(final String[] pArgs) throws IOException {
 		PdfImageExtracter.extractAllImagesFromPdfToFolder(pArgs[0], pArgs[1]);
 	}
+
+	/**
+	 * The state of a single export shared by all its threads.
+	 *
+	 * @author krischan
+	 *
+	 */
+	private static final class ImageExport {
+
+		/** the dictionary entries that affect decoding an image stream */
+		private static final COSName[] DECODING_ENTRIES = { COSName.WIDTH, COSName.HEIGHT, COSName.BITS_PER_COMPONENT,
+				COSName.COLORSPACE, COSName.FILTER, COSName.DECODE_PARMS, COSName.DECODE, COSName.IMAGE_MASK,
+				COSName.MASK, COSName.SMASK };
+
+		/** name of the image export folder */
+		private final String exportFolderName;
+
+		/** the folder temporary files are written to before they are moved to their target */
+		private final Path folder;
+
+		/** how the images are written */
+		private final ImageExportMode mode;
+
+		/** whether images shared or stored several times are exported only once */
+		private final boolean deduplicate;
+
+		/** the object keys of all images exported or claimed for export */
+		private final Set<COSObjectKey> keys = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+		/** the digests of the encoded streams of all images exported or claimed for export */
+		private final Set<ByteBuffer> digests = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+		/** the number of exported images */
+		private final AtomicInteger exported = new AtomicInteger();
+
+		/**
+		 * Constructor for {@link ImageExport}.
+		 *
+		 * @param pExportFolderName name of the image export folder
+		 * @param pMode how the images are written
+		 * @param pDeduplicate whether images shared or stored several times are exported only once
+		 */
+		private ImageExport(final String pExportFolderName, final ImageExportMode pMode, final boolean pDeduplicate) {
+			exportFolderName = pExportFolderName;
+			folder = new File(pExportFolderName + "img").getAbsoluteFile().getParentFile().toPath();
+			mode = pMode;
+			deduplicate = pDeduplicate;
+		}
+
+		/**
+		 * Writes the given image unless the export deduplicates and an image with the same encoded stream was
+		 * written already. The encoded stream is digested while it is read and is never held in memory, images
+		 * written unchanged are copied to a temporary file first and moved to their target if they are new.
+		 *
+		 * @param pImage the image to write
+		 * @throws IOException in case the image cannot be read or written
+		 */
+		private void write(final PDImageXObject pImage) throws IOException {
+			String extension = mode == ImageExportMode.PASSTHROUGH ? passthroughExtension(pImage) : null;
+			if (extension != null) {
+				Path temp = Files.createTempFile(folder, "img-", ".tmp");
+				try {
+					MessageDigest digest = newDigest(pImage.getCOSObject());
+					try (InputStream raw = new DigestInputStream(pImage.getCOSObject().createRawInputStream(), digest)) {
+						Files.copy(raw, temp, StandardCopyOption.REPLACE_EXISTING);
+					}
+					if (!deduplicate || digests.add(ByteBuffer.wrap(digest.digest()))) {
+						Files.move(temp, nextTarget(extension).toPath(), StandardCopyOption.REPLACE_EXISTING);
+						exported.incrementAndGet();
+					}
+				} finally {
+					Files.deleteIfExists(temp);
+				}
+				return;
+			}
+			if (deduplicate) {
+				MessageDigest digest = newDigest(pImage.getCOSObject());
+				try (InputStream raw = new DigestInputStream(pImage.getCOSObject().createRawInputStream(), digest)) {
+					drain(raw);
+				}
+				if (!digests.add(ByteBuffer.wrap(digest.digest()))) {
+					return;
+				}
+			}
+			ImageIO.write(pImage.getImage(), "png", nextTarget("png"));
+			exported.incrementAndGet();
+		}
+
+		/**
+		 * Returns the next numbered target file.
+		 *
+		 * @param pExtension the file extension
+		 * @return the target file
+		 */
+		private File nextTarget(final String pExtension) {
+			return new File(exportFolderName + "img-" + counter.getAndIncrement() + "." + pExtension);
+		}
+
+		/**
+		 * Returns the file extension for writing the given image unchanged.
+		 *
+		 * @param pImage the image
+		 * @return <code>jpg</code> or <code>jp2</code> or <code>null</code> if the image has to be decoded
+		 * @throws IOException in case the filters cannot be read
+		 */
+		private static String passthroughExtension(final PDImageXObject pImage) throws IOException {
+			List<COSName> filters = pImage.getStream().getFilters();
+			if (filters.size() != 1) {
+				return null;
+			} else if (COSName.DCT_DECODE.equals(filters.get(0))) {
+				return "jpg";
+			} else if (COSName.JPX_DECODE.equals(filters.get(0))) {
+				return "jp2";
+			}
+			return null;
+		}
+
+		/**
+		 * Creates a SHA-256 digest of the dictionary entries that affect decoding an image stream, the encoded
+		 * stream has to be added. Streams like ICC profiles or soft masks are digested by their object key, so
+		 * images using different but equal profiles or masks are not considered duplicates.
+		 *
+		 * @param pDictionary the image dictionary
+		 * @return the digest
+		 */
+		private static MessageDigest newDigest(final COSDictionary pDictionary) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				for (COSName entry : DECODING_ENTRIES) {
+					COSBase value = pDictionary.getDictionaryObject(entry);
+					Object identity = value instanceof COSStream ? ((COSStream) value).getKey() : value;
+					digest.update(String.valueOf(identity).getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) 0);
+				}
+				return digest;
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 not supported by JVM.", e);
+			}
+		}
+
+		/**
+		 * Reads the given stream to its end.
+		 *
+		 * @param pStream the stream
+		 * @throws IOException in case the stream cannot be read
+		 */
+		private static void drain(final InputStream pStream) throws IOException {
+			byte[] buffer = new byte[8192];
+			while (pStream.read(buffer) != -1) {
+				//NOP
+			}
+		}
+	}
 }
@@ -0,0 +1,96 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * DCT based perceptual hash (pHash) of an image. The image is scaled to {@value #SAMPLE_SIZE}x{@value #SAMPLE_SIZE}
+ * pixels, converted to luminance and transformed with a discrete cosine transform. Every bit of the 64 bit hash
+ * tells whether one of the 8x8 lowest frequencies is above the median of these frequencies. The hash describes
+ * the coarse structure of an image only: renditions of the same image at different resolutions have the same or a
+ * close hash, while small details like a changed digit are usually not reflected at all.
+ *
+ * @author krischan
+ *
+ */
+public final class PerceptualHash {
+
+	/** the width and height of the scaled image the hash is computed from */
+	static final int SAMPLE_SIZE = 32;
+
+	/** the number of frequencies per axis that make up the hash */
+	private static final int FREQUENCIES = 8;
+
+	/** the DCT basis functions of the lowest frequencies, by frequency and sample */
+	private static final double[][] COSINES = new double[FREQUENCIES][SAMPLE_SIZE];
+
+	static {
+		for (int frequency = 0; frequency < FREQUENCIES; frequency++) {
+			for (int sample = 0; sample < SAMPLE_SIZE; sample++) {
+				COSINES[frequency][sample] = Math.cos((2 * sample + 1) * frequency * Math.PI / (2 * SAMPLE_SIZE));
+			}
+		}
+	}
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private PerceptualHash() {
+		// NOP
+	}
+
+	/**
+	 * Computes the perceptual hash of the given image.
+	 *
+	 * @param pImage the image
+	 * @return the 64 bit hash
+	 */
+	public static long of(final BufferedImage pImage) {
+		BufferedImage sample = ImageTolerance.scale(pImage, SAMPLE_SIZE, SAMPLE_SIZE);
+		int[] row = new int[SAMPLE_SIZE];
+		// transform the rows first, only the lowest frequencies are needed
+		double[][] rowFrequencies = new double[SAMPLE_SIZE][FREQUENCIES];
+		for (int y = 0; y < SAMPLE_SIZE; y++) {
+			sample.getRaster().getDataElements(0, y, SAMPLE_SIZE, 1, row);
+			for (int u = 0; u < FREQUENCIES; u++) {
+				double sum = 0;
+				for (int x = 0; x < SAMPLE_SIZE; x++) {
+					sum += COSINES[u][x] * ImageTolerance.luminance(row[x]);
+				}
+				rowFrequencies[y][u] = sum;
+			}
+		}
+		double[] coefficients = new double[FREQUENCIES * FREQUENCIES];
+		for (int v = 0; v < FREQUENCIES; v++) {
+			for (int u = 0; u < FREQUENCIES; u++) {
+				double sum = 0;
+				for (int y = 0; y < SAMPLE_SIZE; y++) {
+					sum += COSINES[v][y] * rowFrequencies[y][u];
+				}
+				coefficients[v * FREQUENCIES + u] = sum;
+			}
+		}
+		// the mean brightness (DC coefficient) would dominate the median
+		double[] acCoefficients = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+		Arrays.sort(acCoefficients);
+		double median = acCoefficients[acCoefficients.length / 2];
+		long hash = 0;
+		for (int i = 0; i < coefficients.length; i++) {
+			if (coefficients[i] > median) {
+				hash |= 1L << i;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the Hamming distance of two hashes, i.e. the number of differing bits.
+	 *
+	 * @param pHash the first hash
+	 * @param pOtherHash the second hash
+	 * @return the distance between 0 (same hash) and 64
+	 */
+	public static int distance(final long pHash, final long pOtherHash) {
+		return Long.bitCount(pHash ^ pOtherHash);
+	}
+}
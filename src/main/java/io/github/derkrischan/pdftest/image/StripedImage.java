@@ -0,0 +1,152 @@
+package io.github.derkrischan.pdftest.image;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An image that is decoded in horizontal strips of rows on demand, so images larger than the available heap can
+ * be digested and compared row by row. Only a single strip is held in memory at a time. The comparisons of
+ * {@link ImageComparator}, {@link ImagePyramid} and {@link ImageTolerance} read the rows top down, so every strip
+ * is decoded once. A decoder may keep its state, e.g. an open decoded stream, from one strip to the next, so the
+ * striped image has to be closed after use.
+ *
+ * @author krischan
+ *
+ */
+public final class StripedImage implements Closeable {
+
+	/** the image width */
+	private final int width;
+
+	/** the image height */
+	private final int height;
+
+	/** the number of rows per strip */
+	private final int stripRows;
+
+	/** decodes the strips */
+	private final StripDecoder decoder;
+
+	/**
+	 * Private constructor, see the static factory methods.
+	 *
+	 * @param pWidth the image width
+	 * @param pHeight the image height
+	 * @param pStripRows the number of rows per strip
+	 * @param pDecoder decodes the strips
+	 */
+	private StripedImage(final int pWidth, final int pHeight, final int pStripRows, final StripDecoder pDecoder) {
+		width = pWidth;
+		height = pHeight;
+		stripRows = pStripRows;
+		decoder = pDecoder;
+	}
+
+	/**
+	 * Wraps an image that is already decoded as a single strip.
+	 *
+	 * @param pImage the decoded image
+	 * @return the striped image
+	 */
+	public static StripedImage of(final BufferedImage pImage) {
+		return new StripedImage(pImage.getWidth(), pImage.getHeight(), Math.max(1, pImage.getHeight()),
+				(firstRow, rows) -> pImage);
+	}
+
+	/**
+	 * Creates an image decoded in strips by the given decoder.
+	 *
+	 * @param pWidth the image width
+	 * @param pHeight the image height
+	 * @param pStripRows the number of rows per strip, the last strip may have less
+	 * @param pDecoder decodes the strips
+	 * @return the striped image
+	 */
+	public static StripedImage of(final int pWidth, final int pHeight, final int pStripRows, final StripDecoder pDecoder) {
+		if (pStripRows < 1) {
+			throw new IllegalArgumentException("Strips must have at least one row.");
+		}
+		return new StripedImage(pWidth, pHeight, pStripRows, pDecoder);
+	}
+
+	/**
+	 * Returns the image width.
+	 *
+	 * @return the image width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the image height.
+	 *
+	 * @return the image height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of rows per strip.
+	 *
+	 * @return the rows per strip
+	 */
+	public int getStripRows() {
+		return stripRows;
+	}
+
+	/**
+	 * Decodes the strip starting at the given row.
+	 *
+	 * @param pFirstRow the first row of the strip, a multiple of {@link #getStripRows()}
+	 * @return the decoded strip, as wide as the image
+	 * @throws IOException in case the strip cannot be decoded
+	 */
+	BufferedImage decodeStrip(final int pFirstRow) throws IOException {
+		return decoder.decode(pFirstRow, Math.min(stripRows, height - pFirstRow));
+	}
+
+	/**
+	 * Releases the state kept by the decoder.
+	 *
+	 * @throws IOException in case the state cannot be released
+	 */
+	@Override
+	public void close() throws IOException {
+		decoder.close();
+	}
+
+	/**
+	 * Decodes a strip of rows of an image. The strips are requested top down, a decoder may keep its state from one
+	 * strip to the next until it is closed.
+	 *
+	 * @author krischan
+	 *
+	 */
+	@FunctionalInterface
+	public interface StripDecoder extends Closeable {
+
+		/**
+		 * Decodes the given rows of the image.
+		 *
+		 * @param pFirstRow the first row to decode
+		 * @param pRows the number of rows to decode
+		 * @return the decoded rows as an image of the full width, the first row of the image is the first row of
+		 *         the strip
+		 * @throws IOException in case the rows cannot be decoded
+		 */
+		BufferedImage decode(int pFirstRow, int pRows) throws IOException;
+
+		/**
+		 * Releases the state kept by the decoder, does nothing by default.
+		 *
+		 * @throws IOException in case the state cannot be released
+		 */
+		@Override
+		default void close() throws IOException {
+			// NOP
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package io.github.derkrischan.pdftest.io;
+
+/**
+ * Strategies to read a PDF document from a file system location.
+ *
+ * @author krischan
+ *
+ */
+public enum LoadingMode {
+
+	/**
+	 * Reads the file through PDFBox' buffered file reader which copies the accessed
+	 * parts of the file into a small heap page cache. This is the default.
+	 */
+	BUFFERED,
+
+	/**
+	 * Maps the file read-only into memory (see {@link MemoryMappedRandomAccessRead}) so that
+	 * the parser works directly on the mapped pages of the operating system's page cache without
+	 * copying them to the heap. Recommended for very large documents.
+	 */
+	MEMORY_MAPPED;
+}
@@ -0,0 +1,185 @@
+package io.github.derkrischan.pdftest.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
+
+/**
+ * Read-only {@link RandomAccessRead} on top of a memory mapped file.
+ * Unlike PDFBox' own memory mapped reader the file is mapped in several chunks, so files larger
+ * than 2 GB are supported as well. The parser reads directly from the mapped pages, no part of
+ * the file is copied to the heap.
+ * <p>
+ * Instances are not thread safe, as any other {@link RandomAccessRead}.
+ *
+ * @author krischan
+ *
+ */
+public class MemoryMappedRandomAccessRead implements RandomAccessRead {
+
+	/** default size of a single mapping: 1 GB */
+	static final int DEFAULT_CHUNK_SHIFT = 30;
+
+	/** the mapped chunks of the file, all but the last one have the full chunk size */
+	private MappedByteBuffer[] chunks;
+
+	/** number of bits to shift a position to get its chunk index */
+	private final int chunkShift;
+
+	/** bit mask to get the offset of a position within its chunk */
+	private final long chunkMask;
+
+	/** the file length in bytes */
+	private final long size;
+
+	/** the current read position */
+	private long position;
+
+	/**
+	 * Maps the given file into memory.
+	 *
+	 * @param pFile the file to map
+	 * @throws IOException in case the file cannot be opened or mapped
+	 */
+	public MemoryMappedRandomAccessRead(final File pFile) throws IOException {
+		this(pFile.toPath());
+	}
+
+	/**
+	 * Maps the given file into memory.
+	 *
+	 * @param pPath the path of the file to map
+	 * @throws IOException in case the file cannot be opened or mapped
+	 */
+	public MemoryMappedRandomAccessRead(final Path pPath) throws IOException {
+		this(pPath, DEFAULT_CHUNK_SHIFT);
+	}
+
+	/**
+	 * Maps the given file into memory using chunks of <code>2^pChunkShift</code> bytes.
+	 *
+	 * @param pPath the path of the file to map
+	 * @param pChunkShift the binary logarithm of the chunk size (at most 30)
+	 * @throws IOException in case the file cannot be opened or mapped
+	 */
+	MemoryMappedRandomAccessRead(final Path pPath, final int pChunkShift) throws IOException {
+		if (pChunkShift < 1 || pChunkShift > DEFAULT_CHUNK_SHIFT) {
+			throw new IllegalArgumentException("Illegal chunk size provided.");
+		}
+		chunkShift = pChunkShift;
+		chunkMask = (1L << pChunkShift) - 1;
+		// mappings stay valid after the channel is closed, so no file handle is kept open
+		try (FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ)) {
+			size = channel.size();
+			int chunkCount = (int) ((size + chunkMask) >>> chunkShift);
+			chunks = new MappedByteBuffer[chunkCount];
+			for (int i = 0; i < chunkCount; i++) {
+				long start = (long) i << chunkShift;
+				chunks[i] = channel.map(MapMode.READ_ONLY, start, Math.min(chunkMask + 1, size - start));
+			}
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		if (position >= size) {
+			return -1;
+		}
+		int value = chunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask)) & 0xff;
+		position++;
+		return value;
+	}
+
+	@Override
+	public int read(final byte[] pBuffer, final int pOffset, final int pLength) throws IOException {
+		checkClosed();
+		if (position >= size) {
+			return -1;
+		}
+		int total = (int) Math.min(pLength, size - position);
+		int done = 0;
+		while (done < total) {
+			MappedByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+			int offsetInChunk = (int) (position & chunkMask);
+			int count = Math.min(total - done, chunk.capacity() - offsetInChunk);
+			// cast needed for Java 8 compatibility of the byte code
+			((Buffer) chunk).position(offsetInChunk);
+			chunk.get(pBuffer, pOffset + done, count);
+			done += count;
+			position += count;
+		}
+		return total;
+	}
+
+	@Override
+	public long getPosition() throws IOException {
+		checkClosed();
+		return position;
+	}
+
+	@Override
+	public void seek(final long pPosition) throws IOException {
+		checkClosed();
+		if (pPosition < 0) {
+			throw new IOException("Invalid position " + pPosition);
+		}
+		position = Math.min(pPosition, size);
+	}
+
+	@Override
+	public long length() throws IOException {
+		checkClosed();
+		return size;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return chunks == null;
+	}
+
+	@Override
+	public boolean isEOF() throws IOException {
+		checkClosed();
+		return position >= size;
+	}
+
+	@Override
+	public RandomAccessReadView createView(final long pStartPosition, final long pStreamLength) throws IOException {
+		checkClosed();
+		return new RandomAccessReadView(this, pStartPosition, pStreamLength);
+	}
+
+	/**
+	 * Releases all mappings. Reading from this instance afterwards results in an {@link IOException}.
+	 */
+	@Override
+	public void close() {
+		if (chunks != null) {
+			for (MappedByteBuffer chunk : chunks) {
+				IOUtils.unmap(chunk);
+			}
+			chunks = null;
+		}
+	}
+
+	/**
+	 * Ensures that this reader is still open.
+	 *
+	 * @throws IOException in case this reader is already closed
+	 */
+	private void checkClosed() throws IOException {
+		if (chunks == null) {
+			throw new IOException("MemoryMappedRandomAccessRead already closed");
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package io.github.derkrischan.pdftest.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadWriteBuffer;
+
+/**
+ * Defines how a PDF document given as {@link InputStream} is buffered before it is parsed. A PDF
+ * can't be parsed from a stream directly because the parser needs random access to the data, so
+ * the stream is either copied to the heap or to a temporary scratch file. On heap the stream is stored in
+ * small chunks, so buffering never holds more than the heap budget and never copies the buffered bytes.
+ * <p>
+ * Scratch files are deleted as soon as the buffer is closed, which happens when the parsed
+ * document is closed.
+ *
+ * @author krischan
+ *
+ */
+public final class StreamBufferPolicy {
+
+	/** prefix of the scratch file names */
+	private static final String SCRATCH_FILE_PREFIX = "jpdftest-";
+
+	/** size of the copy buffer when reading the stream */
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	/** maximum number of bytes kept on heap, streams above are spilled to disk */
+	private final long heapBudget;
+
+	/** directory for scratch files, <code>null</code> for the system temporary directory */
+	private final File tempDirectory;
+
+	/**
+	 * Private constructor, use the static factory methods.
+	 *
+	 * @param pHeapBudget maximum number of bytes kept on heap
+	 * @param pTempDirectory directory for scratch files, <code>null</code> for the system default
+	 */
+	private StreamBufferPolicy(final long pHeapBudget, final File pTempDirectory) {
+		heapBudget = pHeapBudget;
+		tempDirectory = pTempDirectory;
+	}
+
+	/**
+	 * Buffers the whole stream on heap regardless of its size. This is the default policy.
+	 *
+	 * @return a heap only policy
+	 */
+	public static StreamBufferPolicy heapOnly() {
+		return new StreamBufferPolicy(Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Buffers every stream in a temporary scratch file.
+	 *
+	 * @return a disk only policy
+	 */
+	public static StreamBufferPolicy tempFileOnly() {
+		return new StreamBufferPolicy(0, null);
+	}
+
+	/**
+	 * Buffers streams on heap up to the given number of bytes. Larger streams are spilled to a
+	 * temporary scratch file.
+	 *
+	 * @param pHeapBudgetInBytes the maximum number of bytes buffered on heap per stream
+	 * @return a mixed policy
+	 */
+	public static StreamBufferPolicy spillToDiskAbove(final long pHeapBudgetInBytes) {
+		if (pHeapBudgetInBytes < 0) {
+			throw new IllegalArgumentException("Heap budget cannot be negative.");
+		}
+		return new StreamBufferPolicy(pHeapBudgetInBytes, null);
+	}
+
+	/**
+	 * Returns a copy of this policy that creates its scratch files in the given directory.
+	 *
+	 * @param pTempDirectory the scratch file directory
+	 * @return a new policy with the same heap budget
+	 */
+	public StreamBufferPolicy withTempDirectory(final File pTempDirectory) {
+		return new StreamBufferPolicy(heapBudget, pTempDirectory);
+	}
+
+	/**
+	 * Returns the maximum number of bytes buffered on heap per stream.
+	 *
+	 * @return the heap budget in bytes
+	 */
+	public long getHeapBudget() {
+		return heapBudget;
+	}
+
+	/**
+	 * Reads the given stream completely into a random access buffer according to this policy.
+	 * The stream is not closed.
+	 *
+	 * @param pInputStream the stream to buffer
+	 * @return the buffered stream content, the caller has to close it
+	 * @throws IOException in case of an error reading the stream or writing the scratch file
+	 */
+	public RandomAccessRead buffer(final InputStream pInputStream) throws IOException {
+		RandomAccessReadWriteBuffer heap = new RandomAccessReadWriteBuffer();
+		byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+		try {
+			int read;
+			while ((read = pInputStream.read(copyBuffer)) != -1) {
+				if (heap.length() + read > heapBudget) {
+					// the heap budget is exhausted, continue on disk
+					return spill(heap, copyBuffer, read, pInputStream);
+				}
+				heap.write(copyBuffer, 0, read);
+			}
+			heap.seek(0);
+			return heap;
+		} catch (IOException | RuntimeException e) {
+			heap.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the already buffered bytes and the remaining stream to a new scratch file. The heap buffer is
+	 * closed afterwards.
+	 *
+	 * @param pHeap the bytes already buffered on heap
+	 * @param pPending the bytes read after the heap buffer
+	 * @param pPendingLength the number of valid bytes in pPending
+	 * @param pRemainder the stream to read the rest from
+	 * @return a reader on the scratch file that deletes the file on close
+	 * @throws IOException in case of an error writing the scratch file
+	 */
+	private RandomAccessRead spill(final RandomAccessReadWriteBuffer pHeap, final byte[] pPending,
+			final int pPendingLength, final InputStream pRemainder) throws IOException {
+		Path scratchFile = tempDirectory == null ? Files.createTempFile(SCRATCH_FILE_PREFIX, ".pdf")
+				: Files.createTempFile(tempDirectory.toPath(), SCRATCH_FILE_PREFIX, ".pdf");
+		try {
+			try (OutputStream out = Files.newOutputStream(scratchFile)) {
+				byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+				int read;
+				pHeap.seek(0);
+				while ((read = pHeap.read(copyBuffer)) > 0) {
+					out.write(copyBuffer, 0, read);
+				}
+				pHeap.close();
+				out.write(pPending, 0, pPendingLength);
+				while ((read = pRemainder.read(copyBuffer)) != -1) {
+					out.write(copyBuffer, 0, read);
+				}
+			}
+			return new ScratchFileRandomAccessRead(scratchFile);
+		} catch (IOException e) {
+			Files.deleteIfExists(scratchFile);
+			throw e;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "StreamBufferPolicy [heapBudget=" + heapBudget + ", tempDirectory=" + tempDirectory + "]";
+	}
+
+	/**
+	 * Buffered file reader on a scratch file that deletes the file when it is closed.
+	 *
+	 * @author krischan
+	 *
+	 */
+	static final class ScratchFileRandomAccessRead extends RandomAccessReadBufferedFile {
+
+		/** the scratch file to delete on close */
+		private final Path scratchFile;
+
+		/**
+		 * Opens the given scratch file.
+		 *
+		 * @param pScratchFile the scratch file
+		 * @throws IOException in case the file cannot be opened
+		 */
+		ScratchFileRandomAccessRead(final Path pScratchFile) throws IOException {
+			super(pScratchFile);
+			scratchFile = pScratchFile;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				Files.deleteIfExists(scratchFile);
+			}
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package io.github.derkrischan.pdftest.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Immutable, compiled set of phrases that finds the first occurrence of every phrase in a single pass over a
+ * text, independent of the number of phrases (Aho-Corasick automaton). Compiling is the expensive part, so a
+ * set of required or forbidden phrases should be compiled once and reused for all documents under test. The
+ * set is thread safe.
+ * <p>
+ * Phrases are matched case sensitive like {@link String#contains(CharSequence)}.
+ *
+ * @author krischan
+ *
+ */
+public final class PhraseSet {
+
+	/** the distinct phrases in the order of compilation */
+	private final List<String> phrases;
+
+	/** the sorted characters of the outgoing edges per node */
+	private final char[][] edgeChars;
+
+	/** the target nodes of the outgoing edges per node, parallel to {@link #edgeChars} */
+	private final int[][] edgeTargets;
+
+	/** the failure link per node: the node of the longest proper suffix that is a prefix of a phrase */
+	private final int[] failure;
+
+	/** the index of the phrase ending at a node or -1 */
+	private final int[] phraseAtNode;
+
+	/** the nearest node on the failure chain where a phrase ends or -1 */
+	private final int[] outputLink;
+
+	/**
+	 * Private constructor, see {@link #compile(Collection)}.
+	 *
+	 * @param pPhrases the distinct phrases
+	 */
+	private PhraseSet(final List<String> pPhrases) {
+		phrases = Collections.unmodifiableList(pPhrases);
+		List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		List<Integer> phraseAt = new ArrayList<>();
+		phraseAt.add(-1);
+		for (int index = 0; index < pPhrases.size(); index++) {
+			int node = 0;
+			for (char c : pPhrases.get(index).toCharArray()) {
+				Integer next = trie.get(node).get(c);
+				if (next == null) {
+					next = trie.size();
+					trie.get(node).put(c, next);
+					trie.add(new TreeMap<>());
+					phraseAt.add(-1);
+				}
+				node = next;
+			}
+			phraseAt.set(node, index);
+		}
+		int nodes = trie.size();
+		edgeChars = new char[nodes][];
+		edgeTargets = new int[nodes][];
+		phraseAtNode = new int[nodes];
+		for (int node = 0; node < nodes; node++) {
+			Map<Character, Integer> edges = trie.get(node);
+			edgeChars[node] = new char[edges.size()];
+			edgeTargets[node] = new int[edges.size()];
+			int edge = 0;
+			for (Map.Entry<Character, Integer> entry : edges.entrySet()) {
+				edgeChars[node][edge] = entry.getKey();
+				edgeTargets[node][edge++] = entry.getValue();
+			}
+			phraseAtNode[node] = phraseAt.get(node);
+		}
+		failure = new int[nodes];
+		outputLink = new int[nodes];
+		linkNodes();
+	}
+
+	/**
+	 * Compiles the given phrases. Duplicates are removed.
+	 *
+	 * @param pPhrases the phrases to search for
+	 * @return the compiled phrase set
+	 */
+	public static PhraseSet compile(final Collection<String> pPhrases) {
+		if (pPhrases == null) {
+			throw new IllegalArgumentException("Phrases cannot be NULL.");
+		}
+		List<String> distinct = new ArrayList<>(new LinkedHashSet<>(pPhrases));
+		if (distinct.contains(null)) {
+			throw new IllegalArgumentException("Phrases cannot contain NULL.");
+		}
+		return new PhraseSet(distinct);
+	}
+
+	/**
+	 * Compiles the given phrases. Duplicates are removed.
+	 *
+	 * @param pPhrases the phrases to search for
+	 * @return the compiled phrase set
+	 */
+	public static PhraseSet compile(final String... pPhrases) {
+		return compile(Arrays.asList(pPhrases));
+	}
+
+	/**
+	 * Returns the distinct phrases of this set.
+	 *
+	 * @return the phrases in the order of compilation
+	 */
+	public List<String> getPhrases() {
+		return phrases;
+	}
+
+	/**
+	 * Returns the number of distinct phrases of this set.
+	 *
+	 * @return the number of phrases
+	 */
+	public int size() {
+		return phrases.size();
+	}
+
+	/**
+	 * Finds the first occurrence of every phrase in the given text in a single pass. The search ends as soon
+	 * as all phrases have been found.
+	 *
+	 * @param pText the text to search
+	 * @return the start index of the first occurrence per phrase (in the order of {@link #getPhrases()}), -1
+	 *         for phrases not contained in the text
+	 */
+	public int[] findFirstOccurrences(final CharSequence pText) {
+		int[] first = new int[phrases.size()];
+		Arrays.fill(first, -1);
+		int missing = phrases.size();
+		if (phraseAtNode[0] >= 0) {
+			// the empty phrase is contained in every text
+			first[phraseAtNode[0]] = 0;
+			missing--;
+		}
+		int node = 0;
+		int length = pText.length();
+		for (int position = 0; position < length && missing > 0; position++) {
+			node = step(node, pText.charAt(position));
+			for (int output = phraseAtNode[node] >= 0 ? node : outputLink[node]; output > 0; output = outputLink[output]) {
+				int phrase = phraseAtNode[output];
+				if (first[phrase] < 0) {
+					first[phrase] = position - phrases.get(phrase).length() + 1;
+					missing--;
+				}
+			}
+		}
+		return first;
+	}
+
+	@Override
+	public String toString() {
+		return "PhraseSet [phrases=" + phrases.size() + ", nodes=" + failure.length + "]";
+	}
+
+	/**
+	 * Follows the edge for the given character, falling back along the failure links.
+	 *
+	 * @param pNode the current node
+	 * @param pChar the next character of the text
+	 * @return the next node
+	 */
+	private int step(final int pNode, final char pChar) {
+		int node = pNode;
+		while (true) {
+			int next = child(node, pChar);
+			if (next >= 0) {
+				return next;
+			}
+			if (node == 0) {
+				return 0;
+			}
+			node = failure[node];
+		}
+	}
+
+	/**
+	 * Returns the target of the outgoing edge for the given character.
+	 *
+	 * @param pNode the node
+	 * @param pChar the character
+	 * @return the target node or -1 if there is no such edge
+	 */
+	private int child(final int pNode, final char pChar) {
+		int edge = Arrays.binarySearch(edgeChars[pNode], pChar);
+		return edge < 0 ? -1 : edgeTargets[pNode][edge];
+	}
+
+	/**
+	 * Computes the failure and output links in breadth first order.
+	 */
+	private void linkNodes() {
+		Queue<Integer> queue = new ArrayDeque<>();
+		outputLink[0] = -1;
+		for (int child : edgeTargets[0]) {
+			failure[child] = 0;
+			outputLink[child] = -1;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			for (int edge = 0; edge < edgeChars[node].length; edge++) {
+				char c = edgeChars[node][edge];
+				int child = edgeTargets[node][edge];
+				int fallback = step(failure[node], c);
+				failure[child] = fallback;
+				outputLink[child] = phraseAtNode[fallback] >= 0 && fallback > 0 ? fallback : outputLink[fallback];
+				queue.add(child);
+			}
+		}
+	}
+}
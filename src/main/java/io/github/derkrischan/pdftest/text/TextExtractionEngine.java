@@ -0,0 +1,25 @@
+package io.github.derkrischan.pdftest.text;
+
+/**
+ * Strategies to extract the text of a PDF document for text assertions.
+ *
+ * @author krischan
+ *
+ */
+public enum TextExtractionEngine {
+
+	/**
+	 * Extracts the text with PDFBox' text stripper which sorts the glyphs into words, lines and paragraphs
+	 * like they appear on the page. The text is cached per page. This is the default.
+	 */
+	LAYOUT,
+
+	/**
+	 * Scans the text showing operators of the content streams and decodes them through the fonts' ToUnicode
+	 * maps and encodings without any layout analysis. Words and lines are separated by the gaps between the
+	 * glyphs but appear in content stream order, so the text is suited for <code>contains</code> and
+	 * <code>doesNotContain</code> checks, not for comparing layouted text. Considerably faster than
+	 * {@link #LAYOUT} for large documents.
+	 */
+	FAST;
+}
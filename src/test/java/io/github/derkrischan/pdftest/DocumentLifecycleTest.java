@@ -0,0 +1,142 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.After;
+import org.junit.Test;
+
+import io.github.derkrischan.pdftest.page.PaperSize;
+
+/**
+ * Tests for releasing documents under test and detecting leaked documents.
+ *
+ * @author krischan
+ *
+ */
+public class DocumentLifecycleTest {
+
+	private static final File DUMMY = new File("src/test/resources/pdf/dummy.pdf");
+
+	@After
+	public void resetSettings() {
+		PdfAssertions.setLeakDetector(null);
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		PdfAssertions.setDocumentCache(null);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	@Test
+	public void givenTryWithResources_shouldCloseDocument() {
+		PDDocument document;
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(DUMMY)) {
+			document = pdfAssert.getPdfUnderTest();
+			pdfAssert.pageCount().isEqualTo(1);
+		}
+		assertThat(document.getDocument().isClosed()).isTrue();
+	}
+
+	@Test
+	public void givenReleaseAtEndOfChain_shouldCloseDocument() {
+		PdfAssert pdfAssert = PdfAssertions.assertThat(DUMMY);
+		PDDocument document = pdfAssert.getPdfUnderTest();
+
+		pdfAssert.pageCount().isEqualTo(1).document().author().isNotBlank().release();
+
+		assertThat(document.getDocument().isClosed()).isTrue();
+	}
+
+	@Test
+	public void givenLazyAsserter_shouldCloseMetadataAndLoadedDocument() {
+		DocumentLeakDetector leakDetector = new DocumentLeakDetector(leak -> { });
+		PdfAssertions.setLeakDetector(leakDetector);
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(DUMMY);
+		PDDocument full = pdfAssert.getPdfUnderTest();
+		assertThat(leakDetector.getUnreleasedDocuments()).hasSize(2);
+
+		pdfAssert.release();
+
+		assertThat(full.getDocument().isClosed()).isTrue();
+		assertThat(leakDetector.getUnreleasedDocuments()).isEmpty();
+	}
+
+	@Test
+	public void givenPageAsserters_shouldReleaseDocumentViaOrigin() {
+		DocumentLeakDetector leakDetector = new DocumentLeakDetector(leak -> { });
+		PdfAssertions.setLeakDetector(leakDetector);
+		try (PdfPageAssert page = PdfAssertions.assertThatLazily(DUMMY).page(1)) {
+			page.textInRegion(new Rectangle(0, 0, 600, 800)).contains("Dummy");
+		}
+		assertThat(leakDetector.getUnreleasedDocuments()).isEmpty();
+
+		PdfAssert pdfAssert = PdfAssertions.assertThat(DUMMY);
+		pdfAssert.eachPage(page -> page.hasPaperSize(PaperSize.A4).release());
+		assertThat(leakDetector.getUnreleasedDocuments()).isEmpty();
+	}
+
+	@Test
+	public void givenPageAsserterOfCachedDocument_shouldDropReferenceOnlyOnce() {
+		File twoPages = new File("src/test/resources/pdf/2_page_dummy.pdf");
+		PdfAssertions.setDocumentCache(new PdfDocumentCache(DUMMY.length() + twoPages.length() - 1));
+		PdfAssert first = PdfAssertions.assertThat(DUMMY);
+		PdfAssert second = PdfAssertions.assertThat(DUMMY);
+		first.page(1).release();
+		first.release();
+		// evicts the dummy document, which is still held by the second asserter
+		PdfAssertions.assertThat(twoPages).release();
+
+		assertThat(second.getPdfUnderTest().getDocument().isClosed()).isFalse();
+		second.page(1).release();
+		assertThat(second.getPdfUnderTest().getDocument().isClosed()).isTrue();
+	}
+
+	@Test
+	public void givenCachedDocument_shouldKeepDocumentOpen() {
+		PdfAssertions.setDocumentCache(new PdfDocumentCache(10 * 1024 * 1024));
+		PDDocument document;
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(DUMMY)) {
+			document = pdfAssert.getPdfUnderTest();
+		}
+		assertThat(document.getDocument().isClosed()).isFalse();
+		assertThat(PdfAssertions.assertThat(DUMMY).getPdfUnderTest()).isSameAs(document);
+	}
+
+	@Test
+	public void givenReleasedDocument_shouldNotReportLeak() {
+		DocumentLeakDetector leakDetector = new DocumentLeakDetector(leak -> { });
+		PdfAssertions.setLeakDetector(leakDetector);
+
+		PdfAssert pdfAssert = PdfAssertions.assertThat(DUMMY);
+		assertThat(leakDetector.getUnreleasedDocuments()).hasSize(1);
+		pdfAssert.release();
+
+		assertThat(leakDetector.getUnreleasedDocuments()).isEmpty();
+	}
+
+	@Test
+	public void givenUnreleasedDocument_shouldReportLeakWithAllocationSite() throws InterruptedException {
+		List<Throwable> leaks = new ArrayList<>();
+		DocumentLeakDetector leakDetector = new DocumentLeakDetector(leaks::add);
+		PdfAssertions.setLeakDetector(leakDetector);
+
+		PdfAssertions.assertThat(DUMMY).pageCount().isEqualTo(1);
+
+		for (int i = 0; i < 50 && leaks.isEmpty(); i++) {
+			System.gc();
+			Thread.sleep(20);
+			leakDetector.checkForLeaks();
+		}
+		assertThat(leaks).hasSize(1);
+		assertThat(leaks.get(0)).hasMessageContaining(DUMMY.getPath());
+		assertThat(leaks.get(0).getStackTrace()).anyMatch(
+				element -> element.getMethodName().equals("givenUnreleasedDocument_shouldReportLeakWithAllocationSite"));
+		assertThat(leakDetector.getLeakCount()).isEqualTo(1);
+	}
+}
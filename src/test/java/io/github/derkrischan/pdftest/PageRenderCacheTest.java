@@ -0,0 +1,168 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.github.derkrischan.pdftest.io.LoadingMode;
+
+/**
+ * Tests for the persistent cache of rendered pages.
+ *
+ * @author krischan
+ *
+ */
+public class PageRenderCacheTest {
+
+	private static final File TWO_PAGES = new File("src/test/resources/pdf/2_page_dummy.pdf");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void deactivateCache() {
+		PdfAssertions.setRenderCache(null);
+	}
+
+	@Test
+	public void givenCachedPage_shouldReadRenderingFromDisk() throws Exception {
+		PageRenderCache cache = new PageRenderCache(folder.getRoot().toPath().resolve("renderings"), 64 * 1024 * 1024);
+		PdfAssertions.setRenderCache(cache);
+		BufferedImage rendered = render(0, ImageType.RGB);
+
+		BufferedImage cached = render(0, ImageType.RGB);
+
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertSamePixels(cached, rendered);
+		assertThat(cacheFiles(cache)).hasSize(1);
+
+		File baseline = new File(folder.getRoot(), "page-1.png");
+		ImageIO.write(rendered, "png", baseline);
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null);
+		assertThat(cache.getHitCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void givenColourModes_shouldCacheEachModeSeparately() throws Exception {
+		PageRenderCache cache = new PageRenderCache(folder.getRoot().toPath(), 64 * 1024 * 1024);
+		PdfAssertions.setRenderCache(cache);
+		for (ImageType type : new ImageType[] { ImageType.GRAY, ImageType.BINARY, ImageType.ARGB }) {
+			BufferedImage rendered = render(1, type);
+			BufferedImage cached = render(1, type);
+			assertThat(cached.getType()).isEqualTo(rendered.getType());
+			assertSamePixels(cached, rendered);
+		}
+		assertThat(cache.getHitCount()).isEqualTo(3);
+		assertThat(cacheFiles(cache)).hasSize(3);
+	}
+
+	@Test
+	public void givenRegion_shouldCacheRegionSeparatelyFromPage() throws Exception {
+		PageRenderCache cache = new PageRenderCache(folder.getRoot().toPath(), 64 * 1024 * 1024);
+		PdfAssertions.setRenderCache(cache);
+		Rectangle2D region = new Rectangle2D.Double(36, 36, 144, 72);
+		BufferedImage page = render(0, ImageType.RGB);
+		PDDocument document = PdfLoader.loadFile(TWO_PAGES, null, LoadingMode.BUFFERED);
+		try {
+			BufferedImage rendered = PageRenderer.renderRegion(document, 0, region, 50);
+			BufferedImage cached = PageRenderer.renderRegion(document, 0, region, 50);
+			assertSamePixels(cached, rendered);
+			assertSamePixels(rendered, page.getSubimage(25, 25, 100, 50));
+		} finally {
+			PdfLoader.close(document);
+		}
+		assertThat(cache.getMissCount()).isEqualTo(2);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cacheFiles(cache)).hasSize(2);
+	}
+
+	@Test
+	public void givenExceededSize_shouldEvictLeastRecentlyUsedRendering() throws Exception {
+		BufferedImage page = render(0, ImageType.RGB);
+		long pixels = (long) page.getWidth() * page.getHeight();
+		// room for a single rendering of three bytes per pixel
+		PageRenderCache cache = new PageRenderCache(folder.getRoot().toPath(), 14 + pixels * 4);
+		PdfAssertions.setRenderCache(cache);
+		render(0, ImageType.RGB);
+		Path first = cacheFiles(cache)[0];
+		Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+		render(1, ImageType.RGB);
+
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cacheFiles(cache)).hasSize(1).doesNotContain(first);
+	}
+
+	@Test
+	public void givenTemporaryFiles_shouldCountThemAndDeleteStaleOnes() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		Path stale = Files.write(directory.resolve("crashed.raster123.tmp"), new byte[1000]);
+		Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - 2 * 60 * 60 * 1000L));
+		Path writing = Files.write(directory.resolve("writing.raster456.tmp"), new byte[1000]);
+		BufferedImage page = render(0, ImageType.RGB);
+		// room for a single rendering of three bytes per pixel and the temporary file still being written
+		PageRenderCache cache = new PageRenderCache(directory, 14 + (long) page.getWidth() * page.getHeight() * 3 + 1000);
+		PdfAssertions.setRenderCache(cache);
+		render(0, ImageType.RGB);
+
+		render(1, ImageType.RGB);
+
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cacheFiles(cache)).hasSize(2).contains(writing).doesNotContain(stale);
+	}
+
+	@Test
+	public void givenCorruptCacheFile_shouldRenderAgain() throws Exception {
+		PageRenderCache cache = new PageRenderCache(folder.getRoot().toPath(), 64 * 1024 * 1024);
+		PdfAssertions.setRenderCache(cache);
+		BufferedImage rendered = render(0, ImageType.RGB);
+		Files.write(cacheFiles(cache)[0], new byte[] { 1, 2, 3 });
+
+		assertSamePixels(render(0, ImageType.RGB), rendered);
+		assertThat(cache.getMissCount()).isEqualTo(2);
+		assertSamePixels(render(0, ImageType.RGB), rendered);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+	}
+
+	private static BufferedImage render(final int pPageIndex, final ImageType pImageType) throws IOException {
+		PDDocument document = PdfLoader.loadFile(TWO_PAGES, null, LoadingMode.BUFFERED);
+		try {
+			return PageRenderer.render(document, pPageIndex, 50, pImageType);
+		} finally {
+			PdfLoader.close(document);
+		}
+	}
+
+	private static Path[] cacheFiles(final PageRenderCache pCache) throws IOException {
+		try (Stream<Path> files = Files.list(pCache.getDirectory())) {
+			return files.toArray(Path[]::new);
+		}
+	}
+
+	private static void assertSamePixels(final BufferedImage pActual, final BufferedImage pExpected) {
+		assertThat(pActual.getWidth()).isEqualTo(pExpected.getWidth());
+		assertThat(pActual.getHeight()).isEqualTo(pExpected.getHeight());
+		for (int y = 0; y < pExpected.getHeight(); y++) {
+			for (int x = 0; x < pExpected.getWidth(); x++) {
+				assertThat(pActual.getRGB(x, y)).isEqualTo(pExpected.getRGB(x, y));
+			}
+		}
+	}
+}
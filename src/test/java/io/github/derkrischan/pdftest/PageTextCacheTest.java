@@ -0,0 +1,124 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts.FontName;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the per page text cache.
+ *
+ * @author krischan
+ *
+ */
+public class PageTextCacheTest {
+
+	private static final File LONG_TEXT = new File("src/test/resources/pdf/long_text.pdf");
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void givenPageRanges_shouldEqualTextOfSingleExtraction() throws IOException {
+		try (PDDocument document = Loader.loadPDF(LONG_TEXT)) {
+			PageTextCache cache = PageTextCache.forDocument(document);
+			// mix of cached and missing pages in every request
+			int[][] ranges = { { 2, 3 }, { 5, 5 }, { 1, 6 }, { 3, 5 }, { 6, 6 } };
+			for (int[] range : ranges) {
+				assertThat(cache.getText(document, range[0], range[1])).isEqualTo(strip(document, range[0], range[1]));
+			}
+		}
+	}
+
+	@Test
+	public void givenExtractedPages_shouldServeRangesFromCache() throws IOException {
+		PDDocument document = Loader.loadPDF(LONG_TEXT);
+		String expected = strip(document, 2, 4);
+		PageTextCache.forDocument(document).getText(document, 1, 6);
+		document.close();
+
+		assertThat(PageTextCache.forDocument(document).getText(document, 2, 4)).isEqualTo(expected);
+	}
+
+	@Test
+	public void givenRepeatedTextAssertions_shouldExtractEveryPageOnlyOnce() throws IOException {
+		PdfAssert pdfAssert = PdfAssertions.assertThat(LONG_TEXT);
+		pdfAssert.text().contains("Creative Commons Corporation");
+		// the document cannot be stripped anymore, all text has to come from the cache
+		pdfAssert.getPdfUnderTest().close();
+
+		pdfAssert.textBetweenPages(2, 3).isNotEmpty();
+		pdfAssert.text().contains("Creative Commons Corporation");
+	}
+
+	@Test
+	public void givenParallelExtraction_shouldEqualSequentialText() throws IOException {
+		File pdf = tempFolder.newFile("many_pages.pdf");
+		try (PDDocument document = new PDDocument()) {
+			PDType1Font font = new PDType1Font(FontName.HELVETICA);
+			for (int pageNumber = 1; pageNumber <= 50; pageNumber++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(font, 12);
+					content.newLineAtOffset(50, 700);
+					content.showText("Page " + pageNumber);
+					content.newLineAtOffset(0, -20);
+					content.showText("Second line of page " + pageNumber);
+					content.endText();
+				}
+			}
+			document.save(pdf);
+		}
+		PdfAssertions.setTextExtractionParallelism(4);
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			String expected = strip(pdfAssert.getPdfUnderTest(), 1, 50);
+			pdfAssert.text().isEqualTo(expected);
+		} finally {
+			PdfAssertions.setTextExtractionParallelism(1);
+		}
+	}
+
+	@Test
+	public void givenPageWithoutContent_shouldKeepPagesAligned() throws IOException {
+		try (PDDocument document = new PDDocument()) {
+			PDType1Font font = new PDType1Font(FontName.HELVETICA);
+			for (int pageNumber = 1; pageNumber <= 4; pageNumber++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				if (pageNumber % 2 == 1) {
+					try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+						content.beginText();
+						content.setFont(font, 12);
+						content.newLineAtOffset(50, 700);
+						content.showText("Page " + pageNumber);
+						content.endText();
+					}
+				}
+			}
+			PageTextCache cache = PageTextCache.forDocument(document);
+			assertThat(cache.getText(document, 1, 4)).isEqualTo(strip(document, 1, 4));
+			assertThat(cache.getText(document, 3, 3)).isEqualTo(strip(document, 3, 3));
+			assertThat(cache.getText(document, 4, 4)).isEmpty();
+		}
+	}
+
+	private static String strip(final PDDocument pDocument, final int pStartPage, final int pEndPage) throws IOException {
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(pStartPage);
+		stripper.setEndPage(pEndPage);
+		return stripper.getText(pDocument);
+	}
+}
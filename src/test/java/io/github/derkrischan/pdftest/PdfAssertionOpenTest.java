@@ -7,6 +7,9 @@ import java.nio.file.Paths;
 
 import org.junit.Test;
 
+import io.github.derkrischan.pdftest.io.LoadingMode;
+import io.github.derkrischan.pdftest.io.StreamBufferPolicy;
+
 /**
  * Tests for PDF text verification.
  * 
@@ -30,11 +33,38 @@ public class PdfAssertionOpenTest {
 		PdfAssertions.assertThat(Paths.get("src/test/resources/pdf/dummy.pdf")).pageCount().isEqualTo(1);
 	}
 
+	@Test
+	public void givenPdfAsFileWithMemoryMappedLoading_shouldCreatePdfAssertions() {
+		PdfAssertions.assertThat(new File("src/test/resources/pdf/long_text.pdf"), null, LoadingMode.MEMORY_MAPPED)
+			.pageCount().isEqualTo(6)
+			.document().text().contains("Creative Commons Corporation");
+	}
+
+	@Test
+	public void givenPdfAsPathWithGlobalMemoryMappedLoading_shouldCreatePdfAssertions() {
+		PdfAssertions.setLoadingMode(LoadingMode.MEMORY_MAPPED);
+		try {
+			PdfAssertions.assertThat(Paths.get("src/test/resources/pdf/dummy.pdf")).pageCount().isEqualTo(1);
+		} finally {
+			PdfAssertions.setLoadingMode(LoadingMode.BUFFERED);
+		}
+	}
+
 	@Test
 	public void givenPdfAsInputStream_shouldCreatePdfAssertions() {
 		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/dummy.pdf")).pageCount().isEqualTo(1);
 	}
 	
+	@Test
+	public void givenPdfAsInputStreamWithSpillToDiskPolicy_shouldCreatePdfAssertions() {
+		PdfAssertions.setStreamBufferPolicy(StreamBufferPolicy.spillToDiskAbove(1024));
+		try {
+			PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf")).pageCount().isEqualTo(6);
+		} finally {
+			PdfAssertions.setStreamBufferPolicy(StreamBufferPolicy.heapOnly());
+		}
+	}
+	
 	@Test
 	public void givenPdfAsByteArray_shouldCreatePdfAssertions() throws IOException {
 		PdfAssertions.assertThat(Files.readAllBytes(new File("src/test/resources/pdf/dummy.pdf").toPath())).pageCount().isEqualTo(1);
@@ -0,0 +1,108 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the process wide document cache.
+ *
+ * @author krischan
+ *
+ */
+public class PdfDocumentCacheTest {
+
+	private static final File DUMMY = new File("src/test/resources/pdf/dummy.pdf");
+
+	private static final File LONG_TEXT = new File("src/test/resources/pdf/long_text.pdf");
+
+	@After
+	public void disableCache() {
+		PdfDocumentCache cache = PdfAssertions.getDocumentCache();
+		PdfAssertions.setDocumentCache(null);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	@Test
+	public void givenSameFileTwice_shouldParseOnlyOnce() {
+		PdfDocumentCache cache = new PdfDocumentCache(10 * 1024 * 1024);
+		PdfAssertions.setDocumentCache(cache);
+
+		PDDocument first = PdfAssertions.assertThat(DUMMY).getPdfUnderTest();
+		PDDocument second = PdfAssertions.assertThat(DUMMY.getPath()).pageCount().isEqualTo(1).getPdfUnderTest();
+
+		assertThat(second).isSameAs(first);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getWeight()).isEqualTo(DUMMY.length());
+	}
+
+	@Test
+	public void givenSameContentAsBytesAndStream_shouldShareDocument() throws IOException {
+		PdfDocumentCache cache = new PdfDocumentCache(10 * 1024 * 1024);
+		PdfAssertions.setDocumentCache(cache);
+
+		PDDocument fromBytes = PdfAssertions.assertThat(Files.readAllBytes(DUMMY.toPath())).getPdfUnderTest();
+		PDDocument fromStream = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/dummy.pdf")).getPdfUnderTest();
+
+		assertThat(fromStream).isSameAs(fromBytes);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void givenDifferentPasswords_shouldNotShareDocument() {
+		PdfDocumentCache cache = new PdfDocumentCache(10 * 1024 * 1024);
+		PdfAssertions.setDocumentCache(cache);
+
+		PDDocument withoutPassword = PdfAssertions.assertThat(DUMMY).getPdfUnderTest();
+		PDDocument withPassword = PdfAssertions.assertThat(DUMMY, "secret").getPdfUnderTest();
+
+		assertThat(withPassword).isNotSameAs(withoutPassword);
+		assertThat(cache.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void givenExceededWeight_shouldEvictAndCloseLeastRecentlyUsedDocument() {
+		PdfDocumentCache cache = new PdfDocumentCache(LONG_TEXT.length() + DUMMY.length() / 2);
+		PdfAssertions.setDocumentCache(cache);
+
+		PDDocument dummy;
+		try (PdfAssert dummyAssert = PdfAssertions.assertThat(DUMMY)) {
+			dummy = dummyAssert.getPdfUnderTest();
+		}
+		PdfAssertions.assertThat(LONG_TEXT).pageCount().isEqualTo(6);
+
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(dummy.getDocument().isClosed()).isTrue();
+	}
+
+	@Test
+	public void givenEvictedDocumentHeldByAsserter_shouldCloseItWhenLastHolderIsReleased() {
+		PdfDocumentCache cache = new PdfDocumentCache(LONG_TEXT.length() + DUMMY.length() / 2);
+		PdfAssertions.setDocumentCache(cache);
+
+		PdfAssert first = PdfAssertions.assertThat(LONG_TEXT);
+		PdfAssert second = PdfAssertions.assertThat(LONG_TEXT);
+		PdfAssertions.assertThat(DUMMY).pageCount().isEqualTo(1);
+
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		first.text().contains("Creative Commons");
+		// releasing an asserter twice drops its reference only once
+		first.release();
+		first.document().release();
+		second.text().contains("Creative Commons");
+		assertThat(second.getPdfUnderTest().getDocument().isClosed()).isFalse();
+
+		second.release();
+		assertThat(second.getPdfUnderTest().getDocument().isClosed()).isTrue();
+	}
+}
@@ -1,8 +1,47 @@
 package io.github.derkrischan.pdftest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInputStream;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import io.github.derkrischan.pdftest.image.ImageComparator;
+import io.github.derkrischan.pdftest.image.ImageInRegion;
+import io.github.derkrischan.pdftest.image.ImageTolerance;
 import io.github.derkrischan.pdftest.image.MetricRectangle;
+import io.github.derkrischan.pdftest.image.StripedImage;
 
 /**
  * Unit tests for embedded image verification in PDFs. 
@@ -12,6 +51,9 @@ import io.github.derkrischan.pdftest.image.MetricRectangle;
  */
 public class PdfImageAssertionTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testAssertImageAtPage() throws Exception {
 		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
@@ -23,4 +65,321 @@ public class PdfImageAssertionTest {
 		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
 			.page(1).containsImageInRegion("src/test/resources/img/i_love_pdf.png", MetricRectangle.create(0, 110, 400, 200));
 	}
+
+	@Test
+	public void givenEmbeddedJpegFile_shouldMatchRawStreamDigest() throws Exception {
+		BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.ORANGE);
+		graphics.fillOval(8, 8, 40, 30);
+		graphics.dispose();
+		File jpeg = folder.newFile("expected.jpg");
+		ImageIO.write(image, "jpg", jpeg);
+		File pdf = folder.newFile("jpeg.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			PDImageXObject embedded = JPEGFactory.createFromByteArray(doc, Files.readAllBytes(jpeg.toPath()));
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(embedded, 100, 100);
+			}
+			doc.save(pdf);
+		}
+
+		PdfAssertions.assertThat(pdf).page(1).containsImage(jpeg.getPath());
+	}
+
+	@Test
+	public void givenCandidateRejectedByDictionary_shouldNotDecodeIt() throws Exception {
+		BufferedImage colored = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		colored.setRGB(1, 1, Color.RED.getRGB());
+		try (PDDocument doc = new PDDocument()) {
+			// the stream is no valid flate data, decoding it would fail
+			PDImageXObject gray = new PDImageXObject(doc, new ByteArrayInputStream(new byte[] { 1, 2, 3 }),
+					COSName.FLATE_DECODE, 4, 4, 8, PDDeviceGray.INSTANCE);
+			PDImageXObject larger = new PDImageXObject(doc, new ByteArrayInputStream(new byte[] { 1, 2, 3 }),
+					COSName.FLATE_DECODE, 400, 4, 8, PDDeviceGray.INSTANCE);
+
+			assertThat(EmbeddedImageMatcher.forImage(colored, null).matches(gray, doc)).isFalse();
+			assertThat(EmbeddedImageMatcher.forImage(colored, null).matches(larger, doc)).isFalse();
+		}
+	}
+
+	@Test
+	public void givenImageSharedByAllPages_shouldDecodeItOnce() throws Exception {
+		BufferedImage logo = new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = logo.createGraphics();
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(5, 5, 20, 10);
+		graphics.dispose();
+		File pdf = folder.newFile("logo.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDImageXObject embedded = LosslessFactory.createFromImage(doc, logo);
+			for (int i = 0; i < 3; i++) {
+				PDPage page = new PDPage();
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+					content.drawImage(embedded, 100, 100);
+				}
+			}
+			doc.save(pdf);
+		}
+
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			ExpectedImage expected = ExpectedImage.of(logo);
+			pdfAssert.eachPage(page -> page.containsImage(expected));
+			assertThat(ImageDigestCache.forDocument(pdfAssert.getPdfUnderTest()).size()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void givenRedrawnExpectedImage_shouldCompareNewPixels() throws Exception {
+		BufferedImage logo = new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = logo.createGraphics();
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(5, 5, 20, 10);
+		File pdf = folder.newFile("redrawn.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(LosslessFactory.createFromImage(doc, logo), 100, 100);
+			}
+			doc.save(pdf);
+		}
+
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			ExpectedImage prepared = ExpectedImage.of(logo);
+			pdfAssert.page(1).containsImage(logo).containsImage(prepared);
+			graphics.setColor(Color.RED);
+			graphics.fillRect(0, 0, 5, 5);
+			graphics.dispose();
+
+			assertThatThrownBy(() -> pdfAssert.page(1).containsImage(logo))
+				.isInstanceOf(AssertionError.class)
+				.hasMessageContaining("Expected image not found");
+			// the prepared image is a copy taken before the change
+			pdfAssert.page(1).containsImage(prepared);
+		}
+	}
+
+	@Test
+	public void givenLossyReencodedImage_shouldMatchWithinTolerance() throws Exception {
+		BufferedImage image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.YELLOW, 120, 80, Color.RED));
+		graphics.fillRect(0, 0, 120, 80);
+		graphics.dispose();
+		File pdf = folder.newFile("lossy.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(JPEGFactory.createFromImage(doc, image, 0.7f), 100, 100);
+			}
+			doc.save(pdf);
+		}
+
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			pdfAssert.page(1).containsImage(image, ImageTolerance.minPsnr(30)).containsImage(image, ImageTolerance.minSsim(0.8));
+			assertThatThrownBy(() -> pdfAssert.page(1).containsImage(image))
+				.isInstanceOf(AssertionError.class);
+			assertThatThrownBy(() -> pdfAssert.page(1).containsImage(image, ImageTolerance.maxChannelDelta(0)))
+				.isInstanceOf(AssertionError.class);
+		}
+	}
+
+	@Test
+	public void givenSeveralImagesInRegions_shouldResolveAllInOnePass() throws Exception {
+		Map<String, ImageInRegion> letterhead = new LinkedHashMap<>();
+		letterhead.put("logo", ImageInRegion.of("src/test/resources/img/i_love_pdf.png", MetricRectangle.create(0, 110, 400, 200)));
+		letterhead.put("logo again", ImageInRegion.of(ImageIO.read(new File("src/test/resources/img/i_love_pdf.png")),
+				MetricRectangle.create(0, 110, 400, 200)).withTolerance(ImageTolerance.maxChannelDelta(2)));
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
+			.page(1).containsImagesInRegions(letterhead);
+
+		letterhead.put("seal", ImageInRegion.of("src/test/resources/img/i_love_pdf.png", new Rectangle2D.Double(0, 0, 10, 10)));
+		assertThatThrownBy(() -> PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
+				.page(1).containsImagesInRegions(letterhead))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("1 of 3 expected images not found in their areas: [seal]");
+	}
+
+	@Test
+	public void givenImageOutsideRegion_shouldNotDecodeIt() throws Exception {
+		File pdf = folder.newFile("outside.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			// the stream is no valid flate data, decoding it would fail
+			PDImageXObject broken = new PDImageXObject(doc, new ByteArrayInputStream(new byte[] { 1, 2, 3 }),
+					COSName.FLATE_DECODE, 4, 4, 8, PDDeviceRGB.INSTANCE);
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(broken, 400, 400);
+			}
+			doc.save(pdf);
+		}
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(pdf).page(1)
+				.containsImageInRegion(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), new Rectangle2D.Double(0, 0, 100, 100)))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("could not be found in the specified area");
+	}
+
+	@Test
+	public void givenImageAboveDecodeBudget_shouldCompareStripByStrip() throws Exception {
+		BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.CYAN, 300, 200, Color.MAGENTA));
+		graphics.fillRect(0, 0, 300, 200);
+		graphics.dispose();
+		File pdf = folder.newFile("budget.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(LosslessFactory.createFromImage(doc, image), 100, 100);
+				content.drawImage(JPEGFactory.createFromImage(doc, image, 0.8f), 100, 400);
+			}
+			doc.save(pdf);
+		}
+
+		long budget = PdfAssertions.getImageDecodePixelBudget();
+		PdfAssertions.setImageDecodePixelBudget(5000);
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			pdfAssert.page(1).containsImage(image).containsImage(image, ImageTolerance.minPsnr(30));
+			for (PDImageXObject embedded : new PDImageXObject[] {
+					(PDImageXObject) pdfAssert.getPdfUnderTest().getPage(0).getResources().getXObject(COSName.getPDFName("Im1")),
+					(PDImageXObject) pdfAssert.getPdfUnderTest().getPage(0).getResources().getXObject(COSName.getPDFName("Im2")) }) {
+				try (StripedImage striped = EmbeddedImageDecoder.striped(embedded)) {
+					assertThat(ImageComparator.digest(striped)).isEqualTo(ImageComparator.digest(embedded.getImage()));
+				}
+			}
+		} finally {
+			PdfAssertions.setImageDecodePixelBudget(budget);
+		}
+	}
+
+	@Test
+	public void givenThumbnailOfLargeImage_shouldMatchScaleInvariant() throws Exception {
+		BufferedImage scan = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scan.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, 800, 600, Color.GRAY));
+		graphics.fillRect(0, 0, 800, 600);
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(200, 150, 400, 300);
+		graphics.dispose();
+		BufferedImage thumbnail = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+		graphics = thumbnail.createGraphics();
+		graphics.drawImage(scan.getScaledInstance(200, 150, java.awt.Image.SCALE_AREA_AVERAGING), 0, 0, null);
+		graphics.dispose();
+		File pdf = folder.newFile("scan.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+				content.drawImage(LosslessFactory.createFromImage(doc, scan), 0, 0, 400, 300);
+			}
+			doc.save(pdf);
+		}
+
+		long budget = PdfAssertions.getImageDecodePixelBudget();
+		PdfAssertions.setImageDecodePixelBudget(50000);
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			pdfAssert.page(1).containsImage(thumbnail, ImageTolerance.minPsnr(30).scaleInvariant());
+			assertThatThrownBy(() -> pdfAssert.page(1).containsImage(thumbnail, ImageTolerance.minPsnr(30)))
+				.isInstanceOf(AssertionError.class);
+		} finally {
+			PdfAssertions.setImageDecodePixelBudget(budget);
+		}
+	}
+
+	@Test
+	public void givenFlateImageAboveDecodeBudget_shouldInflateOnceWithoutDecodingWholeStream() throws Exception {
+		BufferedImage image = gradient(300, 200);
+		CountingStream stream = flateImage(image, false);
+		CountingStream predicted = flateImage(image, true);
+
+		long budget = PdfAssertions.getImageDecodePixelBudget();
+		PdfAssertions.setImageDecodePixelBudget(5000);
+		try {
+			try (StripedImage striped = EmbeddedImageDecoder.striped(new PDImageXObject(new PDStream(stream), null))) {
+				assertThat(ImageComparator.digest(striped)).isEqualTo(ImageComparator.digest(image));
+			}
+			assertThat(stream.decodeCount).isZero();
+			assertThat(stream.rawCount).isEqualTo(1);
+
+			// PDFBox cannot apply the predictor incrementally, but the stream is still decoded only once
+			try (StripedImage striped = EmbeddedImageDecoder.striped(new PDImageXObject(new PDStream(predicted), null))) {
+				assertThat(ImageComparator.digest(striped)).isEqualTo(ImageComparator.digest(image));
+			}
+			assertThat(predicted.decodeCount).isEqualTo(1);
+		} finally {
+			PdfAssertions.setImageDecodePixelBudget(budget);
+		}
+	}
+
+	private static BufferedImage gradient(final int pWidth, final int pHeight) {
+		BufferedImage image = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, pWidth, pHeight, Color.BLUE));
+		graphics.fillRect(0, 0, pWidth, pHeight);
+		graphics.dispose();
+		return image;
+	}
+
+	private static CountingStream flateImage(final BufferedImage pImage, final boolean pPredictor) throws IOException {
+		CountingStream stream = new CountingStream();
+		stream.setItem(COSName.TYPE, COSName.XOBJECT);
+		stream.setItem(COSName.SUBTYPE, COSName.IMAGE);
+		stream.setInt(COSName.WIDTH, pImage.getWidth());
+		stream.setInt(COSName.HEIGHT, pImage.getHeight());
+		stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+		stream.setItem(COSName.COLORSPACE, COSName.DEVICERGB);
+		stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+		if (pPredictor) {
+			COSDictionary parameters = new COSDictionary();
+			parameters.setInt(COSName.PREDICTOR, 15);
+			parameters.setInt(COSName.COLORS, 3);
+			parameters.setInt(COSName.COLUMNS, pImage.getWidth());
+			stream.setItem(COSName.DECODE_PARMS, parameters);
+		}
+		try (OutputStream out = new DeflaterOutputStream(stream.createRawOutputStream())) {
+			for (int y = 0; y < pImage.getHeight(); y++) {
+				if (pPredictor) {
+					// PNG predictor "None"
+					out.write(0);
+				}
+				for (int x = 0; x < pImage.getWidth(); x++) {
+					int rgb = pImage.getRGB(x, y);
+					out.write(rgb >> 16);
+					out.write(rgb >> 8);
+					out.write(rgb);
+				}
+			}
+		}
+		return stream;
+	}
+
+	/**
+	 * Image stream counting how often it is decoded by PDFBox and how often its raw data is read.
+	 */
+	private static final class CountingStream extends COSStream {
+
+		private int decodeCount;
+
+		private int rawCount;
+
+		@Override
+		public COSInputStream createInputStream() throws IOException {
+			decodeCount++;
+			return super.createInputStream();
+		}
+
+		@Override
+		public InputStream createRawInputStream() throws IOException {
+			rawCount++;
+			return super.createRawInputStream();
+		}
+	}
 }
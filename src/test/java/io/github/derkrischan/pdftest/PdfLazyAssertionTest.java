@@ -0,0 +1,87 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import io.github.derkrischan.pdftest.page.PaperSize;
+
+/**
+ * Tests for lazily loaded PDF documents.
+ *
+ * @author krischan
+ *
+ */
+public class PdfLazyAssertionTest {
+
+	private static final File LONG_TEXT = new File("src/test/resources/pdf/long_text.pdf");
+
+	@Test
+	public void givenMetadataAssertions_shouldNotLoadDocumentCompletely() {
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(new File("src/test/resources/pdf/dummy.pdf"));
+		pdfAssert.author().isEqualTo("Evangelos Vlachogiannis")
+			.document().creator().isEqualTo("Writer")
+			.document().pageCount().isEqualTo(1);
+
+		assertThat(pdfAssert.isFullyLoaded()).isFalse();
+	}
+
+	@Test
+	public void givenContentAssertion_shouldLoadDocumentCompletely() {
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(LONG_TEXT.getPath());
+		pdfAssert.pageCount().isEqualTo(6)
+			.document().text().contains("Creative Commons Corporation");
+
+		assertThat(pdfAssert.isFullyLoaded()).isTrue();
+	}
+
+	@Test
+	public void givenPageNavigation_shouldLoadDocumentCompletely() {
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(LONG_TEXT.toPath());
+		pdfAssert.pageCount().isEqualTo(6).page(1).hasPaperSize(PaperSize.A4);
+
+		assertThat(pdfAssert.isFullyLoaded()).isTrue();
+	}
+
+	@Test
+	public void givenEncryptedPdf_shouldOpenLazilyWithPassword() throws IOException {
+		PdfAssertions.assertThatLazily(Files.readAllBytes(new File("src/test/resources/pdf/dummy.128.pdf").toPath()), "bar")
+			.pageCount().isEqualTo(1);
+	}
+
+	@Test(expected = AssertionError.class)
+	public void givenEncryptedPdfWithWrongPassword_shouldThrowAssertionError() {
+		PdfAssertions.assertThatLazily(new File("src/test/resources/pdf/dummy.128.pdf"), "wrongPassword");
+	}
+
+	@Test
+	public void givenPdfWithBrokenCrossReferences_shouldFallBackToCompleteLoading() throws IOException {
+		byte[] pdf = Files.readAllBytes(new File("src/test/resources/pdf/dummy.pdf").toPath());
+		byte[] shifted = new byte[pdf.length + 64];
+		System.arraycopy("%garbage\n".getBytes(StandardCharsets.US_ASCII), 0, shifted, 0, 9);
+		System.arraycopy(pdf, 0, shifted, 64, pdf.length);
+
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(shifted);
+
+		assertThat(pdfAssert.isFullyLoaded()).isTrue();
+		pdfAssert.text().contains("Dummy PDF file");
+	}
+
+	@Test
+	public void givenBadObjectOffset_shouldAssertContentOfLenientlyLoadedDocument() {
+		File badOffset = new File("src/test/resources/pdf/dummy_bad_offset.pdf");
+		PdfAssert pdfAssert = PdfAssertions.assertThatLazily(badOffset);
+		pdfAssert.pageCount().isEqualTo(1);
+		assertThat(pdfAssert.isFullyLoaded()).isFalse();
+
+		pdfAssert.text().contains("Dummy PDF file");
+		assertThatThrownBy(() -> PdfAssertions.assertThatLazily(badOffset).doesNotContainText("Dummy PDF file"))
+			.isInstanceOf(AssertionError.class);
+	}
+}
@@ -0,0 +1,171 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.common.PDPageLabelRange;
+import org.apache.pdfbox.pdmodel.common.PDPageLabels;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts.FontName;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the structural comparison of documents.
+ *
+ * @author krischan
+ *
+ */
+public class PdfStructuralAssertionTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private File baseline;
+
+	@Before
+	public void createBaseline() throws IOException {
+		baseline = createPdf("baseline.pdf", true, 2020, FontName.HELVETICA, "Page 2", "Report");
+	}
+
+	@Test
+	public void givenSameContentSavedDifferently_shouldBeStructurallyEqual() throws IOException {
+		File candidate = createPdf("candidate.pdf", false, 2024, FontName.HELVETICA, "Page 2", "Report");
+
+		PdfAssertions.assertThat(candidate).isStructurallyEqualTo(baseline);
+	}
+
+	@Test
+	public void givenChangedFont_shouldReportPathOfFont() throws IOException {
+		File candidate = createPdf("candidate.pdf", true, 2020, FontName.COURIER, "Page 2", "Report");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(candidate).isStructurallyEqualTo(baseline))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Pages/Kids[3]/Resources/Font/F1/BaseFont: expected /Helvetica but was /Courier")
+			.hasMessageNotContaining("Kids[0]");
+	}
+
+	@Test
+	public void givenChangedText_shouldReportContentStream() throws IOException {
+		File candidate = createPdf("candidate.pdf", false, 2020, FontName.HELVETICA, "Page two", "Report");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(candidate).isStructurallyEqualTo(baseline))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Pages/Kids[1]/Contents: stream content differs")
+			.hasMessageNotContaining("Kids[2]");
+	}
+
+	@Test
+	public void givenChangedTitle_shouldReportUnlessIgnored() throws IOException {
+		File candidate = createPdf("candidate.pdf", true, 2020, FontName.HELVETICA, "Page 2", "Invoice");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(candidate).isStructurallyEqualTo(baseline))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Info/Title: expected 'Report' but was 'Invoice'");
+		PdfAssertions.assertThat(candidate).isStructurallyEqualTo(baseline, "Title");
+	}
+
+	@Test
+	public void givenChangedPageLabelPrefix_shouldReportPrefix() throws IOException {
+		File labeledBaseline = createLabeledPdf("labeled-baseline.pdf", "A-");
+		File candidate = createLabeledPdf("candidate.pdf", "B-");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(candidate).isStructurallyEqualTo(labeledBaseline))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("PageLabels/Nums[1]/P: expected 'A-' but was 'B-'");
+	}
+
+	@Test(timeout = 30000)
+	public void givenPagesLinkingEachOther_shouldReportDifferenceInCycle() throws IOException {
+		File linkedBaseline = createLinkedPdf("linked-baseline.pdf", 60, "Page 60");
+		File candidate = createLinkedPdf("candidate.pdf", 60, "Last page");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(candidate).isStructurallyEqualTo(linkedBaseline))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageEndingWith("/Dest[0]/Contents: stream content differs");
+		PdfAssertions.assertThat(createLinkedPdf("copy.pdf", 60, "Page 60")).isStructurallyEqualTo(linkedBaseline);
+	}
+
+	private File createLabeledPdf(final String pName, final String pPrefix) throws IOException {
+		File file = tempFolder.newFile(pName);
+		try (PDDocument doc = new PDDocument()) {
+			doc.addPage(new PDPage());
+			PDPageLabels labels = new PDPageLabels(doc);
+			PDPageLabelRange range = new PDPageLabelRange();
+			range.setPrefix(pPrefix);
+			labels.setLabelItem(0, range);
+			doc.getDocumentCatalog().setPageLabels(labels);
+			doc.save(file);
+		}
+		return file;
+	}
+
+	private File createLinkedPdf(final String pName, final int pPages, final String pLastPageText) throws IOException {
+		File file = tempFolder.newFile(pName);
+		try (PDDocument doc = new PDDocument()) {
+			PDType1Font helvetica = new PDType1Font(FontName.HELVETICA);
+			for (int i = 1; i <= pPages; i++) {
+				PDPage page = new PDPage();
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+					content.beginText();
+					content.setFont(helvetica, 12);
+					content.newLineAtOffset(50, 700);
+					content.showText(i == pPages ? pLastPageText : "Page " + i);
+					content.endText();
+				}
+			}
+			for (int i = 0; i < pPages; i++) {
+				// every page links to the first page and the next two pages, so there are many paths to a page
+				for (int target : new int[] { 0, i + 1, i + 2 }) {
+					if (target < pPages) {
+						PDPageFitDestination destination = new PDPageFitDestination();
+						destination.setPage(doc.getPage(target));
+						PDAnnotationLink link = new PDAnnotationLink();
+						link.setDestination(destination);
+						doc.getPage(i).getAnnotations().add(link);
+					}
+				}
+			}
+			doc.save(file);
+		}
+		return file;
+	}
+
+	private File createPdf(final String pName, final boolean pCompressed, final int pYear, final FontName pLastPageFont,
+			final String pSecondPageText, final String pTitle) throws IOException {
+		File file = tempFolder.newFile(pName);
+		try (PDDocument doc = new PDDocument()) {
+			PDType1Font helvetica = new PDType1Font(FontName.HELVETICA);
+			for (int i = 1; i <= 4; i++) {
+				PDPage page = new PDPage();
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page, AppendMode.OVERWRITE, pCompressed)) {
+					content.beginText();
+					content.setFont(i == 4 ? new PDType1Font(pLastPageFont) : helvetica, 12);
+					content.newLineAtOffset(50, 700);
+					content.showText(i == 2 ? pSecondPageText : "Page " + i);
+					content.endText();
+				}
+			}
+			doc.getDocumentInformation().setTitle(pTitle);
+			doc.getDocumentInformation().setCreationDate(new GregorianCalendar(pYear, Calendar.JANUARY, 1));
+			doc.getDocumentInformation().setModificationDate(new GregorianCalendar(pYear, Calendar.MARCH, 1));
+			doc.save(file, CompressParameters.NO_COMPRESSION);
+		}
+		return file;
+	}
+}
@@ -1,10 +1,21 @@
 package io.github.derkrischan.pdftest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.Test;
 
 import io.github.derkrischan.pdftest.image.MetricRectangle;
+import io.github.derkrischan.pdftest.text.PhraseSet;
+import io.github.derkrischan.pdftest.text.TextExtractionEngine;
 
 /**
  * Tests for PDF text verification.
@@ -33,4 +44,143 @@ public class PdfTextAssertionTest {
 			.pageCount().isBetween(5, 7);
 	}
 
+	@Test
+	public void givenTextOnSomePage_shouldContainText() {
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"))
+			.containsText("Creative Commons Corporation")
+			.doesNotContainText("Lorem ipsum")
+			.containsTextMatching(Pattern.compile("Creative\\s+Commons"));
+	}
+
+	@Test
+	public void givenTextSpanningPageBoundary_shouldFindTextAndReportStartPage() throws IOException {
+		PdfAssert pdfAssert = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"));
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(1);
+		stripper.setEndPage(1);
+		String firstPage = stripper.getText(pdfAssert.getPdfUnderTest());
+		stripper.setStartPage(2);
+		stripper.setEndPage(2);
+		String secondPage = stripper.getText(pdfAssert.getPdfUnderTest());
+		String spanning = firstPage.substring(firstPage.length() - 8) + secondPage.substring(0, 8);
+
+		pdfAssert.containsText(spanning);
+		assertThatThrownBy(() -> pdfAssert.doesNotContainText(spanning))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("found on page 1");
+	}
+
+	@Test
+	public void givenMissingText_shouldFailContainsText() {
+		assertThatThrownBy(() -> PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"))
+			.containsText("Lorem ipsum"))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Lorem ipsum");
+	}
+
+	@Test(expected = AssertionError.class)
+	public void givenNoMatchingText_shouldFailContainsTextMatching() {
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/dummy.pdf"))
+			.containsTextMatching(Pattern.compile("[0-9]{5}"));
+	}
+
+	@Test
+	public void givenRequiredPhrases_shouldContainAllOf() {
+		PhraseSet required = PhraseSet.compile("Creative Commons Corporation", "Attribution", "License");
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"))
+			.text().containsAllOf(required)
+			.containsNoneOf(Arrays.asList("Lorem ipsum", "Dummy PDF file"));
+	}
+
+	@Test
+	public void givenMissingPhrases_shouldReportAllMissingPhrases() {
+		assertThatThrownBy(() -> PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"))
+			.text().containsAllOf(Arrays.asList("Creative Commons Corporation", "Lorem ipsum", "dolor sit amet")))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("2 of 3")
+			.hasMessageContaining("'Lorem ipsum'")
+			.hasMessageContaining("'dolor sit amet'");
+	}
+
+	@Test
+	public void givenForbiddenPhrases_shouldReportPagesOfFirstOccurrence() throws IOException {
+		PdfAssert pdfAssert = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"));
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(4);
+		stripper.setEndPage(4);
+		String pageFour = stripper.getText(pdfAssert.getPdfUnderTest()).trim();
+		String phrase = pageFour.substring(pageFour.length() / 2, pageFour.length() / 2 + 25);
+
+		assertThatThrownBy(() -> pdfAssert.textBetweenPages(2, 6).trim().containsNoneOf(Arrays.asList("Lorem ipsum", phrase)))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("'" + phrase + "' (page 4)");
+	}
+
+	@Test
+	public void givenSeveralRegions_shouldExtractEveryRegionInOnePass() {
+		PdfPageAssert page = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf")).page(1);
+		Map<String, Rectangle2D> regions = new LinkedHashMap<>();
+		regions.put("license", MetricRectangle.create(14, 197, 164, 6));
+		regions.put("page", new Rectangle2D.Double(0, 0, 600, 850));
+		regions.put("empty", new Rectangle2D.Double(0, 0, 1, 1));
+
+		Map<String, StringAssert> texts = page.textInRegions(regions);
+
+		assertThat(texts).containsOnlyKeys("license", "page", "empty");
+		texts.get("license").chomp().startsWith("\"I Love PDF\" by Carles Ivanco");
+		texts.get("page").contains("Test PDF input source");
+		texts.get("empty").isBlank();
+	}
+
+	@Test
+	public void givenSeveralMetricRectangles_shouldExtractEveryRegion() {
+		Map<String, MetricRectangle> regions = new LinkedHashMap<>();
+		regions.put("license", new MetricRectangle(14, 197, 164, 6));
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
+			.page(1).textInRectangles(regions).get("license")
+			.chomp().matches("\"I Love PDF\" by Carles Ivanco is licensed under CC BY-NC 4.0. To view a copy of this license, visit:");
+	}
+
+	@Test
+	public void givenTextInsideRegion_shouldLocateTextFromGlyphIndex() {
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
+			.page(1)
+			.containsTextInRegion("Carles Ivanco is licensed", MetricRectangle.create(14, 197, 164, 6))
+			.containsTextInFont("Carles Ivanco", "LiberationSans")
+			.containsTextWithFontSize("Carles Ivanco", 14f, 0.1f)
+			.textLocations("Carles Ivanco").hasSize(1)
+				.allMatch(box -> MetricRectangle.create(14, 197, 164, 6).contains(box.getX(), box.getMaxY()));
+	}
+
+	@Test
+	public void givenTextOutsideRegion_shouldFailWithRegionText() {
+		PdfPageAssert page = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf")).page(1);
+		assertThatThrownBy(() -> page.containsTextInRegion("Test PDF input source", MetricRectangle.create(14, 197, 164, 6)))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("region contains '\"I Love PDF\" by Carles Ivanco");
+		assertThatThrownBy(() -> page.containsTextInFont("Test PDF", "Courier"))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("[LiberationSans]");
+		page.textLocations("Lorem ipsum").isEmpty();
+	}
+
+	@Test
+	public void givenFastEngine_shouldFindTextWithoutLayoutAnalysis() {
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/long_text.pdf"))
+			.text(TextExtractionEngine.FAST)
+			.contains("Creative Commons Corporation")
+			.doesNotContain("Lorem ipsum")
+			.containsAllOf(Arrays.asList("Attribution-NonCommercial 4.0 International", "creative commons"));
+		PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/pdf_with_image.pdf"))
+			.textBetweenPages(1, 1, TextExtractionEngine.FAST)
+			.contains("\"I Love PDF\" by Carles Ivanco is licensed under CC BY-NC 4.0.");
+	}
+
+	@Test
+	public void givenFastEngine_shouldReportPageOfForbiddenPhrase() {
+		PdfAssert pdfAssert = PdfAssertions.assertThat(ClassLoader.getSystemResourceAsStream("pdf/2_page_dummy.pdf"));
+		assertThatThrownBy(() -> pdfAssert.text(TextExtractionEngine.FAST).containsNoneOf(Arrays.asList("Page 2")))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("'Page 2' (page 2)");
+	}
 }
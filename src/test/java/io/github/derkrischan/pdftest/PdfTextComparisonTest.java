@@ -0,0 +1,164 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts.FontName;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the page by page text comparison of documents.
+ *
+ * @author krischan
+ *
+ */
+public class PdfTextComparisonTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private File expected;
+
+	@Before
+	public void createExpected() throws IOException {
+		expected = createPdf("expected.pdf", "Invoice\nNumber 1", "Item A\nItem B\nItem C", "Total\nThank you");
+	}
+
+	@Test
+	public void givenSameText_shouldPass() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice\nNumber 1", "Item A\nItem B\nItem C", "Total\nThank you");
+
+		PdfAssertions.assertThat(actual).hasSameTextAs(expected);
+	}
+
+	@Test
+	public void givenInsertedPage_shouldReportOnlyInsertedPage() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice\nNumber 1", "Item A\nItem B\nItem C", "Terms",
+				"Total\nThank you");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(actual).hasSameTextAs(expected))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 3 is not in expected.pdf")
+			.hasMessageNotContaining("Page 4")
+			.hasMessageNotContaining("line");
+	}
+
+	@Test
+	public void givenRemovedPage_shouldReportOnlyMissingPage() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice\nNumber 1", "Total\nThank you");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(actual).hasSameTextAs(expected))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 2 of expected.pdf is missing")
+			.hasMessageNotContaining("Page 3")
+			.hasMessageNotContaining("line");
+	}
+
+	@Test
+	public void givenChangedLine_shouldReportLineDifference() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice\nNumber 1", "Item A\nItem X\nItem C", "Total\nThank you");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(actual).hasSameTextAs(expected))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 2 (page 2 of expected.pdf), line 2: missing 'Item B'")
+			.hasMessageContaining("Page 2 (page 2 of expected.pdf), line 2: unexpected 'Item X'")
+			.hasMessageNotContaining("Item A")
+			.hasMessageNotContaining("Page 1");
+	}
+
+	@Test
+	public void givenMaxDifferences_shouldStopEarly() throws IOException {
+		File actual = createPdf("actual.pdf", "Receipt\nNumber 2", "Item D\nItem E\nItem F", "Sum\nBye");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(actual).hasSameTextAs(expected, 1))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("first differences")
+			.hasMessageContaining("Page 1 (page 1 of expected.pdf), line 1: missing 'Invoice'")
+			.hasMessageNotContaining("Receipt")
+			.hasMessageNotContaining("Page 2");
+	}
+
+	@Test
+	public void givenMaxDifferences_shouldNotExtractPagesAfterLastComparedChunk() throws IOException {
+		String[] expectedPages = new String[100];
+		String[] actualPages = new String[100];
+		for (int i = 0; i < expectedPages.length; i++) {
+			expectedPages[i] = "Page " + (i + 1);
+			actualPages[i] = i == 0 ? "Cover" : expectedPages[i];
+		}
+		File expectedFile = createPdf("long-expected.pdf", expectedPages);
+		File actualFile = createPdf("long-actual.pdf", actualPages);
+		try (PDDocument expectedDoc = Loader.loadPDF(expectedFile); PDDocument actualDoc = Loader.loadPDF(actualFile)) {
+			assertThat(TextComparison.compare(actualDoc, expectedDoc, "long-expected.pdf", 1))
+				.containsExactly("Page 1 (page 1 of long-expected.pdf), line 1: missing 'Page 1'");
+
+			assertThat(PageTextCache.forDocument(actualDoc).isCached(1)).isTrue();
+			assertThat(PageTextCache.forDocument(actualDoc).isCached(100)).isFalse();
+			assertThat(PageTextCache.forDocument(expectedDoc).isCached(100)).isFalse();
+		}
+	}
+
+	@Test
+	public void givenParallelExtraction_shouldFindSameDifferences() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice\nNumber 1", "Item A\nItem X\nItem C", "Terms",
+				"Total\nThank you");
+		String sequential = comparisonFailure(actual);
+		PdfAssertions.setTextExtractionParallelism(4);
+		try {
+			assertThat(comparisonFailure(actual)).isEqualTo(sequential);
+		} finally {
+			PdfAssertions.setTextExtractionParallelism(1);
+		}
+	}
+
+	@Test
+	public void givenInvalidMaxDifferences_shouldThrowException() throws IOException {
+		File actual = createPdf("actual.pdf", "Invoice");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(actual).hasSameTextAs(expected, 0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private String comparisonFailure(final File pActual) {
+		try {
+			PdfAssertions.assertThat(pActual).hasSameTextAs(expected);
+		} catch (AssertionError e) {
+			return e.getMessage();
+		}
+		throw new AssertionError("Expected text comparison to fail");
+	}
+
+	private File createPdf(final String pName, final String... pPages) throws IOException {
+		File file = new File(tempFolder.getRoot(), pName);
+		try (PDDocument doc = new PDDocument()) {
+			PDType1Font helvetica = new PDType1Font(FontName.HELVETICA);
+			for (String pageText : pPages) {
+				PDPage page = new PDPage();
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+					content.beginText();
+					content.setFont(helvetica, 12);
+					content.newLineAtOffset(50, 700);
+					for (String line : pageText.split("\n")) {
+						content.showText(line);
+						content.newLineAtOffset(0, -20);
+					}
+					content.endText();
+				}
+			}
+			doc.save(file);
+		}
+		return file;
+	}
+}
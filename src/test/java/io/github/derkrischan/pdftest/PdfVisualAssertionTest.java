@@ -0,0 +1,223 @@
+package io.github.derkrischan.pdftest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.optionalcontent.PDOptionalContentGroup;
+import org.apache.pdfbox.pdmodel.graphics.optionalcontent.PDOptionalContentProperties;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.github.derkrischan.pdftest.image.ImageTolerance;
+import io.github.derkrischan.pdftest.image.MetricRectangle;
+
+/**
+ * Tests for the visual comparison of rendered pages with baseline images.
+ *
+ * @author krischan
+ *
+ */
+public class PdfVisualAssertionTest {
+
+	private static final File TWO_PAGES = new File("src/test/resources/pdf/2_page_dummy.pdf");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void resetSettings() {
+		PdfAssertions.setVisualComparisonParallelism(Runtime.getRuntime().availableProcessors());
+		PdfAssertions.disablePageFingerprints();
+		PdfAssertions.setRenderCache(null);
+	}
+
+	@Test
+	public void givenApprovedBaseline_pageShouldLookLikeIt() throws Exception {
+		File baseline = writeBaseline(0, "page-1.png", false);
+
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null);
+	}
+
+	@Test
+	public void givenChangedBaseline_shouldFailAndWriteDiff() throws Exception {
+		File baseline = writeBaseline(0, "page-1.png", true);
+		PdfAssertions.setVisualComparisonParallelism(3);
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).page(1)
+				.looksLike(baseline.getPath(), 50, ImageTolerance.maxChannelDelta(10)))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 1 does not look like baseline")
+			.hasMessageContaining("max. channel delta 10");
+		BufferedImage diff = ImageIO.read(new File(folder.getRoot(), "page-1.diff.png"));
+		assertThat(diff.getRGB(15, 15)).isEqualTo(Color.RED.getRGB());
+		assertThat(new File(folder.getRoot(), "page-1.actual.png")).exists();
+	}
+
+	@Test
+	public void givenMissingBaseline_shouldFailAndWriteRendering() {
+		File baseline = new File(folder.getRoot(), "new/page-2.png");
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).page(2).looksLike(baseline.getPath(), 50, null))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("baseline " + baseline + " not found");
+		assertThat(new File(folder.getRoot(), "new/page-2.actual.png")).exists();
+	}
+
+	@Test
+	public void givenBaselinesOfAllPages_shouldCompareAllPagesInParallel() throws Exception {
+		writeBaseline(0, "doc-1.png", false);
+		writeBaseline(1, "doc-2.png", false);
+		String pattern = new File(folder.getRoot(), "doc-%d.png").getPath();
+		PdfAssertions.setVisualComparisonParallelism(2);
+
+		PdfAssertions.assertThat(TWO_PAGES).looksLike(pattern, 50, null);
+
+		writeBaseline(1, "doc-2.png", true);
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).looksLike(pattern, 50, ImageTolerance.minPsnr(40)))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("1 of 2 pages do not look like their baselines")
+			.hasMessageContaining("Page 2 does not look like baseline");
+	}
+
+	@Test
+	public void givenCropOfPage_regionShouldLookLikeIt() throws Exception {
+		BufferedImage page;
+		try (PDDocument document = Loader.loadPDF(TWO_PAGES)) {
+			page = PageRenderer.render(document, 0, 100);
+		}
+		// at 100 dpi 50.4pt are 70 pixels, 70.2pt are 97.5 pixels and the region is extended to whole pixels
+		Rectangle2D region = new Rectangle2D.Double(50.4, 70.2, 300, 150);
+		BufferedImage crop = page.getSubimage(70, 97, 417, 209);
+		assertThat(containsInk(crop)).isTrue();
+		File baseline = new File(folder.getRoot(), "region.png");
+		ImageIO.write(crop, "png", baseline);
+
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), region, 100, null);
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).page(2)
+				.looksLike(baseline.getPath(), new MetricRectangle(20, 30, 100, 50), 100, null))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Region [x=56.7, y=85.0, width=283.5, height=141.7] of page 2");
+	}
+
+	@Test
+	public void givenOptionalContentHiddenOnScreen_regionShouldRenderLikePage() throws Exception {
+		try (PDDocument document = new PDDocument()) {
+			PDPage page = new PDPage();
+			document.addPage(page);
+			PDOptionalContentGroup printOnly = new PDOptionalContentGroup("Print only");
+			COSDictionary usage = new COSDictionary();
+			COSDictionary view = new COSDictionary();
+			view.setName(COSName.getPDFName("ViewState"), "OFF");
+			usage.setItem(COSName.getPDFName("View"), view);
+			COSDictionary export = new COSDictionary();
+			export.setName(COSName.getPDFName("ExportState"), "ON");
+			usage.setItem(COSName.getPDFName("Export"), export);
+			printOnly.getCOSObject().setItem(COSName.getPDFName("Usage"), usage);
+			PDOptionalContentProperties properties = new PDOptionalContentProperties();
+			properties.addGroup(printOnly);
+			document.getDocumentCatalog().setOCProperties(properties);
+			try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+				content.beginMarkedContent(COSName.OC, printOnly);
+				content.addRect(100, 500, 100, 100);
+				content.fill();
+				content.endMarkedContent();
+			}
+			Rectangle2D region = new Rectangle2D.Double(50, 150, 200, 200);
+
+			BufferedImage full = PageRenderer.render(document, 0, 72);
+			BufferedImage rendered = PageRenderer.renderRegion(document, 0, region, 72);
+
+			assertThat(full.getRGB(150, 242) & 0xFFFFFF).isZero();
+			assertThat(rendered.getRGB(100, 92)).isEqualTo(full.getRGB(150, 242));
+		}
+	}
+
+	@Test
+	public void givenStoredFingerprint_shouldSkipFullResolutionRendering() throws Exception {
+		File baseline = writeBaseline(0, "page-1.png", false);
+		PageRenderCache cache = new PageRenderCache(folder.newFolder("cache").toPath(), 64 * 1024 * 1024);
+		PdfAssertions.setRenderCache(cache);
+		PdfAssertions.setPageFingerprintThreshold(2);
+
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null);
+		assertThat(new File(folder.getRoot(), "page-1.phash")).exists();
+		assertThat(cache.getMissCount()).isEqualTo(2);
+
+		// only the fingerprint rendering is needed
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null);
+		assertThat(cache.getMissCount()).isEqualTo(2);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+
+		// a re-approved baseline invalidates the fingerprint
+		writeBaseline(0, "page-1.png", true);
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 1 does not look like baseline");
+	}
+
+	@Test
+	public void givenFingerprintOfLenientComparison_shouldCompareStricterAssertionAtFullResolution() throws Exception {
+		File baseline = writeBaseline(0, "page-1.png", true);
+		PdfAssertions.setPageFingerprintThreshold(2);
+
+		PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, ImageTolerance.minPsnr(20));
+		assertThat(new File(folder.getRoot(), "page-1.phash")).exists();
+
+		assertThatThrownBy(() -> PdfAssertions.assertThat(TWO_PAGES).page(1).looksLike(baseline.getPath(), 50, null))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("Page 1 does not look like baseline");
+	}
+
+	@Test
+	public void givenInvalidFingerprintThreshold_shouldThrowException() {
+		assertThatThrownBy(() -> PdfAssertions.setPageFingerprintThreshold(-1))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PdfAssertions.setPageFingerprintThreshold(65))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private File writeBaseline(final int pPageIndex, final String pName, final boolean pChanged) throws IOException {
+		BufferedImage image;
+		try (PDDocument document = Loader.loadPDF(TWO_PAGES)) {
+			image = PageRenderer.render(document, pPageIndex, 50);
+		}
+		if (pChanged) {
+			Graphics2D graphics = image.createGraphics();
+			graphics.setColor(Color.BLACK);
+			graphics.fillRect(10, 10, 40, 40);
+			graphics.dispose();
+		}
+		File baseline = new File(folder.getRoot(), pName);
+		ImageIO.write(image, "png", baseline);
+		return baseline;
+	}
+
+	private static boolean containsInk(final BufferedImage pImage) {
+		for (int y = 0; y < pImage.getHeight(); y++) {
+			for (int x = 0; x < pImage.getWidth(); x++) {
+				if ((pImage.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
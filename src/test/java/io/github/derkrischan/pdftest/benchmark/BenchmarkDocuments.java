@@ -0,0 +1,73 @@
+package io.github.derkrischan.pdftest.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts.FontName;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * Generates synthetic PDF documents of configurable size for the benchmarks.
+ *
+ * @author krischan
+ *
+ */
+final class BenchmarkDocuments {
+
+	/**
+	 * Private constructor to prevent instantiation of utility class.
+	 */
+	private BenchmarkDocuments() {
+		//NOP
+	}
+
+	/**
+	 * Creates a temporary PDF with the given number of text pages. Each page additionally embeds an
+	 * unfiltered grey scale image of the given size to blow up the file size.
+	 *
+	 * @param pPages the number of pages
+	 * @param pImageBytesPerPage size of the embedded image per page in bytes, 0 for text only pages
+	 * @return the created temporary file, deleted on JVM exit
+	 * @throws IOException in case the document cannot be written
+	 */
+	static File createDocument(final int pPages, final int pImageBytesPerPage) throws IOException {
+		File file = File.createTempFile("jpdftest-benchmark", ".pdf");
+		file.deleteOnExit();
+		Random random = new Random(42);
+		PDType1Font font = new PDType1Font(FontName.HELVETICA);
+		try (PDDocument doc = new PDDocument()) {
+			for (int pageNumber = 1; pageNumber <= pPages; pageNumber++) {
+				PDPage page = new PDPage(PDRectangle.A4);
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+					content.beginText();
+					content.setFont(font, 10);
+					content.newLineAtOffset(50, 780);
+					for (int line = 0; line < 60; line++) {
+						content.showText("Page " + pageNumber + " line " + line + " lorem ipsum dolor sit amet " + random.nextInt());
+						content.newLineAtOffset(0, -12);
+					}
+					content.endText();
+					if (pImageBytesPerPage > 0) {
+						byte[] pixels = new byte[pImageBytesPerPage];
+						random.nextBytes(pixels);
+						int width = 1024;
+						PDImageXObject image = new PDImageXObject(doc, new ByteArrayInputStream(pixels), null, width,
+								pImageBytesPerPage / width, 8, PDDeviceGray.INSTANCE);
+						content.drawImage(image, 50, 50, 100, 100);
+					}
+				}
+			}
+			doc.save(file);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,104 @@
+package io.github.derkrischan.pdftest.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.derkrischan.pdftest.image.ImageComparator;
+
+/**
+ * Compares the former per pixel {@link BufferedImage#getRGB(int, int)} loop with the row wise
+ * {@link ImageComparator} for two identical images, the worst case where every pixel has to be compared. The
+ * second image is a different image type than the first one in the mixed case.
+ * <p>
+ * Run via {@link #main(String[])} from the test class path.
+ *
+ * @author krischan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageComparisonBenchmark {
+
+	@Param({ "2000" })
+	public int width;
+
+	@Param({ "3000" })
+	public int height;
+
+	@Param({ "INT_RGB", "3BYTE_BGR", "MIXED" })
+	public String types;
+
+	private BufferedImage imageA;
+
+	private BufferedImage imageB;
+
+	@Setup(Level.Trial)
+	public void createImages() {
+		Random random = new Random(42);
+		BufferedImage original = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				original.setRGB(x, y, random.nextInt());
+			}
+		}
+		int typeA = "INT_RGB".equals(types) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_3BYTE_BGR;
+		int typeB = "3BYTE_BGR".equals(types) ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_INT_RGB;
+		imageA = convert(original, typeA);
+		imageB = convert(original, typeB);
+	}
+
+	@Benchmark
+	public boolean perPixel() {
+		for (int y = 0; y < imageA.getHeight(); y++) {
+			for (int x = 0; x < imageA.getWidth(); x++) {
+				if (imageA.getRGB(x, y) != imageB.getRGB(x, y)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Benchmark
+	public boolean rowWise() {
+		return ImageComparator.isEqual(imageA, imageB);
+	}
+
+	private static BufferedImage convert(final BufferedImage pImage, final int pType) {
+		BufferedImage converted = new BufferedImage(pImage.getWidth(), pImage.getHeight(), pType);
+		Graphics2D graphics = converted.createGraphics();
+		graphics.drawImage(pImage, 0, 0, null);
+		graphics.dispose();
+		return converted;
+	}
+
+	public static void main(final String[] pArgs) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ImageComparisonBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
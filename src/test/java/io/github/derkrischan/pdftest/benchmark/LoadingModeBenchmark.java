@@ -0,0 +1,103 @@
+package io.github.derkrischan.pdftest.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.derkrischan.pdftest.PdfAssertions;
+import io.github.derkrischan.pdftest.io.LoadingMode;
+
+/**
+ * Compares load latency and heap allocation of the {@link LoadingMode}s. The document is opened, every
+ * page's content stream and embedded image stream is read once and the document is closed again.
+ * <p>
+ * Run via {@link #main(String[])} from the test class path. The GC profiler reports the heap allocated
+ * per load as <code>gc.alloc.rate.norm</code>.
+ *
+ * @author krischan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadingModeBenchmark {
+
+	/** approximate size of the generated document in megabytes */
+	@Param({ "64" })
+	public int sizeInMegabytes;
+
+	@Param({ "BUFFERED", "MEMORY_MAPPED" })
+	public LoadingMode loadingMode;
+
+	private File pdf;
+
+	@Setup(Level.Trial)
+	public void createDocument() throws IOException {
+		int pages = 200;
+		pdf = BenchmarkDocuments.createDocument(pages, sizeInMegabytes * 1024 * 1024 / pages);
+	}
+
+	@Benchmark
+	public long loadAndReadAllPages() throws IOException {
+		PDDocument doc = PdfAssertions.assertThat(pdf, null, loadingMode).getPdfUnderTest();
+		long bytes = 0;
+		byte[] buffer = new byte[8192];
+		try {
+			for (PDPage page : doc.getPages()) {
+				bytes += drain(page.getContents(), buffer);
+				for (COSName name : page.getResources().getXObjectNames()) {
+					COSStream stream = page.getResources().getXObject(name).getCOSObject();
+					bytes += drain(stream.createRawInputStream(), buffer);
+				}
+			}
+		} finally {
+			doc.close();
+		}
+		return bytes;
+	}
+
+	private static long drain(final InputStream pStream, final byte[] pBuffer) throws IOException {
+		long count = 0;
+		try (InputStream in = pStream) {
+			int read;
+			while ((read = in.read(pBuffer)) != -1) {
+				count += read;
+			}
+		}
+		return count;
+	}
+
+	public static void main(final String[] pArgs) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(LoadingModeBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
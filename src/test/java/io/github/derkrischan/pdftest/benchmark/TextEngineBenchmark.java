@@ -0,0 +1,72 @@
+package io.github.derkrischan.pdftest.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.derkrischan.pdftest.PdfAssert;
+import io.github.derkrischan.pdftest.PdfAssertions;
+import io.github.derkrischan.pdftest.text.TextExtractionEngine;
+
+/**
+ * Compares the layout text stripper with the content stream scanner for a presence check on a large
+ * document. Every invocation loads the document and extracts the text of all pages.
+ * <p>
+ * Run via {@link #main(String[])} from the test class path.
+ *
+ * @author krischan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TextEngineBenchmark {
+
+	@Param({ "500" })
+	public int pages;
+
+	@Param({ "LAYOUT", "FAST" })
+	public TextExtractionEngine engine;
+
+	private File pdf;
+
+	@Setup(Level.Trial)
+	public void createDocument() throws IOException {
+		pdf = BenchmarkDocuments.createDocument(pages, 0);
+	}
+
+	@Benchmark
+	public PdfAssert containsText() {
+		try (PdfAssert pdfAssert = PdfAssertions.assertThat(pdf)) {
+			pdfAssert.text(engine).contains("Page " + pages + " line 59");
+			return pdfAssert;
+		}
+	}
+
+	public static void main(final String[] pArgs) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TextEngineBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
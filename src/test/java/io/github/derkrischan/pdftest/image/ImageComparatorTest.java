@@ -0,0 +1,117 @@
+package io.github.derkrischan.pdftest.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the row wise image comparison.
+ * 
+ * @author krischan
+ *
+ */
+public class ImageComparatorTest {
+
+	private static final int[] TYPES = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+			BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+			BufferedImage.TYPE_USHORT_565_RGB };
+
+	@Test
+	public void givenSamePixelsInDifferentImageTypes_shouldBeEqual() {
+		BufferedImage original = randomImage(37, 23, BufferedImage.TYPE_INT_RGB);
+		for (int typeA : TYPES) {
+			for (int typeB : TYPES) {
+				BufferedImage imageA = convert(original, typeA);
+				BufferedImage imageB = convert(original, typeB);
+				assertThat(ImageComparator.isEqual(imageA, imageB))
+					.as("type %d vs. type %d", typeA, typeB)
+					.isEqualTo(isEqualPerPixel(imageA, imageB));
+			}
+		}
+		assertThat(ImageComparator.isEqual(convert(original, BufferedImage.TYPE_3BYTE_BGR),
+				convert(original, BufferedImage.TYPE_INT_BGR))).isTrue();
+	}
+
+	@Test
+	public void givenSingleDifferentPixel_shouldNotBeEqual() {
+		for (int type : TYPES) {
+			BufferedImage imageA = convert(randomImage(40, 30, BufferedImage.TYPE_INT_RGB), type);
+			BufferedImage imageB = convert(imageA, type);
+			assertThat(ImageComparator.isEqual(imageA, imageB)).isTrue();
+			imageB.setRGB(39, 29, ~imageB.getRGB(39, 29));
+			assertThat(ImageComparator.isEqual(imageA, imageB)).as("type %d", type).isFalse();
+		}
+	}
+
+	@Test
+	public void givenSubImages_shouldCompareVisiblePixelsOnly() {
+		BufferedImage image = randomImage(50, 50, BufferedImage.TYPE_4BYTE_ABGR);
+		BufferedImage copy = convert(image, BufferedImage.TYPE_INT_ARGB);
+		assertThat(ImageComparator.isEqual(image.getSubimage(10, 20, 15, 12), copy.getSubimage(10, 20, 15, 12))).isTrue();
+		assertThat(ImageComparator.isEqual(image.getSubimage(10, 20, 15, 12), copy.getSubimage(11, 20, 15, 12)))
+			.isEqualTo(isEqualPerPixel(image.getSubimage(10, 20, 15, 12), copy.getSubimage(11, 20, 15, 12)));
+	}
+
+	@Test
+	public void givenDifferentSizes_shouldNotBeEqual() {
+		assertThat(ImageComparator.isEqual(new BufferedImage(2, 3, BufferedImage.TYPE_INT_RGB),
+				new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB))).isFalse();
+	}
+
+	@Test
+	public void givenEqualImagesOfDifferentTypes_shouldHaveSameDigest() {
+		BufferedImage original = randomImage(37, 23, BufferedImage.TYPE_INT_RGB);
+		assertThat(ImageComparator.digest(convert(original, BufferedImage.TYPE_3BYTE_BGR)))
+			.isEqualTo(ImageComparator.digest(convert(original, BufferedImage.TYPE_INT_ARGB)));
+		BufferedImage changed = convert(original, BufferedImage.TYPE_INT_RGB);
+		changed.setRGB(0, 0, ~changed.getRGB(0, 0));
+		assertThat(ImageComparator.digest(changed)).isNotEqualTo(ImageComparator.digest(original));
+	}
+
+	@Test
+	public void givenStripedImage_shouldHaveSameDigestAndDecodeEveryStripOnce() throws Exception {
+		BufferedImage original = randomImage(41, 29, BufferedImage.TYPE_3BYTE_BGR);
+		int[] decodedStrips = new int[1];
+		StripedImage striped = StripedImage.of(41, 29, 8, (firstRow, rows) -> {
+			decodedStrips[0]++;
+			return convert(original.getSubimage(0, firstRow, 41, rows), BufferedImage.TYPE_INT_RGB);
+		});
+
+		assertThat(ImageComparator.digest(striped)).isEqualTo(ImageComparator.digest(original));
+		assertThat(decodedStrips[0]).isEqualTo(4);
+	}
+
+	private static BufferedImage randomImage(final int pWidth, final int pHeight, final int pType) {
+		Random random = new Random(42);
+		BufferedImage image = new BufferedImage(pWidth, pHeight, pType);
+		for (int y = 0; y < pHeight; y++) {
+			for (int x = 0; x < pWidth; x++) {
+				image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage convert(final BufferedImage pImage, final int pType) {
+		BufferedImage converted = new BufferedImage(pImage.getWidth(), pImage.getHeight(), pType);
+		Graphics2D graphics = converted.createGraphics();
+		graphics.drawImage(pImage, 0, 0, null);
+		graphics.dispose();
+		return converted;
+	}
+
+	private static boolean isEqualPerPixel(final BufferedImage pImgA, final BufferedImage pImgB) {
+		for (int y = 0; y < pImgA.getHeight(); y++) {
+			for (int x = 0; x < pImgA.getWidth(); x++) {
+				if (pImgA.getRGB(x, y) != pImgB.getRGB(x, y)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
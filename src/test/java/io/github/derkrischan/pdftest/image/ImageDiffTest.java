@@ -0,0 +1,66 @@
+package io.github.derkrischan.pdftest.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the tiled image comparison.
+ *
+ * @author krischan
+ *
+ */
+public class ImageDiffTest {
+
+	@Test
+	public void givenTiledComparison_shouldAgreeWithFullResolutionComparison() {
+		Random random = new Random(11);
+		BufferedImage image = noise(700, 530, random);
+		BufferedImage changed = noise(700, 530, new Random(11));
+		for (int i = 0; i < 200; i++) {
+			int x = random.nextInt(700);
+			int y = random.nextInt(530);
+			changed.setRGB(x, y, changed.getRGB(x, y) ^ 0x070707);
+		}
+		for (ImageTolerance tolerance : new ImageTolerance[] { ImageTolerance.maxChannelDelta(7),
+				ImageTolerance.maxChannelDelta(6), ImageTolerance.minPsnr(55), ImageTolerance.minPsnr(65),
+				ImageTolerance.minSsim(0.99), ImageTolerance.minSsim(0.99999) }) {
+			for (int parallelism : new int[] { 1, 4 }) {
+				assertThat(ImageDiff.compare(image, changed, tolerance, parallelism).isSimilar())
+					.as("%s on %d threads", tolerance, parallelism)
+					.isEqualTo(tolerance.isSimilarAtFullResolution(image, changed));
+			}
+		}
+		assertThat(ImageDiff.compare(image, changed, null, 2).isSimilar()).isFalse();
+		assertThat(ImageDiff.compare(image, image, null, 2).isSimilar()).isTrue();
+	}
+
+	@Test
+	public void givenDifferentImages_diffImageShouldMarkDifferencesOnly() {
+		BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB);
+		BufferedImage changed = new BufferedImage(30, 25, BufferedImage.TYPE_INT_RGB);
+		changed.setRGB(3, 4, 0xFFFFFF);
+
+		ImageDiff diff = ImageDiff.compare(image, changed, null, 1);
+
+		assertThat(diff.isSimilar()).isFalse();
+		BufferedImage diffImage = diff.createDiffImage();
+		assertThat(diffImage.getHeight()).isEqualTo(25);
+		assertThat(diffImage.getRGB(3, 4)).isEqualTo(0xFFFF0000);
+		assertThat(diffImage.getRGB(0, 22)).isEqualTo(0xFFFF0000);
+		assertThat(diffImage.getRGB(5, 5)).isNotEqualTo(0xFFFF0000);
+	}
+
+	private static BufferedImage noise(final int pWidth, final int pHeight, final Random pRandom) {
+		BufferedImage image = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < pHeight; y++) {
+			for (int x = 0; x < pWidth; x++) {
+				image.setRGB(x, y, pRandom.nextInt(0x1000000) & 0xF0F0F0);
+			}
+		}
+		return image;
+	}
+}
@@ -0,0 +1,145 @@
+package io.github.derkrischan.pdftest.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the tolerant image comparison.
+ * 
+ * @author krischan
+ *
+ */
+public class ImageToleranceTest {
+
+	@Test
+	public void givenNoisyImage_shouldBeSimilarWithinChannelDelta() {
+		BufferedImage image = gradient(300, 200);
+		BufferedImage noisy = addNoise(image, 3, 1);
+		assertThat(ImageTolerance.maxChannelDelta(3).isSimilar(image, noisy)).isTrue();
+		assertThat(ImageTolerance.maxChannelDelta(2).isSimilar(image, noisy)).isFalse();
+	}
+
+	@Test
+	public void givenNoisyImage_shouldBeSimilarWithinPsnrAndSsim() {
+		BufferedImage image = gradient(300, 200);
+		BufferedImage noisy = addNoise(image, 3, 2);
+		assertThat(ImageTolerance.minPsnr(35).isSimilar(image, noisy)).isTrue();
+		assertThat(ImageTolerance.minPsnr(60).isSimilar(image, noisy)).isFalse();
+		assertThat(ImageTolerance.minPsnr(60).isSimilar(image, image)).isTrue();
+		assertThat(ImageTolerance.minSsim(0.9).isSimilar(image, noisy)).isTrue();
+		assertThat(ImageTolerance.minSsim(1).isSimilar(image, image)).isTrue();
+	}
+
+	@Test
+	public void givenDifferentImages_shouldRejectOnPyramid() {
+		BufferedImage image = gradient(300, 200);
+		BufferedImage inverted = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 200; y++) {
+			for (int x = 0; x < 300; x++) {
+				inverted.setRGB(x, y, ~image.getRGB(x, y));
+			}
+		}
+		assertThat(ImageTolerance.maxChannelDelta(20).mayBeSimilar(ImagePyramid.of(image), ImagePyramid.of(inverted))).isFalse();
+		assertThat(ImageTolerance.minPsnr(30).mayBeSimilar(ImagePyramid.of(image), ImagePyramid.of(inverted))).isFalse();
+		assertThat(ImageTolerance.minSsim(0.5).isSimilar(image, new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB))).isFalse();
+		assertThat(ImageTolerance.minPsnr(0).isSimilar(image, new BufferedImage(300, 201, BufferedImage.TYPE_INT_RGB))).isFalse();
+	}
+
+	@Test
+	public void givenSimilarImages_pyramidShouldNeverReject() {
+		Random random = new Random(7);
+		for (int i = 0; i < 50; i++) {
+			int width = 1 + random.nextInt(150);
+			int height = 1 + random.nextInt(150);
+			BufferedImage image = addNoise(gradient(width, height), 40, random.nextLong());
+			BufferedImage other = addNoise(image, 1 + random.nextInt(10), random.nextLong());
+			for (ImageTolerance tolerance : new ImageTolerance[] { ImageTolerance.maxChannelDelta(random.nextInt(12)),
+					ImageTolerance.minPsnr(25 + random.nextInt(20)) }) {
+				if (tolerance.isSimilarAtFullResolution(image, other)) {
+					assertThat(tolerance.mayBeSimilar(ImagePyramid.of(image), ImagePyramid.of(other)))
+						.as("%s for %dx%d", tolerance, width, height).isTrue();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void givenThumbnail_shouldBeSimilarOnlyIfScaleInvariant() {
+		BufferedImage image = gradient(400, 300);
+		BufferedImage thumbnail = gradient(100, 75);
+		ImageTolerance tolerance = ImageTolerance.minPsnr(35);
+		assertThat(tolerance.isSimilar(thumbnail, image)).isFalse();
+		assertThat(tolerance.scaleInvariant().isSimilar(thumbnail, image)).isTrue();
+		assertThat(tolerance.scaleInvariant().acceptsSize(100, 75, 401, 300)).isTrue();
+		assertThat(tolerance.scaleInvariant().acceptsSize(100, 75, 400, 400)).isFalse();
+		assertThat(tolerance.scaleInvariant().isSimilar(thumbnail, gradient(400, 400))).isFalse();
+		assertThat(tolerance.scaleInvariant()).hasToString("min. PSNR 35.0 dB, scale invariant");
+	}
+
+	@Test
+	public void givenStripedImage_shouldCompareStripByStrip() throws Exception {
+		BufferedImage image = gradient(60, 50);
+		BufferedImage noisy = addNoise(image, 3, 5);
+		StripedImage striped = StripedImage.of(60, 50, 7, (firstRow, rows) -> noisy.getSubimage(0, firstRow, 60, rows));
+		assertThat(ImageTolerance.maxChannelDelta(3).isSimilarAtFullResolution(image, striped)).isTrue();
+		assertThat(ImageTolerance.maxChannelDelta(2).isSimilarAtFullResolution(image, striped)).isFalse();
+		assertThat(ImageTolerance.minSsim(0.9).isSimilarAtFullResolution(image, striped)).isTrue();
+	}
+
+	@Test
+	public void givenTolerances_shouldOrderByStrictness() {
+		assertThat(ImageTolerance.isAtLeastAsStrict(null, ImageTolerance.minPsnr(20))).isTrue();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.minPsnr(20), null)).isFalse();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.maxChannelDelta(0), null)).isTrue();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.minPsnr(40), ImageTolerance.minPsnr(30))).isTrue();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.minPsnr(30), ImageTolerance.minPsnr(40))).isFalse();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.maxChannelDelta(2), ImageTolerance.maxChannelDelta(5)))
+			.isTrue();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.maxChannelDelta(5), ImageTolerance.maxChannelDelta(2)))
+			.isFalse();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.minSsim(0.9), ImageTolerance.minPsnr(20))).isFalse();
+		assertThat(ImageTolerance.isAtLeastAsStrict(ImageTolerance.minSsim(0.9).scaleInvariant(),
+				ImageTolerance.minSsim(0.8))).isFalse();
+	}
+
+	@Test
+	public void givenEncodedTolerance_shouldDecodeEqualTolerance() {
+		ImageTolerance tolerance = ImageTolerance.decode(ImageTolerance.minSsim(0.95).scaleInvariant().encode());
+
+		assertThat(tolerance.toString()).isEqualTo("min. SSIM 0.950, scale invariant");
+		assertThatThrownBy(() -> ImageTolerance.decode("SSIM")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static BufferedImage gradient(final int pWidth, final int pHeight) {
+		BufferedImage image = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < pHeight; y++) {
+			for (int x = 0; x < pWidth; x++) {
+				image.setRGB(x, y, (x * 255 / pWidth) << 16 | (y * 255 / pHeight) << 8 | 128);
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage addNoise(final BufferedImage pImage, final int pMaxDelta, final long pSeed) {
+		Random random = new Random(pSeed);
+		BufferedImage noisy = new BufferedImage(pImage.getWidth(), pImage.getHeight(), BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < pImage.getHeight(); y++) {
+			for (int x = 0; x < pImage.getWidth(); x++) {
+				int rgb = pImage.getRGB(x, y);
+				int result = 0;
+				for (int shift = 0; shift <= 16; shift += 8) {
+					int channel = (rgb >> shift) & 0xFF;
+					int changed = Math.max(0, Math.min(255, channel + random.nextInt(2 * pMaxDelta + 1) - pMaxDelta));
+					result |= changed << shift;
+				}
+				noisy.setRGB(x, y, result);
+			}
+		}
+		return noisy;
+	}
+}
@@ -0,0 +1,109 @@
+package io.github.derkrischan.pdftest.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the batch image export.
+ *
+ * @author krischan
+ *
+ */
+public class PdfImageExtracterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** the JPEG file embedded unchanged on every page */
+	private File jpeg;
+
+	/** a document with a shared JPEG and the same lossless image stored twice */
+	private File pdf;
+
+	@Before
+	public void createPdf() throws Exception {
+		BufferedImage photo = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = photo.createGraphics();
+		graphics.setColor(Color.GREEN);
+		graphics.fillOval(5, 5, 30, 20);
+		graphics.dispose();
+		jpeg = folder.newFile("photo.jpg");
+		ImageIO.write(photo, "jpg", jpeg);
+		BufferedImage logo = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+		logo.setRGB(3, 3, Color.RED.getRGB());
+		pdf = folder.newFile("images.pdf");
+		try (PDDocument doc = new PDDocument()) {
+			byte[] jpegBytes = Files.readAllBytes(jpeg.toPath());
+			for (int i = 0; i < 4; i++) {
+				PDPage page = new PDPage();
+				doc.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+					content.drawImage(JPEGFactory.createFromByteArray(doc, jpegBytes), 100, 100);
+					content.drawImage(LosslessFactory.createFromImage(doc, logo), 100, 300);
+				}
+			}
+			doc.save(pdf);
+		}
+	}
+
+	@Test
+	public void givenPassthroughMode_shouldCopyJpegAndExportEveryImageOnce() throws Exception {
+		File target = folder.newFolder("passthrough");
+
+		int exported = PdfImageExtracter.extractAllImagesFromPdfToFolder(pdf.getPath(), target.getPath() + File.separator,
+				ImageExportMode.PASSTHROUGH, 2);
+
+		assertThat(exported).isEqualTo(2);
+		File[] jpegs = target.listFiles((dir, name) -> name.endsWith(".jpg"));
+		assertThat(jpegs).hasSize(1);
+		assertThat(Files.readAllBytes(jpegs[0].toPath())).isEqualTo(Files.readAllBytes(jpeg.toPath()));
+		assertThat(target.listFiles((dir, name) -> name.endsWith(".png"))).hasSize(1);
+	}
+
+	@Test
+	public void givenPngMode_shouldDecodeEveryImageOnce() throws Exception {
+		File target = folder.newFolder("png");
+
+		int exported = PdfImageExtracter.extractAllImagesFromPdfToFolder(pdf.getPath(), target.getPath() + File.separator,
+				ImageExportMode.PNG, 1);
+
+		assertThat(exported).isEqualTo(2);
+		assertThat(target.listFiles((dir, name) -> name.endsWith(".png"))).hasSize(2);
+	}
+
+	@Test
+	public void givenTwoArgumentExport_shouldExportEveryImageOfEveryPage() throws Exception {
+		File target = folder.newFolder("all");
+
+		PdfImageExtracter.extractAllImagesFromPdfToFolder(pdf.getPath(), target.getPath() + File.separator);
+
+		assertThat(target.listFiles((dir, name) -> name.endsWith(".png"))).hasSize(8);
+	}
+
+	@Test
+	public void givenPassthroughMode_shouldLeaveNoTemporaryFiles() throws Exception {
+		File target = folder.newFolder("clean");
+
+		PdfImageExtracter.extractAllImagesFromPdfToFolder(pdf.getPath(), target.getPath() + File.separator,
+				ImageExportMode.PASSTHROUGH, 2);
+
+		assertThat(target.listFiles((dir, name) -> name.endsWith(".tmp"))).isEmpty();
+	}
+}
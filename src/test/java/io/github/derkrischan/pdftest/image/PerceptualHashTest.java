@@ -0,0 +1,51 @@
+package io.github.derkrischan.pdftest.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+/**
+ * Tests for the perceptual hash.
+ *
+ * @author krischan
+ *
+ */
+public class PerceptualHashTest {
+
+	@Test
+	public void givenSameContentAtDifferentResolutions_shouldHaveCloseHashes() {
+		long large = PerceptualHash.of(drawPage(600, 800, false));
+		long small = PerceptualHash.of(drawPage(150, 200, false));
+
+		assertThat(PerceptualHash.distance(large, small)).isLessThanOrEqualTo(2);
+		assertThat(PerceptualHash.distance(large, large)).isZero();
+	}
+
+	@Test
+	public void givenDifferentLayout_shouldHaveDistantHashes() {
+		long page = PerceptualHash.of(drawPage(600, 800, false));
+		long changed = PerceptualHash.of(drawPage(600, 800, true));
+
+		assertThat(PerceptualHash.distance(page, changed)).isGreaterThan(8);
+	}
+
+	private static BufferedImage drawPage(final int pWidth, final int pHeight, final boolean pMovedBlock) {
+		BufferedImage image = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.scale(pWidth / 600.0, pHeight / 800.0);
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, 600, 800);
+		graphics.setColor(Color.DARK_GRAY);
+		graphics.fillRect(50, 50, 200, 60);
+		graphics.fillRect(50, pMovedBlock ? 600 : 300, 500, 150);
+		graphics.fillOval(400, 40, 120, 120);
+		graphics.dispose();
+		return image;
+	}
+}
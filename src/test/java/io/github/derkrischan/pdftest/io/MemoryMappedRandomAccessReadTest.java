@@ -0,0 +1,69 @@
+package io.github.derkrischan.pdftest.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.junit.Test;
+
+/**
+ * Tests for the chunked memory mapped file reader.
+ *
+ * @author krischan
+ *
+ */
+public class MemoryMappedRandomAccessReadTest {
+
+	private static final Path PDF = new File("src/test/resources/pdf/dummy.pdf").toPath();
+
+	@Test
+	public void givenSmallChunks_shouldReadSameBytesAsFile() throws IOException {
+		byte[] expected = Files.readAllBytes(PDF);
+		try (MemoryMappedRandomAccessRead reader = new MemoryMappedRandomAccessRead(PDF, 10)) {
+			assertThat(reader.length()).isEqualTo(expected.length);
+			byte[] actual = new byte[expected.length];
+			int offset = 0;
+			while (offset < actual.length) {
+				offset += reader.read(actual, offset, Math.min(777, actual.length - offset));
+			}
+			assertThat(actual).isEqualTo(expected);
+			assertThat(reader.isEOF()).isTrue();
+			assertThat(reader.read()).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	public void givenPositionAtChunkBorder_shouldSeekAndReadSingleBytes() throws IOException {
+		byte[] expected = Files.readAllBytes(PDF);
+		try (MemoryMappedRandomAccessRead reader = new MemoryMappedRandomAccessRead(PDF, 10)) {
+			reader.seek(1023);
+			assertThat(reader.read()).isEqualTo(expected[1023] & 0xff);
+			assertThat(reader.read()).isEqualTo(expected[1024] & 0xff);
+			assertThat(reader.getPosition()).isEqualTo(1025);
+		}
+	}
+
+	@Test
+	public void givenView_shouldReadIndependentRange() throws IOException {
+		byte[] expected = Files.readAllBytes(PDF);
+		try (MemoryMappedRandomAccessRead reader = new MemoryMappedRandomAccessRead(PDF, 10);
+				RandomAccessRead view = reader.createView(1000, 100)) {
+			byte[] actual = new byte[100];
+			assertThat(view.read(actual, 0, 100)).isEqualTo(100);
+			for (int i = 0; i < actual.length; i++) {
+				assertThat(actual[i]).isEqualTo(expected[1000 + i]);
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void givenClosedReader_shouldFailToRead() throws IOException {
+		MemoryMappedRandomAccessRead reader = new MemoryMappedRandomAccessRead(PDF);
+		reader.close();
+		reader.read();
+	}
+}
@@ -0,0 +1,71 @@
+package io.github.derkrischan.pdftest.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for buffering PDF input streams on heap or disk.
+ *
+ * @author krischan
+ *
+ */
+public class StreamBufferPolicyTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final byte[] pdf;
+
+	public StreamBufferPolicyTest() throws IOException {
+		pdf = Files.readAllBytes(new File("src/test/resources/pdf/dummy.pdf").toPath());
+	}
+
+	@Test
+	public void givenStreamWithinBudget_shouldBufferOnHeap() throws IOException {
+		StreamBufferPolicy policy = StreamBufferPolicy.spillToDiskAbove(pdf.length).withTempDirectory(tempFolder.getRoot());
+		try (RandomAccessRead buffer = policy.buffer(new ByteArrayInputStream(pdf))) {
+			assertThat(buffer).isInstanceOf(RandomAccessReadBuffer.class);
+			assertContent(buffer);
+			assertThat(tempFolder.getRoot().list()).isEmpty();
+		}
+	}
+
+	@Test
+	public void givenStreamAboveBudget_shouldSpillToScratchFileAndDeleteItOnClose() throws IOException {
+		StreamBufferPolicy policy = StreamBufferPolicy.spillToDiskAbove(1000).withTempDirectory(tempFolder.getRoot());
+		RandomAccessRead buffer = policy.buffer(new ByteArrayInputStream(pdf));
+		assertThat(tempFolder.getRoot().list()).hasSize(1);
+		assertContent(buffer);
+		buffer.close();
+		assertThat(tempFolder.getRoot().list()).isEmpty();
+	}
+
+	@Test
+	public void givenTempFileOnlyPolicy_shouldSpillEveryStream() throws IOException {
+		StreamBufferPolicy policy = StreamBufferPolicy.tempFileOnly().withTempDirectory(tempFolder.getRoot());
+		try (RandomAccessRead buffer = policy.buffer(new ByteArrayInputStream(pdf))) {
+			assertThat(tempFolder.getRoot().list()).hasSize(1);
+			assertContent(buffer);
+		}
+	}
+
+	private void assertContent(final RandomAccessRead pBuffer) throws IOException {
+		assertThat(pBuffer.length()).isEqualTo(pdf.length);
+		byte[] actual = new byte[pdf.length];
+		int offset = 0;
+		while (offset < actual.length) {
+			offset += pBuffer.read(actual, offset, actual.length - offset);
+		}
+		assertThat(actual).isEqualTo(pdf);
+	}
+}
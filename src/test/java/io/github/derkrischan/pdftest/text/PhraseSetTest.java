@@ -0,0 +1,67 @@
+package io.github.derkrischan.pdftest.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the compiled multi phrase search.
+ *
+ * @author krischan
+ *
+ */
+public class PhraseSetTest {
+
+	@Test
+	public void givenOverlappingPhrases_shouldFindFirstOccurrenceOfEach() {
+		PhraseSet phrases = PhraseSet.compile("he", "she", "his", "hers", "missing");
+
+		int[] occurrences = phrases.findFirstOccurrences("ushers and his hershey");
+
+		assertThat(occurrences).containsExactly(2, 1, 11, 2, -1);
+	}
+
+	@Test
+	public void givenDuplicateAndEmptyPhrases_shouldCompileDistinctPhrases() {
+		PhraseSet phrases = PhraseSet.compile("a", "", "a");
+
+		assertThat(phrases.getPhrases()).containsExactly("a", "");
+		assertThat(phrases.findFirstOccurrences("ba")).containsExactly(1, 0);
+	}
+
+	@Test
+	public void givenRandomText_shouldFindSameOccurrencesAsIndexOf() {
+		Random random = new Random(7);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			text.append((char) ('a' + random.nextInt(4)));
+		}
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			char[] word = new char[1 + random.nextInt(9)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			words.add(new String(word));
+		}
+		PhraseSet phrases = PhraseSet.compile(words);
+
+		int[] occurrences = phrases.findFirstOccurrences(text);
+
+		int[] expected = new int[phrases.size()];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = text.indexOf(phrases.getPhrases().get(i));
+		}
+		assertThat(occurrences).isEqualTo(expected);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void givenNullPhrase_shouldThrowIllegalArgumentException() {
+		PhraseSet.compile(Arrays.asList("a", null));
+	}
+}